@@ -0,0 +1,94 @@
+/**
+ * BatchWinBenchmark class measures BatchWinChecker with and without the Vector API.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package bench;
+
+import core.BatchWinChecker;
+import core.BitBoard;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * The BatchWinBenchmark class checks a block of positions from random games.
+ * Every parameter runs in its own fork, so the connect4.vector property is set
+ * before BatchWinChecker picks its kernel.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class BatchWinBenchmark {
+    private static final int POSITIONS = 4096;
+
+    @Param({"true", "false"})
+    public String vector;
+
+    private final long[] xStones = new long[POSITIONS];
+    private final long[] oStones = new long[POSITIONS];
+    private final boolean[] wins = new boolean[POSITIONS];
+
+    /**
+     * Picks the kernel and fills the block with positions from random games.
+     */
+    @Setup
+    public void setup() {
+        System.setProperty("connect4.vector", vector);
+        Random random = new Random(42);
+        int filled = 0;
+        while (filled < POSITIONS) {
+            long x = 0;
+            long o = 0;
+            for (int ply = 0; ply < BitBoard.CELLS && filled < POSITIONS; ply++) {
+                long bit = BitBoard.moveBit(x | o, random.nextInt(BitBoard.WIDTH));
+                if (bit == 0) {
+                    continue;
+                }
+                if ((ply & 1) == 0) {
+                    x |= bit;
+                } else {
+                    o |= bit;
+                }
+                xStones[filled] = x;
+                oStones[filled] = o;
+                filled++;
+                if (BitBoard.isWin(x) || BitBoard.isWin(o)) {
+                    break;
+                }
+            }
+        }
+        if (BatchWinChecker.isVectorized() != Boolean.parseBoolean(vector)) {
+            System.err.println("Vector kernel requested: " + vector + ", in use: " + BatchWinChecker.isVectorized());
+        }
+    }
+
+    /**
+     * Checks the whole block.
+     *
+     * @return The number of won positions, so the work is not optimized away.
+     */
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public int winChecker() {
+        return BatchWinChecker.winChecker(xStones, oStones, POSITIONS, wins);
+    }
+}
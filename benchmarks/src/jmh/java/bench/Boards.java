@@ -0,0 +1,95 @@
+/**
+ * Boards class holds the fixed positions the benchmarks run on.
+ * Every suite is built by replaying moves through Connect4Logic so
+ * the boards are always reachable positions.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package bench;
+
+import core.Connect4Logic;
+
+
+/**
+ * The Boards class builds the early, mid and late game suites.
+ * No board in a suite is already won, so every benchmarked call does its full work.
+ */
+public final class Boards {
+    // Columns 1-7 played from the empty board, X first
+    private static final String[] EARLY = {"4", "44", "443", "4435", "43", "3451"};
+    private static final String[] MID = {"4653676156", "16455212475", "214244216772", "4215341561672",
+            "47565336357241"};
+    private static final String[] LATE = {
+            "617414443245741253616537",
+            "65277277764573443242563544",
+            "7176232777171221654466333422",
+            "527473272756247672266356116543",
+            "22662324314514152267534165516314"};
+
+    private Boards() {
+    }
+
+    /**
+     * Gets the boards of a game phase.
+     *
+     * @param phase early, mid or late.
+     * @return Fresh copies of the boards.
+     */
+    public static char[][][] suite(String phase) {
+        String[] games;
+        switch (phase) {
+            case "early":
+                games = EARLY;
+                break;
+            case "mid":
+                games = MID;
+                break;
+            case "late":
+                games = LATE;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown phase " + phase);
+        }
+        char[][][] boards = new char[games.length][][];
+        for (int i = 0; i < games.length; i++) {
+            boards[i] = replay(games[i]);
+        }
+        return boards;
+    }
+
+    /**
+     * Replays a move string and returns the resulting board.
+     *
+     * @param moves Columns 1-7 played from the empty board.
+     * @return The board after the moves.
+     */
+    public static char[][] replay(String moves) {
+        Connect4Logic logic = new Connect4Logic();
+        for (int i = 0; i < moves.length(); i++) {
+            if (!logic.playerMove(moves.charAt(i) - '0')) {
+                throw new IllegalArgumentException("Illegal move " + (i + 1) + " in " + moves);
+            }
+            if (logic.winChecker()) {
+                throw new IllegalArgumentException(moves + " is already won at move " + (i + 1));
+            }
+            logic.playerSwitcher();
+        }
+        return logic.getBoard();
+    }
+
+    /**
+     * Copies a board so a benchmark can change it freely.
+     *
+     * @param board The board to copy.
+     * @return The copy.
+     */
+    public static char[][] copy(char[][] board) {
+        char[][] copy = new char[board.length][];
+        for (int i = 0; i < board.length; i++) {
+            copy[i] = board[i].clone();
+        }
+        return copy;
+    }
+}
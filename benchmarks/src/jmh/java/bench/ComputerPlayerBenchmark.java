@@ -0,0 +1,119 @@
+/**
+ * ComputerPlayerBenchmark class measures the move choice of Connect4ComputerPlayer.
+ * Run with the gc profiler to see allocation per operation next to throughput.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package bench;
+
+import core.Connect4ComputerPlayer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * The ComputerPlayerBenchmark class runs comMove, findWinningMove, findBlockingMove
+ * and getRandomMove over every board of a game phase per operation.
+ * comMoveSearch measures the searching player at a fixed depth; its table stays warm
+ * between invocations, as it does between the moves of a real game.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ComputerPlayerBenchmark {
+    private static final int SEARCH_DEPTH = 6;
+
+    @Param({"early", "mid", "late"})
+    public String phase;
+
+    private char[][][] boards;
+    private Connect4ComputerPlayer player;
+    private Connect4ComputerPlayer searchPlayer;
+
+    /**
+     * Builds the suite and the players.
+     */
+    @Setup
+    public void setup() {
+        boards = Boards.suite(phase);
+        player = new Connect4ComputerPlayer('O');
+        searchPlayer = new Connect4ComputerPlayer('O', SEARCH_DEPTH);
+    }
+
+    /**
+     * Chooses a move on every board with the default player.
+     *
+     * @param bh Consumes the moves.
+     */
+    @Benchmark
+    public void comMove(Blackhole bh) {
+        for (char[][] board : boards) {
+            bh.consume(player.comMove(board));
+        }
+    }
+
+    /**
+     * Chooses a move on every board with the searching player.
+     *
+     * @param bh Consumes the moves.
+     */
+    @Benchmark
+    public void comMoveSearch(Blackhole bh) {
+        for (char[][] board : boards) {
+            bh.consume(searchPlayer.comMove(board));
+        }
+    }
+
+    /**
+     * Looks for a winning move on every board.
+     *
+     * @param bh Consumes the moves.
+     */
+    @Benchmark
+    public void findWinningMove(Blackhole bh) {
+        for (char[][] board : boards) {
+            bh.consume(player.findWinningMove(board));
+        }
+    }
+
+    /**
+     * Looks for a blocking move on every board.
+     *
+     * @param bh Consumes the moves.
+     */
+    @Benchmark
+    public void findBlockingMove(Blackhole bh) {
+        for (char[][] board : boards) {
+            bh.consume(player.findBlockingMove(board));
+        }
+    }
+
+    /**
+     * Picks a random move on every board.
+     *
+     * @param bh Consumes the moves.
+     */
+    @Benchmark
+    public void getRandomMove(Blackhole bh) {
+        for (char[][] board : boards) {
+            bh.consume(player.getRandomMove(board));
+        }
+    }
+}
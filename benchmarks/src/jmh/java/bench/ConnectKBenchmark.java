@@ -0,0 +1,97 @@
+/**
+ * ConnectKBenchmark class measures move and win checking on ConnectKBoard
+ * as the board grows, to show the cost per move stays flat.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package bench;
+
+import core.ConnectKBoard;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * The ConnectKBenchmark class drops a stone in every column of a half full
+ * board, checks it for a win and takes it back, for several board sizes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ConnectKBenchmark {
+
+    @Param({"7x6x4", "9x7x4", "10x10x5", "20x20x5"})
+    public String variant;
+
+    private ConnectKBoard board;
+
+    /**
+     * Builds a board of the variant and fills about half of it without a win.
+     */
+    @Setup
+    public void setup() {
+        String[] parts = variant.split("x");
+        board = new ConnectKBoard(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]),
+                Integer.parseInt(parts[2]));
+        Random random = new Random(42);
+        int target = board.getWidth() * board.getHeight() / 2;
+        // Moves that would win are taken back, give up after enough tries in case every column wins
+        for (int tries = 0; board.getMoveCount() < target && tries < 100 * target; tries++) {
+            int column = 1 + random.nextInt(board.getWidth());
+            if (!board.playerMove(column)) {
+                continue;
+            }
+            if (board.winChecker()) {
+                board.undoMove(column);
+            } else {
+                board.playerSwitcher();
+            }
+        }
+    }
+
+    /**
+     * Plays and takes back every column.
+     *
+     * @return The number of winning moves, so the work is not optimized away.
+     */
+    @Benchmark
+    public int moveAndCheck() {
+        int wins = 0;
+        for (int column = 1; column <= board.getWidth(); column++) {
+            if (board.playerMove(column)) {
+                if (board.winChecker()) {
+                    wins++;
+                }
+                board.undoMove(column);
+            }
+        }
+        return wins;
+    }
+
+    /**
+     * Looks for a winning column for the side to move.
+     *
+     * @return The winning column, or -1.
+     */
+    @Benchmark
+    public int findWinningMove() {
+        return board.findWinningMove(board.getSelectedPlayer());
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * LogicBenchmark class measures the hot paths of Connect4Logic.
+ * Run with the gc profiler to see allocation per operation next to throughput.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package bench;
+
+import core.Connect4Logic;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * The LogicBenchmark class runs playerMove, winChecker and boardChecker
+ * over every board of a game phase per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class LogicBenchmark {
+
+    @Param({"early", "mid", "late"})
+    public String phase;
+
+    private Connect4Logic[] games;
+
+    /**
+     * Builds one Connect4Logic per board of the suite.
+     */
+    @Setup
+    public void setup() {
+        char[][][] boards = Boards.suite(phase);
+        games = new Connect4Logic[boards.length];
+        for (int i = 0; i < boards.length; i++) {
+            games[i] = new Connect4Logic();
+            games[i].setBoard(Boards.copy(boards[i]));
+        }
+    }
+
+    /**
+     * Drops a piece in the middle column of every board and takes it back out,
+     * so the boards are the same for every invocation.
+     *
+     * @return The number of successful moves, so the work is not optimized away.
+     */
+    @Benchmark
+    public int playerMove() {
+        int moved = 0;
+        for (Connect4Logic game : games) {
+            if (game.playerMove(4)) {
+                moved++;
+                char[][] board = game.getBoard();
+                for (int row = 0; row < game.ROWS; row++) {
+                    if (board[row][3] != ' ') {
+                        board[row][3] = ' '; // Undo the move
+                        break;
+                    }
+                }
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Checks every board for a winner.
+     *
+     * @return The number of won boards.
+     */
+    @Benchmark
+    public int winChecker() {
+        int won = 0;
+        for (Connect4Logic game : games) {
+            if (game.winChecker()) {
+                won++;
+            }
+        }
+        return won;
+    }
+
+    /**
+     * Checks every board for a draw.
+     *
+     * @return The number of full boards.
+     */
+    @Benchmark
+    public int boardChecker() {
+        int full = 0;
+        for (Connect4Logic game : games) {
+            if (game.boardChecker()) {
+                full++;
+            }
+        }
+        return full;
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * BatchWinChecker class checks arrays of bitboard positions for a winner,
+ * for bulk jobs like validating archives or scoring playout endings.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package core;
+
+
+/**
+ * The BatchWinChecker class uses the Vector API to check several positions per
+ * instruction when the JVM runs with --add-modules jdk.incubator.vector, and a
+ * scalar loop over BitBoard.isWin otherwise. Both give the same answers.
+ * Set the system property connect4.vector to false to force the scalar loop.
+ */
+public final class BatchWinChecker {
+    private static final boolean VECTOR = vectorAvailable();
+
+    private BatchWinChecker() {
+    }
+
+    /**
+     * Tells whether the Vector API kernel is in use.
+     *
+     * @return True if positions are checked several at a time.
+     */
+    public static boolean isVectorized() {
+        return VECTOR;
+    }
+
+    /**
+     * Checks each position for four in a row by either player,
+     * the same test Connect4Logic.winChecker makes on a grid.
+     *
+     * @param xStones The stones of X in each position, in BitBoard layout.
+     * @param oStones The stones of O in each position.
+     * @param length  The number of positions to check, from the start of the arrays.
+     * @param wins    Receives true for every position that has a line of four.
+     * @return The number of positions with a line of four.
+     */
+    public static int winChecker(long[] xStones, long[] oStones, int length, boolean[] wins) {
+        checkLength(length, xStones.length, oStones.length, wins.length);
+        return VECTOR ? VectorWinKernel.winChecker(xStones, oStones, length, wins)
+                : scalarWinChecker(xStones, oStones, 0, length, wins);
+    }
+
+    /**
+     * Checks the stones of one player in each position for four in a row,
+     * the batch form of BitBoard.isWin.
+     *
+     * @param stones The stones in each position, in BitBoard layout.
+     * @param length The number of positions to check, from the start of the array.
+     * @param wins   Receives true for every position that has a line of four.
+     * @return The number of positions with a line of four.
+     */
+    public static int isWin(long[] stones, int length, boolean[] wins) {
+        checkLength(length, stones.length, stones.length, wins.length);
+        return VECTOR ? VectorWinKernel.isWin(stones, length, wins) : scalarIsWin(stones, 0, length, wins);
+    }
+
+    /**
+     * Checks positions one at a time from index from up to length.
+     * The vector kernel uses it for the positions left over after its last full step.
+     */
+    static int scalarWinChecker(long[] xStones, long[] oStones, int from, int length, boolean[] wins) {
+        int found = 0;
+        for (int i = from; i < length; i++) {
+            wins[i] = BitBoard.isWin(xStones[i]) || BitBoard.isWin(oStones[i]);
+            if (wins[i]) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    static int scalarIsWin(long[] stones, int from, int length, boolean[] wins) {
+        int found = 0;
+        for (int i = from; i < length; i++) {
+            wins[i] = BitBoard.isWin(stones[i]);
+            if (wins[i]) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private static void checkLength(int length, int first, int second, int out) {
+        if (length < 0 || length > first || length > second || length > out) {
+            throw new IllegalArgumentException("Length must fit every array");
+        }
+    }
+
+    private static boolean vectorAvailable() {
+        if (!Boolean.parseBoolean(System.getProperty("connect4.vector", "true"))) {
+            return false;
+        }
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return false;
+        }
+        try {
+            return VectorWinKernel.lanes() > 1; // One lane is no faster than the scalar loop
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+}
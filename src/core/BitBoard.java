@@ -0,0 +1,205 @@
+/**
+ * BitBoard class provides bit level helpers for the standard 7 by 6 board.
+ * A position is stored as two longs, the stones of one player and a mask
+ * of all stones, so moves and win checks are a handful of shifts.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package core;
+
+
+/**
+ * BitBoard holds static helpers for the 7x6 bitboard layout.
+ * Every column uses HEIGHT + 1 bits, bit 0 of a column is its bottom cell and
+ * the extra bit on top is always empty so shifts never bleed into the next column.
+ */
+public final class BitBoard {
+    public static final int WIDTH = 7;
+    public static final int HEIGHT = 6;
+    public static final int H1 = HEIGHT + 1; // Bits per column including the guard bit
+    public static final int CELLS = WIDTH * HEIGHT;
+    public static final long BOTTOM = bottomRow();
+    public static final long FULL = BOTTOM * ((1L << HEIGHT) - 1); // Every playable cell
+
+    private BitBoard() {
+    }
+
+    /**
+     * Gets the bit of the bottom cell of a column.
+     *
+     * @param col The column index, starting at 0.
+     * @return The bottom bit of the column.
+     */
+    public static long bottomMask(int col) {
+        return 1L << (col * H1);
+    }
+
+    /**
+     * Gets the bit of the top playable cell of a column.
+     *
+     * @param col The column index, starting at 0.
+     * @return The top bit of the column.
+     */
+    public static long topMask(int col) {
+        return 1L << (HEIGHT - 1 + col * H1);
+    }
+
+    /**
+     * Gets all playable bits of a column.
+     *
+     * @param col The column index, starting at 0.
+     * @return The bits of the column.
+     */
+    public static long columnMask(int col) {
+        return ((1L << HEIGHT) - 1) << (col * H1);
+    }
+
+    /**
+     * Checks if a column still has an empty cell.
+     *
+     * @param mask All stones on the board.
+     * @param col  The column index, starting at 0.
+     * @return True if a stone can be dropped in the column.
+     */
+    public static boolean canPlay(long mask, int col) {
+        return (mask & topMask(col)) == 0;
+    }
+
+    /**
+     * Gets the bit a stone dropped in a column would land on.
+     *
+     * @param mask All stones on the board.
+     * @param col  The column index, starting at 0.
+     * @return The landing bit, or 0 if the column is full.
+     */
+    public static long moveBit(long mask, int col) {
+        return (mask + bottomMask(col)) & columnMask(col);
+    }
+
+    /**
+     * Checks if a set of stones contains four in a row in any direction.
+     *
+     * @param stones The stones of one player.
+     * @return True if the stones contain a line of four.
+     */
+    public static boolean isWin(long stones) {
+        long m = stones & (stones >>> H1); // Horizontal
+        if ((m & (m >>> (2 * H1))) != 0) {
+            return true;
+        }
+        m = stones & (stones >>> HEIGHT); // Diagonal, up to the left
+        if ((m & (m >>> (2 * HEIGHT))) != 0) {
+            return true;
+        }
+        m = stones & (stones >>> (HEIGHT + 2)); // Diagonal, up to the right
+        if ((m & (m >>> (2 * (HEIGHT + 2)))) != 0) {
+            return true;
+        }
+        m = stones & (stones >>> 1); // Vertical
+        return (m & (m >>> 2)) != 0;
+    }
+
+    /**
+     * Gets a key that is unique for a position and the side to move.
+     *
+     * @param current The stones of the side to move.
+     * @param mask    All stones on the board.
+     * @return The position key.
+     */
+    public static long key(long current, long mask) {
+        return current + mask;
+    }
+
+    /**
+     * Mirrors a bitboard around the middle column.
+     *
+     * @param bits The bits to mirror.
+     * @return The mirrored bits.
+     */
+    public static long mirror(long bits) {
+        long mirrored = 0;
+        for (int col = 0; col < WIDTH; col++) {
+            long column = (bits >>> (col * H1)) & ((1L << H1) - 1);
+            mirrored |= column << ((WIDTH - 1 - col) * H1);
+        }
+        return mirrored;
+    }
+
+    /**
+     * Gets the smaller of the key of a position and the key of its mirror image,
+     * so both sides of a symmetric pair share one entry.
+     *
+     * @param current The stones of the side to move.
+     * @param mask    All stones on the board.
+     * @return The canonical position key.
+     */
+    public static long canonicalKey(long current, long mask) {
+        long key = key(current, mask);
+        long mirrored = key(mirror(current), mirror(mask));
+        return Math.min(key, mirrored);
+    }
+
+    /**
+     * Converts the stones of one symbol on a char board to bits.
+     * Row 0 of the char board is the top row, as in Connect4Logic.
+     *
+     * @param board  The game board, ROWS by COL.
+     * @param symbol The symbol whose stones are collected.
+     * @return The bits of the symbol's stones.
+     */
+    public static long fromBoard(char[][] board, char symbol) {
+        long bits = 0;
+        for (int row = 0; row < HEIGHT; row++) {
+            for (int col = 0; col < WIDTH; col++) {
+                if (board[row][col] == symbol) {
+                    bits |= 1L << (col * H1 + HEIGHT - 1 - row);
+                }
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Writes two sets of stones back to a char board, all other cells become empty.
+     *
+     * @param xStones The stones of player X.
+     * @param oStones The stones of player O.
+     * @param board   The board to fill, ROWS by COL.
+     */
+    public static void toBoard(long xStones, long oStones, char[][] board) {
+        for (int row = 0; row < HEIGHT; row++) {
+            for (int col = 0; col < WIDTH; col++) {
+                long bit = 1L << (col * H1 + HEIGHT - 1 - row);
+                board[row][col] = (xStones & bit) != 0 ? 'X' : (oStones & bit) != 0 ? 'O' : ' ';
+            }
+        }
+    }
+
+    /**
+     * Checks if a char board has the standard 7 by 6 size this class works on.
+     *
+     * @param board The game board.
+     * @return True if the board is 6 rows of 7 columns.
+     */
+    public static boolean fits(char[][] board) {
+        if (board.length != HEIGHT) {
+            return false;
+        }
+        for (char[] row : board) {
+            if (row == null || row.length != WIDTH) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long bottomRow() {
+        long bottom = 0;
+        for (int col = 0; col < WIDTH; col++) {
+            bottom |= bottomMask(col);
+        }
+        return bottom;
+    }
+}
@@ -0,0 +1,184 @@
+/**
+ * Connect4BatchPlayer class chooses computer moves for many boards per call.
+ * It spreads the boards over a fixed set of worker threads, and every worker
+ * keeps its own computer player, search table and scratch board between calls.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package core;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * The Connect4BatchPlayer class is the batch form of Connect4ComputerPlayer.comMove.
+ * Boards are given either as char boards or packed as bitboard pairs
+ * (X stones then O stones per position, in the BitBoard layout).
+ * One batch runs at a time, calls from several threads are serialized.
+ */
+public class Connect4BatchPlayer implements AutoCloseable {
+    private static final int CHUNK = 8; // Boards a worker claims at once
+
+    private final ExecutorService workers;
+    private final Connect4ComputerPlayer[] players; // One per worker, keeps its search table between batches
+    private final char[][][] scratch; // One 7x6 board per worker for packed input
+    private final char symbol;
+
+    /**
+     * Constructs a batch player.
+     *
+     * @param symbol      The symbol representing the computer player.
+     * @param searchDepth The number of plies to search, 0 for the simple play.
+     * @param threads     The number of worker threads.
+     */
+    public Connect4BatchPlayer(char symbol, int searchDepth, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Batch player needs at least one thread");
+        }
+        this.symbol = symbol;
+        players = new Connect4ComputerPlayer[threads];
+        scratch = new char[threads][BitBoard.HEIGHT][BitBoard.WIDTH];
+        for (int i = 0; i < threads; i++) {
+            players[i] = new Connect4ComputerPlayer(symbol, searchDepth);
+        }
+        workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "connect4-batch");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Chooses a move for every board.
+     *
+     * @param boards The boards to move on.
+     * @return The column chosen for each board, as comMove would return it.
+     */
+    public int[] comMoves(char[][][] boards) {
+        if (boards == null) {
+            throw new IllegalArgumentException("Boards cannot be null");
+        }
+        int[] moves = new int[boards.length];
+        run(boards.length, (worker, i) -> moves[i] = players[worker].comMove(boards[i]));
+        return moves;
+    }
+
+    /**
+     * Chooses a move for every packed position.
+     *
+     * @param packed X stones and O stones of each position, two longs per position.
+     * @return The column chosen for each position, as comMove would return it.
+     */
+    public int[] comMoves(long[] packed) {
+        if (packed == null || packed.length % 2 != 0) {
+            throw new IllegalArgumentException("Packed positions must be pairs of longs");
+        }
+        int[] moves = new int[packed.length / 2];
+        comMoves(packed, moves);
+        return moves;
+    }
+
+    /**
+     * Chooses a move for every packed position into a caller owned array,
+     * so repeated batches do not allocate a result array.
+     *
+     * @param packed X stones and O stones of each position, two longs per position.
+     * @param moves  Receives the column chosen for each position.
+     */
+    public void comMoves(long[] packed, int[] moves) {
+        if (packed == null || moves == null || packed.length != moves.length * 2) {
+            throw new IllegalArgumentException("Need one move slot per packed position");
+        }
+        run(moves.length, (worker, i) -> {
+            char[][] board = scratch[worker];
+            BitBoard.toBoard(packed[2 * i], packed[2 * i + 1], board);
+            moves[i] = players[worker].comMove(board);
+        });
+    }
+
+    /**
+     * Runs a job over indices 0 to count - 1 on all workers and waits for it.
+     * If the caller is interrupted, the workers stop after the board they are on and
+     * are waited for, so no worker still uses its player or scratch board once this returns.
+     */
+    private synchronized void run(int count, Job job) {
+        if (count == 0) {
+            return;
+        }
+        int threads = Math.min(players.length, (count + CHUNK - 1) / CHUNK);
+        AtomicInteger next = new AtomicInteger();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(threads);
+        RuntimeException[] failure = new RuntimeException[1];
+        for (int w = 0; w < threads; w++) {
+            int worker = w;
+            workers.execute(() -> {
+                try {
+                    int start;
+                    while (!cancelled.get() && (start = next.getAndAdd(CHUNK)) < count) {
+                        int end = Math.min(start + CHUNK, count);
+                        for (int i = start; i < end && !cancelled.get(); i++) {
+                            job.run(worker, i);
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    synchronized (failure) {
+                        failure[0] = e;
+                    }
+                    cancelled.set(true); // Stop the other workers early
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        InterruptedException interrupted = null;
+        while (true) {
+            try {
+                done.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = e;
+                cancelled.set(true); // Then wait for the boards in progress
+            }
+        }
+        if (interrupted != null) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the batch", interrupted);
+        }
+        synchronized (failure) {
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+        }
+    }
+
+    /**
+     * Gets the symbol representing the computer player.
+     *
+     * @return The symbol representing the computer player.
+     */
+    public char getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Stops the worker threads.
+     */
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Work done for one board of a batch.
+     */
+    private interface Job {
+        void run(int worker, int index);
+    }
+}
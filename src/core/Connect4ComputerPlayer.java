@@ -11,7 +11,7 @@
 
 package core;
 
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 
 /**
@@ -21,6 +21,14 @@ import java.util.Random;
 public class Connect4ComputerPlayer {
 
     private final char symbol; // Symbol representing the computer player on the board
+    private final int searchDepth; // Plies to look ahead, 0 keeps the win/block/random play
+    private final Difficulty difficulty; // Node budget and noise of each move, null to search by depth
+    private Connect4Search search; // Created on the first searched move
+    private int tableBits = Connect4Search.DEFAULT_TABLE_BITS; // Size of the table the search is created with
+    private EndgameBitbase bitbase; // Probed by the search, or null
+    private int lastScore; // Score of the last searched move
+    private final SearchStats stats = SearchStats.global(); // Every move is recorded here
+    private final TimeManager timeManager = new TimeManager(); // Budgets moves played on a clock
 
     /**
      * Constructs a Connect4ComputerPlayer with the specified symbol.
@@ -28,7 +36,40 @@ public class Connect4ComputerPlayer {
      * @param symbol The symbol representing the computer player.
      */
     public Connect4ComputerPlayer(char symbol) {
+        this(symbol, 0);
+    }
+
+    /**
+     * Constructs a Connect4ComputerPlayer that looks ahead when it moves.
+     * Only standard 7 by 6 boards are searched, other sizes use the simple play.
+     *
+     * @param symbol      The symbol representing the computer player.
+     * @param searchDepth The number of plies to search, 0 for the simple play.
+     */
+    public Connect4ComputerPlayer(char symbol, int searchDepth) {
+        if (searchDepth < 0) {
+            throw new IllegalArgumentException("Search depth cannot be negative");
+        }
         this.symbol = symbol;
+        this.searchDepth = searchDepth;
+        this.difficulty = null;
+    }
+
+    /**
+     * Constructs a Connect4ComputerPlayer that plays at a difficulty level.
+     * Each move searches the level's node budget with the level's evaluation noise,
+     * so it plays the same on every machine. Only standard 7 by 6 boards are searched.
+     *
+     * @param symbol     The symbol representing the computer player.
+     * @param difficulty The level to play at.
+     */
+    public Connect4ComputerPlayer(char symbol, Difficulty difficulty) {
+        if (difficulty == null) {
+            throw new IllegalArgumentException("Difficulty cannot be null");
+        }
+        this.symbol = symbol;
+        this.searchDepth = BitBoard.CELLS;
+        this.difficulty = difficulty;
     }
 
     /**
@@ -38,9 +79,90 @@ public class Connect4ComputerPlayer {
      * @return The column where the computer player makes its move.
      */
     public int comMove(char[][] board) {
+        return move(board, null, 0);
+    }
+
+    /**
+     * Makes a move by the computer player on a game clock.
+     * The search depth becomes a limit and the time manager decides how long to think.
+     *
+     * @param board The current state of the game board.
+     * @param clock The game clock, whose time for this player may already be running, or null for no clock.
+     * @return The column where the computer player makes its move.
+     */
+    public int comMove(char[][] board, GameClock clock) {
+        return move(board, clock, 0);
+    }
+
+    /**
+     * Makes a move by the computer player within a time budget, such as one set by a load controller.
+     * The search depth becomes a limit and the search stops once the budget is used.
+     *
+     * @param board       The current state of the game board.
+     * @param budgetNanos The most time the search may take, in nanoseconds.
+     * @return The column where the computer player makes its move.
+     */
+    public int comMove(char[][] board, long budgetNanos) {
+        if (budgetNanos <= 0) {
+            throw new IllegalArgumentException("Time budget must be positive");
+        }
+        return move(board, null, budgetNanos);
+    }
+
+    /**
+     * Makes a move on a clock, on a time budget or at full depth, and records it.
+     */
+    private int move(char[][] board, GameClock clock, long budgetNanos) {
         if (board == null) {
             throw new IllegalArgumentException("Board cannot be null");
         }
+        Connect4Events.ComputerMove event = null;
+        if (Connect4Events.recording()) {
+            event = new Connect4Events.ComputerMove();
+            event.begin();
+        }
+        long start = System.nanoTime();
+        boolean searched = searchDepth > 0 && BitBoard.fits(board);
+        int column = searched ? searchMove(board, clock, budgetNanos) : simpleMove(board);
+        long nanos = System.nanoTime() - start;
+        if (searched) {
+            stats.recordMove(nanos, search.getNodes(), search.getCompletedDepth(),
+                    search.getTableProbes(), search.getTableHits(), column);
+        } else {
+            stats.recordMove(nanos, 0, 0, 0, 0, column);
+        }
+        if (event != null) {
+            recordEvent(event, board, column, searched);
+        }
+        return column;
+    }
+
+    /**
+     * Commits the Flight Recorder event of a move, if it is enabled and took long enough.
+     */
+    private void recordEvent(Connect4Events.ComputerMove event, char[][] board, int column, boolean searched) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.player = symbol;
+            event.column = column;
+            if (searched) {
+                long current = BitBoard.fromBoard(board, symbol);
+                event.positionKey = BitBoard.key(current, current | BitBoard.fromBoard(board, symbol == 'X' ? 'O' : 'X'));
+                event.depth = search.getCompletedDepth();
+                event.nodes = search.getNodes();
+                event.score = lastScore;
+            }
+            event.commit();
+        }
+    }
+
+    /**
+     * Plays a winning move, else blocks the opponent, else moves randomly.
+     *
+     * @param board The current state of the game board.
+     * @return The column where the computer player makes its move.
+     */
+    private int simpleMove(char[][] board) {
         // Check if there is a winning move available
         int winningMove = findWinningMove(board);
         if (winningMove != -1) {
@@ -54,6 +176,67 @@ public class Connect4ComputerPlayer {
         return getRandomMove(board);
     }
 
+    /**
+     * Chooses a move by searching ahead on the bitboard form of the board.
+     *
+     * @param board       The current state of the game board, 7 by 6.
+     * @param clock       The game clock, or null.
+     * @param budgetNanos The time budget without a clock, or 0 to search to the full depth.
+     * @return The column of the best move, or -1 if the board is full.
+     */
+    private int searchMove(char[][] board, GameClock clock, long budgetNanos) {
+        if (search == null) {
+            search = new Connect4Search(new TranspositionTable(tableBits));
+            if (difficulty != null) {
+                search.setNoise(difficulty.getNoise(), ThreadLocalRandom.current().nextLong());
+            }
+        }
+        search.setBitbase(bitbase);
+        long nodeBudget = difficulty == null ? 0 : difficulty.getNodeBudget();
+        char opponentSymbol = (symbol == 'X') ? 'O' : 'X';
+        long current = BitBoard.fromBoard(board, symbol);
+        long mask = current | BitBoard.fromBoard(board, opponentSymbol);
+        int column;
+        if (clock != null && Long.bitCount(mask) < BitBoard.CELLS) {
+            timeManager.allocate(clock, symbol, Long.bitCount(mask));
+            column = search.search(current, mask, searchDepth, timeManager.getSoftNanos(), timeManager.getHardNanos(),
+                    nodeBudget);
+        } else if (budgetNanos > 0) {
+            column = search.search(current, mask, searchDepth, budgetNanos, budgetNanos, nodeBudget);
+        } else {
+            column = search.search(current, mask, searchDepth, 0, 0, nodeBudget);
+        }
+        lastScore = search.getBestScore();
+        return column < 0 ? -1 : column + 1;
+    }
+
+    /**
+     * Sets the size of the transposition table built on the first searched move, so
+     * a server running many bots at once can give each a smaller one.
+     *
+     * @param bits The log2 of the number of table entries.
+     * @throws IllegalStateException If the table has already been built.
+     */
+    public void setTableBits(int bits) {
+        if (bits < 1 || bits > 30) {
+            throw new IllegalArgumentException("Table size must be between 2^1 and 2^30 entries");
+        }
+        if (search != null) {
+            throw new IllegalStateException("The search table has already been built");
+        }
+        tableBits = bits;
+    }
+
+    /**
+     * Sets an endgame bitbase for the search to probe, so late positions it holds are
+     * settled exactly. Only searching players use it.
+     *
+     * @param bitbase The bitbase, or null for none.
+     */
+    public void setBitbase(EndgameBitbase bitbase) {
+        this.bitbase = bitbase;
+    }
+
     /**
      * Generates a random valid move for the computer player.
      *
@@ -64,7 +247,7 @@ public class Connect4ComputerPlayer {
         if (board == null) {
             throw new IllegalArgumentException("Board cannot be null");
         }
-        Random random = new Random();
+        ThreadLocalRandom random = ThreadLocalRandom.current(); // Shared per thread, so picking a move allocates nothing
         int maxAttempts = 100; // Limit the maximum number of attempts
         int attempts = 0;
         while (attempts < maxAttempts) {
@@ -277,5 +460,32 @@ public class Connect4ComputerPlayer {
         return symbol;
     }
 
+    /**
+     * Gets the search depth of the computer player.
+     *
+     * @return The number of plies searched, 0 for the simple play.
+     */
+    public int getSearchDepth() {
+        return searchDepth;
+    }
+
+    /**
+     * Gets the difficulty level of the computer player.
+     *
+     * @return The level, or null if the player searches by depth.
+     */
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    /**
+     * Gets the score of the last searched move, positive when the computer is better.
+     *
+     * @return The score of the last searched move.
+     */
+    public int getLastScore() {
+        return lastScore;
+    }
+
 
 }
@@ -0,0 +1,202 @@
+/**
+ * Connect4Events class holds the JDK Flight Recorder event types for games,
+ * moves, searches and cache evictions.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.StackTrace;
+
+import java.util.List;
+
+
+/**
+ * The Connect4Events class groups the events under the "Connect 4" category.
+ * Every event is disabled by default, and no event is even created unless a Flight
+ * Recorder recording is running, so the game and search code costs one
+ * field read per event when nobody is recording. Timed events are begun before the
+ * work and committed after it, so their JFR duration is the time taken and the
+ * threshold setting of a recording applies to them.
+ * To record them, enable them by name in a recording, e.g.
+ * {@code jfr configure +connect4.SearchIteration#enabled=true --output connect4.jfc}
+ * and start the JVM with {@code -XX:StartFlightRecording:settings=connect4.jfc}.
+ */
+public final class Connect4Events {
+    private static volatile boolean running;
+
+    static {
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override
+            public void recordingStateChanged(Recording recording) {
+                running = anyRunning(FlightRecorder.getFlightRecorder().getRecordings());
+            }
+        });
+        if (FlightRecorder.isInitialized()) { // Started from the command line before this class loaded
+            running = anyRunning(FlightRecorder.getFlightRecorder().getRecordings());
+        }
+    }
+
+    private Connect4Events() {
+    }
+
+    private static boolean anyRunning(List<Recording> recordings) {
+        for (Recording recording : recordings) {
+            if (recording.getState() == RecordingState.RUNNING) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tells whether a Flight Recorder recording is running in this JVM.
+     * Check it before creating an event.
+     *
+     * @return True while a recording is running.
+     */
+    public static boolean recording() {
+        return running;
+    }
+
+    /**
+     * A game was set up on an empty board.
+     */
+    @Name("connect4.GameStart")
+    @Label("Game Start")
+    @Category("Connect 4")
+    @Enabled(false)
+    @StackTrace(false)
+    public static final class GameStart extends Event {
+    }
+
+    /**
+     * A game was won or drawn, lasting from the board being set up to the end.
+     */
+    @Name("connect4.GameEnd")
+    @Label("Game End")
+    @Category("Connect 4")
+    @Enabled(false)
+    @StackTrace(false)
+    public static final class GameEnd extends Event {
+        @Label("Winner")
+        @Description("X or O, or a space for a draw")
+        public char winner;
+
+        @Label("Moves")
+        public int moves;
+    }
+
+    /**
+     * A stone was dropped by either player.
+     */
+    @Name("connect4.Move")
+    @Label("Move")
+    @Category("Connect 4")
+    @Enabled(false)
+    @StackTrace(false)
+    public static final class Move extends Event {
+        @Label("Player")
+        public char player;
+
+        @Label("Column")
+        @Description("Column from 1 to 7")
+        public int column;
+
+        @Label("Move Number")
+        public int moveNumber;
+
+        @Label("Position Key")
+        @Description("BitBoard key of the position after the move, 0 for boards of another size")
+        public long positionKey;
+    }
+
+    /**
+     * The computer player chose a column, lasting as long as it thought.
+     */
+    @Name("connect4.ComputerMove")
+    @Label("Computer Move")
+    @Category("Connect 4")
+    @Enabled(false)
+    @StackTrace(false)
+    public static final class ComputerMove extends Event {
+        @Label("Player")
+        public char player;
+
+        @Label("Column")
+        @Description("Column from 1 to 7")
+        public int column;
+
+        @Label("Position Key")
+        @Description("BitBoard key of the position searched, 0 when no search was run")
+        public long positionKey;
+
+        @Label("Depth")
+        public int depth;
+
+        @Label("Nodes")
+        public long nodes;
+
+        @Label("Score")
+        public int score;
+    }
+
+    /**
+     * One iteration of iterative deepening finished, lasting as long as the iteration.
+     */
+    @Name("connect4.SearchIteration")
+    @Label("Search Iteration")
+    @Category("Connect 4")
+    @Enabled(false)
+    @StackTrace(false)
+    public static final class SearchIteration extends Event {
+        @Label("Position Key")
+        public long positionKey;
+
+        @Label("Depth")
+        public int depth;
+
+        @Label("Nodes")
+        @Description("Positions visited by the search so far, across iterations")
+        public long nodes;
+
+        @Label("Best Column")
+        @Description("Column starting at 0, or -1")
+        public int bestMove;
+
+        @Label("Score")
+        public int score;
+    }
+
+    /**
+     * A cached result was dropped to make room for a new one.
+     */
+    @Name("connect4.CacheEviction")
+    @Label("Cache Eviction")
+    @Category("Connect 4")
+    @Enabled(false)
+    @StackTrace(false)
+    public static final class CacheEviction extends Event {
+        @Label("Cache")
+        public String cache;
+
+        @Label("Position Key")
+        public long positionKey;
+
+        @Label("Size")
+        @Description("Entries held when the eldest was dropped")
+        public int size;
+    }
+}
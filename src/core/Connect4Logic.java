@@ -18,6 +18,8 @@ public class Connect4Logic {
     public final int ROWS = 6;
     private char selectedPlayer;
     private char[][] board;
+    private int moveCount; // Stones dropped since the board was set up
+    private Connect4Events.GameEnd gameEvent; // Begun when the board was set up, null if nobody was recording
 
     /**
      * Constructor for Connect4Logic initializes the game board and sets the initial player.
@@ -37,6 +39,34 @@ public class Connect4Logic {
                 board[i][j] = ' ';
             }
         }
+        moveCount = 0;
+        gameEvent = null;
+        if (Connect4Events.recording()) {
+            new Connect4Events.GameStart().commit();
+            gameEvent = new Connect4Events.GameEnd();
+            gameEvent.begin();
+        }
+    }
+
+    /**
+     * Marks the game as over so it shows up on a Flight Recorder timeline.
+     * Call it once, after winChecker or boardChecker ended the game. A game set up
+     * before Flight Recorder started has no event.
+     *
+     * @param winner The symbol of the winner, or ' ' for a draw.
+     */
+    public void endGame(char winner) {
+        Connect4Events.GameEnd event = gameEvent;
+        if (event == null) {
+            return;
+        }
+        gameEvent = null;
+        event.end();
+        if (event.shouldCommit()) {
+            event.winner = winner;
+            event.moves = moveCount;
+            event.commit();
+        }
     }
 
 
@@ -53,12 +83,62 @@ public class Connect4Logic {
         for (int i = ROWS - 1; i >= 0; i--) {
             if (board[i][column - 1] == ' ') {
                 board[i][column - 1] = selectedPlayer;
+                moveCount++;
+                if (Connect4Events.recording()) {
+                    moveEvent(column);
+                }
                 return true;
             }
         }
         return false; // Column is full
     }
 
+    /**
+     * Takes back the last move made in a column by removing its top piece.
+     *
+     * @param column The column number where the last move was made.
+     * @return True if a piece was removed, false if the column is empty or out of range.
+     */
+    public boolean undoMove(int column) {
+        if (column < 1 || column > COL) {
+            return false;
+        }
+        for (int i = 0; i < ROWS; i++) {
+            if (board[i][column - 1] != ' ') {
+                board[i][column - 1] = ' ';
+                moveCount--;
+                return true;
+            }
+        }
+        return false; // Column is empty
+    }
+
+    /**
+     * Emits a Flight Recorder event for the move just made, if the event is enabled.
+     */
+    private void moveEvent(int column) {
+        Connect4Events.Move event = new Connect4Events.Move();
+        if (event.shouldCommit()) {
+            event.player = selectedPlayer;
+            event.column = column;
+            event.moveNumber = moveCount;
+            event.positionKey = positionKey();
+            event.commit();
+        }
+    }
+
+    /**
+     * Gets the BitBoard key of the board with the other player to move.
+     */
+    private long positionKey() {
+        if (!BitBoard.fits(board)) {
+            return 0;
+        }
+        char next = selectedPlayer == 'X' ? 'O' : 'X';
+        long current = BitBoard.fromBoard(board, next);
+        return BitBoard.key(current, current | BitBoard.fromBoard(board, selectedPlayer));
+    }
+
     /**
      * Checks if the current player has won the game by forming a vertical, horizontal, or diagonal line of 4.
      *
@@ -0,0 +1,625 @@
+/**
+ * Connect4Search class provides a look ahead search for the computer player.
+ * It is a negamax alpha-beta search over bitboards with iterative deepening
+ * and a transposition table, scoring leaf positions by open lines.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package core;
+
+import java.util.Arrays;
+
+
+/**
+ * The Connect4Search class searches a bitboard position for the best column.
+ * An instance keeps its transposition table between searches and is meant
+ * to be used by one thread at a time.
+ */
+public class Connect4Search {
+    public static final int WIN_SCORE = 100000; // Score of winning right now, minus one per ply to get there
+    public static final int DEFAULT_TABLE_BITS = 20;
+    private static final int MATE_BOUND = WIN_SCORE - 64; // Scores beyond this are forced wins or losses
+    private static final int INFINITY = WIN_SCORE + 1;
+    private static final int[] ORDER = {3, 2, 4, 1, 5, 0, 6}; // Center columns first
+    public static final int FEATURES = 5; // Terms of the evaluation, see features
+    // 69 lines, 6 center cells and 21 parity cells at MAX_WEIGHT each give at most 96,000,
+    // so an evaluation plus MAX_NOISE never reaches MATE_BOUND and passes for a forced result
+    public static final int MAX_WEIGHT = 1000;
+    public static final int MAX_NOISE = 64; // The largest noise amplitude, as much as any Difficulty uses
+    private static final int[] DEFAULT_WEIGHTS = {1, 4, 32, 3, 0}; // Open lines of 1 to 3 stones, center, parity threats
+    private static final long CENTER = BitBoard.columnMask(BitBoard.WIDTH / 2);
+    private static final long X_ROWS = BitBoard.BOTTOM * 0b010101; // Rows 1, 3 and 5 counted from 1, good threats for X
+    private static final long O_ROWS = BitBoard.BOTTOM * 0b101010; // Rows 2, 4 and 6, good threats for O
+    private static final int UNSTABLE_DROP = 32; // Score drop between iterations that marks a critical position, an open three
+    private static final int TIME_CHECK_NODES = 1023; // Look at the clock every 1024 nodes
+    private static final long[] LINES = lines();
+
+    private final SearchTable table;
+    private long nodes;
+    private int bestMove = -1;
+    private int bestScore;
+    private int completedDepth;
+    private long tableProbes; // Table lookups of the last search
+    private long tableHits;
+    private boolean limited; // Whether the running iteration may be aborted
+    private boolean timeLimited; // Whether the deadline applies
+    private long deadline; // System.nanoTime after which a timed iteration is aborted
+    private long nodeLimit = Long.MAX_VALUE; // Nodes the whole search may visit
+    private boolean stopped; // Set once a limit is reached, the iteration's result is dropped
+    private int noiseAmplitude; // Largest evaluation noise, 0 for none
+    private long noiseSeed;
+    private EndgameBitbase bitbase; // Exact values of late positions, or null
+    private long bitbaseHits; // Positions of the last search settled by the bitbase
+    private int[] weights = DEFAULT_WEIGHTS; // Never changed in place, replaced by setWeights
+
+    /**
+     * Constructs a search with a table of the default size.
+     */
+    public Connect4Search() {
+        this(new TranspositionTable(DEFAULT_TABLE_BITS));
+    }
+
+    /**
+     * Constructs a search using the given transposition table.
+     *
+     * @param table The table to read and write results to.
+     */
+    public Connect4Search(SearchTable table) {
+        if (table == null) {
+            throw new IllegalArgumentException("Table cannot be null");
+        }
+        this.table = table;
+    }
+
+    /**
+     * Searches a position, deepening one ply at a time up to maxDepth.
+     * The search stops early once the result is a forced win or loss.
+     *
+     * @param current  The stones of the side to move.
+     * @param mask     All stones on the board.
+     * @param maxDepth The deepest search in plies.
+     * @return The best column starting at 0, or -1 if the board is full.
+     */
+    public int search(long current, long mask, int maxDepth) {
+        return search(current, mask, maxDepth, 0, 0);
+    }
+
+    /**
+     * Searches a position on a time budget, deepening one ply at a time up to maxDepth.
+     * No iteration starts once half of the soft limit has passed, since the next one
+     * would take longer than all before it. When the best move changes or the score
+     * drops between iterations, the soft limit is stretched toward the hard limit.
+     * An iteration still running at the hard limit is aborted and its result dropped.
+     * The first iteration always completes, so there is always a move.
+     * With a soft limit of 0 there is no time limit.
+     *
+     * @param current   The stones of the side to move.
+     * @param mask      All stones on the board.
+     * @param maxDepth  The deepest search in plies.
+     * @param softNanos The time the search should normally take.
+     * @param hardNanos The time after which the search is aborted.
+     * @return The best column starting at 0, or -1 if the board is full.
+     */
+    public int search(long current, long mask, int maxDepth, long softNanos, long hardNanos) {
+        return search(current, mask, maxDepth, softNanos, hardNanos, 0);
+    }
+
+    /**
+     * Searches a position on a node budget, deepening one ply at a time up to maxDepth.
+     * The iteration that would visit node nodeBudget + 1 is aborted and its result dropped,
+     * so a search never visits more nodes than its budget and the same position always
+     * costs the same work on any machine. The first iteration, at most one node per
+     * column, always completes.
+     *
+     * @param current    The stones of the side to move.
+     * @param mask       All stones on the board.
+     * @param maxDepth   The deepest search in plies.
+     * @param nodeBudget The most nodes to visit, at least BitBoard.WIDTH.
+     * @return The best column starting at 0, or -1 if the board is full.
+     */
+    public int searchNodes(long current, long mask, int maxDepth, long nodeBudget) {
+        return search(current, mask, maxDepth, 0, 0, nodeBudget);
+    }
+
+    /**
+     * Searches a position on a time budget, a node budget or both.
+     * See the time and node budget searches for how each limit works.
+     *
+     * @param current    The stones of the side to move.
+     * @param mask       All stones on the board.
+     * @param maxDepth   The deepest search in plies.
+     * @param softNanos  The time the search should normally take, 0 for no time limit.
+     * @param hardNanos  The time after which the search is aborted.
+     * @param nodeBudget The most nodes to visit, 0 for no node limit.
+     * @return The best column starting at 0, or -1 if the board is full.
+     */
+    public int search(long current, long mask, int maxDepth, long softNanos, long hardNanos, long nodeBudget) {
+        if (softNanos < 0 || hardNanos < softNanos) {
+            throw new IllegalArgumentException("Time limits must satisfy 0 <= soft <= hard");
+        }
+        if (nodeBudget != 0 && nodeBudget < BitBoard.WIDTH) {
+            throw new IllegalArgumentException("Node budget must be 0 or at least " + BitBoard.WIDTH);
+        }
+        long searchStart = System.nanoTime();
+        nodes = 0;
+        bestMove = -1;
+        bestScore = 0;
+        completedDepth = 0;
+        stopped = false;
+        limited = false;
+        timeLimited = softNanos > 0;
+        deadline = searchStart + hardNanos;
+        nodeLimit = nodeBudget > 0 ? nodeBudget : Long.MAX_VALUE;
+        bitbaseHits = 0;
+        long soft = softNanos;
+        long probesBefore = table.getProbes();
+        long hitsBefore = table.getHits();
+        if ((mask & BitBoard.FULL) != BitBoard.FULL) {
+            int empty = BitBoard.CELLS - Long.bitCount(mask);
+            int limit = Math.min(maxDepth, empty);
+            if ((timeLimited || nodeBudget > 0) && Long.bitCount((mask + BitBoard.BOTTOM) & BitBoard.FULL & ~mask) == 1) {
+                limit = Math.min(limit, 1); // Only one column left, nothing to think about
+            }
+            for (int depth = 1; depth <= limit; depth++) {
+                int previousMove = bestMove;
+                int previousScore = bestScore;
+                limited = (timeLimited || nodeBudget > 0) && depth > 1;
+                Connect4Events.SearchIteration event = null;
+                if (Connect4Events.recording()) {
+                    event = new Connect4Events.SearchIteration();
+                    event.begin();
+                }
+                int score = root(current, mask, depth);
+                if (stopped) {
+                    break;
+                }
+                completedDepth = depth;
+                if (event != null) {
+                    iterationEvent(event, current, mask, depth, score);
+                }
+                if (Math.abs(score) > MATE_BOUND) {
+                    break;
+                }
+                if (timeLimited) {
+                    if (depth > 1 && (bestMove != previousMove || score < previousScore - UNSTABLE_DROP)) {
+                        soft = Math.min(hardNanos, soft + soft / 2); // Critical position, think longer
+                    }
+                    if ((System.nanoTime() - searchStart) * 2 > soft) {
+                        break;
+                    }
+                }
+            }
+        }
+        limited = false;
+        nodeLimit = Long.MAX_VALUE;
+        tableProbes = table.getProbes() - probesBefore;
+        tableHits = table.getHits() - hitsBefore;
+        return bestMove;
+    }
+
+    /**
+     * Commits the Flight Recorder event of a finished iteration, if it is enabled and took long enough.
+     */
+    private void iterationEvent(Connect4Events.SearchIteration event, long current, long mask, int depth, int score) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.positionKey = BitBoard.key(current, mask);
+            event.depth = depth;
+            event.nodes = nodes;
+            event.bestMove = bestMove;
+            event.score = score;
+            event.commit();
+        }
+    }
+
+    private int root(long current, long mask, int depth) {
+        int ttMove = TranspositionTable.move(table.probe(BitBoard.key(current, mask)));
+        int alpha = -INFINITY;
+        int move = -1;
+        for (int i = -1; i < BitBoard.WIDTH; i++) {
+            int col = i < 0 ? ttMove : ORDER[i];
+            if (col < 0 || (i >= 0 && col == ttMove)) {
+                continue;
+            }
+            long bit = BitBoard.moveBit(mask, col);
+            if (bit == 0) {
+                continue;
+            }
+            int score;
+            if (BitBoard.isWin(current | bit)) {
+                score = WIN_SCORE - 1;
+            } else {
+                long next = mask | bit;
+                score = -negamax((current | bit) ^ next, next, depth - 1, -INFINITY, -alpha, 1);
+                if (stopped) {
+                    return 0;
+                }
+            }
+            if (score > alpha) {
+                alpha = score;
+                move = col;
+            }
+        }
+        bestMove = move;
+        bestScore = alpha;
+        table.store(BitBoard.key(current, mask), alpha, depth, TranspositionTable.EXACT, move);
+        return alpha;
+    }
+
+    private int negamax(long current, long mask, int depth, int alpha, int beta, int ply) {
+        if (limited && (nodes >= nodeLimit
+                || timeLimited && (nodes & TIME_CHECK_NODES) == 0 && System.nanoTime() - deadline > 0)) {
+            stopped = true;
+        }
+        if (stopped) {
+            return 0;
+        }
+        nodes++;
+        if ((mask & BitBoard.FULL) == BitBoard.FULL) {
+            return 0; // Draw
+        }
+        for (int col = 0; col < BitBoard.WIDTH; col++) {
+            long bit = BitBoard.moveBit(mask, col);
+            if (bit != 0 && BitBoard.isWin(current | bit)) {
+                return WIN_SCORE - ply - 1;
+            }
+        }
+        if (bitbase != null) {
+            int value = bitbase.probe(current, mask);
+            if (value != EndgameBitbase.UNKNOWN) {
+                bitbaseHits++;
+                // The bitbase has no distances, so a win counts as won on the last cell
+                return value * (WIN_SCORE - ply - (BitBoard.CELLS - Long.bitCount(mask)));
+            }
+        }
+        if (depth <= 0) {
+            return noiseAmplitude == 0 ? evaluate(current, mask, weights)
+                    : evaluate(current, mask, weights) + noise(BitBoard.key(current, mask));
+        }
+        long key = BitBoard.key(current, mask);
+        long entry = table.probe(key);
+        int ttMove = -1;
+        if (entry != 0) {
+            ttMove = TranspositionTable.move(entry);
+            if (TranspositionTable.depth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+        int alphaOrig = alpha;
+        int best = -INFINITY;
+        int bestCol = -1;
+        for (int i = -1; i < BitBoard.WIDTH; i++) {
+            int col = i < 0 ? ttMove : ORDER[i];
+            if (col < 0 || (i >= 0 && col == ttMove)) {
+                continue;
+            }
+            long bit = BitBoard.moveBit(mask, col);
+            if (bit == 0) {
+                continue;
+            }
+            long next = mask | bit;
+            int score = -negamax((current | bit) ^ next, next, depth - 1, -beta, -alpha, ply + 1);
+            if (stopped) {
+                return 0; // Not a real score, keep it out of the table
+            }
+            if (score > best) {
+                best = score;
+                bestCol = col;
+            }
+            if (best > alpha) {
+                alpha = best;
+            }
+            if (alpha >= beta) {
+                break;
+            }
+        }
+        int bound = best <= alphaOrig ? TranspositionTable.UPPER
+                : best >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+        table.store(key, toTable(best, ply), depth, bound, bestCol);
+        return best;
+    }
+
+    /**
+     * Gets a tag of everything that decides the scores this search stores: the win score,
+     * its evaluation weights and its noise. A table snapshot is only loaded into a search
+     * with the tag it was saved with, so scores of another evaluation are never reused.
+     *
+     * @return The engine tag.
+     */
+    public long engineTag() {
+        long h = engineTag(weights);
+        if (noiseAmplitude != 0) {
+            h = ((h * 31 + noiseAmplitude) * 31 + noiseSeed) * 0x9E3779B97F4A7C15L;
+            h ^= h >>> 32;
+        }
+        return h;
+    }
+
+    /**
+     * Gets the engine tag of a search without noise that uses the given weights,
+     * for a table opened before its searches exist.
+     *
+     * @param weights The evaluation weights, one per feature.
+     * @return The engine tag.
+     */
+    public static long engineTag(int[] weights) {
+        if (weights == null || weights.length != FEATURES) {
+            throw new IllegalArgumentException("Expected " + FEATURES + " weights");
+        }
+        long h = WIN_SCORE;
+        h = h * 31 + FEATURES;
+        h = h * 31 + Arrays.hashCode(weights);
+        h *= 0x9E3779B97F4A7C15L;
+        return h ^ h >>> 32;
+    }
+
+    /**
+     * Sets the bitbase probed at every node that has no immediate win, before the
+     * depth is looked at, so a search that reaches it stops there with the exact value.
+     *
+     * @param bitbase The bitbase, or null to stop probing.
+     */
+    public void setBitbase(EndgameBitbase bitbase) {
+        this.bitbase = bitbase;
+    }
+
+    /**
+     * Gets the evaluation weights every search starts with.
+     *
+     * @return A copy of the default weights, one per feature.
+     */
+    public static int[] defaultWeights() {
+        return DEFAULT_WEIGHTS.clone();
+    }
+
+    /**
+     * Replaces the evaluation weights, for tuning. Entries stored with other weights
+     * stay in the table, so clear it or give the search a table of its own.
+     *
+     * @param weights One weight per feature, each at most MAX_WEIGHT either way.
+     */
+    public void setWeights(int[] weights) {
+        if (weights == null || weights.length != FEATURES) {
+            throw new IllegalArgumentException("Weights must have " + FEATURES + " entries");
+        }
+        for (int weight : weights) {
+            if (Math.abs(weight) > MAX_WEIGHT) {
+                throw new IllegalArgumentException("Weights must be between -" + MAX_WEIGHT + " and " + MAX_WEIGHT);
+            }
+        }
+        this.weights = weights.clone();
+    }
+
+    /**
+     * Gets the evaluation weights of this search.
+     *
+     * @return A copy of the weights, one per feature.
+     */
+    public int[] getWeights() {
+        return weights.clone();
+    }
+
+    /**
+     * Adds noise to the evaluation of every leaf, to make the bot weaker in a natural way.
+     * The noise of a position is fixed for a seed, so transpositions agree with each other
+     * and with the table, and a game can be replayed.
+     *
+     * @param amplitude The largest noise added or taken away, 0 to turn noise off, at most MAX_NOISE.
+     * @param seed      Picks the noise of each position.
+     */
+    public void setNoise(int amplitude, long seed) {
+        if (amplitude < 0 || amplitude > MAX_NOISE) {
+            throw new IllegalArgumentException("Noise amplitude must be between 0 and " + MAX_NOISE);
+        }
+        noiseAmplitude = amplitude;
+        noiseSeed = seed;
+    }
+
+    /**
+     * Gets the noise of a position, from a mix of its key and the seed.
+     */
+    private int noise(long key) {
+        long h = (key ^ noiseSeed) * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 29;
+        h *= 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 32;
+        return (int) Math.floorMod(h, 2L * noiseAmplitude + 1) - noiseAmplitude;
+    }
+
+    /**
+     * Scores a position for the side to move by counting lines of four
+     * that only one player can still complete, plus a bonus for center stones,
+     * using the default weights.
+     *
+     * @param current The stones of the side to move.
+     * @param mask    All stones on the board.
+     * @return The score, positive when the side to move is better.
+     */
+    public static int evaluate(long current, long mask) {
+        return evaluate(current, mask, DEFAULT_WEIGHTS);
+    }
+
+    /**
+     * Scores a position as the sum of its features times the weights.
+     * The parity term is left out while its weight is 0, it is the costly one.
+     */
+    private static int evaluate(long current, long mask, int[] weights) {
+        long opponent = current ^ mask;
+        int score = 0;
+        for (long line : LINES) {
+            int mine = Long.bitCount(current & line);
+            int theirs = Long.bitCount(opponent & line);
+            if (theirs == 0) {
+                if (mine != 0) {
+                    score += weights[mine - 1];
+                }
+            } else if (mine == 0) {
+                score -= weights[theirs - 1];
+            }
+        }
+        score += weights[3] * (Long.bitCount(current & CENTER) - Long.bitCount(opponent & CENTER));
+        return weights[4] == 0 ? score : score + weights[4] * parityThreats(current, mask);
+    }
+
+    /**
+     * Gets the evaluation features of a position for the side to move, so the
+     * evaluation is the sum of the features times the weights:
+     * <pre>
+     * 0  open lines holding one stone of the side to move, less those of the other side
+     * 1  the same for two stones
+     * 2  the same for three stones
+     * 3  center column stones of the side to move, less those of the other side
+     * 4  threats on rows that favour their owner by zugzwang, the side to move's less the other's
+     * </pre>
+     * X, who moves first, wins a filled up column fight with a threat on an odd row
+     * counted from 1, and O with one on an even row.
+     *
+     * @param current  The stones of the side to move.
+     * @param mask     All stones on the board.
+     * @param features Receives the FEATURES values.
+     */
+    public static void features(long current, long mask, int[] features) {
+        long opponent = current ^ mask;
+        Arrays.fill(features, 0, FEATURES, 0);
+        for (long line : LINES) {
+            int mine = Long.bitCount(current & line);
+            int theirs = Long.bitCount(opponent & line);
+            if (theirs == 0) {
+                if (mine != 0) {
+                    features[mine - 1]++;
+                }
+            } else if (mine == 0) {
+                features[theirs - 1]--;
+            }
+        }
+        features[3] = Long.bitCount(current & CENTER) - Long.bitCount(opponent & CENTER);
+        features[4] = parityThreats(current, mask);
+    }
+
+    /**
+     * Counts the threats of the side to move on its good rows, less the other side's on theirs.
+     */
+    private static int parityThreats(long current, long mask) {
+        boolean xToMove = (Long.bitCount(mask) & 1) == 0;
+        long mine = ProofNumberSolver.winningCells(current, mask) & (xToMove ? X_ROWS : O_ROWS);
+        long theirs = ProofNumberSolver.winningCells(current ^ mask, mask) & (xToMove ? O_ROWS : X_ROWS);
+        return Long.bitCount(mine) - Long.bitCount(theirs);
+    }
+
+    /**
+     * Forced win scores are stored relative to the stored position instead of the root.
+     */
+    private static int toTable(int score, int ply) {
+        return score > MATE_BOUND ? score + ply : score < -MATE_BOUND ? score - ply : score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        return score > MATE_BOUND ? score - ply : score < -MATE_BOUND ? score + ply : score;
+    }
+
+    /**
+     * Builds the masks of every line of four on the board.
+     */
+    private static long[] lines() {
+        int[][] directions = {{1, 0}, {0, 1}, {1, 1}, {1, -1}};
+        long[] found = new long[BitBoard.CELLS * directions.length];
+        int count = 0;
+        for (int col = 0; col < BitBoard.WIDTH; col++) {
+            for (int row = 0; row < BitBoard.HEIGHT; row++) {
+                for (int[] d : directions) {
+                    int endCol = col + 3 * d[0];
+                    int endRow = row + 3 * d[1];
+                    if (endCol >= BitBoard.WIDTH || endRow < 0 || endRow >= BitBoard.HEIGHT) {
+                        continue;
+                    }
+                    long line = 0;
+                    for (int k = 0; k < 4; k++) {
+                        line |= 1L << ((col + k * d[0]) * BitBoard.H1 + row + k * d[1]);
+                    }
+                    found[count++] = line;
+                }
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Gets the score of the last search from the point of view of the side that moved.
+     *
+     * @return The score of the best move.
+     */
+    public int getBestScore() {
+        return bestScore;
+    }
+
+    /**
+     * Gets the best column of the last search.
+     *
+     * @return The best column starting at 0, or -1.
+     */
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    /**
+     * Gets the number of positions the last search settled from the bitbase.
+     *
+     * @return The bitbase hit count.
+     */
+    public long getBitbaseHits() {
+        return bitbaseHits;
+    }
+
+    /**
+     * Gets the number of positions visited by the last search.
+     *
+     * @return The node count.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Gets the deepest iteration the last search finished.
+     *
+     * @return The completed depth in plies.
+     */
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    /**
+     * Gets the number of transposition table lookups of the last search.
+     *
+     * @return The probe count.
+     */
+    public long getTableProbes() {
+        return tableProbes;
+    }
+
+    /**
+     * Gets the number of transposition table lookups of the last search that found their position.
+     *
+     * @return The hit count.
+     */
+    public long getTableHits() {
+        return tableHits;
+    }
+
+    /**
+     * Gets the transposition table of this search.
+     *
+     * @return The table.
+     */
+    public SearchTable getTable() {
+        return table;
+    }
+}
@@ -0,0 +1,352 @@
+/**
+ * ConnectKBoard class provides the game logic for Connect K variants:
+ * any number of columns and rows, won by K in a row.
+ * The board is a multi-word bitboard and every line of K cells is turned
+ * into masks once, when the board is built.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package core;
+
+import java.util.Arrays;
+
+
+/**
+ * The ConnectKBoard class keeps each player's stones in an array of longs,
+ * using height + 1 bits per column like BitBoard, so columns never touch.
+ * For every cell it knows the lines of K that pass through it, so dropping
+ * a stone and checking it for a win costs the same on a 7x6 board and a 20x20 one.
+ * Columns are numbered from 1 and players are 'X' and 'O', as in Connect4Logic.
+ */
+public class ConnectKBoard {
+    public static final int MAX_SIZE = 64; // Most columns or rows a board can have
+    private static final int[][] DIRECTIONS = {{1, 0}, {0, 1}, {1, 1}, {1, -1}};
+
+    private final int width;
+    private final int height;
+    private final int k;
+    private final int h1; // Bits per column including the guard bit
+    private final long[] xStones;
+    private final long[] oStones;
+    private final int[] heights; // Stones in each column
+    // Lines of K, each stored as (word, bits) pairs: line l uses pairs lineStart[l] to lineStart[l + 1]
+    private final int[] lineStart;
+    private final int[] lineWords;
+    private final long[] lineBits;
+    // Lines through each cell: cell c is on lines cellLines[cellLineStart[c]] to cellLines[cellLineStart[c + 1] - 1]
+    private final int[] cellLineStart;
+    private final int[] cellLines;
+    private char selectedPlayer = 'X';
+    private int moveCount;
+    private boolean won; // Whether the last move completed a line
+
+    /**
+     * Constructs an empty board.
+     *
+     * @param width  The number of columns, from 1 to MAX_SIZE.
+     * @param height The number of rows, from 1 to MAX_SIZE.
+     * @param k      The number of stones in a row that wins, at least 2 and fitting on the board.
+     */
+    public ConnectKBoard(int width, int height, int k) {
+        if (width < 1 || width > MAX_SIZE || height < 1 || height > MAX_SIZE) {
+            throw new IllegalArgumentException("Columns and rows must be between 1 and " + MAX_SIZE);
+        }
+        if (k < 2 || k > Math.max(width, height)) {
+            throw new IllegalArgumentException("K must be at least 2 and fit on the board");
+        }
+        this.width = width;
+        this.height = height;
+        this.k = k;
+        this.h1 = height + 1;
+        int words = (width * h1 + 63) >>> 6;
+        xStones = new long[words];
+        oStones = new long[words];
+        heights = new int[width];
+
+        // Collect every line of K as a list of cells, then pack each into word masks
+        int[][] lines = new int[width * height * DIRECTIONS.length][];
+        int lineCount = 0;
+        int[] linesPerCell = new int[width * h1];
+        for (int col = 0; col < width; col++) {
+            for (int row = 0; row < height; row++) {
+                for (int[] d : DIRECTIONS) {
+                    int endCol = col + (k - 1) * d[0];
+                    int endRow = row + (k - 1) * d[1];
+                    if (endCol >= width || endRow < 0 || endRow >= height) {
+                        continue;
+                    }
+                    int[] cells = new int[k];
+                    for (int i = 0; i < k; i++) {
+                        cells[i] = (col + i * d[0]) * h1 + row + i * d[1];
+                        linesPerCell[cells[i]]++;
+                    }
+                    lines[lineCount++] = cells;
+                }
+            }
+        }
+        lineStart = new int[lineCount + 1];
+        int[] pairWords = new int[lineCount * k];
+        long[] pairBits = new long[lineCount * k];
+        int pairs = 0;
+        for (int l = 0; l < lineCount; l++) {
+            lineStart[l] = pairs;
+            for (int cell : lines[l]) {
+                int word = cell >>> 6;
+                if (pairs == lineStart[l] || pairWords[pairs - 1] != word) {
+                    pairWords[pairs++] = word;
+                }
+                pairBits[pairs - 1] |= 1L << (cell & 63);
+            }
+        }
+        lineStart[lineCount] = pairs;
+        lineWords = Arrays.copyOf(pairWords, pairs);
+        lineBits = Arrays.copyOf(pairBits, pairs);
+
+        cellLineStart = new int[width * h1 + 1];
+        for (int cell = 0; cell < width * h1; cell++) {
+            cellLineStart[cell + 1] = cellLineStart[cell] + linesPerCell[cell];
+        }
+        cellLines = new int[cellLineStart[width * h1]];
+        int[] filled = new int[width * h1];
+        for (int l = 0; l < lineCount; l++) {
+            for (int cell : lines[l]) {
+                cellLines[cellLineStart[cell] + filled[cell]++] = l;
+            }
+        }
+    }
+
+    /**
+     * Drops a stone of the current player into a column.
+     *
+     * @param column The column number, starting at 1.
+     * @return True if the move was made, false if the column is full or out of range.
+     */
+    public boolean playerMove(int column) {
+        if (column < 1 || column > width || heights[column - 1] == height) {
+            return false;
+        }
+        int cell = (column - 1) * h1 + heights[column - 1]++;
+        long[] stones = stones(selectedPlayer);
+        stones[cell >>> 6] |= 1L << (cell & 63);
+        moveCount++;
+        won = completesLine(stones, cell);
+        return true;
+    }
+
+    /**
+     * Takes back the top stone of a column.
+     *
+     * @param column The column number, starting at 1.
+     * @return True if a stone was removed, false if the column is empty or out of range.
+     */
+    public boolean undoMove(int column) {
+        if (column < 1 || column > width || heights[column - 1] == 0) {
+            return false;
+        }
+        int cell = (column - 1) * h1 + --heights[column - 1];
+        long bit = 1L << (cell & 63);
+        xStones[cell >>> 6] &= ~bit;
+        oStones[cell >>> 6] &= ~bit;
+        moveCount--;
+        won = false; // Play stops at a win, so the position before it had none
+        return true;
+    }
+
+    /**
+     * Checks if the last move completed a line of K.
+     *
+     * @return True if the player who just moved has won.
+     */
+    public boolean winChecker() {
+        return won;
+    }
+
+    /**
+     * Checks if every cell is taken.
+     *
+     * @return True if the board is full.
+     */
+    public boolean boardChecker() {
+        return moveCount == width * height;
+    }
+
+    /**
+     * Switches the current player.
+     */
+    public void playerSwitcher() {
+        selectedPlayer = selectedPlayer == 'X' ? 'O' : 'X';
+    }
+
+    /**
+     * Checks if a column still has room.
+     *
+     * @param column The column number, starting at 1.
+     * @return True if a stone can be dropped there.
+     */
+    public boolean canPlay(int column) {
+        return column >= 1 && column <= width && heights[column - 1] < height;
+    }
+
+    /**
+     * Checks if dropping a stone into a column would win the game for a player.
+     *
+     * @param column The column number, starting at 1.
+     * @param player The symbol of the player, 'X' or 'O'.
+     * @return True if the column is playable and the stone would complete a line.
+     */
+    public boolean isWinningMove(int column, char player) {
+        if (!canPlay(column)) {
+            return false;
+        }
+        int cell = (column - 1) * h1 + heights[column - 1];
+        long[] stones = stones(player);
+        int word = cell >>> 6;
+        long bit = 1L << (cell & 63);
+        stones[word] |= bit;
+        boolean wins = completesLine(stones, cell);
+        stones[word] &= ~bit;
+        return wins;
+    }
+
+    /**
+     * Finds a column that wins the game for a player right away.
+     *
+     * @param player The symbol of the player, 'X' or 'O'.
+     * @return The column number starting at 1, or -1 if there is none.
+     */
+    public int findWinningMove(char player) {
+        for (int column = 1; column <= width; column++) {
+            if (isWinningMove(column, player)) {
+                return column;
+            }
+        }
+        return -1;
+    }
+
+    private boolean completesLine(long[] stones, int cell) {
+        for (int i = cellLineStart[cell]; i < cellLineStart[cell + 1]; i++) {
+            int line = cellLines[i];
+            boolean full = true;
+            for (int p = lineStart[line]; p < lineStart[line + 1] && full; p++) {
+                full = (stones[lineWords[p]] & lineBits[p]) == lineBits[p];
+            }
+            if (full) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long[] stones(char player) {
+        if (player == 'X') {
+            return xStones;
+        }
+        if (player == 'O') {
+            return oStones;
+        }
+        throw new IllegalArgumentException("Player must be 'X' or 'O'");
+    }
+
+    /**
+     * Gets the symbol in a cell.
+     *
+     * @param column The column number, starting at 1.
+     * @param row    The row, starting at 1 for the bottom row.
+     * @return 'X', 'O' or ' ' for an empty cell.
+     */
+    public char getCell(int column, int row) {
+        if (column < 1 || column > width || row < 1 || row > height) {
+            throw new IllegalArgumentException("Cell is outside the board");
+        }
+        int cell = (column - 1) * h1 + row - 1;
+        long bit = 1L << (cell & 63);
+        if ((xStones[cell >>> 6] & bit) != 0) {
+            return 'X';
+        }
+        return (oStones[cell >>> 6] & bit) != 0 ? 'O' : ' ';
+    }
+
+    /**
+     * Gets a copy of the board in the layout of Connect4Logic, top row first.
+     *
+     * @return The board as rows of 'X', 'O' and ' '.
+     */
+    public char[][] getBoard() {
+        char[][] board = new char[height][width];
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                board[row][col] = getCell(col + 1, height - row);
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Gets the number of stones in a column.
+     *
+     * @param column The column number, starting at 1.
+     * @return The column height.
+     */
+    public int getColumnHeight(int column) {
+        if (column < 1 || column > width) {
+            throw new IllegalArgumentException("Column is outside the board");
+        }
+        return heights[column - 1];
+    }
+
+    /**
+     * Gets the symbol representing the current player.
+     *
+     * @return The symbol of the current player ('X' or 'O').
+     */
+    public char getSelectedPlayer() {
+        return selectedPlayer;
+    }
+
+    /**
+     * Gets the number of stones on the board.
+     *
+     * @return The move count.
+     */
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Gets the number of lines of K on the board.
+     *
+     * @return The line count.
+     */
+    public int getLineCount() {
+        return lineStart.length - 1;
+    }
+
+    /**
+     * Gets the number of columns.
+     *
+     * @return The width of the board.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the number of rows.
+     *
+     * @return The height of the board.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the number of stones in a row that wins.
+     *
+     * @return K.
+     */
+    public int getK() {
+        return k;
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * ConnectKPlayer class provides a computer opponent for Connect K variants.
+ * It works on any ConnectKBoard, whatever its size and line length.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package core;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+
+/**
+ * The ConnectKPlayer class plays a winning move if there is one, else blocks
+ * the opponent's winning move, else picks a random column that does not hand
+ * the opponent a win, leaning towards the center. Given a SmallBoardDatabase it
+ * plays perfectly on the board the database covers.
+ */
+public class ConnectKPlayer {
+    private final char symbol; // Symbol representing the computer player
+    private final SmallBoardDatabase database; // Solved positions of one small board, or null
+
+    /**
+     * Constructs a computer player with the given symbol.
+     *
+     * @param symbol The symbol representing the computer player ('X' or 'O').
+     */
+    public ConnectKPlayer(char symbol) {
+        this(symbol, null);
+    }
+
+    /**
+     * Constructs a computer player that looks its moves up in a database on the board it covers.
+     *
+     * @param symbol   The symbol representing the computer player ('X' or 'O').
+     * @param database The solved positions of a small board, or null for none.
+     */
+    public ConnectKPlayer(char symbol, SmallBoardDatabase database) {
+        if (symbol != 'X' && symbol != 'O') {
+            throw new IllegalArgumentException("Symbol must be 'X' or 'O'");
+        }
+        this.symbol = symbol;
+        this.database = database;
+    }
+
+    /**
+     * Chooses a column for the computer player. The board is left as it was.
+     *
+     * @param board The board, with the computer player to move.
+     * @return The column number starting at 1, or -1 if the board is full.
+     */
+    public int comMove(ConnectKBoard board) {
+        if (board == null) {
+            throw new IllegalArgumentException("Board cannot be null");
+        }
+        if (board.getSelectedPlayer() != symbol) {
+            throw new IllegalArgumentException("It is not player " + symbol + "'s turn");
+        }
+        if (database != null && database.covers(board)) {
+            return database.bestMove(board);
+        }
+        char opponent = symbol == 'X' ? 'O' : 'X';
+        int winningMove = board.findWinningMove(symbol);
+        if (winningMove != -1) {
+            return winningMove;
+        }
+        int blockingMove = board.findWinningMove(opponent);
+        if (blockingMove != -1) {
+            return blockingMove;
+        }
+
+        // Weigh each column by its closeness to the center, and rule out the ones
+        // that let the opponent win on top of our stone unless nothing else is left
+        int width = board.getWidth();
+        int[] weights = new int[width + 1];
+        int safeTotal = 0;
+        int anyTotal = 0;
+        for (int column = 1; column <= width; column++) {
+            if (!board.canPlay(column)) {
+                continue;
+            }
+            int weight = width - Math.abs(2 * column - width - 1) / 2;
+            anyTotal += weight;
+            board.playerMove(column);
+            boolean unsafe = board.isWinningMove(column, opponent);
+            board.undoMove(column);
+            if (!unsafe) {
+                weights[column] = weight;
+                safeTotal += weight;
+            }
+        }
+        if (anyTotal == 0) {
+            return -1;
+        }
+        if (safeTotal == 0) {
+            for (int column = 1; column <= width; column++) {
+                if (board.canPlay(column)) {
+                    weights[column] = width - Math.abs(2 * column - width - 1) / 2;
+                }
+            }
+            safeTotal = anyTotal;
+        }
+        int pick = ThreadLocalRandom.current().nextInt(safeTotal);
+        for (int column = 1; column <= width; column++) {
+            pick -= weights[column];
+            if (pick < 0) {
+                return column;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the symbol of the computer player.
+     *
+     * @return 'X' or 'O'.
+     */
+    public char getSymbol() {
+        return symbol;
+    }
+}
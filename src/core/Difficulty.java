@@ -0,0 +1,77 @@
+/**
+ * Difficulty enum lists the playing levels of the computer player.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package core;
+
+
+/**
+ * The Difficulty enum defines each level by a fixed number of search nodes per move
+ * and the evaluation noise the search adds, never by depth or wall clock time.
+ * A level therefore plays the same moves and does the same work on every machine,
+ * and the cost of a load is its games times moves per game times the node budget.
+ * <pre>
+ * level     nodes per move  noise  time per move at about 7 million nodes a second
+ * BEGINNER         100        64   well under 1 ms
+ * EASY           1,000        32   under 1 ms
+ * MEDIUM        10,000        12   about 2 ms
+ * HARD         100,000         4   about 15 ms
+ * EXPERT     1,000,000         0   about 150 ms
+ * </pre>
+ * The budget is a hard limit checked at every node: a search never visits more.
+ * Positions with a forced result, or with one column left, use fewer.
+ */
+public enum Difficulty {
+    BEGINNER(100, 64),
+    EASY(1_000, 32),
+    MEDIUM(10_000, 12),
+    HARD(100_000, 4),
+    EXPERT(1_000_000, 0);
+
+    private final long nodeBudget;
+    private final int noise;
+
+    Difficulty(long nodeBudget, int noise) {
+        this.nodeBudget = nodeBudget;
+        this.noise = noise;
+    }
+
+    /**
+     * Gets the most nodes a move of this level searches.
+     *
+     * @return The node budget.
+     */
+    public long getNodeBudget() {
+        return nodeBudget;
+    }
+
+    /**
+     * Gets the largest evaluation noise of this level.
+     *
+     * @return The noise amplitude, 0 for none.
+     */
+    public int getNoise() {
+        return noise;
+    }
+
+    /**
+     * Finds a level by name, ignoring case.
+     *
+     * @param name The level name, such as medium.
+     * @return The level.
+     * @throws IllegalArgumentException If there is no such level.
+     */
+    public static Difficulty parse(String name) {
+        if (name != null) {
+            for (Difficulty level : values()) {
+                if (level.name().equalsIgnoreCase(name.trim())) {
+                    return level;
+                }
+            }
+        }
+        throw new IllegalArgumentException(name + " is not a difficulty level");
+    }
+}
@@ -0,0 +1,196 @@
+/**
+ * EndgameBitbase class holds exact win, draw and loss values of late game
+ * positions on the standard board, read from a mapped file.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * The EndgameBitbase class is an open addressing table in a file: one long per slot
+ * holding the canonical key of a position, shifted up two bits, and its value for the
+ * side to move in the low two bits. Mirror images share an entry. Only positions with
+ * at most maxEmpty empty cells, where the side to move cannot win at once, are stored,
+ * since a search finds immediate wins before it probes. Slots are at most two thirds
+ * full, so a missing position is found out after a couple of reads.
+ * Lookups only read the mapping, so one bitbase can serve any number of threads.
+ */
+public class EndgameBitbase {
+    public static final int WIN = 1;
+    public static final int DRAW = 0;
+    public static final int LOSS = -1;
+    public static final int UNKNOWN = -2; // The position is not in the bitbase
+    public static final String FILE_NAME = "connect4-endgame.c4eb"; // Usual file name, looked for by the bots
+    private static final int MAGIC = 0x43344542; // "C4EB"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int CHUNK_SHIFT = 30; // A mapped buffer holds at most 2 GB, so map 1 GB pieces
+
+    private final int maxEmpty;
+    private final long positions;
+    private final int slotBits;
+    private final MappedByteBuffer[] chunks;
+
+    private EndgameBitbase(int maxEmpty, long positions, int slotBits, FileChannel channel, FileChannel.MapMode mode)
+            throws IOException {
+        this.maxEmpty = maxEmpty;
+        this.positions = positions;
+        this.slotBits = slotBits;
+        long bytes = 8L << slotBits;
+        chunks = new MappedByteBuffer[(int) ((bytes + (1L << CHUNK_SHIFT) - 1) >>> CHUNK_SHIFT)];
+        for (int i = 0; i < chunks.length; i++) {
+            long start = (long) i << CHUNK_SHIFT;
+            chunks[i] = channel.map(mode, HEADER_BYTES + start, Math.min(1L << CHUNK_SHIFT, bytes - start));
+            chunks[i].order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    /**
+     * Writes a bitbase, replacing the file only once it is complete.
+     * A key given twice keeps its first value.
+     *
+     * @param path     The bitbase file.
+     * @param maxEmpty The most empty cells of the positions it holds.
+     * @param keys     The canonical keys of the positions.
+     * @param values   The value of each position for the side to move, WIN, DRAW or LOSS.
+     * @param count    The number of positions given.
+     * @return The bitbase, open for lookups.
+     * @throws IOException If the file cannot be written.
+     */
+    public static EndgameBitbase write(Path path, int maxEmpty, long[] keys, byte[] values, int count)
+            throws IOException {
+        if (maxEmpty < 1 || maxEmpty >= BitBoard.CELLS) {
+            throw new IllegalArgumentException("Empty cells must be between 1 and " + (BitBoard.CELLS - 1));
+        }
+        if (count < 0 || count > keys.length || count > values.length) {
+            throw new IllegalArgumentException("Count must fit the keys and values");
+        }
+        int slotBits = Math.max(4, 64 - Long.numberOfLeadingZeros(count + count / 2L));
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        long stored = 0;
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            EndgameBitbase bitbase = new EndgameBitbase(maxEmpty, 0, slotBits, channel, FileChannel.MapMode.READ_WRITE);
+            for (int i = 0; i < count; i++) {
+                if (values[i] < LOSS || values[i] > WIN) {
+                    throw new IllegalArgumentException("Values must be WIN, DRAW or LOSS");
+                }
+                long tag = (keys[i] + 1) << 2;
+                long slot = bitbase.slot(keys[i]);
+                long entry;
+                while ((entry = bitbase.get(slot)) != 0 && (entry & ~3L) != tag) {
+                    slot = (slot + 1) & ((1L << slotBits) - 1);
+                }
+                if (entry == 0) {
+                    bitbase.put(slot, tag | (values[i] + 2));
+                    stored++;
+                }
+            }
+            for (MappedByteBuffer chunk : bitbase.chunks) {
+                chunk.force();
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).putInt(maxEmpty).putInt(slotBits).putLong(stored).flip();
+            channel.write(header, 0);
+            channel.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return open(path);
+    }
+
+    /**
+     * Opens a bitbase for lookups.
+     *
+     * @param path The bitbase file.
+     * @return The bitbase.
+     * @throws IOException If the file cannot be read or is not a complete bitbase.
+     */
+    public static EndgameBitbase open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            if (channel.read(header, 0) < HEADER_BYTES || header.getInt(0) != MAGIC) {
+                throw new IOException(path + " is not an endgame bitbase");
+            }
+            if (header.getInt(4) != VERSION) {
+                throw new IOException(path + " is not an endgame bitbase of version " + VERSION);
+            }
+            int maxEmpty = header.getInt(8);
+            int slotBits = header.getInt(12);
+            if (maxEmpty < 1 || maxEmpty >= BitBoard.CELLS || slotBits < 4 || slotBits > 40
+                    || channel.size() != HEADER_BYTES + (8L << slotBits)) {
+                throw new IOException(path + " is incomplete");
+            }
+            return new EndgameBitbase(maxEmpty, header.getLong(16), slotBits, channel, FileChannel.MapMode.READ_ONLY);
+        }
+    }
+
+    /**
+     * Looks a position up.
+     *
+     * @param current The stones of the side to move.
+     * @param mask    All stones on the board.
+     * @return WIN, DRAW or LOSS for the side to move, or UNKNOWN if the position is not stored.
+     */
+    public int probe(long current, long mask) {
+        if (BitBoard.CELLS - Long.bitCount(mask) > maxEmpty) {
+            return UNKNOWN;
+        }
+        long key = BitBoard.canonicalKey(current, mask);
+        long tag = (key + 1) << 2;
+        long slotMask = (1L << slotBits) - 1;
+        for (long slot = slot(key); ; slot = (slot + 1) & slotMask) {
+            long entry = get(slot);
+            if (entry == 0) {
+                return UNKNOWN;
+            }
+            if ((entry & ~3L) == tag) {
+                return (int) (entry & 3) - 2;
+            }
+        }
+    }
+
+    private long slot(long key) {
+        return (key * 0x9E3779B97F4A7C15L) >>> (64 - slotBits);
+    }
+
+    private long get(long slot) {
+        long at = slot << 3;
+        return chunks[(int) (at >>> CHUNK_SHIFT)].getLong((int) (at & ((1L << CHUNK_SHIFT) - 1)));
+    }
+
+    private void put(long slot, long entry) {
+        long at = slot << 3;
+        chunks[(int) (at >>> CHUNK_SHIFT)].putLong((int) (at & ((1L << CHUNK_SHIFT) - 1)), entry);
+    }
+
+    /**
+     * Gets the most empty cells of the positions stored.
+     *
+     * @return The empty cell limit.
+     */
+    public int getMaxEmpty() {
+        return maxEmpty;
+    }
+
+    /**
+     * Gets the number of positions stored.
+     *
+     * @return The position count.
+     */
+    public long getPositions() {
+        return positions;
+    }
+}
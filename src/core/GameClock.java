@@ -0,0 +1,174 @@
+/**
+ * GameClock class is the chess style clock of a Connect 4 game.
+ * Each player's time runs only while it is their move.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package core;
+
+import java.util.function.LongSupplier;
+
+
+/**
+ * The GameClock class keeps the remaining time of X and O under a TimeControl.
+ * The game loop starts the clock of the player to move and stops it once the
+ * move is made. A player whose time runs out before they stop the clock has
+ * flagged and loses the game. Not safe for use by several threads at once.
+ */
+public class GameClock {
+    private final TimeControl control;
+    private final LongSupplier nanoTime;
+    private final long[] remaining = new long[2]; // Nanoseconds left for X and O
+    private final boolean[] flagged = new boolean[2];
+    private int running = -1; // Index of the player whose time is running, or -1
+    private long startedAt;
+
+    /**
+     * Constructs a clock that reads System.nanoTime.
+     *
+     * @param control The time control of the game.
+     */
+    public GameClock(TimeControl control) {
+        this(control, System::nanoTime);
+    }
+
+    /**
+     * Constructs a clock on a given time source, so tests can move time by hand.
+     *
+     * @param control  The time control of the game.
+     * @param nanoTime The time source in nanoseconds.
+     */
+    public GameClock(TimeControl control, LongSupplier nanoTime) {
+        if (control == null || nanoTime == null) {
+            throw new IllegalArgumentException("Time control and time source cannot be null");
+        }
+        this.control = control;
+        this.nanoTime = nanoTime;
+        remaining[0] = control.getBaseMillis() * 1_000_000;
+        remaining[1] = remaining[0];
+    }
+
+    /**
+     * Starts the time of the player to move.
+     *
+     * @param player The player to move, X or O.
+     * @throws IllegalStateException If a clock is already running.
+     */
+    public void start(char player) {
+        int index = index(player);
+        if (running >= 0) {
+            throw new IllegalStateException("The clock of " + symbol(running) + " is already running");
+        }
+        if (control.getKind() == TimeControl.Kind.PER_MOVE) {
+            remaining[index] = control.getBaseMillis() * 1_000_000;
+        }
+        running = index;
+        startedAt = nanoTime.getAsLong();
+    }
+
+    /**
+     * Stops the running clock once its player has moved, and adds the increment.
+     *
+     * @return True if the player moved in time, false if they flagged.
+     * @throws IllegalStateException If no clock is running.
+     */
+    public boolean stop() {
+        if (running < 0) {
+            throw new IllegalStateException("No clock is running");
+        }
+        int index = running;
+        remaining[index] -= nanoTime.getAsLong() - startedAt;
+        running = -1;
+        if (remaining[index] < 0) {
+            remaining[index] = 0;
+            flagged[index] = true;
+            return false;
+        }
+        remaining[index] += control.getIncrementMillis() * 1_000_000;
+        return true;
+    }
+
+    /**
+     * Tells whether a clock is running.
+     *
+     * @return True between start and stop.
+     */
+    public boolean isRunning() {
+        return running >= 0;
+    }
+
+    /**
+     * Gets the time a player has left, counting the move in progress.
+     *
+     * @param player X or O.
+     * @return The remaining time in nanoseconds, never negative.
+     */
+    public long getRemainingNanos(char player) {
+        int index = index(player);
+        long left = remaining[index];
+        if (running == index) {
+            left -= nanoTime.getAsLong() - startedAt;
+        }
+        return Math.max(0, left);
+    }
+
+    /**
+     * Gets the time a player has left, counting the move in progress.
+     *
+     * @param player X or O.
+     * @return The remaining time in milliseconds, never negative.
+     */
+    public long getRemainingMillis(char player) {
+        return getRemainingNanos(player) / 1_000_000;
+    }
+
+    /**
+     * Tells whether a player has run out of time, including during their current move.
+     *
+     * @param player X or O.
+     * @return True if the player has flagged.
+     */
+    public boolean isFlagged(char player) {
+        int index = index(player);
+        return flagged[index] || running == index && getRemainingNanos(player) == 0;
+    }
+
+    /**
+     * Gets the time control of the game.
+     *
+     * @return The time control.
+     */
+    public TimeControl getTimeControl() {
+        return control;
+    }
+
+    /**
+     * Shows the time left for both players, such as "X 4:31.2  O 3:58.0".
+     *
+     * @return The clock as text.
+     */
+    @Override
+    public String toString() {
+        return "X " + format(getRemainingMillis('X')) + "  O " + format(getRemainingMillis('O'));
+    }
+
+    private static String format(long millis) {
+        return String.format("%d:%02d.%d", millis / 60_000, millis / 1000 % 60, millis / 100 % 10);
+    }
+
+    private static int index(char player) {
+        if (player == 'X') {
+            return 0;
+        }
+        if (player == 'O') {
+            return 1;
+        }
+        throw new IllegalArgumentException("Player must be X or O, not " + player);
+    }
+
+    private static char symbol(int index) {
+        return index == 0 ? 'X' : 'O';
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * GameRecord class describes the binary archive format for finished games.
+ * An archive is a file header followed by records written back to back,
+ * each record packing its moves at 3 bits per move.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package core;
+
+
+/**
+ * GameRecord holds the constants and size helpers of the archive format.
+ * <pre>
+ * file header (8 bytes): magic "C4GR", version, board width, board height, reserved
+ * record:               u8 move count
+ *                       moves, 3 bits each, least significant bits first, ceil(3n / 8) bytes
+ *                       u8 result (DRAW, X_WINS, O_WINS or UNFINISHED)
+ *                       u32 game duration in milliseconds, big endian
+ * </pre>
+ * Moves are columns starting at 0. X always makes the first move.
+ */
+public final class GameRecord {
+    public static final int MAGIC = 0x43344752; // "C4GR"
+    public static final byte VERSION = 1;
+    public static final int FILE_HEADER_SIZE = 8;
+    public static final int MAX_MOVES = BitBoard.CELLS;
+    public static final int MAX_RECORD_SIZE = recordSize(MAX_MOVES);
+
+    public static final int DRAW = 0;
+    public static final int X_WINS = 1;
+    public static final int O_WINS = 2;
+    public static final int UNFINISHED = 3;
+
+    private GameRecord() {
+    }
+
+    /**
+     * Gets the number of bytes the packed moves of a game take.
+     *
+     * @param moveCount The number of moves in the game.
+     * @return The packed size in bytes.
+     */
+    public static int packedSize(int moveCount) {
+        return (moveCount * 3 + 7) >>> 3;
+    }
+
+    /**
+     * Gets the number of bytes a whole record takes.
+     *
+     * @param moveCount The number of moves in the game.
+     * @return The record size in bytes.
+     */
+    public static int recordSize(int moveCount) {
+        return 1 + packedSize(moveCount) + 1 + 4;
+    }
+
+    /**
+     * Works out the result of a list of moves by replaying them.
+     *
+     * @param moves     The columns played, starting at 0.
+     * @param moveCount The number of moves to replay.
+     * @return X_WINS, O_WINS, DRAW or UNFINISHED.
+     */
+    public static int resultOf(byte[] moves, int moveCount) {
+        long current = 0;
+        long mask = 0;
+        for (int i = 0; i < moveCount; i++) {
+            long bit = BitBoard.moveBit(mask, moves[i]);
+            if (bit == 0) {
+                throw new IllegalArgumentException("Column " + (moves[i] + 1) + " is full at move " + (i + 1));
+            }
+            if (BitBoard.isWin(current | bit)) {
+                return (i & 1) == 0 ? X_WINS : O_WINS;
+            }
+            mask |= bit;
+            current = (current | bit) ^ mask;
+        }
+        return moveCount == BitBoard.CELLS ? DRAW : UNFINISHED;
+    }
+}
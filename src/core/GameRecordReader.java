@@ -0,0 +1,254 @@
+/**
+ * GameRecordReader class scans a binary game archive.
+ * The file is memory mapped and read in place, one record at a time,
+ * without building an object per game.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * The GameRecordReader class is a cursor over the records of a GameRecord archive.
+ * Call next() to move to the following record, then read its fields through the getters.
+ * Large files are mapped in windows so archives bigger than 2 GB can be scanned.
+ * Not safe for use by several threads at once.
+ */
+public class GameRecordReader implements Closeable {
+    private static final long WINDOW_SIZE = 1L << 30;
+
+    private final FileChannel channel;
+    private final long end; // One past the last byte this reader covers
+    private MappedByteBuffer window;
+    private long windowStart; // File offset of the first byte of the window
+    private long offset; // File offset of the next record
+    private int recordPos; // Position of the current record inside the window, -1 before the first next()
+    private int moveCount;
+
+    /**
+     * Opens an archive for reading.
+     *
+     * @param path The archive file.
+     * @throws IOException If the file cannot be read or is not an archive.
+     */
+    public GameRecordReader(Path path) throws IOException {
+        this(FileChannel.open(path, StandardOpenOption.READ), GameRecord.FILE_HEADER_SIZE, -1);
+        checkHeader(path);
+    }
+
+    /**
+     * Opens a byte range of an archive. The range must start on a record boundary,
+     * as the offsets returned by splitPoints do.
+     *
+     * @param path  The archive file.
+     * @param start The file offset of the first record to read.
+     * @param end   The file offset one past the last byte to read.
+     * @throws IOException If the file cannot be read or is not an archive.
+     */
+    public GameRecordReader(Path path, long start, long end) throws IOException {
+        this(FileChannel.open(path, StandardOpenOption.READ), Math.max(start, GameRecord.FILE_HEADER_SIZE), end);
+        checkHeader(path);
+    }
+
+    private GameRecordReader(FileChannel channel, long start, long end) throws IOException {
+        this.channel = channel;
+        this.end = end < 0 ? channel.size() : Math.min(end, channel.size());
+        offset = start;
+        recordPos = -1;
+    }
+
+    private void checkHeader(Path path) throws IOException {
+        if (channel.size() < GameRecord.FILE_HEADER_SIZE) {
+            channel.close();
+            throw new IOException(path + " is not a game archive");
+        }
+        map(0);
+        if (window.getInt(0) != GameRecord.MAGIC || window.get(4) != GameRecord.VERSION) {
+            channel.close();
+            throw new IOException(path + " is not a game archive of version " + GameRecord.VERSION);
+        }
+    }
+
+    /**
+     * Moves to the next record. Every move must be a column of the board and the
+     * result one of the four known ones, as the writer checks when appending.
+     * A damaged record is passed over before the exception is thrown, so a caller
+     * that counts bad records can call next() again and go on with the following one.
+     *
+     * @return True if there is a record, false at the end of the range.
+     * @throws IOException If the file cannot be mapped or a record is cut short or damaged.
+     */
+    public boolean next() throws IOException {
+        long start = offset;
+        if (!skip()) {
+            return false;
+        }
+        int acc = 0;
+        int bits = 0;
+        int pos = recordPos + 1;
+        for (int i = 0; i < moveCount; i++) {
+            if (bits < 3) {
+                acc |= (window.get(pos++) & 0xFF) << bits;
+                bits += 8;
+            }
+            if ((acc & 7) >= BitBoard.WIDTH) {
+                throw new IOException("Corrupt record at offset " + start + ": column " + (acc & 7) + " at move " + i);
+            }
+            acc >>>= 3;
+            bits -= 3;
+        }
+        if (getResult() > GameRecord.UNFINISHED) {
+            throw new IOException("Corrupt record at offset " + start + ": result " + getResult());
+        }
+        return true;
+    }
+
+    /**
+     * Moves to the next record reading only its move count.
+     */
+    private boolean skip() throws IOException {
+        if (offset >= end) {
+            return false;
+        }
+        long windowEnd = windowStart + window.limit();
+        if (offset + GameRecord.MAX_RECORD_SIZE > windowEnd && windowEnd < channel.size()) {
+            map(offset);
+        }
+        recordPos = (int) (offset - windowStart);
+        moveCount = window.get(recordPos) & 0xFF;
+        if (moveCount > GameRecord.MAX_MOVES || offset + GameRecord.recordSize(moveCount) > end) {
+            throw new IOException("Corrupt record at offset " + offset);
+        }
+        offset += GameRecord.recordSize(moveCount);
+        return true;
+    }
+
+    /**
+     * Gets the number of moves of the current record.
+     *
+     * @return The move count.
+     */
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Gets one move of the current record.
+     *
+     * @param index The move number, starting at 0.
+     * @return The column played, starting at 0.
+     */
+    public int getMove(int index) {
+        if (index < 0 || index >= moveCount) {
+            throw new IndexOutOfBoundsException("Move " + index + " of " + moveCount);
+        }
+        int bit = index * 3;
+        int pos = recordPos + 1 + (bit >>> 3);
+        int value = window.get(pos) & 0xFF;
+        if ((bit & 7) > 5) {
+            value |= (window.get(pos + 1) & 0xFF) << 8; // Move spans two bytes
+        }
+        return (value >>> (bit & 7)) & 7;
+    }
+
+    /**
+     * Copies the moves of the current record into a caller owned array.
+     *
+     * @param moves Receives the columns played, needs room for getMoveCount() entries.
+     * @return The move count.
+     */
+    public int getMoves(byte[] moves) {
+        int acc = 0;
+        int bits = 0;
+        int pos = recordPos + 1;
+        for (int i = 0; i < moveCount; i++) {
+            if (bits < 3) {
+                acc |= (window.get(pos++) & 0xFF) << bits;
+                bits += 8;
+            }
+            moves[i] = (byte) (acc & 7);
+            acc >>>= 3;
+            bits -= 3;
+        }
+        return moveCount;
+    }
+
+    /**
+     * Gets the result of the current record.
+     *
+     * @return X_WINS, O_WINS, DRAW or UNFINISHED.
+     */
+    public int getResult() {
+        return window.get(recordPos + 1 + GameRecord.packedSize(moveCount)) & 0xFF;
+    }
+
+    /**
+     * Gets the duration of the current record.
+     *
+     * @return How long the game took in milliseconds.
+     */
+    public int getDurationMillis() {
+        return window.getInt(recordPos + 2 + GameRecord.packedSize(moveCount));
+    }
+
+    /**
+     * Gets the file offset just past the current record.
+     *
+     * @return The offset of the next record.
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Splits an archive into ranges of about equal size that start on record boundaries.
+     * Records have no sync marker, so this walks the archive from the start, but only
+     * the move count byte of each record is read and nothing is decoded or checked.
+     *
+     * @param path  The archive file.
+     * @param parts The number of ranges wanted.
+     * @return parts + 1 offsets, range i runs from offsets[i] to offsets[i + 1].
+     * @throws IOException If the file cannot be read or is not an archive.
+     */
+    public static long[] splitPoints(Path path, int parts) throws IOException {
+        if (parts < 1) {
+            throw new IllegalArgumentException("Need at least one part");
+        }
+        try (GameRecordReader reader = new GameRecordReader(path)) {
+            long[] points = new long[parts + 1];
+            long size = reader.end;
+            long target = (size - GameRecord.FILE_HEADER_SIZE) / parts;
+            points[0] = GameRecord.FILE_HEADER_SIZE;
+            int part = 1;
+            while (part < parts && reader.skip()) {
+                if (reader.offset - GameRecord.FILE_HEADER_SIZE >= target * part) {
+                    points[part++] = reader.offset;
+                }
+            }
+            while (part <= parts) {
+                points[part++] = size;
+            }
+            return points;
+        }
+    }
+
+    private void map(long from) throws IOException {
+        long size = Math.min(WINDOW_SIZE, channel.size() - from);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, from, size);
+        windowStart = from;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * GameRecordWriter class appends finished games to a binary archive.
+ * Records are packed into a direct buffer and written to the file
+ * channel in large blocks.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * The GameRecordWriter class is an append only writer for the GameRecord format.
+ * A new file gets the file header, an existing archive is appended to.
+ * Not safe for use by several threads at once.
+ */
+public class GameRecordWriter implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private long records;
+
+    /**
+     * Opens an archive for appending, creating it if needed.
+     *
+     * @param path The archive file.
+     * @throws IOException If the file cannot be opened or is not an archive.
+     */
+    public GameRecordWriter(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        long size = channel.size();
+        if (size == 0) {
+            buffer.putInt(GameRecord.MAGIC).put(GameRecord.VERSION)
+                    .put((byte) BitBoard.WIDTH).put((byte) BitBoard.HEIGHT).put((byte) 0);
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(GameRecord.FILE_HEADER_SIZE);
+            channel.read(header, 0);
+            header.flip();
+            if (size < GameRecord.FILE_HEADER_SIZE || header.getInt() != GameRecord.MAGIC
+                    || header.get() != GameRecord.VERSION) {
+                channel.close();
+                throw new IOException(path + " is not a game archive of version " + GameRecord.VERSION);
+            }
+        }
+        channel.position(size);
+    }
+
+    /**
+     * Appends one game.
+     *
+     * @param moves          The columns played, starting at 0.
+     * @param moveCount      The number of moves to write.
+     * @param result         X_WINS, O_WINS, DRAW or UNFINISHED.
+     * @param durationMillis How long the game took.
+     * @throws IOException If the buffer cannot be flushed.
+     */
+    public void append(byte[] moves, int moveCount, int result, int durationMillis) throws IOException {
+        if (moves == null || moveCount < 0 || moveCount > GameRecord.MAX_MOVES || moveCount > moves.length) {
+            throw new IllegalArgumentException("Move count must be between 0 and " + GameRecord.MAX_MOVES);
+        }
+        if (result < GameRecord.DRAW || result > GameRecord.UNFINISHED) {
+            throw new IllegalArgumentException("Unknown result " + result);
+        }
+        for (int i = 0; i < moveCount; i++) {
+            if (moves[i] < 0 || moves[i] >= BitBoard.WIDTH) {
+                throw new IllegalArgumentException("Column " + moves[i] + " is out of range");
+            }
+        }
+        if (buffer.remaining() < GameRecord.recordSize(moveCount)) {
+            flush();
+        }
+        buffer.put((byte) moveCount);
+        int acc = 0; // Bits not yet written
+        int bits = 0;
+        for (int i = 0; i < moveCount; i++) {
+            acc |= moves[i] << bits;
+            bits += 3;
+            if (bits >= 8) {
+                buffer.put((byte) acc);
+                acc >>>= 8;
+                bits -= 8;
+            }
+        }
+        if (bits > 0) {
+            buffer.put((byte) acc);
+        }
+        buffer.put((byte) result);
+        buffer.putInt(durationMillis);
+        records++;
+    }
+
+    /**
+     * Writes the buffered records to the file.
+     *
+     * @throws IOException If the write fails.
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Gets the number of games appended by this writer.
+     *
+     * @return The record count.
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    /**
+     * Flushes and closes the archive.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,381 @@
+/**
+ * PositionIndex class counts how often positions occur in archived games
+ * and how those games ended.
+ * It is an open addressing hash table of primitives stored off heap, either in
+ * direct buffers or directly in a memory mapped file.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * The PositionIndex class maps canonical position keys (BitBoard.canonicalKey, so a position
+ * and its mirror image share an entry) to an occurrence count and a tally per game result.
+ * <pre>
+ * file header (64 bytes): magic "C4PI", version, capacity bits, entry count
+ * entry (32 bytes):       u64 key + 1 (0 marks an empty slot), u64 occurrences,
+ *                         u32 X wins, u32 O wins, u32 draws, u32 unfinished
+ * </pre>
+ * The result tallies are unsigned and stop at 2^32 - 1 rather than wrap, so the
+ * opening positions of a huge archive read as "at least that many" instead of a
+ * small or negative count. The occurrence count is exact.
+ * The capacity is fixed when the index is created. Not safe for use by several threads at once.
+ */
+public class PositionIndex implements Closeable {
+    public static final int MAGIC = 0x43345049; // "C4PI"
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 64;
+    public static final int ENTRY_SIZE = 32;
+    private static final int SEGMENT_BITS = 25; // 2^25 entries of 32 bytes is a 1 GB buffer
+    private static final double MAX_LOAD = 0.9;
+    private static final long MAX_TALLY = 0xFFFFFFFFL; // Result tallies saturate here
+
+    private final ByteBuffer[] segments;
+    private final int capacityBits;
+    private final long indexMask;
+    private final FileChannel channel; // Null when the index lives in direct buffers
+    private long size;
+
+    private PositionIndex(int capacityBits, FileChannel channel, long size) throws IOException {
+        if (capacityBits < 4 || capacityBits > 40) {
+            throw new IllegalArgumentException("Capacity must be between 2^4 and 2^40 entries");
+        }
+        this.capacityBits = capacityBits;
+        this.indexMask = (1L << capacityBits) - 1;
+        this.channel = channel;
+        this.size = size;
+        int segmentBits = Math.min(capacityBits, SEGMENT_BITS);
+        int count = 1 << (capacityBits - segmentBits);
+        int segmentBytes = (1 << segmentBits) * ENTRY_SIZE;
+        segments = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = channel == null ? ByteBuffer.allocateDirect(segmentBytes)
+                    : channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + (long) i * segmentBytes, segmentBytes);
+        }
+    }
+
+    /**
+     * Creates an empty index in direct memory.
+     *
+     * @param capacityBits The log2 of the number of entries.
+     * @return The index.
+     */
+    public static PositionIndex allocate(int capacityBits) {
+        try {
+            return new PositionIndex(capacityBits, null, 0);
+        } catch (IOException e) {
+            throw new IllegalStateException("Direct buffers do not do I/O", e);
+        }
+    }
+
+    /**
+     * Creates an empty index stored in a memory mapped file, replacing the file if it exists.
+     *
+     * @param path         The index file.
+     * @param capacityBits The log2 of the number of entries.
+     * @return The index.
+     * @throws IOException If the file cannot be created.
+     */
+    public static PositionIndex create(Path path, int capacityBits) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            channel.truncate(0);
+            writeHeader(channel, capacityBits, 0);
+            return new PositionIndex(capacityBits, channel, 0);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens an index file written by save or create, mapping it in place.
+     * Changes go straight to the file.
+     *
+     * @param path The index file.
+     * @return The index.
+     * @throws IOException If the file cannot be read or is not an index.
+     */
+    public static PositionIndex open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            if (channel.read(header, 0) != HEADER_SIZE) {
+                throw new IOException(path + " is not a position index");
+            }
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException(path + " is not a position index of version " + VERSION);
+            }
+            int bits = header.getInt();
+            long entries = header.getLong();
+            if (bits < 4 || bits > 40 || channel.size() != HEADER_SIZE + ((long) ENTRY_SIZE << bits)) {
+                throw new IOException(path + " has the wrong size for its header");
+            }
+            return new PositionIndex(bits, channel, entries);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Adds occurrences and results of one position.
+     *
+     * @param key         The canonical position key.
+     * @param occurrences The number of times the position was seen.
+     * @param xWins       The number of those games X won.
+     * @param oWins       The number of those games O won.
+     * @param draws       The number of those games that were drawn.
+     * @param unfinished  The number of those games that were not finished.
+     */
+    public void add(long key, long occurrences, long xWins, long oWins, long draws, long unfinished) {
+        if (occurrences < 0 || xWins < 0 || oWins < 0 || draws < 0 || unfinished < 0) {
+            throw new IllegalArgumentException("Counts cannot be negative");
+        }
+        long stored = key + 1;
+        long slot = slot(key);
+        while (true) {
+            ByteBuffer segment = segment(slot);
+            int pos = position(slot);
+            long found = segment.getLong(pos);
+            if (found == 0) {
+                if (size + 1 > MAX_LOAD * (indexMask + 1)) {
+                    throw new IllegalStateException("Position index is full at " + size + " entries");
+                }
+                segment.putLong(pos, stored);
+                size++;
+                found = stored;
+            }
+            if (found == stored) {
+                segment.putLong(pos + 8, segment.getLong(pos + 8) + occurrences);
+                addTally(segment, pos + 16, xWins);
+                addTally(segment, pos + 20, oWins);
+                addTally(segment, pos + 24, draws);
+                addTally(segment, pos + 28, unfinished);
+                return;
+            }
+            slot = (slot + 1) & indexMask;
+        }
+    }
+
+    /**
+     * Adds to an unsigned 32-bit tally, stopping at its largest value.
+     */
+    private static void addTally(ByteBuffer segment, int pos, long amount) {
+        long sum = Integer.toUnsignedLong(segment.getInt(pos)) + Math.min(amount, MAX_TALLY);
+        segment.putInt(pos, (int) Math.min(sum, MAX_TALLY));
+    }
+
+    /**
+     * Adds every position of one game, from the first move to the last.
+     *
+     * @param moves     The columns played, starting at 0.
+     * @param moveCount The number of moves.
+     * @param result    X_WINS, O_WINS, DRAW or UNFINISHED.
+     */
+    public void addGame(byte[] moves, int moveCount, int result) {
+        int x = result == GameRecord.X_WINS ? 1 : 0;
+        int o = result == GameRecord.O_WINS ? 1 : 0;
+        int d = result == GameRecord.DRAW ? 1 : 0;
+        int u = result == GameRecord.UNFINISHED ? 1 : 0;
+        long current = 0;
+        long mask = 0;
+        for (int i = 0; i < moveCount; i++) {
+            long bit = BitBoard.moveBit(mask, moves[i]);
+            if (bit == 0) {
+                throw new IllegalArgumentException("Column " + (moves[i] + 1) + " is full at move " + (i + 1));
+            }
+            mask |= bit;
+            current = (current | bit) ^ mask;
+            add(BitBoard.canonicalKey(current, mask), 1, x, o, d, u);
+        }
+    }
+
+    /**
+     * Adds every game of an archive shard.
+     *
+     * @param archive The archive file.
+     * @return The number of games added.
+     * @throws IOException If the archive cannot be read.
+     */
+    public long addArchive(Path archive) throws IOException {
+        byte[] moves = new byte[GameRecord.MAX_MOVES];
+        long games = 0;
+        try (GameRecordReader reader = new GameRecordReader(archive)) {
+            while (reader.next()) {
+                addGame(moves, reader.getMoves(moves), reader.getResult());
+                games++;
+            }
+        }
+        return games;
+    }
+
+    /**
+     * Adds every entry of another index to this one.
+     *
+     * @param other The index to merge in.
+     */
+    public void merge(PositionIndex other) {
+        for (long slot = 0; slot <= other.indexMask; slot++) {
+            ByteBuffer segment = other.segment(slot);
+            int pos = other.position(slot);
+            long stored = segment.getLong(pos);
+            if (stored != 0) {
+                add(stored - 1, segment.getLong(pos + 8), Integer.toUnsignedLong(segment.getInt(pos + 16)),
+                        Integer.toUnsignedLong(segment.getInt(pos + 20)), Integer.toUnsignedLong(segment.getInt(pos + 24)),
+                        Integer.toUnsignedLong(segment.getInt(pos + 28)));
+            }
+        }
+    }
+
+    /**
+     * Finds the slot of a position.
+     *
+     * @param key The canonical position key.
+     * @return The slot, or -1 if the position is not in the index.
+     */
+    public long find(long key) {
+        long stored = key + 1;
+        for (long slot = slot(key); ; slot = (slot + 1) & indexMask) {
+            long found = segment(slot).getLong(position(slot));
+            if (found == stored) {
+                return slot;
+            } else if (found == 0) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Gets how often a position occurred.
+     *
+     * @param key The canonical position key.
+     * @return The occurrence count, 0 if the position is not in the index.
+     */
+    public long getOccurrences(long key) {
+        long slot = find(key);
+        return slot < 0 ? 0 : segment(slot).getLong(position(slot) + 8);
+    }
+
+    /**
+     * Gets how many games through a position ended with a result.
+     *
+     * @param key    The canonical position key.
+     * @param result X_WINS, O_WINS, DRAW or UNFINISHED.
+     * @return The game count, 0 if the position is not in the index, 2^32 - 1 if at least that many.
+     */
+    public long getResults(long key, int result) {
+        if (result < GameRecord.DRAW || result > GameRecord.UNFINISHED) {
+            throw new IllegalArgumentException("Unknown result " + result);
+        }
+        long slot = find(key);
+        if (slot < 0) {
+            return 0;
+        }
+        int field = result == GameRecord.X_WINS ? 16 : result == GameRecord.O_WINS ? 20
+                : result == GameRecord.DRAW ? 24 : 28;
+        return Integer.toUnsignedLong(segment(slot).getInt(position(slot) + field));
+    }
+
+    /**
+     * Writes the index to a file with sequential writes, so it can later be opened with open.
+     *
+     * @param path The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public void save(Path path) throws IOException {
+        try (FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeHeader(out, capacityBits, size);
+            out.position(HEADER_SIZE);
+            for (ByteBuffer segment : segments) {
+                ByteBuffer view = segment.duplicate();
+                view.clear();
+                while (view.hasRemaining()) {
+                    out.write(view);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the entry count and all changed pages of a mapped index to its file.
+     *
+     * @throws IOException If the header cannot be written.
+     */
+    public void force() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        writeHeader(channel, capacityBits, size);
+        for (ByteBuffer segment : segments) {
+            ((MappedByteBuffer) segment).force();
+        }
+    }
+
+    /**
+     * Gets the number of positions in the index.
+     *
+     * @return The entry count.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Gets the number of slots in the index.
+     *
+     * @return The capacity.
+     */
+    public long capacity() {
+        return indexMask + 1;
+    }
+
+    /**
+     * Flushes a mapped index to its file and closes it.
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            try {
+                force();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    private static void writeHeader(FileChannel channel, int capacityBits, long size) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(capacityBits).putLong(size);
+        header.clear();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+    }
+
+    private long slot(long key) {
+        return ((key * 0x9E3779B97F4A7C15L) >>> (64 - capacityBits)) & indexMask;
+    }
+
+    private ByteBuffer segment(long slot) {
+        return segments[(int) (slot >>> SEGMENT_BITS)];
+    }
+
+    private int position(long slot) {
+        return (int) (slot & ((1L << SEGMENT_BITS) - 1)) * ENTRY_SIZE;
+    }
+}
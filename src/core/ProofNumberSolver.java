@@ -0,0 +1,561 @@
+/**
+ * ProofNumberSolver class proves or disproves that one side can force a win
+ * from a position, using depth first proof number search (df-pn).
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package core;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+
+/**
+ * The ProofNumberSolver class solves the two outcome game "the attacker wins" against
+ * "the attacker does not win", so a draw counts as a win for the defender.
+ * Unlike alpha-beta it spends its effort on the moves that are closest to settling
+ * the question, which suits deep tactical positions with few good replies.
+ * <p>
+ * Proof and disproof numbers live in a fixed size table of primitive arrays,
+ * four entries per bucket, sized from a memory limit in megabytes. When a bucket is
+ * full the entry with the least work behind it is replaced, and whenever the table
+ * gets 90% full a collection removes every entry below a work threshold chosen to
+ * free about half of it, so the memory used never grows past the limit however long
+ * the search runs. Moves that lose at once are never searched: a side facing one
+ * threat must block it, and a side facing two has lost.
+ */
+public class ProofNumberSolver {
+    public static final int PROVEN = 1; // The attacker can force a win
+    public static final int DISPROVEN = 0; // The defender can hold a draw or win
+    public static final int UNKNOWN = -1; // The node limit ran out first
+    private static final int INF = 1 << 28; // Proof or disproof number of a settled position
+    private static final int WAYS = 4; // Entries per bucket
+    private static final int ENTRY_BYTES = 20; // Key, two numbers and work
+    private static final double GC_LOAD = 0.90; // Fill that starts a collection
+    private static final int[] ORDER = {3, 2, 4, 1, 5, 0, 6}; // Center columns first
+
+    private final long[] keys; // Position tag, 0 for an empty slot
+    private final int[] phi; // Proof number for the side to move
+    private final int[] delta; // Disproof number for the side to move
+    private final int[] work; // Nodes searched below the entry, what the collector keeps
+    private final int bucketShift; // Takes the bucket from the top bits of a hash
+    private final long[][] childCurrent = new long[BitBoard.CELLS + 1][BitBoard.WIDTH];
+    private final long[][] childMask = new long[BitBoard.CELLS + 1][BitBoard.WIDTH];
+    private final int[][] childColumn = new int[BitBoard.CELLS + 1][BitBoard.WIDTH];
+    private int used;
+    private long collections;
+    private long evictions;
+    private boolean attackerIsX;
+    private long nodes;
+    private long nodeLimit;
+    private boolean aborted;
+    private int valuePhi; // Results of values()
+    private int valueDelta;
+
+    /**
+     * Constructs a solver whose table uses at most the given memory.
+     *
+     * @param megabytes The memory limit of the table, at least 1.
+     */
+    public ProofNumberSolver(int megabytes) {
+        if (megabytes < 1 || megabytes > 16_384) {
+            throw new IllegalArgumentException("Table size must be between 1 and 16384 MB");
+        }
+        long entries = (long) megabytes * 1024 * 1024 / ENTRY_BYTES;
+        int buckets = Integer.highestOneBit((int) Math.min(entries / WAYS, 1 << 28));
+        keys = new long[buckets * WAYS];
+        phi = new int[buckets * WAYS];
+        delta = new int[buckets * WAYS];
+        work = new int[buckets * WAYS];
+        bucketShift = 64 - Integer.numberOfTrailingZeros(buckets);
+    }
+
+    /**
+     * Solves a board for one player.
+     *
+     * @param board     The board, 7 by 6 with the top row first.
+     * @param attacker  The player whose forced win is looked for, X or O.
+     * @param nodeLimit The most nodes to search.
+     * @return The result.
+     */
+    public Result solve(char[][] board, char attacker, long nodeLimit) {
+        if (board == null || !BitBoard.fits(board)) {
+            throw new IllegalArgumentException("Board must be 7 by 6");
+        }
+        if (attacker != 'X' && attacker != 'O') {
+            throw new IllegalArgumentException("Attacker must be X or O");
+        }
+        long x = BitBoard.fromBoard(board, 'X');
+        long o = BitBoard.fromBoard(board, 'O');
+        boolean xToMove = Long.bitCount(x) == Long.bitCount(o);
+        return solve(xToMove ? x : o, x | o, (attacker == 'X') == xToMove, nodeLimit);
+    }
+
+    /**
+     * Solves a position for one side.
+     *
+     * @param current        The stones of the side to move.
+     * @param mask           All stones on the board.
+     * @param attackerToMove True to prove a win for the side to move, false for the other side.
+     * @param nodeLimit      The most nodes to search.
+     * @return The result.
+     */
+    public Result solve(long current, long mask, boolean attackerToMove, long nodeLimit) {
+        if (nodeLimit < 1) {
+            throw new IllegalArgumentException("Node limit must be positive");
+        }
+        boolean xToMove = (Long.bitCount(mask) & 1) == 0;
+        boolean attacker = xToMove == attackerToMove;
+        if (attacker != attackerIsX) {
+            clear(); // Entries of the other attacker answer a different question
+            attackerIsX = attacker;
+        }
+        long start = System.nanoTime();
+        nodes = 0;
+        this.nodeLimit = nodeLimit;
+        aborted = false;
+        values(current, mask, Long.bitCount(mask));
+        if (valuePhi != 0 && valuePhi != INF) {
+            mid(current, mask, Long.bitCount(mask), INF, INF);
+        }
+        int moverPhi = valuePhi;
+        int result;
+        if (aborted || moverPhi != 0 && moverPhi != INF) {
+            result = UNKNOWN;
+        } else {
+            boolean moverWins = moverPhi == 0;
+            result = moverWins == attackerToMove ? PROVEN : DISPROVEN;
+        }
+        int move = -1;
+        long proofSize = -1;
+        if (result != UNKNOWN) {
+            move = moverPhi == 0 ? winningMove(current, mask) : -1;
+            Set<Long> visited = new HashSet<>();
+            proofSize = proofSize(current, mask, Long.bitCount(mask), visited);
+            if (aborted) {
+                proofSize = -1;
+            }
+        }
+        return new Result(result, move, nodes, System.nanoTime() - start, proofSize);
+    }
+
+    /**
+     * Expands a position until its numbers reach a threshold or the node limit runs out.
+     * Leaves the position's numbers in valuePhi and valueDelta.
+     */
+    private void mid(long current, long mask, int ply, int thPhi, int thDelta) {
+        if (nodes == nodeLimit) {
+            aborted = true;
+            return;
+        }
+        nodes++;
+        long startNodes = nodes;
+        int count = children(current, mask, ply);
+        long tag = tag(current, mask);
+        while (true) {
+            int minDelta = INF;
+            int secondDelta = INF;
+            int best = -1;
+            int bestPhi = 0;
+            long sumPhi = 0;
+            boolean lostChild = false;
+            for (int i = 0; i < count; i++) {
+                values(childCurrent[ply][i], childMask[ply][i], ply + 1);
+                if (valuePhi == INF) {
+                    lostChild = true;
+                }
+                sumPhi += valuePhi;
+                if (valueDelta < minDelta) {
+                    secondDelta = minDelta;
+                    minDelta = valueDelta;
+                    best = i;
+                    bestPhi = valuePhi;
+                } else if (valueDelta < secondDelta) {
+                    secondDelta = valueDelta;
+                }
+            }
+            int nodePhi = minDelta;
+            int nodeDelta = lostChild ? INF : (int) Math.min(sumPhi, INF - 1);
+            if (nodePhi >= thPhi || nodeDelta >= thDelta || aborted) {
+                store(tag, nodePhi, nodeDelta, nodes - startNodes);
+                valuePhi = nodePhi;
+                valueDelta = nodeDelta;
+                return;
+            }
+            int childThPhi = (int) Math.min(INF, (long) thDelta - nodeDelta + bestPhi);
+            int childThDelta = Math.min(thPhi, secondDelta == INF ? INF : secondDelta + 1);
+            mid(childCurrent[ply][best], childMask[ply][best], ply + 1, childThPhi, childThDelta);
+            if (aborted) {
+                store(tag, nodePhi, nodeDelta, nodes - startNodes);
+                valuePhi = nodePhi;
+                valueDelta = nodeDelta;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Gets the numbers of a position for its side to move into valuePhi and valueDelta:
+     * settled at once if the position is decided, from the table if it was searched, 1 and 1 otherwise.
+     */
+    private void values(long current, long mask, int ply) {
+        boolean moverIsAttacker = ((ply & 1) == 0) == attackerIsX;
+        long possible = (mask + BitBoard.BOTTOM) & BitBoard.FULL;
+        if ((winningCells(current, mask) & possible) != 0) {
+            set(0, INF); // Wins at once
+            return;
+        }
+        if (ply >= BitBoard.CELLS - 1) {
+            // Not winning with the last stones leaves a draw
+            set(moverIsAttacker ? INF : 0, moverIsAttacker ? 0 : INF);
+            return;
+        }
+        long threats = winningCells(current ^ mask, mask);
+        long forced = threats & possible;
+        long playable = (forced != 0 ? forced : possible) & ~(threats >>> 1);
+        if (Long.bitCount(forced) > 1 || playable == 0) {
+            set(INF, 0); // Cannot stop the opponent winning next move
+            return;
+        }
+        int slot = find(tag(current, mask));
+        if (slot >= 0) {
+            set(phi[slot], delta[slot]);
+        } else {
+            set(1, 1);
+        }
+    }
+
+    private void set(int p, int d) {
+        valuePhi = p;
+        valueDelta = d;
+    }
+
+    /**
+     * Lists the moves of the side to move that do not lose at once, center first.
+     *
+     * @return The number of moves, stored in the rows of ply.
+     */
+    private int children(long current, long mask, int ply) {
+        long possible = (mask + BitBoard.BOTTOM) & BitBoard.FULL;
+        long threats = winningCells(current ^ mask, mask);
+        long forced = threats & possible;
+        long playable = (forced != 0 ? forced : possible) & ~(threats >>> 1);
+        int count = 0;
+        for (int col : ORDER) {
+            long bit = playable & BitBoard.columnMask(col);
+            if (bit != 0) {
+                long next = mask | bit;
+                childCurrent[ply][count] = (current | bit) ^ next;
+                childMask[ply][count] = next;
+                childColumn[ply][count] = col;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the empty cells that would complete a line of four for a player.
+     *
+     * @param stones The player's stones.
+     * @param mask   All stones on the board.
+     * @return The cells, as bits.
+     */
+    static long winningCells(long stones, long mask) {
+        long r = (stones << 1) & (stones << 2) & (stones << 3); // Vertical
+        r |= lineEnds(stones, BitBoard.H1); // Horizontal
+        r |= lineEnds(stones, BitBoard.H1 - 1); // Diagonals
+        r |= lineEnds(stones, BitBoard.H1 + 1);
+        return r & (BitBoard.FULL ^ mask);
+    }
+
+    /**
+     * Gets the cells that complete three stones in a line along one direction.
+     */
+    private static long lineEnds(long stones, int shift) {
+        long p = (stones << shift) & (stones << 2 * shift);
+        long r = p & (stones << 3 * shift);
+        r |= p & (stones >>> shift);
+        p = (stones >>> shift) & (stones >>> 2 * shift);
+        r |= p & (stones << shift);
+        return r | p & (stones >>> 3 * shift);
+    }
+
+    /**
+     * Finds a move that wins the two outcome game for the side to move at the root.
+     */
+    private int winningMove(long current, long mask) {
+        int ply = Long.bitCount(mask);
+        long possible = (mask + BitBoard.BOTTOM) & BitBoard.FULL;
+        long wins = winningCells(current, mask) & possible;
+        if (wins != 0) {
+            return Long.numberOfTrailingZeros(wins) / BitBoard.H1;
+        }
+        int count = children(current, mask, ply);
+        for (int i = 0; i < count; i++) {
+            values(childCurrent[ply][i], childMask[ply][i], ply + 1);
+            if (valuePhi == INF) {
+                return childColumn[ply][i];
+            }
+        }
+        for (int i = 0; i < count && !aborted; i++) {
+            mid(childCurrent[ply][i], childMask[ply][i], ply + 1, INF, INF); // Evicted, solve again
+            if (valuePhi == INF) {
+                return childColumn[ply][i];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Counts the distinct positions of the solution tree below a position: one move
+     * where the winner of the two outcome game moves, every move that does not lose
+     * at once where the loser moves.
+     */
+    private long proofSize(long current, long mask, int ply, Set<Long> visited) {
+        if (aborted || !visited.add(tag(current, mask))) {
+            return 0;
+        }
+        values(current, mask, ply);
+        if (find(tag(current, mask)) < 0 && (valuePhi == 0 || valuePhi == INF)) {
+            return 1; // Decided without a search
+        }
+        if (valuePhi != 0 && valuePhi != INF) {
+            mid(current, mask, ply, INF, INF); // Evicted, solve again
+        }
+        boolean moverWins = valuePhi == 0;
+        int count = children(current, mask, ply);
+        long[] currents = childCurrent[ply].clone();
+        long[] masks = childMask[ply].clone();
+        if (moverWins) {
+            int winning = -1;
+            for (int i = 0; i < count && winning < 0; i++) {
+                values(currents[i], masks[i], ply + 1);
+                winning = valuePhi == INF ? i : -1;
+            }
+            for (int i = 0; i < count && winning < 0 && !aborted; i++) {
+                mid(currents[i], masks[i], ply + 1, INF, INF); // Evicted, solve again
+                winning = valuePhi == INF ? i : -1;
+            }
+            return winning < 0 ? 1 : 1 + proofSize(currents[winning], masks[winning], ply + 1, visited);
+        }
+        long size = 1;
+        for (int i = 0; i < count; i++) {
+            size += proofSize(currents[i], masks[i], ply + 1, visited);
+        }
+        return size;
+    }
+
+    /**
+     * Gets the table tag of a position, never 0.
+     */
+    private static long tag(long current, long mask) {
+        return BitBoard.key(current, mask) + 1;
+    }
+
+    private int find(long tag) {
+        int base = bucket(tag);
+        for (int i = base; i < base + WAYS; i++) {
+            if (keys[i] == tag) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Stores a position, replacing the entry with the least work if its bucket is full.
+     */
+    private void store(long tag, int p, int d, long spent) {
+        int base = bucket(tag);
+        int slot = -1;
+        int empty = -1;
+        int smallest = base;
+        for (int i = base; i < base + WAYS; i++) {
+            if (keys[i] == tag) {
+                slot = i;
+                break;
+            }
+            if (keys[i] == 0 && empty < 0) {
+                empty = i;
+            }
+            if (work[i] < work[smallest]) {
+                smallest = i;
+            }
+        }
+        if (slot >= 0) {
+            work[slot] = (int) Math.min(Integer.MAX_VALUE, work[slot] + spent);
+        } else {
+            if (empty >= 0) {
+                slot = empty;
+                used++;
+            } else {
+                slot = smallest;
+                evictions++;
+            }
+            keys[slot] = tag;
+            work[slot] = (int) Math.min(Integer.MAX_VALUE, spent);
+        }
+        phi[slot] = p;
+        delta[slot] = d;
+        if (used >= keys.length * GC_LOAD) {
+            collect();
+        }
+    }
+
+    /**
+     * Frees about half the table by removing the entries with the least work behind them.
+     */
+    private void collect() {
+        collections++;
+        long[] counts = new long[32]; // Entries per power of two of work
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                counts[32 - Integer.numberOfLeadingZeros(work[i])]++;
+            }
+        }
+        int threshold = 0;
+        long freed = 0;
+        while (threshold < 31 && freed < used / 2) {
+            freed += counts[threshold++];
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0 && 32 - Integer.numberOfLeadingZeros(work[i]) < threshold) {
+                keys[i] = 0;
+                used--;
+            }
+        }
+    }
+
+    private int bucket(long tag) {
+        return (int) (tag * 0x9E3779B97F4A7C15L >>> bucketShift) * WAYS;
+    }
+
+    /**
+     * Empties the table.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0);
+        used = 0;
+    }
+
+    /**
+     * Gets the number of entries the table can hold.
+     *
+     * @return The capacity.
+     */
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    /**
+     * Gets the number of entries in use.
+     *
+     * @return The number of stored positions.
+     */
+    public int getUsed() {
+        return used;
+    }
+
+    /**
+     * Gets the number of collections run since the solver was built.
+     *
+     * @return The collection count.
+     */
+    public long getCollections() {
+        return collections;
+    }
+
+    /**
+     * Gets the number of entries replaced in a full bucket since the solver was built.
+     *
+     * @return The eviction count.
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * The answer of one solve.
+     */
+    public static final class Result {
+        private final int outcome;
+        private final int move;
+        private final long nodes;
+        private final long nanos;
+        private final long proofSize;
+
+        Result(int outcome, int move, long nodes, long nanos, long proofSize) {
+            this.outcome = outcome;
+            this.move = move;
+            this.nodes = nodes;
+            this.nanos = nanos;
+            this.proofSize = proofSize;
+        }
+
+        /**
+         * Gets the outcome.
+         *
+         * @return PROVEN, DISPROVEN or UNKNOWN.
+         */
+        public int getOutcome() {
+            return outcome;
+        }
+
+        /**
+         * Gets a move that keeps the result for the side to move, when the side to move wins it.
+         *
+         * @return The column starting at 0, or -1.
+         */
+        public int getMove() {
+            return move;
+        }
+
+        /**
+         * Gets the number of positions expanded.
+         *
+         * @return The node count.
+         */
+        public long getNodes() {
+            return nodes;
+        }
+
+        /**
+         * Gets how long the solve took.
+         *
+         * @return The time in nanoseconds.
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * Gets the speed of the solve.
+         *
+         * @return Nodes expanded per second.
+         */
+        public double getNodesPerSecond() {
+            return nanos == 0 ? 0 : nodes * 1e9 / nanos;
+        }
+
+        /**
+         * Gets the number of distinct positions in the proof or disproof tree.
+         *
+         * @return The proof size, or -1 if unknown.
+         */
+        public long getProofSize() {
+            return proofSize;
+        }
+
+        @Override
+        public String toString() {
+            String name = outcome == PROVEN ? "proven" : outcome == DISPROVEN ? "disproven" : "unknown";
+            return name + (move >= 0 ? ", move " + (move + 1) : "") + ", " + nodes + " nodes, "
+                    + String.format("%.0f", getNodesPerSecond()) + " nodes/s"
+                    + (proofSize >= 0 ? ", proof size " + proofSize : "");
+        }
+    }
+}
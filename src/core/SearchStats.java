@@ -0,0 +1,199 @@
+/**
+ * SearchStats class collects what the computer player did for every move:
+ * how long it took, how many positions it searched, how deep it got,
+ * how often the transposition table helped and which column it chose.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package core;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+
+/**
+ * The SearchStats class aggregates move statistics from any number of threads
+ * without locks. The totals are LongAdders, so threads moving at once add to separate
+ * cells instead of contending on one counter; the cells are only allocated the first
+ * time threads collide. The process wide instance used by Connect4ComputerPlayer
+ * is registered with the platform MBean server as connect4:type=SearchStats.
+ */
+public class SearchStats implements SearchStatsMBean {
+    public static final String OBJECT_NAME = "connect4:type=SearchStats";
+    private static final SearchStats GLOBAL = new SearchStats();
+    private static volatile boolean registered;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder nodes = new LongAdder();
+    private final LongAdder depths = new LongAdder();
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    // The last move, written as a group by whichever thread moved last
+    private volatile int lastMove = -1;
+    private volatile long lastNodes;
+    private volatile int lastDepth;
+    private volatile long lastNanos;
+    private volatile double lastHitRate;
+
+    /**
+     * Gets the process wide statistics, registering them with JMX on first use.
+     *
+     * @return The shared statistics.
+     */
+    public static SearchStats global() {
+        if (!registered) {
+            register();
+        }
+        return GLOBAL;
+    }
+
+    private static synchronized void register() {
+        if (registered) {
+            return;
+        }
+        registered = true;
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(GLOBAL, name);
+            }
+        } catch (JMException | SecurityException e) {
+            System.err.println("Search statistics are not available over JMX: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Records one move.
+     *
+     * @param nanos       The wall time the move took.
+     * @param moveNodes   The positions searched, 0 for a move found without search.
+     * @param depth       The depth reached in plies.
+     * @param tableProbes The transposition table lookups.
+     * @param tableHits   The lookups that found their position.
+     * @param column      The column chosen.
+     */
+    public void recordMove(long nanos, long moveNodes, int depth, long tableProbes, long tableHits, int column) {
+        latency.record(nanos);
+        moves.increment();
+        nodes.add(moveNodes);
+        depths.add(depth);
+        probes.add(tableProbes);
+        hits.add(tableHits);
+        lastMove = column;
+        lastNodes = moveNodes;
+        lastDepth = depth;
+        lastNanos = nanos;
+        lastHitRate = tableProbes == 0 ? 0 : (double) tableHits / tableProbes;
+    }
+
+    /**
+     * Gets the latency histogram of all recorded moves, in nanoseconds.
+     *
+     * @return The histogram.
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public long getMoves() {
+        return moves.sum();
+    }
+
+    @Override
+    public long getNodes() {
+        return nodes.sum();
+    }
+
+    @Override
+    public double getAverageDepth() {
+        long count = moves.sum();
+        return count == 0 ? 0 : (double) depths.sum() / count;
+    }
+
+    @Override
+    public double getTableHitRate() {
+        long count = probes.sum();
+        return count == 0 ? 0 : (double) hits.sum() / count;
+    }
+
+    @Override
+    public double getLatencyP50Micros() {
+        return latency.percentile(50) / 1000.0;
+    }
+
+    @Override
+    public double getLatencyP99Micros() {
+        return latency.percentile(99) / 1000.0;
+    }
+
+    @Override
+    public double getLatencyP999Micros() {
+        return latency.percentile(99.9) / 1000.0;
+    }
+
+    @Override
+    public double getLatencyMaxMicros() {
+        return latency.getMax() / 1000.0;
+    }
+
+    @Override
+    public int getLastMove() {
+        return lastMove;
+    }
+
+    @Override
+    public long getLastNodes() {
+        return lastNodes;
+    }
+
+    @Override
+    public int getLastDepth() {
+        return lastDepth;
+    }
+
+    @Override
+    public double getLastMicros() {
+        return lastNanos / 1000.0;
+    }
+
+    @Override
+    public double getLastTableHitRate() {
+        return lastHitRate;
+    }
+
+    @Override
+    public void reset() {
+        latency.reset();
+        moves.reset();
+        nodes.reset();
+        depths.reset();
+        probes.reset();
+        hits.reset();
+        lastMove = -1;
+        lastNodes = 0;
+        lastDepth = 0;
+        lastNanos = 0;
+        lastHitRate = 0;
+    }
+
+    /**
+     * Describes the statistics in a few lines for the console.
+     *
+     * @return A readable summary.
+     */
+    @Override
+    public String toString() {
+        return String.format("Moves: %d, nodes: %d, average depth: %.1f, table hit rate: %.1f%%%n"
+                        + "Move time p50: %.1f us, p99: %.1f us, p999: %.1f us, max: %.1f us%n"
+                        + "Last move: column %d, %d nodes, depth %d, %.1f us, table hit rate %.1f%%",
+                getMoves(), getNodes(), getAverageDepth(), getTableHitRate() * 100,
+                getLatencyP50Micros(), getLatencyP99Micros(), getLatencyP999Micros(), getLatencyMaxMicros(),
+                getLastMove(), getLastNodes(), getLastDepth(), getLastMicros(), getLastTableHitRate() * 100);
+    }
+}
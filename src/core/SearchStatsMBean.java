@@ -0,0 +1,86 @@
+/**
+ * SearchStatsMBean interface is the JMX view of the computer player's move statistics.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package core;
+
+
+/**
+ * The SearchStatsMBean interface lists the attributes and operations
+ * shown under connect4:type=SearchStats.
+ */
+public interface SearchStatsMBean {
+
+    /**
+     * Gets the number of moves recorded.
+     */
+    long getMoves();
+
+    /**
+     * Gets the positions searched over all moves.
+     */
+    long getNodes();
+
+    /**
+     * Gets the average depth reached per move, in plies.
+     */
+    double getAverageDepth();
+
+    /**
+     * Gets the share of transposition table lookups that found their position.
+     */
+    double getTableHitRate();
+
+    /**
+     * Gets the median move time in microseconds.
+     */
+    double getLatencyP50Micros();
+
+    /**
+     * Gets the 99th percentile move time in microseconds.
+     */
+    double getLatencyP99Micros();
+
+    /**
+     * Gets the 99.9th percentile move time in microseconds.
+     */
+    double getLatencyP999Micros();
+
+    /**
+     * Gets the slowest move time in microseconds.
+     */
+    double getLatencyMaxMicros();
+
+    /**
+     * Gets the column chosen by the last move, or -1.
+     */
+    int getLastMove();
+
+    /**
+     * Gets the positions searched by the last move.
+     */
+    long getLastNodes();
+
+    /**
+     * Gets the depth reached by the last move.
+     */
+    int getLastDepth();
+
+    /**
+     * Gets the time the last move took in microseconds.
+     */
+    double getLastMicros();
+
+    /**
+     * Gets the transposition table hit rate of the last move.
+     */
+    double getLastTableHitRate();
+
+    /**
+     * Forgets all recorded moves.
+     */
+    void reset();
+}
@@ -0,0 +1,62 @@
+/**
+ * SearchTable interface is what Connect4Search needs from a transposition table.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package core;
+
+
+/**
+ * The SearchTable interface is implemented by the heap TranspositionTable and by the
+ * memory mapped SharedTranspositionTable. Entries are packed longs, read with the
+ * static accessors of TranspositionTable. Snapshots belong to the heap table only.
+ */
+public interface SearchTable {
+
+    /**
+     * Finds the packed entry of a position.
+     *
+     * @param key The position key.
+     * @return The packed entry, or 0 if the position is not stored.
+     */
+    long probe(long key);
+
+    /**
+     * Stores a search result, replacing whatever was in the slot.
+     *
+     * @param key   The position key, never 0.
+     * @param score The score of the position.
+     * @param depth The remaining depth the score was searched to.
+     * @param bound EXACT, LOWER or UPPER.
+     * @param move  The best column found, starting at 0, or -1.
+     */
+    void store(long key, int score, int depth, int bound, int move);
+
+    /**
+     * Empties the table.
+     */
+    void clear();
+
+    /**
+     * Gets the number of lookups made in the table.
+     *
+     * @return The probe count.
+     */
+    long getProbes();
+
+    /**
+     * Gets the number of lookups that found their position.
+     *
+     * @return The hit count.
+     */
+    long getHits();
+
+    /**
+     * Gets the number of slots in the table.
+     *
+     * @return The table capacity.
+     */
+    int capacity();
+}
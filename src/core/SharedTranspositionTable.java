@@ -0,0 +1,229 @@
+/**
+ * SharedTranspositionTable class is a transposition table kept in a memory mapped
+ * file, so bots in several processes on one host search with the same table.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package core;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * The SharedTranspositionTable class lives off the Java heap: every process that opens
+ * the same file maps the same pages, so what one bot stores the others find, and the
+ * garbage collector never scans the table however large it is. Each slot is one long,
+ * read and written with atomic 64-bit operations, so no process ever sees half an entry:
+ * <pre>
+ * bit 63      always set, so a stored slot is never 0
+ * bits 34-62  29 check bits, the top bits of a second mix of the key hash
+ * bits 30-33  best column + 1
+ * bits 28-29  bound
+ * bits 20-27  depth
+ * bits 0-19   score, signed
+ * </pre>
+ * The low bits of the key hash depend only on the low bits of the key, the left-hand
+ * columns, so the check bits are taken from a further mix that every key bit reaches.
+ * A lookup whose check bits do not match is a miss. Like the heap table it always
+ * replaces, and any number of threads may use it at once. It has no snapshots, the
+ * file itself outlives the processes using it.
+ * <p>
+ * The file starts with a 32 byte header of magic "C4ST", version, log2 of the number
+ * of slots and the engine tag of the search using it. The first process creates the
+ * file while holding a lock on it, and the others refuse a file of another size or tag.
+ */
+public class SharedTranspositionTable implements SearchTable {
+    private static final int MAGIC = 0x43345354; // "C4ST"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int CHUNK_SHIFT = 30; // A mapped buffer holds at most 2 GB, so map 1 GB pieces
+    private static final int SCORE_LIMIT = 1 << 19; // Scores must fit 20 signed bits
+    private static final long CHECK_MASK = (1L << 29) - 1;
+    private static final VarHandle SLOT =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final int bits;
+    private final long engineTag;
+    private final MappedByteBuffer[] chunks;
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+
+    private SharedTranspositionTable(int bits, long engineTag, MappedByteBuffer[] chunks) {
+        this.bits = bits;
+        this.engineTag = engineTag;
+        this.chunks = chunks;
+    }
+
+    /**
+     * Opens the table in a file, creating the file if it does not exist.
+     *
+     * @param path      The table file.
+     * @param bits      The log2 of the number of slots, which must match an existing file.
+     * @param engineTag The tag of the search that will use the table, see Connect4Search.engineTag.
+     * @return The table.
+     * @throws IOException If the file cannot be mapped or was made with another size or engine tag.
+     */
+    public static SharedTranspositionTable open(Path path, int bits, long engineTag) throws IOException {
+        if (bits < 1 || bits > 30) {
+            throw new IllegalArgumentException("Table size must be between 2^1 and 2^30 entries");
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            FileLock lock = channel.lock();
+            try {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                if (channel.size() == 0) {
+                    MappedByteBuffer[] chunks = map(channel, bits);
+                    header.putInt(MAGIC).putInt(VERSION).putInt(bits).putInt(0).putLong(engineTag).flip();
+                    while (header.hasRemaining()) {
+                        channel.write(header, header.position());
+                    }
+                    return new SharedTranspositionTable(bits, engineTag, chunks);
+                }
+                if (channel.read(header, 0) < HEADER_BYTES || header.getInt(0) != MAGIC
+                        || header.getInt(4) != VERSION) {
+                    throw new IOException(path + " is not a shared table of version " + VERSION);
+                }
+                if (header.getInt(8) != bits || channel.size() != HEADER_BYTES + (8L << bits)) {
+                    throw new IOException(path + " holds 2^" + header.getInt(8) + " slots, not 2^" + bits);
+                }
+                if (header.getLong(16) != engineTag) {
+                    throw new IOException(path + " was filled by another engine, delete it to start over");
+                }
+                return new SharedTranspositionTable(bits, engineTag, map(channel, bits));
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    private static MappedByteBuffer[] map(FileChannel channel, int bits) throws IOException {
+        long bytes = 8L << bits;
+        MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((bytes + (1L << CHUNK_SHIFT) - 1) >>> CHUNK_SHIFT)];
+        for (int i = 0; i < chunks.length; i++) {
+            long start = (long) i << CHUNK_SHIFT;
+            chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES + start,
+                    Math.min(1L << CHUNK_SHIFT, bytes - start));
+        }
+        return chunks;
+    }
+
+    /**
+     * Finds the packed entry of a position.
+     *
+     * @param key The position key.
+     * @return The packed entry, or 0 if the position is not stored.
+     */
+    @Override
+    public long probe(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        long slot = get(h >>> (64 - bits));
+        probes.increment();
+        if (slot == 0 || ((slot >>> 34) & CHECK_MASK) != check(h)) {
+            return 0;
+        }
+        hits.increment();
+        int score = (int) slot << 12 >> 12; // Sign extend the low 20 bits
+        return TranspositionTable.pack(score, (int) (slot >>> 20) & 0xFF, (int) (slot >>> 28) & 0x3, ((int) (slot >>> 30) & 0xF) - 1);
+    }
+
+    /**
+     * Stores a search result, replacing whatever was in the slot.
+     *
+     * @param key   The position key, never 0.
+     * @param score The score of the position, less than 2^19 either way.
+     * @param depth The remaining depth the score was searched to.
+     * @param bound EXACT, LOWER or UPPER.
+     * @param move  The best column found, starting at 0, or -1.
+     */
+    @Override
+    public void store(long key, int score, int depth, int bound, int move) {
+        if (score <= -SCORE_LIMIT || score >= SCORE_LIMIT) {
+            return; // Cannot be packed, a miss is better than a wrong score
+        }
+        long h = key * 0x9E3779B97F4A7C15L;
+        set(h >>> (64 - bits), (1L << 63) | check(h) << 34 | ((long) (move + 1) & 0xF) << 30
+                | ((long) bound & 0x3) << 28 | ((long) depth & 0xFF) << 20 | (score & (SCORE_LIMIT * 2L - 1)));
+    }
+
+    /**
+     * Empties the table for every process using it.
+     */
+    @Override
+    public void clear() {
+        for (long slot = 0; slot < 1L << bits; slot++) {
+            set(slot, 0);
+        }
+    }
+
+    /**
+     * Gets the check bits of a key hash, the top bits of a second multiply and shift
+     * mix, so they depend on every bit of the key and not only on its low bits.
+     */
+    private static long check(long h) {
+        long m = (h ^ h >>> 32) * 0xBF58476D1CE4E5B9L;
+        m ^= m >>> 29;
+        return m >>> (64 - 29) & CHECK_MASK;
+    }
+
+    private long get(long slot) {
+        long at = slot << 3;
+        return (long) SLOT.getAcquire(chunks[(int) (at >>> CHUNK_SHIFT)], (int) (at & ((1L << CHUNK_SHIFT) - 1)));
+    }
+
+    private void set(long slot, long value) {
+        long at = slot << 3;
+        SLOT.setRelease(chunks[(int) (at >>> CHUNK_SHIFT)], (int) (at & ((1L << CHUNK_SHIFT) - 1)), value);
+    }
+
+    /**
+     * Gets the number of lookups made in the table by this process.
+     *
+     * @return The probe count.
+     */
+    @Override
+    public long getProbes() {
+        return probes.sum();
+    }
+
+    /**
+     * Gets the number of lookups by this process that found their position.
+     *
+     * @return The hit count.
+     */
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the engine tag the table file was made with.
+     *
+     * @return The engine tag.
+     */
+    public long getEngineTag() {
+        return engineTag;
+    }
+
+    /**
+     * Gets the number of slots in the table.
+     *
+     * @return The table capacity.
+     */
+    @Override
+    public int capacity() {
+        return 1 << bits;
+    }
+}
@@ -0,0 +1,416 @@
+/**
+ * SmallBoardDatabase class holds the solved value of every position of a small
+ * Connect 4 board, built by retrograde analysis and read from a mapped file.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.IntStream;
+
+
+/**
+ * The SmallBoardDatabase class stores 2 bits per position: the result for the side to
+ * move of a win, a loss or a draw, or nothing for a position that cannot occur.
+ * Positions are numbered by a ranking function rather than a hash, so no keys are stored.
+ * The column heights pick a block, and the block holds one entry for every way to
+ * place the X stones among the stones on the board, numbered in colex order of the
+ * stones counted column by column from the bottom. Blocks are ordered by the number of
+ * stones and padded to whole bytes.
+ * <pre>
+ * board (columns x rows)  entries          file
+ * 4 x 4                   202,504          51 KB
+ * 5 x 4                   5,625,100        1.4 MB
+ * 5 x 5                   171,984,080      43 MB
+ * 6 x 5                   9,918,597,456    2.5 GB
+ * </pre>
+ * Build walks the positions from the full board back to the empty one, so every move
+ * leads to a position that is already solved, one layer of stones at a time with the
+ * blocks of a layer solved in parallel. A lookup is one ranking and one byte read.
+ */
+public class SmallBoardDatabase {
+    public static final int WIN = 1;
+    public static final int DRAW = 0;
+    public static final int LOSS = -1;
+    public static final int MIN_SIZE = 4; // Fewest columns or rows
+    public static final int MAX_CELLS = 30; // Most cells, so the ranking fits an int of stones
+    private static final int MAGIC = 0x43345342; // "C4SB"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int CHUNK_SHIFT = 30; // A mapped buffer holds at most 2 GB, so map 1 GB pieces
+    private static final int NONE = 0; // Stored values, for the side to move
+    private static final int LOST = 1;
+    private static final int DRAWN = 2;
+    private static final int WON = 3;
+    private static final long[][] BINOMIAL = binomials();
+
+    private final int width;
+    private final int height;
+    private final int h1; // Bits per column including the guard bit
+    private final int cells;
+    private final long[] radix; // Place value of each column's height in a block code
+    private final int[] stones; // Stones of each block code
+    private final long[] offsets; // First entry of each block code
+    private final long entries;
+    private final MappedByteBuffer[] chunks;
+
+    private SmallBoardDatabase(int width, int height, FileChannel channel, FileChannel.MapMode mode) throws IOException {
+        checkSize(width, height);
+        this.width = width;
+        this.height = height;
+        h1 = height + 1;
+        cells = width * height;
+        radix = new long[width];
+        int codes = 1;
+        for (int col = 0; col < width; col++) {
+            radix[col] = codes;
+            codes *= height + 1;
+        }
+        stones = new int[codes];
+        for (int code = 0; code < codes; code++) {
+            for (int col = 0, rest = code; col < width; col++, rest /= height + 1) {
+                stones[code] += rest % (height + 1);
+            }
+        }
+        offsets = new long[codes];
+        long next = 0;
+        for (int n = 0; n <= cells; n++) {
+            for (int code = 0; code < codes; code++) {
+                if (stones[code] == n) {
+                    offsets[code] = next;
+                    next += (BINOMIAL[n][xStones(n)] + 3) & ~3L; // Whole bytes, so blocks never share one
+                }
+            }
+        }
+        entries = next;
+        long bytes = entries >>> 2;
+        chunks = new MappedByteBuffer[(int) ((bytes + (1L << CHUNK_SHIFT) - 1) >>> CHUNK_SHIFT)];
+        for (int i = 0; i < chunks.length; i++) {
+            long start = (long) i << CHUNK_SHIFT;
+            chunks[i] = channel.map(mode, HEADER_BYTES + start, Math.min(1L << CHUNK_SHIFT, bytes - start));
+        }
+    }
+
+    private static void checkSize(int width, int height) {
+        if (width < MIN_SIZE || height < MIN_SIZE || width * height > MAX_CELLS) {
+            throw new IllegalArgumentException("Columns and rows must be at least " + MIN_SIZE
+                    + " with at most " + MAX_CELLS + " cells");
+        }
+    }
+
+    /**
+     * Solves every position of a board and writes the database, replacing the file
+     * only once it is complete.
+     *
+     * @param width  The number of columns.
+     * @param height The number of rows.
+     * @param path   The database file.
+     * @return The database, open for lookups.
+     * @throws IOException If the file cannot be written.
+     */
+    public static SmallBoardDatabase build(int width, int height, Path path) throws IOException {
+        checkSize(width, height);
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            SmallBoardDatabase database = new SmallBoardDatabase(width, height, channel, FileChannel.MapMode.READ_WRITE);
+            for (int n = database.cells; n >= 0; n--) {
+                int layer = n;
+                IntStream.range(0, database.offsets.length).parallel()
+                        .filter(code -> database.stones[code] == layer)
+                        .forEach(database::solveBlock);
+            }
+            for (MappedByteBuffer chunk : database.chunks) {
+                chunk.force();
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height).putLong(database.entries).flip();
+            channel.write(header, 0);
+            channel.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return open(path);
+    }
+
+    /**
+     * Opens a database for lookups.
+     *
+     * @param path The database file.
+     * @return The database.
+     * @throws IOException If the file cannot be read or is not a complete database.
+     */
+    public static SmallBoardDatabase open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            if (channel.read(header, 0) < HEADER_BYTES || header.getInt(0) != MAGIC) {
+                throw new IOException(path + " is not a small board database");
+            }
+            if (header.getInt(4) != VERSION) {
+                throw new IOException(path + " is not a small board database of version " + VERSION);
+            }
+            int width = header.getInt(8);
+            int height = header.getInt(12);
+            SmallBoardDatabase database;
+            try {
+                database = new SmallBoardDatabase(width, height, channel, FileChannel.MapMode.READ_ONLY);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(path + " has a board size of " + width + " x " + height);
+            }
+            if (header.getLong(16) != database.entries || channel.size() != HEADER_BYTES + (database.entries >>> 2)) {
+                throw new IOException(path + " is incomplete");
+            }
+            return database; // The mappings stay valid after the channel closes
+        }
+    }
+
+    /**
+     * Gets the usual file name of the database of a board, such as connect4-5x4.c4sb.
+     *
+     * @param width  The number of columns.
+     * @param height The number of rows.
+     * @return The file name.
+     */
+    public static String fileName(int width, int height) {
+        return "connect4-" + width + "x" + height + ".c4sb";
+    }
+
+    /**
+     * Solves the positions of one block, from the values of the next layer.
+     */
+    private void solveBlock(int code) {
+        int n = stones[code];
+        int k = xStones(n);
+        boolean xToMove = (n & 1) == 0;
+        int[] heights = new int[width];
+        long mask = 0;
+        for (int col = 0, rest = code; col < width; col++, rest /= height + 1) {
+            heights[col] = rest % (height + 1);
+            mask |= ((1L << heights[col]) - 1) << (col * h1);
+        }
+        long count = BINOMIAL[n][k];
+        long base = offsets[code];
+        long subset = (1L << k) - 1; // X among the stones, in colex order
+        int packed = 0;
+        for (long r = 0; r < count; r++) {
+            long x = 0;
+            long rest = subset;
+            for (int col = 0; col < width; col++) {
+                x |= (rest & ((1L << heights[col]) - 1)) << (col * h1);
+                rest >>>= heights[col];
+            }
+            packed |= solve(x, mask, heights, n, xToMove) << ((r & 3) * 2);
+            if ((r & 3) == 3 || r == count - 1) {
+                put((base + r) >>> 2, (byte) packed);
+                packed = 0;
+            }
+            if (subset != 0) {
+                long low = subset & -subset; // Next subset of the same size
+                long ripple = subset + low;
+                subset = (((ripple ^ subset) >>> 2) / low) | ripple;
+            }
+        }
+    }
+
+    /**
+     * Solves one position whose moves all lead to solved positions.
+     */
+    private int solve(long x, long mask, int[] heights, int n, boolean xToMove) {
+        long mover = xToMove ? x : mask ^ x;
+        if (isWin(mover)) {
+            return NONE; // The side to move cannot have won already
+        }
+        if (isWin(mask ^ mover)) {
+            return LOST;
+        }
+        if (n == cells) {
+            return DRAWN;
+        }
+        int best = NONE;
+        for (int col = 0; col < width; col++) {
+            if (heights[col] < height) {
+                long bit = 1L << (col * h1 + heights[col]);
+                if (isWin(mover | bit)) {
+                    return WON;
+                }
+                int child = stored(index(xToMove ? x | bit : x, mask | bit));
+                if (child != NONE) {
+                    best = Math.max(best, WON + LOST - child);
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Gets the value of a board for the player to move.
+     *
+     * @param board The board, of this database's size with K of 4.
+     * @return WIN, DRAW or LOSS with perfect play.
+     * @throws IllegalArgumentException If the board does not fit or its game is already won.
+     */
+    public int getValue(ConnectKBoard board) {
+        check(board);
+        long x = stones(board, 'X');
+        int value = stored(index(x, x | stones(board, 'O')));
+        if (value == NONE || value == LOST && board.winChecker()) {
+            throw new IllegalArgumentException("The game on the board is already over");
+        }
+        return value - DRAWN;
+    }
+
+    /**
+     * Finds a best move for the player to move: a win if there is one, else a draw,
+     * preferring columns near the center among equal moves.
+     *
+     * @param board The board, of this database's size with K of 4.
+     * @return The column number starting at 1, or -1 if the board is full.
+     * @throws IllegalArgumentException If the board does not fit.
+     */
+    public int bestMove(ConnectKBoard board) {
+        check(board);
+        boolean xToMove = board.getSelectedPlayer() == 'X';
+        long x = stones(board, 'X');
+        long mask = x | stones(board, 'O');
+        int bestColumn = -1;
+        int bestChild = WON + 1;
+        int bestDistance = 0;
+        for (int column = 1; column <= width; column++) {
+            if (!board.canPlay(column)) {
+                continue;
+            }
+            if (board.isWinningMove(column, board.getSelectedPlayer())) {
+                return column;
+            }
+            long bit = 1L << ((column - 1) * h1 + board.getColumnHeight(column));
+            int child = stored(index(xToMove ? x | bit : x, mask | bit));
+            int distance = Math.abs(2 * column - width - 1); // From the center
+            if (child != NONE && (child < bestChild || child == bestChild && distance < bestDistance)) {
+                bestChild = child;
+                bestColumn = column;
+                bestDistance = distance;
+            }
+        }
+        return bestColumn;
+    }
+
+    /**
+     * Tells whether the database answers positions of a board.
+     *
+     * @param board The board.
+     * @return True if the board has this database's size and K of 4.
+     */
+    public boolean covers(ConnectKBoard board) {
+        return board != null && board.getWidth() == width && board.getHeight() == height && board.getK() == 4;
+    }
+
+    private void check(ConnectKBoard board) {
+        if (!covers(board)) {
+            throw new IllegalArgumentException("The database is for Connect 4 on " + width + " by " + height);
+        }
+    }
+
+    private long stones(ConnectKBoard board, char player) {
+        long bits = 0;
+        for (int col = 0; col < width; col++) {
+            for (int row = 0; row < board.getColumnHeight(col + 1); row++) {
+                if (board.getCell(col + 1, row + 1) == player) {
+                    bits |= 1L << (col * h1 + row);
+                }
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Ranks a position: the first entry of its block plus the colex rank of its X stones.
+     */
+    private long index(long x, long mask) {
+        int code = 0;
+        for (int col = 0; col < width; col++) {
+            code += Long.bitCount(mask & (((1L << height) - 1) << (col * h1))) * radix[col];
+        }
+        long rank = 0;
+        int ordinal = 0;
+        int found = 0;
+        for (long rest = mask; rest != 0; rest &= rest - 1, ordinal++) {
+            if ((x & rest & -rest) != 0) {
+                rank += BINOMIAL[ordinal][++found];
+            }
+        }
+        return offsets[code] + rank;
+    }
+
+    private boolean isWin(long stones) {
+        return isLine(stones, 1) || isLine(stones, h1) || isLine(stones, h1 - 1) || isLine(stones, h1 + 1);
+    }
+
+    private static boolean isLine(long stones, int shift) {
+        long m = stones & (stones >>> shift);
+        return (m & (m >>> (2 * shift))) != 0;
+    }
+
+    private int stored(long index) {
+        long at = index >>> 2;
+        int b = chunks[(int) (at >>> CHUNK_SHIFT)].get((int) (at & ((1L << CHUNK_SHIFT) - 1)));
+        return (b >>> ((index & 3) * 2)) & 3;
+    }
+
+    private void put(long at, byte packed) {
+        chunks[(int) (at >>> CHUNK_SHIFT)].put((int) (at & ((1L << CHUNK_SHIFT) - 1)), packed);
+    }
+
+    /**
+     * Gets the number of X stones once n stones are on the board, X moving first.
+     */
+    private static int xStones(int n) {
+        return (n + 1) / 2;
+    }
+
+    private static long[][] binomials() {
+        long[][] table = new long[MAX_CELLS + 2][MAX_CELLS + 2];
+        for (int n = 0; n < table.length; n++) {
+            table[n][0] = 1;
+            for (int k = 1; k <= n; k++) {
+                table[n][k] = table[n - 1][k - 1] + table[n - 1][k];
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Gets the number of columns.
+     *
+     * @return The width.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the number of rows.
+     *
+     * @return The height.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the number of entries, including the padding of blocks.
+     *
+     * @return The entry count, four to a byte.
+     */
+    public long getEntries() {
+        return entries;
+    }
+}
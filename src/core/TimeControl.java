@@ -0,0 +1,146 @@
+/**
+ * TimeControl class describes how much thinking time each player gets in a game.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package core;
+
+
+/**
+ * The TimeControl class is one of three kinds of time control:
+ * sudden death, where each player has a fixed amount of time for the whole game;
+ * increment, where each player also gets time back after every move; and
+ * a fixed time per move, which cannot be saved up for later moves.
+ * Instances are immutable.
+ */
+public final class TimeControl {
+
+    /**
+     * The kinds of time control.
+     */
+    public enum Kind {
+        SUDDEN_DEATH, INCREMENT, PER_MOVE
+    }
+
+    private final Kind kind;
+    private final long baseMillis; // Time for the game, or for each move with PER_MOVE
+    private final long incrementMillis;
+
+    private TimeControl(Kind kind, long baseMillis, long incrementMillis) {
+        if (baseMillis <= 0 || incrementMillis < 0) {
+            throw new IllegalArgumentException("Time must be positive and the increment not negative");
+        }
+        this.kind = kind;
+        this.baseMillis = baseMillis;
+        this.incrementMillis = incrementMillis;
+    }
+
+    /**
+     * Creates a sudden death time control.
+     *
+     * @param gameMillis The time each player has for the whole game.
+     * @return The time control.
+     */
+    public static TimeControl suddenDeath(long gameMillis) {
+        return new TimeControl(Kind.SUDDEN_DEATH, gameMillis, 0);
+    }
+
+    /**
+     * Creates a time control that adds time after every move.
+     *
+     * @param gameMillis      The time each player starts with.
+     * @param incrementMillis The time added after each of their moves.
+     * @return The time control.
+     */
+    public static TimeControl increment(long gameMillis, long incrementMillis) {
+        return new TimeControl(Kind.INCREMENT, gameMillis, incrementMillis);
+    }
+
+    /**
+     * Creates a fixed time per move control.
+     *
+     * @param moveMillis The time each move may take.
+     * @return The time control.
+     */
+    public static TimeControl perMove(long moveMillis) {
+        return new TimeControl(Kind.PER_MOVE, moveMillis, 0);
+    }
+
+    /**
+     * Reads a time control written as minutes ("5"), minutes plus seconds
+     * of increment ("3+2") or seconds per move ("10s").
+     *
+     * @param text The time control.
+     * @return The time control.
+     * @throws IllegalArgumentException If the text is not a time control.
+     */
+    public static TimeControl parse(String text) {
+        if (text == null) {
+            throw new IllegalArgumentException("Time control cannot be null");
+        }
+        String trimmed = text.trim().toLowerCase();
+        try {
+            if (trimmed.endsWith("s")) {
+                return perMove(Math.round(Double.parseDouble(trimmed.substring(0, trimmed.length() - 1)) * 1000));
+            }
+            int plus = trimmed.indexOf('+');
+            if (plus < 0) {
+                return suddenDeath(Math.round(Double.parseDouble(trimmed) * 60_000));
+            }
+            return increment(Math.round(Double.parseDouble(trimmed.substring(0, plus)) * 60_000),
+                    Math.round(Double.parseDouble(trimmed.substring(plus + 1)) * 1000));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(text + " is not a time control");
+        }
+    }
+
+    /**
+     * Gets the kind of time control.
+     *
+     * @return The kind.
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Gets the time each player starts with, or the time of each move for PER_MOVE.
+     *
+     * @return The time in milliseconds.
+     */
+    public long getBaseMillis() {
+        return baseMillis;
+    }
+
+    /**
+     * Gets the time added after each move.
+     *
+     * @return The increment in milliseconds, 0 unless the kind is INCREMENT.
+     */
+    public long getIncrementMillis() {
+        return incrementMillis;
+    }
+
+    /**
+     * Writes the time control the way parse reads it.
+     *
+     * @return The time control as text.
+     */
+    @Override
+    public String toString() {
+        switch (kind) {
+            case PER_MOVE:
+                return number(baseMillis / 1000.0) + "s";
+            case INCREMENT:
+                return number(baseMillis / 60_000.0) + "+" + number(incrementMillis / 1000.0);
+            default:
+                return number(baseMillis / 60_000.0);
+        }
+    }
+
+    private static String number(double value) {
+        return value == Math.rint(value) ? Long.toString((long) value) : Double.toString(value);
+    }
+}
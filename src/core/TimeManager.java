@@ -0,0 +1,77 @@
+/**
+ * TimeManager class decides how long the computer player may think about a move
+ * when it plays on a clock.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package core;
+
+
+/**
+ * The TimeManager class gives each move two limits. The soft limit is the share of
+ * the clock the move should normally take: the remaining time divided over the moves
+ * the bot may still have to make, plus most of the increment. The search does not
+ * start another iteration once half of it has passed, and stretches it toward the
+ * hard limit when the position turns out to be critical. The hard limit aborts the
+ * search; it never exceeds half of what is left after a reserve for the game loop,
+ * so the bot never flags. Allocating allocates nothing, so a game on the clock
+ * stays as garbage free as one without.
+ */
+public class TimeManager {
+    public static final long MOVE_OVERHEAD_MILLIS = 20; // Kept back each move for the game loop, GC and timer slack
+    private static final int HARD_FACTOR = 4; // Hard limit as a multiple of the soft limit
+
+    private long softNanos;
+    private long hardNanos;
+
+    /**
+     * Works out the limits for the next move of a player.
+     *
+     * @param clock  The game clock, whose time for the player may already be running.
+     * @param player The player about to move, X or O.
+     * @param ply    The number of stones on the board.
+     */
+    public void allocate(GameClock clock, char player, int ply) {
+        if (clock == null) {
+            throw new IllegalArgumentException("Clock cannot be null");
+        }
+        if (ply < 0 || ply >= BitBoard.CELLS) {
+            throw new IllegalArgumentException("Ply must be between 0 and " + (BitBoard.CELLS - 1));
+        }
+        long overhead = MOVE_OVERHEAD_MILLIS * 1_000_000;
+        long available = Math.max(0, clock.getRemainingNanos(player) - overhead);
+        if (clock.getTimeControl().getKind() == TimeControl.Kind.PER_MOVE) {
+            // Time per move cannot be saved, so the whole move may be used
+            hardNanos = available;
+            softNanos = available;
+        } else {
+            int movesLeft = (BitBoard.CELLS - ply + 1) / 2; // Moves of this player if the board fills up
+            long increment = clock.getTimeControl().getIncrementMillis() * 1_000_000;
+            hardNanos = available / 2;
+            softNanos = Math.min(hardNanos, available / movesLeft + increment * 3 / 4);
+            hardNanos = Math.min(hardNanos, softNanos * HARD_FACTOR);
+        }
+        hardNanos = Math.max(1, hardNanos); // The first search iteration always completes
+        softNanos = Math.max(1, softNanos);
+    }
+
+    /**
+     * Gets the time the move should normally take.
+     *
+     * @return The soft limit in nanoseconds.
+     */
+    public long getSoftNanos() {
+        return softNanos;
+    }
+
+    /**
+     * Gets the time after which the search is aborted.
+     *
+     * @return The hard limit in nanoseconds.
+     */
+    public long getHardNanos() {
+        return hardNanos;
+    }
+}
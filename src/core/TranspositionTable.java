@@ -0,0 +1,329 @@
+/**
+ * TranspositionTable class stores search results of positions already seen.
+ * Entries live in two primitive arrays so the table costs no allocation
+ * after it is built, no matter how many positions are stored.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+
+/**
+ * The TranspositionTable class is a fixed size, always replace hash table
+ * keyed by BitBoard position keys. Each entry packs score, depth, bound and move in one long.
+ * <p>
+ * A table can be saved to a snapshot file and loaded back after a restart, so a bot
+ * does not start cold. A snapshot is a 48 byte header followed by the key array and
+ * the entry array, written in order through a FileChannel as little endian longs:
+ * <pre>
+ * offset  field
+ * 0       magic "C4TT"
+ * 4       snapshot version
+ * 8       log2 of the number of slots
+ * 16      engine tag of the search that filled the table
+ * 24      time written, milliseconds since the epoch
+ * 32      CRC32C of the two arrays
+ * </pre>
+ * A file of another version, another engine tag, with a bad checksum or cut short is
+ * ignored, so a stale snapshot can never feed wrong scores to a search.
+ */
+public class TranspositionTable implements SearchTable {
+    public static final int EXACT = 0;
+    public static final int LOWER = 1; // Score is at least the stored value
+    public static final int UPPER = 2; // Score is at most the stored value
+    private static final int SNAPSHOT_MAGIC = 0x43345454; // "C4TT"
+    private static final int SNAPSHOT_VERSION = 1; // Raise whenever the file or the entry packing changes
+    private static final int SNAPSHOT_HEADER_BYTES = 48;
+    private static final int SNAPSHOT_BUFFER_BYTES = 1 << 20;
+
+    private final long[] keys;
+    private final long[] entries;
+    private final int indexMask;
+    private long probes; // Lookups since the table was built
+    private long hits; // Lookups that found their position
+
+    /**
+     * Constructs a table with room for 2^bits entries.
+     *
+     * @param bits The log2 of the number of entries.
+     */
+    public TranspositionTable(int bits) {
+        if (bits < 1 || bits > 30) {
+            throw new IllegalArgumentException("Table size must be between 2^1 and 2^30 entries");
+        }
+        keys = new long[1 << bits];
+        entries = new long[1 << bits];
+        indexMask = (1 << bits) - 1;
+    }
+
+    /**
+     * Constructs a table on the given arrays.
+     */
+    private TranspositionTable(long[] keys, long[] entries) {
+        this.keys = keys;
+        this.entries = entries;
+        indexMask = keys.length - 1;
+    }
+
+    /**
+     * Finds the packed entry of a position.
+     *
+     * @param key The position key.
+     * @return The packed entry, or 0 if the position is not stored.
+     */
+    @Override
+    public long probe(long key) {
+        int index = index(key);
+        probes++;
+        if (keys[index] == key) {
+            hits++;
+            return entries[index];
+        }
+        return 0;
+    }
+
+    /**
+     * Stores a search result, replacing whatever was in the slot.
+     *
+     * @param key   The position key, never 0.
+     * @param score The score of the position.
+     * @param depth The remaining depth the score was searched to.
+     * @param bound EXACT, LOWER or UPPER.
+     * @param move  The best column found, starting at 0, or -1.
+     */
+    @Override
+    public void store(long key, int score, int depth, int bound, int move) {
+        int index = index(key);
+        keys[index] = key;
+        entries[index] = pack(score, depth, bound, move);
+    }
+
+    /**
+     * Empties the table.
+     */
+    @Override
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(entries, 0);
+    }
+
+    /**
+     * Copies the table, so a snapshot of it can be written by another thread
+     * while the search goes on with the original.
+     *
+     * @return A table with the same entries.
+     */
+    public TranspositionTable copy() {
+        return new TranspositionTable(keys.clone(), entries.clone());
+    }
+
+    /**
+     * Writes the table to a snapshot file, replacing the file only once it is complete.
+     *
+     * @param path      The snapshot file.
+     * @param engineTag The tag of the search that filled the table, see Connect4Search.engineTag.
+     * @throws IOException If the file cannot be written.
+     */
+    public void save(Path path, long engineTag) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(SNAPSHOT_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            channel.position(SNAPSHOT_HEADER_BYTES);
+            writeArray(channel, buffer, keys, crc);
+            writeArray(channel, buffer, entries, crc);
+            ByteBuffer header = ByteBuffer.allocate(SNAPSHOT_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION).putInt(Integer.numberOfTrailingZeros(keys.length))
+                    .putInt(0).putLong(engineTag).putLong(System.currentTimeMillis()).putLong(crc.getValue()).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Replaces the contents of the table with a snapshot. A snapshot of another size is
+     * stored entry by entry. The table is left as it was if the snapshot is ignored.
+     *
+     * @param path      The snapshot file.
+     * @param engineTag The tag of the search that will use the table.
+     * @return True if the snapshot was loaded, false if it is missing, stale, damaged
+     *         or of another version.
+     */
+    public boolean load(Path path, long engineTag) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(SNAPSHOT_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Keep reading until the header is full or the file ends
+            }
+            if (header.hasRemaining() || header.getInt(0) != SNAPSHOT_MAGIC || header.getInt(4) != SNAPSHOT_VERSION
+                    || header.getLong(16) != engineTag) {
+                return false;
+            }
+            int bits = header.getInt(8);
+            if (bits < 1 || bits > 30 || channel.size() != SNAPSHOT_HEADER_BYTES + (16L << bits)) {
+                return false;
+            }
+            long[] savedKeys = new long[1 << bits];
+            long[] savedEntries = new long[1 << bits];
+            CRC32C crc = new CRC32C();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(SNAPSHOT_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            readArray(channel, buffer, savedKeys, crc);
+            readArray(channel, buffer, savedEntries, crc);
+            if (crc.getValue() != header.getLong(32)) {
+                return false;
+            }
+            if (savedKeys.length == keys.length) {
+                System.arraycopy(savedKeys, 0, keys, 0, keys.length);
+                System.arraycopy(savedEntries, 0, entries, 0, entries.length);
+            } else {
+                clear();
+                for (int i = 0; i < savedKeys.length; i++) {
+                    if (savedKeys[i] != 0) {
+                        int index = index(savedKeys[i]);
+                        keys[index] = savedKeys[i];
+                        entries[index] = savedEntries[i];
+                    }
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void writeArray(FileChannel channel, ByteBuffer buffer, long[] array, CRC32C crc)
+            throws IOException {
+        for (int i = 0; i < array.length; ) {
+            int count = Math.min(array.length - i, buffer.capacity() / Long.BYTES);
+            buffer.clear();
+            buffer.asLongBuffer().put(array, i, count);
+            buffer.limit(count * Long.BYTES);
+            crc.update(buffer);
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            i += count;
+        }
+    }
+
+    private static void readArray(FileChannel channel, ByteBuffer buffer, long[] array, CRC32C crc)
+            throws IOException {
+        for (int i = 0; i < array.length; ) {
+            int count = Math.min(array.length - i, buffer.capacity() / Long.BYTES);
+            buffer.clear();
+            buffer.limit(count * Long.BYTES);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("Snapshot ends early");
+                }
+            }
+            buffer.flip();
+            crc.update(buffer);
+            buffer.flip();
+            buffer.asLongBuffer().get(array, i, count);
+            i += count;
+        }
+    }
+
+    /**
+     * Gets the number of lookups made in the table.
+     *
+     * @return The probe count.
+     */
+    @Override
+    public long getProbes() {
+        return probes;
+    }
+
+    /**
+     * Gets the number of lookups that found their position.
+     *
+     * @return The hit count.
+     */
+    @Override
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of slots in the table.
+     *
+     * @return The table capacity.
+     */
+    @Override
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Packs an entry. Bit 63 is always set so a stored entry is never 0.
+     *
+     * @return The packed entry.
+     */
+    static long pack(int score, int depth, int bound, int move) {
+        return (1L << 63) | ((long) (move + 1) & 0xF) << 42 | ((long) bound & 0x3) << 40
+                | ((long) depth & 0xFF) << 32 | (score & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Gets the score of a packed entry.
+     *
+     * @param entry The packed entry.
+     * @return The score.
+     */
+    public static int score(long entry) {
+        return (int) entry;
+    }
+
+    /**
+     * Gets the remaining search depth of a packed entry.
+     *
+     * @param entry The packed entry.
+     * @return The remaining search depth.
+     */
+    public static int depth(long entry) {
+        return (int) (entry >>> 32) & 0xFF;
+    }
+
+    /**
+     * Gets the bound type of a packed entry.
+     *
+     * @param entry The packed entry.
+     * @return The bound type.
+     */
+    public static int bound(long entry) {
+        return (int) (entry >>> 40) & 0x3;
+    }
+
+    /**
+     * Gets the best column of a packed entry.
+     *
+     * @param entry The packed entry.
+     * @return The best column, or -1.
+     */
+    public static int move(long entry) {
+        return ((int) (entry >>> 42) & 0xF) - 1;
+    }
+
+    private int index(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & indexMask;
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * VectorWinKernel class checks many bitboards for four in a row at once
+ * with the incubating Vector API.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package core;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+
+/**
+ * The VectorWinKernel class runs the shifts of BitBoard.isWin on one bitboard
+ * per lane of the widest long vector the CPU has.
+ * It is only loaded by BatchWinChecker once the jdk.incubator.vector module is
+ * known to be present, so nothing else in the tree depends on the module.
+ */
+final class VectorWinKernel {
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    private VectorWinKernel() {
+    }
+
+    /**
+     * Gets the number of bitboards checked per step.
+     *
+     * @return The number of long lanes of the preferred species.
+     */
+    static int lanes() {
+        return SPECIES.length();
+    }
+
+    /**
+     * Checks the stones of one player in each position.
+     */
+    static int isWin(long[] stones, int length, boolean[] wins) {
+        int found = 0;
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+            VectorMask<Long> win = lines(LongVector.fromArray(SPECIES, stones, i)).compare(VectorOperators.NE, 0);
+            win.intoArray(wins, i);
+            found += win.trueCount();
+        }
+        return found + BatchWinChecker.scalarIsWin(stones, i, length, wins);
+    }
+
+    /**
+     * Checks both players in each position.
+     */
+    static int winChecker(long[] xStones, long[] oStones, int length, boolean[] wins) {
+        int found = 0;
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+            LongVector x = lines(LongVector.fromArray(SPECIES, xStones, i));
+            LongVector o = lines(LongVector.fromArray(SPECIES, oStones, i));
+            VectorMask<Long> win = x.or(o).compare(VectorOperators.NE, 0);
+            win.intoArray(wins, i);
+            found += win.trueCount();
+        }
+        return found + BatchWinChecker.scalarWinChecker(xStones, oStones, i, length, wins);
+    }
+
+    /**
+     * Gets, per lane, the start bits of every line of four, nonzero if there is any.
+     */
+    private static LongVector lines(LongVector stones) {
+        return line(stones, BitBoard.H1) // Horizontal
+                .or(line(stones, BitBoard.HEIGHT)) // Diagonal, up to the left
+                .or(line(stones, BitBoard.HEIGHT + 2)) // Diagonal, up to the right
+                .or(line(stones, 1)); // Vertical
+    }
+
+    private static LongVector line(LongVector stones, int shift) {
+        LongVector pairs = stones.and(stones.lanewise(VectorOperators.LSHR, shift));
+        return pairs.and(pairs.lanewise(VectorOperators.LSHR, 2 * shift));
+    }
+}
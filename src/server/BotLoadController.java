@@ -0,0 +1,220 @@
+/**
+ * BotLoadController class runs computer moves for the server and trades bot
+ * strength for latency when the host is busy.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package server;
+
+import core.Connect4ComputerPlayer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
+
+
+/**
+ * The BotLoadController class runs moves on a fixed pool with a bounded queue, so
+ * at most threads plus queueLimit moves are admitted and the rest are rejected.
+ * Every admitted move searches on a time budget. The controller watches how long
+ * moves wait in the queue (a moving average), how many are waiting and the CPU
+ * load of the machine. At most every 100 ms it cuts the budget by a quarter while
+ * any of them shows overload, and grows it back by a tenth while all are calm, so
+ * the bot gets weaker gradually under load and recovers gradually after it.
+ * Bots that do not search (depth 0) answer at once and are unaffected.
+ */
+public class BotLoadController implements AutoCloseable {
+    public static final long DEFAULT_FULL_BUDGET_MILLIS = 1000;
+    public static final long DEFAULT_MIN_BUDGET_MILLIS = 10;
+    public static final long DEFAULT_TARGET_DELAY_MILLIS = 50;
+    private static final double CPU_HIGH = 0.90; // Machine CPU load that counts as overload
+    private static final double CPU_LOW = 0.70; // Machine CPU load below which the budget may grow
+    private static final double DECREASE = 0.75;
+    private static final double INCREASE = 1.10;
+    private static final double DELAY_WEIGHT = 0.2; // Weight of the newest queue delay in the moving average
+    private static final long ADJUST_INTERVAL_NANOS = 100_000_000;
+    private static final OperatingSystemMXBean OS = ManagementFactory.getOperatingSystemMXBean();
+
+    private final ThreadPoolExecutor pool;
+    private final int threads;
+    private final long fullBudgetNanos;
+    private final long minBudgetNanos;
+    private final long targetDelayNanos;
+    private final DoubleSupplier cpuLoad;
+    private final AtomicLong moves = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile long budgetNanos;
+    private volatile double queueDelayNanos; // Moving average, guarded by this for writes
+    private long lastAdjust; // Guarded by this
+
+    /**
+     * Constructs a controller that reads the machine's CPU load.
+     *
+     * @param threads           The number of moves computed at once.
+     * @param queueLimit        The number of moves allowed to wait; more are rejected.
+     * @param fullBudgetMillis  The time per move on an idle machine.
+     * @param minBudgetMillis   The least time per move under load.
+     * @param targetDelayMillis The queue wait that counts as overload.
+     */
+    public BotLoadController(int threads, int queueLimit, long fullBudgetMillis, long minBudgetMillis,
+                             long targetDelayMillis) {
+        this(threads, queueLimit, fullBudgetMillis, minBudgetMillis, targetDelayMillis, BotLoadController::systemCpuLoad);
+    }
+
+    /**
+     * Constructs a controller on a given CPU load source, so tests can simulate load.
+     *
+     * @param threads           The number of moves computed at once.
+     * @param queueLimit        The number of moves allowed to wait; more are rejected.
+     * @param fullBudgetMillis  The time per move on an idle machine.
+     * @param minBudgetMillis   The least time per move under load.
+     * @param targetDelayMillis The queue wait that counts as overload.
+     * @param cpuLoad           The CPU load between 0 and 1, or negative if unknown.
+     */
+    public BotLoadController(int threads, int queueLimit, long fullBudgetMillis, long minBudgetMillis,
+                             long targetDelayMillis, DoubleSupplier cpuLoad) {
+        if (threads < 1 || queueLimit < 1) {
+            throw new IllegalArgumentException("Threads and queue limit must be positive");
+        }
+        if (minBudgetMillis < 1 || fullBudgetMillis < minBudgetMillis || targetDelayMillis < 1) {
+            throw new IllegalArgumentException("Budgets and target delay must be positive, minimum at most full");
+        }
+        if (cpuLoad == null) {
+            throw new IllegalArgumentException("CPU load source cannot be null");
+        }
+        this.threads = threads;
+        this.fullBudgetNanos = fullBudgetMillis * 1_000_000;
+        this.minBudgetNanos = minBudgetMillis * 1_000_000;
+        this.targetDelayNanos = targetDelayMillis * 1_000_000;
+        this.cpuLoad = cpuLoad;
+        budgetNanos = fullBudgetNanos;
+        pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueLimit), r -> {
+                    Thread t = new Thread(r, "connect4-bot");
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /**
+     * Queues a move of a bot, searched on the budget current when the move starts.
+     *
+     * @param player The bot to move.
+     * @param board  The board, not to be changed until the move is done.
+     * @return The future column of the bot's move.
+     * @throws RejectedExecutionException If the concurrency limit is reached.
+     */
+    public Future<Integer> submit(Connect4ComputerPlayer player, char[][] board) {
+        if (player == null || board == null) {
+            throw new IllegalArgumentException("Player and board cannot be null");
+        }
+        long submitted = System.nanoTime();
+        try {
+            return pool.submit(() -> {
+                long started = System.nanoTime();
+                recordDelay(started - submitted, started);
+                moves.incrementAndGet();
+                return player.comMove(board, budgetNanos);
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            adjust(System.nanoTime(), true);
+            throw e;
+        }
+    }
+
+    private synchronized void recordDelay(long delay, long now) {
+        queueDelayNanos += DELAY_WEIGHT * (delay - queueDelayNanos);
+        adjust(now, false);
+    }
+
+    /**
+     * Moves the budget one step toward the load, at most once per interval.
+     */
+    private synchronized void adjust(long now, boolean rejectedNow) {
+        if (now - lastAdjust < ADJUST_INTERVAL_NANOS) {
+            return;
+        }
+        lastAdjust = now;
+        double cpu = cpuLoad.getAsDouble();
+        int waiting = pool.getQueue().size();
+        if (rejectedNow || queueDelayNanos > targetDelayNanos || waiting > threads || cpu > CPU_HIGH) {
+            budgetNanos = Math.max(minBudgetNanos, (long) (budgetNanos * DECREASE));
+        } else if (queueDelayNanos < targetDelayNanos / 2.0 && waiting == 0 && cpu < CPU_LOW) {
+            budgetNanos = Math.min(fullBudgetNanos, (long) (budgetNanos * INCREASE));
+        }
+    }
+
+    /**
+     * Gets the machine's recent CPU load.
+     *
+     * @return The load between 0 and 1, or a negative value if the JVM cannot tell.
+     */
+    static double systemCpuLoad() {
+        if (OS instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) OS).getCpuLoad();
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the time the next move may search.
+     *
+     * @return The budget in nanoseconds.
+     */
+    public long getBudgetNanos() {
+        return budgetNanos;
+    }
+
+    /**
+     * Gets the share of the full budget moves get right now.
+     *
+     * @return A fraction, 1 on an idle machine.
+     */
+    public double getLevel() {
+        return budgetNanos / (double) fullBudgetNanos;
+    }
+
+    /**
+     * Gets the moving average of the time moves waited before they started.
+     *
+     * @return The queue delay in milliseconds.
+     */
+    public double getQueueDelayMillis() {
+        return queueDelayNanos / 1_000_000;
+    }
+
+    /**
+     * Gets the number of moves computed or being computed.
+     *
+     * @return The move count.
+     */
+    public long getMoves() {
+        return moves.get();
+    }
+
+    /**
+     * Gets the number of moves turned away at the concurrency limit.
+     *
+     * @return The rejection count.
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * Stops the pool, interrupting moves still running.
+     */
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+}
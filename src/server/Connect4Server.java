@@ -0,0 +1,263 @@
+/**
+ * Connect4Server class hosts Connect 4 games over plain TCP.
+ * Every connection gets its own session thread (a virtual thread when the
+ * runtime supports them) and talks a line based protocol that mirrors the
+ * prompts of Connect4TextConsole.
+ * Bot moves are computed on a separate bounded pool so slow searches
+ * cannot starve the I/O threads, and search less deeply while the host is busy.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package server;
+
+import core.EndgameBitbase;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * The Connect4Server class accepts connections and hands each one to a GameSession.
+ * It also owns the bot pool and the lobby used to pair two human players.
+ */
+public class Connect4Server implements AutoCloseable {
+    public static final int DEFAULT_PORT = 4444;
+    private static final int BOT_QUEUE_PER_THREAD = 64; // Bot requests allowed to wait per pool thread
+    static final int BOT_TABLE_BITS = 16; // A 1 MB table per bot, not the 16 MB default, as every session has one
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService sessionExecutor; // One thread per connected client
+    private final BotLoadController botController; // Bounded CPU pool for computer moves
+    private final int botDepth; // Search depth of the bots, 0 for the simple play
+    private volatile EndgameBitbase bitbase; // Probed by the bots' searches, or null
+    private final ReentrantLock lobbyLock = new ReentrantLock();
+    private final AtomicInteger activeSessions = new AtomicInteger();
+    private GameSession waitingPlayer; // Player waiting for a human opponent, guarded by lobbyLock
+    private volatile boolean running = true;
+
+    /**
+     * Constructs a server listening on the given port, whose bots use the simple play.
+     *
+     * @param port        The TCP port to listen on, 0 picks a free port.
+     * @param botThreads  The number of threads used to compute bot moves.
+     * @throws IOException If the port cannot be bound.
+     */
+    public Connect4Server(int port, int botThreads) throws IOException {
+        this(port, botThreads, 0);
+    }
+
+    /**
+     * Constructs a server listening on the given port.
+     *
+     * @param port        The TCP port to listen on, 0 picks a free port.
+     * @param botThreads  The number of threads used to compute bot moves.
+     * @param botDepth    The most plies the bots search, 0 for the simple play.
+     * @throws IOException If the port cannot be bound.
+     */
+    public Connect4Server(int port, int botThreads, int botDepth) throws IOException {
+        if (botThreads < 1) {
+            throw new IllegalArgumentException("Bot pool needs at least one thread");
+        }
+        if (botDepth < 0) {
+            throw new IllegalArgumentException("Bot depth cannot be negative");
+        }
+        this.botDepth = botDepth;
+        botController = new BotLoadController(botThreads, botThreads * BOT_QUEUE_PER_THREAD,
+                BotLoadController.DEFAULT_FULL_BUDGET_MILLIS, BotLoadController.DEFAULT_MIN_BUDGET_MILLIS,
+                BotLoadController.DEFAULT_TARGET_DELAY_MILLIS);
+        serverSocket = new ServerSocket(port);
+        sessionExecutor = newSessionExecutor();
+    }
+
+    /**
+     * Creates the per session executor. Virtual threads are used when the runtime
+     * has them (Java 21 and later), otherwise a cached pool of platform threads.
+     *
+     * @return The executor that runs one task per session.
+     */
+    static ExecutorService newSessionExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "connect4-session");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    /**
+     * Accepts clients until the server is closed.
+     */
+    public void serve() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                sessionExecutor.execute(() -> {
+                    activeSessions.incrementAndGet();
+                    try (GameSession session = new GameSession(this, socket)) {
+                        session.run();
+                    } catch (IOException e) {
+                        System.err.println("Session ended with an error: " + e.getMessage());
+                    } finally {
+                        activeSessions.decrementAndGet();
+                    }
+                });
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("An error occurred: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Pairs a player with the one waiting in the lobby.
+     *
+     * @param session The session that wants a human opponent.
+     * @return The waiting opponent, or null if this session is now the one waiting.
+     */
+    GameSession findOpponent(GameSession session) {
+        lobbyLock.lock();
+        try {
+            if (waitingPlayer == null || waitingPlayer.isClosed()) {
+                waitingPlayer = session;
+                return null;
+            }
+            GameSession opponent = waitingPlayer;
+            waitingPlayer = null;
+            return opponent;
+        } finally {
+            lobbyLock.unlock();
+        }
+    }
+
+    /**
+     * Removes a session from the lobby if it is still waiting there.
+     *
+     * @param session The session leaving the lobby.
+     * @return True if the session was waiting, false if it has already been paired.
+     */
+    boolean leaveLobby(GameSession session) {
+        lobbyLock.lock();
+        try {
+            if (waitingPlayer == session) {
+                waitingPlayer = null;
+                return true;
+            }
+            return false;
+        } finally {
+            lobbyLock.unlock();
+        }
+    }
+
+    /**
+     * Checks if a session is the one waiting in the lobby.
+     *
+     * @param session The session to check.
+     * @return True if it is waiting for an opponent.
+     */
+    boolean isWaiting(GameSession session) {
+        lobbyLock.lock();
+        try {
+            return waitingPlayer == session;
+        } finally {
+            lobbyLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the controller bot moves are computed by.
+     *
+     * @return The load adaptive bot pool.
+     */
+    BotLoadController getBotController() {
+        return botController;
+    }
+
+    /**
+     * Gets the most plies the bots search.
+     *
+     * @return The bot search depth, 0 for the simple play.
+     */
+    int getBotDepth() {
+        return botDepth;
+    }
+
+    /**
+     * Sets the endgame bitbase the bots of new games probe.
+     *
+     * @param bitbase The bitbase, or null for none.
+     */
+    public void setBitbase(EndgameBitbase bitbase) {
+        this.bitbase = bitbase;
+    }
+
+    /**
+     * Gets the endgame bitbase of the bots.
+     *
+     * @return The bitbase, or null.
+     */
+    EndgameBitbase getBitbase() {
+        return bitbase;
+    }
+
+    /**
+     * Gets the port the server is listening on.
+     *
+     * @return The local port.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Gets the number of connected sessions.
+     *
+     * @return The number of active sessions.
+     */
+    public int getActiveSessions() {
+        return activeSessions.get();
+    }
+
+    /**
+     * Stops accepting clients and shuts the pools down.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+        sessionExecutor.shutdownNow();
+        botController.close();
+    }
+
+    /**
+     * Main method to start the server.
+     * Loads the endgame bitbase if its file is in the working directory.
+     * @param args Optional port, bot thread count and bot search depth.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int botThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int botDepth = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        try (Connect4Server server = new Connect4Server(port, botThreads, botDepth)) {
+            Path bitbase = Paths.get(EndgameBitbase.FILE_NAME);
+            if (Files.exists(bitbase)) {
+                server.setBitbase(EndgameBitbase.open(bitbase));
+            }
+            System.out.println("Connect 4 server listening on port " + server.getPort());
+            server.serve();
+        }
+    }
+}
@@ -0,0 +1,344 @@
+/**
+ * GameSession class runs one client connection of the Connect4Server.
+ * It asks the same questions as Connect4TextConsole, line by line, and
+ * plays either against the bot or against another connected player.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package server;
+
+import core.Connect4ComputerPlayer;
+import core.Connect4Logic;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+
+/**
+ * The GameSession class owns the socket of a single client and the Connect4Logic
+ * of the game it drives. In a human game the session that joins second drives
+ * the game for both players while the first one waits.
+ */
+class GameSession implements Runnable, Closeable {
+    private static final long BUSY_RETRY_MILLIS = 50; // Wait before asking the bot pool again
+    private static final int BUSY_RETRIES = 40; // Give up on the bot pool after about two seconds
+    private static final int LOBBY_POLL_MILLIS = 100; // Read timeout while watching a waiting client
+    private static final int BOT_BUSY = -1; // computeMove result when the bot pool stayed saturated
+    private static final int BOT_FAILED = -2; // computeMove result when the bot threw instead of moving
+
+    private final Connect4Server server;
+    private final Socket socket;
+    private final BufferedReader in;
+    private final PrintWriter out;
+    private final CompletableFuture<Void> finished = new CompletableFuture<>(); // Completed when a human game ends
+    private final CompletableFuture<Void> handedOver = new CompletableFuture<>(); // Completed when a waiting client stops reading
+
+    /**
+     * Constructs a session for a connected client.
+     *
+     * @param server The server owning the bot pool and the lobby.
+     * @param socket The client connection.
+     * @throws IOException If the socket streams cannot be opened.
+     */
+    GameSession(Connect4Server server, Socket socket) throws IOException {
+        this.server = server;
+        this.socket = socket;
+        in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true);
+    }
+
+    /**
+     * Shows the start menu and starts the chosen kind of game.
+     */
+    @Override
+    public void run() {
+        try {
+            send("This is a Connect 4 Start Menu");
+            send("");
+            while (true) {
+                send("Start the game? Type yes or No");
+                String input = readLine().trim().toLowerCase();
+                if (input.equals("no")) {
+                    send("okay, maybe next time");
+                    send("");
+                } else if (!input.equals("yes")) {
+                    send(input + " is not a valid input. try again");
+                } else {
+                    send("Do you want to play against a bot or another player?");
+                    send("Type 'player' for a human opponent and 'bot' for a computer.");
+                    String inputTwo = readLine().trim().toLowerCase();
+                    if (inputTwo.equals("player")) {
+                        playAgainstHuman();
+                        return;
+                    } else if (inputTwo.equals("bot")) {
+                        send("Start the game against a bot");
+                        playAgainstComputer();
+                        return;
+                    }
+                    send("This is not a valid input. You are supposed to type 'player' or 'bot'");
+                }
+            }
+        } catch (IOException e) {
+            // Client went away, nothing left to tell it
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            server.leaveLobby(this);
+        }
+    }
+
+    /**
+     * Pairs with another player. The first player waits for the game to finish,
+     * the second one runs the game loop for both of them.
+     */
+    private void playAgainstHuman() throws IOException, InterruptedException {
+        GameSession opponent = server.findOpponent(this);
+        if (opponent == null) {
+            send("Waiting for another player...");
+            if (!waitInLobby()) {
+                return;
+            }
+            try {
+                finished.get();
+            } catch (ExecutionException e) {
+                // The game ended because of an error on the other side
+            }
+            return;
+        }
+        try {
+            opponent.handedOver.get(); // Its thread no longer reads from its socket
+        } catch (ExecutionException e) {
+            // Never completed exceptionally
+        }
+        try {
+            opponent.send("Okay starting game, Have fun! You are player X");
+            send("Okay starting game, Have fun! You are player O");
+            Connect4Logic logic = new Connect4Logic();
+            while (true) {
+                GameSession current = logic.getSelectedPlayer() == 'X' ? opponent : this;
+                GameSession other = current == this ? opponent : this;
+                display(logic, current);
+                other.send("Waiting for player " + logic.getSelectedPlayer() + "...");
+                int column;
+                try {
+                    column = current.getPlayerMove(logic);
+                } catch (IOException e) {
+                    other.send("Player " + logic.getSelectedPlayer() + " left the game.");
+                    return;
+                }
+                if (!logic.playerMove(column)) {
+                    current.send("Column is full, please choose another column.");
+                    continue;
+                }
+                if (logic.winChecker()) {
+                    logic.endGame(logic.getSelectedPlayer());
+                    display(logic, opponent);
+                    display(logic, this);
+                    sendBoth(opponent, "Player " + logic.getSelectedPlayer() + " wins!");
+                    return;
+                }
+                if (logic.boardChecker()) {
+                    logic.endGame(' ');
+                    display(logic, opponent);
+                    display(logic, this);
+                    sendBoth(opponent, "It's a draw!");
+                    return;
+                }
+                logic.playerSwitcher();
+            }
+        } finally {
+            opponent.finished.complete(null);
+        }
+    }
+
+    /**
+     * Watches the socket of this client while it waits in the lobby, so a client that
+     * disconnects is taken out of the lobby instead of being paired. Anything the client
+     * types while waiting is dropped. Once paired, the socket is handed over to the
+     * session running the game.
+     *
+     * @return True if the client was paired, false if it left while waiting.
+     */
+    private boolean waitInLobby() throws IOException {
+        try {
+            socket.setSoTimeout(LOBBY_POLL_MILLIS);
+            while (server.isWaiting(this)) {
+                try {
+                    if (in.read() < 0 && server.leaveLobby(this)) {
+                        return false;
+                    }
+                } catch (SocketTimeoutException e) {
+                    // Still connected, check the lobby again
+                }
+            }
+            socket.setSoTimeout(0);
+            return true;
+        } finally {
+            handedOver.complete(null);
+        }
+    }
+
+    /**
+     * Plays a game against the bot, the bot moves are computed on the server's bot pool.
+     */
+    private void playAgainstComputer() throws IOException, InterruptedException {
+        Connect4Logic logic = new Connect4Logic();
+        Connect4ComputerPlayer computerPlayer = new Connect4ComputerPlayer('O', server.getBotDepth());
+        computerPlayer.setTableBits(Connect4Server.BOT_TABLE_BITS);
+        computerPlayer.setBitbase(server.getBitbase());
+        while (true) {
+            display(logic, this);
+            if (logic.getSelectedPlayer() == 'X') {
+                int column = getPlayerMove(logic);
+                if (!logic.playerMove(column)) {
+                    send("Column is full, please choose another column.");
+                    continue;
+                }
+            } else {
+                int column = computeMove(computerPlayer, logic.getBoard());
+                if (column == BOT_BUSY) {
+                    send("The server is too busy to play the computer's move, please try again later.");
+                    return;
+                }
+                if (column == BOT_FAILED) {
+                    send("The computer could not make its move, the game is over.");
+                    return;
+                }
+                logic.playerMove(column);
+                send("Computer chose column " + column);
+            }
+            if (logic.winChecker()) {
+                logic.endGame(logic.getSelectedPlayer());
+                display(logic, this);
+                send(logic.getSelectedPlayer() == 'X' ? "Player X wins!" : "Computer wins!");
+                return;
+            }
+            if (logic.boardChecker()) {
+                logic.endGame(' ');
+                display(logic, this);
+                send("It's a draw!");
+                return;
+            }
+            logic.playerSwitcher();
+        }
+    }
+
+    /**
+     * Runs the bot on the bounded pool and waits for its move.
+     * The board is not touched by this session while the bot is thinking.
+     * A saturated pool is asked again a limited number of times.
+     *
+     * @param computerPlayer The bot of this session.
+     * @param board          The current game board.
+     * @return The column chosen by the bot, BOT_BUSY if the pool stayed saturated,
+     *         or BOT_FAILED if the bot threw while searching.
+     */
+    private int computeMove(Connect4ComputerPlayer computerPlayer, char[][] board) throws InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            Future<Integer> move;
+            try {
+                move = server.getBotController().submit(computerPlayer, board);
+            } catch (RejectedExecutionException e) {
+                if (attempt == BUSY_RETRIES) {
+                    return BOT_BUSY;
+                }
+                Thread.sleep(BUSY_RETRY_MILLIS); // Pool is saturated, try again shortly
+                continue;
+            }
+            try {
+                return move.get();
+            } catch (ExecutionException e) {
+                System.err.println("Bot failed to move: " + e.getCause());
+                return BOT_FAILED;
+            }
+        }
+    }
+
+    /**
+     * Gets the column number from this client for its move.
+     *
+     * @param logic The game being played.
+     * @return The column number chosen by the player.
+     */
+    private int getPlayerMove(Connect4Logic logic) throws IOException {
+        while (true) {
+            send("Player " + logic.getSelectedPlayer() + ", enter column number (1-" + logic.COL + "):");
+            try {
+                int column = Integer.parseInt(readLine().trim());
+                if (column >= 1 && column <= logic.COL) {
+                    return column;
+                }
+            } catch (NumberFormatException e) {
+                // Falls through to the message below
+            }
+            send("Invalid input. Please enter a number between 1 and " + logic.COL + ".");
+        }
+    }
+
+    /**
+     * Sends the current state of the game board to a client.
+     *
+     * @param logic   The game being played.
+     * @param session The client to send it to.
+     */
+    private static void display(Connect4Logic logic, GameSession session) {
+        StringBuilder sb = new StringBuilder();
+        for (int j = 1; j <= logic.COL; j++) {
+            sb.append(j == 1 ? "  " : "   ").append(j);
+        }
+        sb.append('\n');
+        for (char[] chars : logic.getBoard()) {
+            for (char c : chars) {
+                sb.append("| ").append(c).append(' ');
+            }
+            sb.append("|\n");
+        }
+        session.out.print(sb);
+        session.out.flush();
+    }
+
+    private void sendBoth(GameSession opponent, String line) {
+        opponent.send(line);
+        send(line);
+    }
+
+    private void send(String line) {
+        out.println(line);
+    }
+
+    private String readLine() throws IOException {
+        String line = in.readLine();
+        if (line == null) {
+            throw new EOFException("Client disconnected");
+        }
+        return line;
+    }
+
+    /**
+     * Checks if the connection of this session has been closed.
+     *
+     * @return True if the socket is closed.
+     */
+    boolean isClosed() {
+        return socket.isClosed();
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
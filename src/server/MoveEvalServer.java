@@ -0,0 +1,480 @@
+/**
+ * MoveEvalServer class is a small HTTP service that answers
+ * "what would the bot play here" for any position.
+ * It is stateless between requests apart from a bounded result cache,
+ * and only uses the JDK's built in com.sun.net.httpserver.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import core.BitBoard;
+import core.Connect4Events;
+import core.Connect4Search;
+import core.SharedTranspositionTable;
+import core.TranspositionTable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * The MoveEvalServer class serves GET /move with either a moves parameter
+ * (columns 1-7 played from the empty board, e.g. moves=4453) or a grid parameter
+ * (42 cells, top row first, X, O and '.' or ' ' for empty).
+ * It answers with the bot's column for the side to move and its score.
+ * Concurrent requests for one position share a single search, finished
+ * results are kept in an LRU cache, and a bounded queue turns overload into 503 busy.
+ * A search that fails is answered with 500, so clients do not retry it as overload.
+ * With snapshots on, every search thread saves a copy of its transposition table
+ * now and then and on close, and the same thread of the next run starts from it.
+ * With a shared table, every search thread of every service on the host uses one
+ * table in a mapped file instead.
+ */
+public class MoveEvalServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 8080;
+    public static final int DEFAULT_DEPTH = 10;
+    private static final long REQUEST_TIMEOUT_MILLIS = 10_000;
+    private static final long SNAPSHOT_INTERVAL_MILLIS = 5 * 60_000;
+    private static final int SHARED_TABLE_BITS = 27; // 1 GB of slots
+
+    private final HttpServer httpServer;
+    private final ExecutorService requestExecutor; // Runs the HTTP handlers
+    private final ThreadPoolExecutor searchPool; // Bounded pool that runs searches
+    private final ThreadLocal<SearchSlot> searches = ThreadLocal.withInitial(this::newSlot);
+    private final List<SearchSlot> slots = new CopyOnWriteArrayList<>(); // Every search thread's slot
+    private final AtomicInteger warmStarts = new AtomicInteger(); // Slots that loaded a snapshot
+    private final AtomicLong searchesRun = new AtomicLong(); // Searches finished, cache hits and joined requests excluded
+    private final AtomicInteger nextSlot = new AtomicInteger(); // Number of the next search thread's snapshot file
+    private final ExecutorService snapshotWriter = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "connect4-snapshot");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile Path snapshotDirectory; // Null while snapshots are off
+    private volatile SharedTranspositionTable sharedTable; // Null while each thread has its own table
+    private volatile long snapshotIntervalNanos;
+    private final Map<Long, CompletableFuture<Long>> inFlight = new ConcurrentHashMap<>();
+    private final Map<Long, Long> cache; // Position key to packed column and score, guarded by itself
+    private final int depth;
+
+    /**
+     * Constructs the service and binds its port.
+     *
+     * @param port          The TCP port, 0 picks a free port.
+     * @param depth         The number of plies the bot searches.
+     * @param searchThreads The number of searches run at once.
+     * @param queueCapacity The number of searches allowed to wait before requests are refused.
+     * @param cacheCapacity The number of results kept in the LRU cache.
+     * @throws IOException If the port cannot be bound.
+     */
+    public MoveEvalServer(int port, int depth, int searchThreads, int queueCapacity, int cacheCapacity) throws IOException {
+        if (depth < 1 || searchThreads < 1 || queueCapacity < 1 || cacheCapacity < 1) {
+            throw new IllegalArgumentException("Depth, threads, queue and cache sizes must be positive");
+        }
+        this.depth = depth;
+        cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                if (size() <= cacheCapacity) {
+                    return false;
+                }
+                if (Connect4Events.recording()) {
+                    Connect4Events.CacheEviction event = new Connect4Events.CacheEviction();
+                    if (event.shouldCommit()) {
+                        event.cache = "MoveEvalServer";
+                        event.positionKey = eldest.getKey();
+                        event.size = size();
+                        event.commit();
+                    }
+                }
+                return true;
+            }
+        };
+        searchPool = new ThreadPoolExecutor(searchThreads, searchThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "connect4-eval");
+                    t.setDaemon(true);
+                    return t;
+                });
+        requestExecutor = Connect4Server.newSessionExecutor();
+        httpServer = HttpServer.create(new InetSocketAddress(port), 0);
+        httpServer.createContext("/move", this::handle);
+        httpServer.setExecutor(requestExecutor);
+    }
+
+    /**
+     * Turns on table snapshots. Call before start.
+     *
+     * @param directory      The directory of the snapshot files, one per search thread.
+     * @param intervalMillis The time between two snapshots of a thread's table.
+     */
+    public void enableSnapshots(Path directory, long intervalMillis) {
+        if (directory == null || intervalMillis < 1) {
+            throw new IllegalArgumentException("Snapshot directory cannot be null and the interval must be positive");
+        }
+        snapshotIntervalNanos = intervalMillis * 1_000_000;
+        snapshotDirectory = directory;
+    }
+
+    /**
+     * Makes every search thread use one table kept in a mapped file, which other
+     * processes may use too. Snapshots are not needed then. Call before start.
+     *
+     * @param table The shared table, opened with the engine tag of this service's searches.
+     */
+    public void useSharedTable(SharedTranspositionTable table) {
+        if (table == null) {
+            throw new IllegalArgumentException("Shared table cannot be null");
+        }
+        if (table.getEngineTag() != new Connect4Search(table).engineTag()) {
+            throw new IllegalArgumentException("Shared table was opened for another engine");
+        }
+        sharedTable = table;
+    }
+
+    /**
+     * Creates the search of a new search thread, warmed up from its snapshot if there is one.
+     */
+    private SearchSlot newSlot() {
+        SharedTranspositionTable shared = sharedTable;
+        if (shared != null) {
+            SearchSlot slot = new SearchSlot(new Connect4Search(shared), null, null);
+            slots.add(slot);
+            return slot;
+        }
+        Path directory = snapshotDirectory;
+        TranspositionTable table = new TranspositionTable(Connect4Search.DEFAULT_TABLE_BITS);
+        Connect4Search search = new Connect4Search(table);
+        Path file = directory == null ? null : directory.resolve("table-" + nextSlot.getAndIncrement() + ".c4tt");
+        if (file != null && table.load(file, search.engineTag())) {
+            warmStarts.incrementAndGet();
+        }
+        SearchSlot slot = new SearchSlot(search, table, file);
+        slots.add(slot);
+        return slot;
+    }
+
+    /**
+     * Hands a copy of a thread's table to the snapshot writer once the interval has passed.
+     */
+    private void snapshotIfDue(SearchSlot slot) {
+        long now = System.nanoTime();
+        if (slot.file == null || now - slot.lastSnapshot < snapshotIntervalNanos) {
+            return;
+        }
+        slot.lastSnapshot = now;
+        TranspositionTable copy = slot.table.copy();
+        long engineTag = slot.search.engineTag();
+        try {
+            snapshotWriter.execute(() -> save(copy, slot.file, engineTag));
+        } catch (RejectedExecutionException e) {
+            // Closing, the final snapshot is written by close
+        }
+    }
+
+    private static void save(TranspositionTable table, Path file, long engineTag) {
+        try {
+            table.save(file, engineTag);
+        } catch (IOException e) {
+            System.err.println("Cannot write table snapshot " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Starts answering requests in the background.
+     */
+    public void start() {
+        httpServer.start();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                respond(exchange, 405, "{\"error\":\"only GET is supported\"}");
+                return;
+            }
+            long[] position;
+            try {
+                position = parse(exchange.getRequestURI());
+            } catch (IllegalArgumentException e) {
+                respond(exchange, 400, "{\"error\":\"" + e.getMessage() + "\"}");
+                return;
+            }
+            long key = BitBoard.key(position[0], position[1]);
+            Long cached;
+            synchronized (cache) {
+                cached = cache.get(key);
+            }
+            long result;
+            if (cached != null) {
+                result = cached;
+            } else {
+                try {
+                    result = evaluate(key, position[0], position[1]).get(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof RejectedExecutionException) {
+                        respond(exchange, 503, "{\"error\":\"busy\"}");
+                    } else {
+                        respond(exchange, 500, "{\"error\":\"search failed\"}");
+                    }
+                    return;
+                } catch (TimeoutException e) {
+                    respond(exchange, 503, "{\"error\":\"busy\"}");
+                    return;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    respond(exchange, 503, "{\"error\":\"busy\"}");
+                    return;
+                }
+            }
+            respond(exchange, 200, "{\"column\":" + ((int) (result >> 32) + 1) + ",\"score\":" + (int) result
+                    + ",\"cached\":" + (cached != null) + "}");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Gets the search of a position, joining a search already running for it.
+     * The first request for a position submits the search, everyone else waits on the same future.
+     *
+     * @return A future of the column in the high 32 bits and the score in the low 32 bits.
+     */
+    private CompletableFuture<Long> evaluate(long key, long current, long mask) {
+        CompletableFuture<Long> created = new CompletableFuture<>();
+        CompletableFuture<Long> running = inFlight.putIfAbsent(key, created);
+        if (running != null) {
+            return running;
+        }
+        try {
+            searchPool.execute(() -> {
+                try {
+                    SearchSlot slot = searches.get();
+                    Connect4Search search = slot.search;
+                    int column = search.search(current, mask, depth);
+                    searchesRun.incrementAndGet();
+                    long result = (long) column << 32 | (search.getBestScore() & 0xFFFFFFFFL);
+                    synchronized (cache) {
+                        cache.put(key, result);
+                    }
+                    created.complete(result);
+                    snapshotIfDue(slot);
+                } catch (RuntimeException e) {
+                    created.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(key, created);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, created);
+            created.completeExceptionally(e);
+        }
+        return created;
+    }
+
+    /**
+     * Reads the position of a request.
+     *
+     * @param uri The request URI.
+     * @return The stones of the side to move and the mask of all stones.
+     */
+    static long[] parse(URI uri) {
+        String query = uri.getRawQuery();
+        if (query != null) {
+            for (String param : query.split("&")) {
+                int eq = param.indexOf('=');
+                String name = eq < 0 ? param : param.substring(0, eq);
+                String value = eq < 0 ? "" : URLDecoder.decode(param.substring(eq + 1), StandardCharsets.UTF_8);
+                if (name.equals("moves")) {
+                    return fromMoves(value);
+                } else if (name.equals("grid")) {
+                    return fromGrid(value);
+                }
+            }
+        }
+        throw new IllegalArgumentException("expected a moves or grid parameter");
+    }
+
+    private static long[] fromMoves(String moves) {
+        long current = 0;
+        long mask = 0;
+        for (int i = 0; i < moves.length(); i++) {
+            int col = moves.charAt(i) - '1';
+            if (col < 0 || col >= BitBoard.WIDTH) {
+                throw new IllegalArgumentException("moves must be columns 1-" + BitBoard.WIDTH);
+            }
+            long bit = BitBoard.moveBit(mask, col);
+            if (bit == 0) {
+                throw new IllegalArgumentException("column " + (col + 1) + " is full at move " + (i + 1));
+            }
+            if (BitBoard.isWin(current | bit)) {
+                throw new IllegalArgumentException("game is already over at move " + (i + 1));
+            }
+            mask |= bit;
+            current = (current | bit) ^ mask; // Hand the turn to the other player
+        }
+        if ((mask & BitBoard.FULL) == BitBoard.FULL) {
+            throw new IllegalArgumentException("board is full");
+        }
+        return new long[]{current, mask};
+    }
+
+    private static long[] fromGrid(String grid) {
+        if (grid.length() != BitBoard.CELLS) {
+            throw new IllegalArgumentException("grid must have " + BitBoard.CELLS + " cells");
+        }
+        char[][] board = new char[BitBoard.HEIGHT][BitBoard.WIDTH];
+        for (int i = 0; i < grid.length(); i++) {
+            char c = Character.toUpperCase(grid.charAt(i));
+            if (c != 'X' && c != 'O' && c != '.' && c != ' ') {
+                throw new IllegalArgumentException("grid cells must be X, O or .");
+            }
+            board[i / BitBoard.WIDTH][i % BitBoard.WIDTH] = c == '.' ? ' ' : c;
+        }
+        long x = BitBoard.fromBoard(board, 'X');
+        long o = BitBoard.fromBoard(board, 'O');
+        long mask = x | o;
+        for (int col = 0; col < BitBoard.WIDTH; col++) {
+            long column = mask & BitBoard.columnMask(col);
+            if ((column & (column + BitBoard.bottomMask(col))) != 0) {
+                throw new IllegalArgumentException("column " + (col + 1) + " has floating stones");
+            }
+        }
+        int diff = Long.bitCount(x) - Long.bitCount(o);
+        if (diff != 0 && diff != 1) {
+            throw new IllegalArgumentException("X moves first, so X must have as many stones as O or one more");
+        }
+        if (BitBoard.isWin(x) || BitBoard.isWin(o) || (mask & BitBoard.FULL) == BitBoard.FULL) {
+            throw new IllegalArgumentException("game is already over");
+        }
+        return new long[]{diff == 0 ? x : o, mask};
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    /**
+     * Gets the port the service is listening on.
+     *
+     * @return The local port.
+     */
+    public int getPort() {
+        return httpServer.getAddress().getPort();
+    }
+
+    /**
+     * Gets the number of searches run, which is less than the requests answered
+     * when requests were served from the cache or joined a running search.
+     *
+     * @return The search count.
+     */
+    public long getSearches() {
+        return searchesRun.get();
+    }
+
+    /**
+     * Gets the number of search threads that started from a snapshot.
+     *
+     * @return The warm start count.
+     */
+    public int getWarmStarts() {
+        return warmStarts.get();
+    }
+
+    /**
+     * Stops the service and its pools, then snapshots every search thread's table
+     * if snapshots are on and the searches have finished.
+     */
+    @Override
+    public void close() {
+        httpServer.stop(0);
+        searchPool.shutdownNow();
+        requestExecutor.shutdownNow();
+        snapshotWriter.shutdown();
+        try {
+            if (snapshotWriter.awaitTermination(10, TimeUnit.SECONDS)
+                    && searchPool.awaitTermination(10, TimeUnit.SECONDS)) {
+                for (SearchSlot slot : slots) {
+                    if (slot.file != null) {
+                        save(slot.table, slot.file, slot.search.engineTag());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The search of one search thread and where its snapshot goes.
+     */
+    private static final class SearchSlot {
+        final Connect4Search search;
+        final TranspositionTable table; // Null for the shared table, which has no snapshots
+        final Path file; // Null while snapshots are off
+        long lastSnapshot = System.nanoTime(); // Only used by the owning thread
+
+        SearchSlot(Connect4Search search, TranspositionTable table, Path file) {
+            this.search = search;
+            this.table = table;
+            this.file = file;
+        }
+    }
+
+    /**
+     * Main method to start the service.
+     * The system property connect4.sharedTable names a shared table file, of
+     * 2^connect4.sharedTableBits slots, to use instead of per thread tables.
+     * @param args Optional port, search depth and table snapshot directory.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_DEPTH;
+        int threads = Runtime.getRuntime().availableProcessors();
+        MoveEvalServer service = new MoveEvalServer(port, depth, threads, threads * 16, 100_000);
+        String shared = System.getProperty("connect4.sharedTable");
+        if (shared != null) {
+            int bits = Integer.getInteger("connect4.sharedTableBits", SHARED_TABLE_BITS);
+            service.useSharedTable(SharedTranspositionTable.open(Paths.get(shared), bits,
+                    Connect4Search.engineTag(Connect4Search.defaultWeights())));
+        } else if (args.length > 2) {
+            service.enableSnapshots(Paths.get(args[2]), SNAPSHOT_INTERVAL_MILLIS);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(service::close));
+        service.start();
+        System.out.println("Move evaluation service listening on port " + service.getPort());
+    }
+}
@@ -0,0 +1,451 @@
+/**
+ * SelfPlayCoordinator class spreads self-play over several worker JVMs.
+ * It starts the workers, hands them batches of games over loopback sockets,
+ * merges the games they stream back into one archive, and restarts any
+ * worker that crashes or stalls.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package server;
+
+import core.BitBoard;
+import core.GameRecord;
+import core.GameRecordWriter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * The SelfPlayCoordinator class keeps a queue of batches. Every connected worker
+ * takes one batch at a time, and its games are only written to the archive once the
+ * whole batch is done, so a batch that is re-queued after a failure is never written twice.
+ * A worker holding a batch that sends nothing for the stall timeout is killed.
+ * A worker process that exits while the coordinator is running is started again,
+ * up to a limit per worker slot. Workers on other hosts can join with
+ * {@code SelfPlayWorker <host> <port>} when the coordinator listens on a reachable address.
+ */
+public class SelfPlayCoordinator implements AutoCloseable {
+    public static final int DEFAULT_DEPTH = 6;
+    public static final long DEFAULT_STALL_MILLIS = 30_000;
+    private static final int MAX_RESTARTS = 5; // Per worker slot
+    private static final long POLL_MILLIS = 100;
+
+    private final ServerSocket serverSocket;
+    private final GameRecordWriter writer; // Guarded by itself
+    private final int depth;
+    private final long stallMillis;
+    private final List<String> workerJvmArgs = new ArrayList<>();
+    private final ExecutorService connections = Connect4Server.newSessionExecutor();
+    private final BlockingDeque<Batch> queue = new LinkedBlockingDeque<>();
+    private final Map<Socket, DataOutputStream> connected = new ConcurrentHashMap<>();
+    private final List<Process> workers = new ArrayList<>(); // Guarded by itself, index is the worker id
+    private final List<Integer> restarts = new ArrayList<>(); // Guarded by workers
+    private final AtomicInteger totalRestarts = new AtomicInteger();
+    private final AtomicInteger requeued = new AtomicInteger();
+    private final AtomicLong games = new AtomicLong();
+    private final AtomicInteger batchesLeft = new AtomicInteger();
+    private volatile boolean running = true;
+
+    /**
+     * Constructs the coordinator and starts listening for workers.
+     *
+     * @param bindAddress The address workers connect to, loopback for local workers only.
+     * @param port        The TCP port, 0 picks a free port.
+     * @param writer      The archive the games are merged into.
+     * @param depth       The search depth the workers play at.
+     * @param stallMillis How long a worker holding a batch may stay silent.
+     * @throws IOException If the port cannot be bound.
+     */
+    public SelfPlayCoordinator(InetAddress bindAddress, int port, GameRecordWriter writer, int depth, long stallMillis)
+            throws IOException {
+        if (writer == null) {
+            throw new IllegalArgumentException("Writer cannot be null");
+        }
+        if (depth < 1 || stallMillis < 1) {
+            throw new IllegalArgumentException("Depth and stall timeout must be positive");
+        }
+        this.writer = writer;
+        this.depth = depth;
+        this.stallMillis = stallMillis;
+        serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(bindAddress, port));
+        Thread acceptor = new Thread(this::accept, "selfplay-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Gets the port workers connect to.
+     *
+     * @return The bound port.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Starts worker JVMs on this host. They use the coordinator's Java and class path.
+     *
+     * @param count   The number of workers to start.
+     * @param jvmArgs Extra JVM options for every worker, such as -Xmx64m.
+     * @throws IOException If a process cannot be started.
+     */
+    public void startWorkers(int count, String... jvmArgs) throws IOException {
+        if (count < 1) {
+            throw new IllegalArgumentException("Worker count must be positive");
+        }
+        synchronized (workers) {
+            workerJvmArgs.addAll(List.of(jvmArgs));
+            for (int i = 0; i < count; i++) {
+                workers.add(null);
+                restarts.add(0);
+                launch(workers.size() - 1);
+            }
+        }
+    }
+
+    /**
+     * Starts the process of a worker slot and arranges for it to be started again if it exits.
+     * Callers hold the workers lock.
+     */
+    private void launch(int id) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(workerJvmArgs);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(SelfPlayWorker.class.getName());
+        command.add(InetAddress.getLoopbackAddress().getHostAddress());
+        command.add(Integer.toString(getPort()));
+        command.add(Integer.toString(id));
+        Process process = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        workers.set(id, process);
+        process.onExit().thenRun(() -> restart(id, process));
+    }
+
+    private void restart(int id, Process exited) {
+        synchronized (workers) {
+            if (!running || workers.get(id) != exited) {
+                return;
+            }
+            if (restarts.get(id) >= MAX_RESTARTS) {
+                System.err.println("Self-play worker " + id + " failed too often, not restarting it");
+                workers.set(id, null);
+                return;
+            }
+            restarts.set(id, restarts.get(id) + 1);
+            totalRestarts.incrementAndGet();
+            try {
+                launch(id);
+            } catch (IOException e) {
+                System.err.println("Self-play worker " + id + " could not be restarted: " + e.getMessage());
+                workers.set(id, null);
+            }
+        }
+    }
+
+    private void accept() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("Self-play accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Feeds batches to one worker until the coordinator closes or the worker fails.
+     */
+    private void serve(Socket socket) {
+        Batch batch = null;
+        int workerId = -1;
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout((int) Math.min(Integer.MAX_VALUE, stallMillis));
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            byte[] frame = new byte[SelfPlayProtocol.MAX_FRAME];
+            if (SelfPlayProtocol.type(SelfPlayProtocol.read(in, frame)) != SelfPlayProtocol.HELLO) {
+                throw new IOException("Worker did not say hello");
+            }
+            workerId = SelfPlayProtocol.getInt(frame, 0);
+            connected.put(socket, out);
+            byte[] request = new byte[24];
+            while (running) {
+                batch = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (batch == null) {
+                    continue;
+                }
+                SelfPlayProtocol.putLong(request, 0, batch.id);
+                SelfPlayProtocol.putLong(request, 8, batch.seed);
+                SelfPlayProtocol.putInt(request, 16, batch.games);
+                SelfPlayProtocol.putInt(request, 20, depth);
+                synchronized (out) {
+                    SelfPlayProtocol.write(out, SelfPlayProtocol.BATCH, request, request.length);
+                }
+                List<byte[]> results = receive(in, frame, batch);
+                synchronized (writer) {
+                    for (byte[] game : results) {
+                        writer.append(game, game.length - 5, game[game.length - 5], SelfPlayProtocol.getInt(game, game.length - 4));
+                    }
+                }
+                games.addAndGet(results.size());
+                batch = null;
+                batchesLeft.decrementAndGet();
+            }
+        } catch (EOFException e) {
+            if (running) {
+                System.err.println("Self-play worker " + workerId + " disconnected");
+            }
+        } catch (SocketTimeoutException e) {
+            System.err.println("Self-play worker " + workerId + " stalled, restarting it");
+        } catch (IOException e) {
+            if (running) {
+                System.err.println("Self-play worker " + workerId + " failed: " + e.getMessage());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            connected.remove(socket);
+            if (batch != null) {
+                queue.addFirst(batch);
+                requeued.incrementAndGet();
+            }
+            if (running && workerId >= 0) {
+                kill(workerId);
+            }
+        }
+    }
+
+    /**
+     * Reads the games of a batch until the worker reports it done.
+     * Each game comes back as its moves followed by the result byte and the duration.
+     * Every game is checked as it arrives, so a batch holding a damaged game fails
+     * before any of it reaches the archive.
+     */
+    private List<byte[]> receive(DataInputStream in, byte[] frame, Batch batch) throws IOException {
+        List<byte[]> results = new ArrayList<>(batch.games);
+        while (true) {
+            int header = SelfPlayProtocol.read(in, frame);
+            int type = SelfPlayProtocol.type(header);
+            if (SelfPlayProtocol.getLong(frame, 0) != batch.id) {
+                throw new IOException("Frame for batch " + SelfPlayProtocol.getLong(frame, 0)
+                        + " while batch " + batch.id + " was running");
+            }
+            if (type == SelfPlayProtocol.DONE) {
+                if (results.size() != batch.games) {
+                    throw new IOException("Batch " + batch.id + " ended after " + results.size() + " games");
+                }
+                return results;
+            }
+            if (type != SelfPlayProtocol.GAME) {
+                throw new IOException("Unexpected frame type " + type);
+            }
+            int count = frame[8] & 0xFF;
+            if (count > GameRecord.MAX_MOVES || count + 14 != SelfPlayProtocol.length(header)) {
+                throw new IOException("Game of " + count + " moves in a frame of "
+                        + SelfPlayProtocol.length(header) + " bytes");
+            }
+            for (int i = 0; i < count; i++) {
+                if (frame[9 + i] < 0 || frame[9 + i] >= BitBoard.WIDTH) {
+                    throw new IOException("Game with a move in column " + frame[9 + i]);
+                }
+            }
+            if ((frame[9 + count] & 0xFF) > GameRecord.UNFINISHED) {
+                throw new IOException("Game with result " + (frame[9 + count] & 0xFF));
+            }
+            byte[] game = new byte[count + 5];
+            System.arraycopy(frame, 9, game, 0, count + 5);
+            results.add(game);
+        }
+    }
+
+    private void kill(int workerId) {
+        Process process;
+        synchronized (workers) {
+            process = workerId < workers.size() ? workers.get(workerId) : null;
+        }
+        if (process != null) {
+            process.destroyForcibly(); // Its exit starts a replacement
+        }
+    }
+
+    /**
+     * Plays batches of games on the connected workers and waits until every batch is in the archive.
+     *
+     * @param batches       The number of batches.
+     * @param gamesPerBatch The number of games per batch.
+     * @param seed          The seed of the first game; game i of the run uses seed + i.
+     * @throws IOException          If every worker has failed and none can be restarted.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public void run(int batches, int gamesPerBatch, long seed) throws IOException, InterruptedException {
+        if (batches < 1 || gamesPerBatch < 1) {
+            throw new IllegalArgumentException("Batches and games per batch must be positive");
+        }
+        batchesLeft.addAndGet(batches);
+        for (int i = 0; i < batches; i++) {
+            queue.add(new Batch(i, seed + (long) i * gamesPerBatch, gamesPerBatch));
+        }
+        while (batchesLeft.get() > 0) {
+            Thread.sleep(POLL_MILLIS);
+            if (connected.isEmpty() && liveWorkers() == 0) {
+                throw new IOException("No self-play workers are left, " + batchesLeft.get() + " batches unfinished");
+            }
+        }
+        synchronized (writer) {
+            writer.flush();
+        }
+    }
+
+    private int liveWorkers() {
+        synchronized (workers) {
+            int live = 0;
+            for (Process process : workers) {
+                if (process != null) {
+                    live++;
+                }
+            }
+            return live;
+        }
+    }
+
+    /**
+     * Gets the number of games merged into the archive.
+     *
+     * @return The game count.
+     */
+    public long getGames() {
+        return games.get();
+    }
+
+    /**
+     * Gets the number of times a worker process was started again.
+     *
+     * @return The restart count.
+     */
+    public int getRestarts() {
+        return totalRestarts.get();
+    }
+
+    /**
+     * Gets the number of batches put back on the queue after a worker failed.
+     *
+     * @return The re-queue count.
+     */
+    public int getRequeued() {
+        return requeued.get();
+    }
+
+    /**
+     * Tells every worker to stop, waits briefly for the processes and stops listening.
+     * The archive is left open for the caller to close.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        for (DataOutputStream out : connected.values()) {
+            try {
+                synchronized (out) {
+                    SelfPlayProtocol.write(out, SelfPlayProtocol.SHUTDOWN, new byte[0], 0);
+                }
+            } catch (IOException e) {
+                // Already gone
+            }
+        }
+        List<Process> processes;
+        synchronized (workers) {
+            processes = new ArrayList<>(workers);
+        }
+        for (Process process : processes) {
+            if (process == null) {
+                continue;
+            }
+            try {
+                if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+        serverSocket.close();
+        connections.shutdownNow();
+    }
+
+    /**
+     * A batch of games, identified by its position in the run.
+     */
+    private static final class Batch {
+        final long id;
+        final long seed;
+        final int games;
+
+        Batch(long id, long seed, int games) {
+            this.id = id;
+            this.seed = seed;
+            this.games = games;
+        }
+    }
+
+    /**
+     * Main method to run self-play into an archive.
+     * @param args The archive, the number of workers, batches and games per batch,
+     *             then optional depth, seed and bind address for remote workers.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 4) {
+            System.out.println("Usage: SelfPlayCoordinator <archive> <workers> <batches> <games per batch>"
+                    + " [depth] [seed] [bind address]");
+            return;
+        }
+        int workerCount = Integer.parseInt(args[1]);
+        int batches = Integer.parseInt(args[2]);
+        int gamesPerBatch = Integer.parseInt(args[3]);
+        int depth = args.length > 4 ? Integer.parseInt(args[4]) : DEFAULT_DEPTH;
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : System.nanoTime();
+        InetAddress bind = args.length > 6 ? InetAddress.getByName(args[6]) : InetAddress.getLoopbackAddress();
+        try (GameRecordWriter writer = new GameRecordWriter(new File(args[0]).toPath());
+             SelfPlayCoordinator coordinator = new SelfPlayCoordinator(bind, 0, writer, depth, DEFAULT_STALL_MILLIS)) {
+            System.out.println("Listening for workers on port " + coordinator.getPort());
+            coordinator.startWorkers(workerCount);
+            long start = System.nanoTime();
+            coordinator.run(batches, gamesPerBatch, seed);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            System.out.println("Games: " + coordinator.getGames() + " in " + millis + " ms, restarts: "
+                    + coordinator.getRestarts() + ", re-queued batches: " + coordinator.getRequeued());
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * SelfPlayProtocol class defines the frames exchanged between the
+ * self-play coordinator and its worker processes.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package server;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+
+/**
+ * The SelfPlayProtocol class reads and writes length prefixed frames.
+ * Every frame is a big endian int giving the number of bytes that follow,
+ * a type byte, then the payload of that type:
+ * <pre>
+ * HELLO     worker to coordinator  int workerId (-1 for a worker the coordinator did not start)
+ * BATCH     coordinator to worker  long batchId, long seed, int games, int depth
+ * GAME      worker to coordinator  long batchId, u8 moveCount, moveCount column bytes (0-6), u8 result, int durationMillis
+ * DONE      worker to coordinator  long batchId
+ * SHUTDOWN  coordinator to worker  nothing
+ * </pre>
+ */
+final class SelfPlayProtocol {
+    static final byte HELLO = 1;
+    static final byte BATCH = 2;
+    static final byte GAME = 3;
+    static final byte DONE = 4;
+    static final byte SHUTDOWN = 5;
+    static final int MAX_FRAME = 256; // Longest legal frame, a GAME of 42 moves is 57 bytes
+
+    private SelfPlayProtocol() {
+    }
+
+    /**
+     * Writes one frame and flushes it.
+     *
+     * @param out     The stream to write to.
+     * @param type    The frame type.
+     * @param payload The payload bytes.
+     * @param length  The number of payload bytes to write.
+     * @throws IOException If the frame cannot be written.
+     */
+    static void write(DataOutputStream out, byte type, byte[] payload, int length) throws IOException {
+        out.writeInt(length + 1);
+        out.writeByte(type);
+        out.write(payload, 0, length);
+        out.flush();
+    }
+
+    /**
+     * Reads one frame into a buffer.
+     *
+     * @param in      The stream to read from.
+     * @param payload Receives the payload, at least MAX_FRAME bytes long.
+     * @return The frame type and payload length, see type and length.
+     * @throws EOFException If the stream ends, including in the middle of a frame.
+     * @throws IOException  If the frame is too long or cannot be read.
+     */
+    static int read(DataInputStream in, byte[] payload) throws IOException {
+        int length = in.readInt();
+        if (length < 1 || length > MAX_FRAME) {
+            throw new IOException("Bad frame length " + length);
+        }
+        byte type = in.readByte();
+        in.readFully(payload, 0, length - 1);
+        return (length - 1) << 8 | type & 0xFF;
+    }
+
+    /**
+     * Gets the type of a frame read by read.
+     *
+     * @param frame The value returned by read.
+     * @return The frame type.
+     */
+    static int type(int frame) {
+        return frame & 0xFF;
+    }
+
+    /**
+     * Gets the number of payload bytes of a frame read by read.
+     *
+     * @param frame The value returned by read.
+     * @return The payload length.
+     */
+    static int length(int frame) {
+        return frame >>> 8;
+    }
+
+    static void putInt(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) (value >>> 24);
+        buffer[offset + 1] = (byte) (value >>> 16);
+        buffer[offset + 2] = (byte) (value >>> 8);
+        buffer[offset + 3] = (byte) value;
+    }
+
+    static void putLong(byte[] buffer, int offset, long value) {
+        putInt(buffer, offset, (int) (value >>> 32));
+        putInt(buffer, offset + 4, (int) value);
+    }
+
+    static int getInt(byte[] buffer, int offset) {
+        return (buffer[offset] & 0xFF) << 24 | (buffer[offset + 1] & 0xFF) << 16
+                | (buffer[offset + 2] & 0xFF) << 8 | (buffer[offset + 3] & 0xFF);
+    }
+
+    static long getLong(byte[] buffer, int offset) {
+        return (long) getInt(buffer, offset) << 32 | (getInt(buffer, offset + 4) & 0xFFFFFFFFL);
+    }
+}
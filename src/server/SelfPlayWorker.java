@@ -0,0 +1,157 @@
+/**
+ * SelfPlayWorker class is a worker process for SelfPlayCoordinator.
+ * It connects back to the coordinator, plays the batches of self-play
+ * games it is handed and streams every game back.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package server;
+
+import core.BitBoard;
+import core.Connect4Search;
+import core.GameRecord;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Random;
+
+
+/**
+ * The SelfPlayWorker class runs in its own JVM, so its heap and garbage collector
+ * are separate from the coordinator's and from the other workers'.
+ * Each game opens with a few random moves drawn from the batch seed and is then
+ * played out by the search for both sides on an emptied table, so a game depends
+ * only on its seed and a batch that is run again after a crash produces the same games.
+ */
+public class SelfPlayWorker {
+    static final int OPENING_PLIES = 4; // Random moves before the search takes over
+
+    private final Connect4Search search = new Connect4Search();
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final byte[] frame = new byte[SelfPlayProtocol.MAX_FRAME];
+
+    /**
+     * Constructs a worker on a connected socket.
+     *
+     * @param socket The connection to the coordinator.
+     * @throws IOException If the socket streams cannot be opened.
+     */
+    public SelfPlayWorker(Socket socket) throws IOException {
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    /**
+     * Introduces the worker and plays batches until told to stop or the connection closes.
+     *
+     * @param workerId The id the coordinator gave this process, or -1.
+     * @throws IOException If the connection fails.
+     */
+    public void run(int workerId) throws IOException {
+        byte[] hello = new byte[4];
+        SelfPlayProtocol.putInt(hello, 0, workerId);
+        send(SelfPlayProtocol.HELLO, hello, hello.length);
+        while (true) {
+            int type;
+            try {
+                type = SelfPlayProtocol.type(SelfPlayProtocol.read(in, frame));
+            } catch (EOFException e) {
+                return; // Coordinator went away
+            }
+            if (type == SelfPlayProtocol.SHUTDOWN) {
+                return;
+            }
+            if (type != SelfPlayProtocol.BATCH) {
+                throw new IOException("Unexpected frame type " + type);
+            }
+            long batchId = SelfPlayProtocol.getLong(frame, 0);
+            long seed = SelfPlayProtocol.getLong(frame, 8);
+            int games = SelfPlayProtocol.getInt(frame, 16);
+            int depth = SelfPlayProtocol.getInt(frame, 20);
+            playBatch(batchId, seed, games, depth);
+        }
+    }
+
+    private void playBatch(long batchId, long seed, int games, int depth) throws IOException {
+        byte[] moves = new byte[GameRecord.MAX_MOVES];
+        byte[] game = new byte[SelfPlayProtocol.MAX_FRAME];
+        for (int g = 0; g < games; g++) {
+            long start = System.nanoTime();
+            int count = playGame(search, seed + g, depth, moves);
+            int millis = (int) ((System.nanoTime() - start) / 1_000_000);
+            SelfPlayProtocol.putLong(game, 0, batchId);
+            game[8] = (byte) count;
+            System.arraycopy(moves, 0, game, 9, count);
+            game[9 + count] = (byte) GameRecord.resultOf(moves, count);
+            SelfPlayProtocol.putInt(game, 10 + count, millis);
+            send(SelfPlayProtocol.GAME, game, 14 + count);
+        }
+        byte[] done = new byte[8];
+        SelfPlayProtocol.putLong(done, 0, batchId);
+        send(SelfPlayProtocol.DONE, done, done.length);
+    }
+
+    /**
+     * Plays one self-play game. The search table is emptied first, so the game
+     * does not depend on the games the search played before.
+     *
+     * @param search The search both sides use.
+     * @param seed   The seed of the random opening.
+     * @param depth  The search depth in plies.
+     * @param moves  Receives the columns played, starting at 0.
+     * @return The number of moves played.
+     */
+    public static int playGame(Connect4Search search, long seed, int depth, byte[] moves) {
+        Random random = new Random(seed);
+        search.getTable().clear();
+        long current = 0;
+        long mask = 0;
+        int count = 0;
+        while (count < BitBoard.CELLS) {
+            int col;
+            if (count < OPENING_PLIES) {
+                do {
+                    col = random.nextInt(BitBoard.WIDTH);
+                } while (!BitBoard.canPlay(mask, col));
+            } else {
+                col = search.search(current, mask, depth);
+            }
+            long bit = BitBoard.moveBit(mask, col);
+            moves[count++] = (byte) col;
+            if (BitBoard.isWin(current | bit)) {
+                break;
+            }
+            mask |= bit;
+            current = (current | bit) ^ mask;
+        }
+        return count;
+    }
+
+    private void send(byte type, byte[] payload, int length) throws IOException {
+        SelfPlayProtocol.write(out, type, payload, length);
+    }
+
+    /**
+     * Main method to run a worker.
+     * @param args The coordinator host and port, then the worker id given by the coordinator.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: SelfPlayWorker <host> <port> [worker id]");
+            return;
+        }
+        int workerId = args.length > 2 ? Integer.parseInt(args[2]) : -1;
+        try (Socket socket = new Socket(args[0], Integer.parseInt(args[1]))) {
+            socket.setTcpNoDelay(true);
+            new SelfPlayWorker(socket).run(workerId);
+        }
+    }
+}
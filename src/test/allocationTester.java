@@ -0,0 +1,131 @@
+/**
+ * This is the allocation tester for the hot paths in the core package.
+ * Each path is warmed up, then run many times while the bytes allocated
+ * by the test thread are counted, and the count must be zero.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package test;
+
+
+import core.Connect4ComputerPlayer;
+import core.Connect4Logic;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.IntSupplier;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class allocationTester {
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 10_000;
+    private static final int ROUNDS = 10;
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private Connect4Logic gameLogic;
+    private int sink; // Keeps results alive so the work is not optimized away
+    private int[] escaped; // Lets the harness check allocate for real
+
+    /**
+     * Sets up a mid game board without a winner for every test.
+     */
+    @Before
+    public void setUp() {
+        assumeTrue(THREADS.isThreadAllocatedMemorySupported());
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+        gameLogic = new Connect4Logic();
+        int[] columns = {4, 4, 3, 5, 2, 2, 6, 1, 7, 7};
+        for (int column : columns) {
+            gameLogic.playerMove(column);
+            gameLogic.playerSwitcher();
+        }
+        assertFalse(gameLogic.winChecker());
+    }
+
+    /**
+     * Runs an operation until warm, then counts the bytes it allocates.
+     *
+     * @param operation The operation to measure.
+     * @return The bytes allocated over the measured runs of the quietest round.
+     */
+    private long allocatedBytes(IntSupplier operation) {
+        for (int i = 0; i < WARMUP; i++) {
+            sink += operation.getAsInt();
+        }
+        long threadId = Thread.currentThread().getId();
+        // The JIT compiles in the background, and until it is done with the operation
+        // its allocations may not be removed yet, so keep the quietest round
+        long least = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS && least > 0; round++) {
+            long before = THREADS.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < ITERATIONS; i++) {
+                sink += operation.getAsInt();
+            }
+            long after = THREADS.getThreadAllocatedBytes(threadId);
+            // The counter read itself may allocate, so subtract an empty measurement
+            long emptyBefore = THREADS.getThreadAllocatedBytes(threadId);
+            long emptyAfter = THREADS.getThreadAllocatedBytes(threadId);
+            least = Math.min(least, Math.max(0, (after - before) - (emptyAfter - emptyBefore)));
+        }
+        return least;
+    }
+
+    /**
+     * Test case for the harness itself.
+     * An operation that allocates must be reported as allocating.
+     */
+    @Test
+    public void testHarnessSeesAllocation() {
+        assertTrue(allocatedBytes(() -> (escaped = new int[8]).length) >= ITERATIONS * 8L);
+    }
+
+    /**
+     * Test case for dropping a piece and taking it back.
+     */
+    @Test
+    public void testPlayerMoveAndUndoAllocateNothing() {
+        assertEquals(0, allocatedBytes(() -> {
+            boolean moved = gameLogic.playerMove(4);
+            gameLogic.undoMove(4);
+            return moved ? 1 : 0;
+        }));
+    }
+
+    /**
+     * Test case for checking for a win and for a draw.
+     */
+    @Test
+    public void testCheckersAllocateNothing() {
+        assertEquals(0, allocatedBytes(() -> gameLogic.winChecker() ? 1 : 0));
+        assertEquals(0, allocatedBytes(() -> gameLogic.boardChecker() ? 1 : 0));
+    }
+
+    /**
+     * Test case for the default computer player, including its random fallback.
+     */
+    @Test
+    public void testComMoveAllocatesNothing() {
+        Connect4ComputerPlayer player = new Connect4ComputerPlayer('O');
+        char[][] board = gameLogic.getBoard();
+        assertEquals(0, allocatedBytes(() -> player.comMove(board)));
+        assertEquals(0, allocatedBytes(() -> player.getRandomMove(board)));
+    }
+
+    /**
+     * Test case for the searching computer player at a fixed depth.
+     * The search table is built on the first move and reused after that.
+     */
+    @Test
+    public void testSearchComMoveAllocatesNothing() {
+        Connect4ComputerPlayer player = new Connect4ComputerPlayer('O', 4);
+        char[][] board = gameLogic.getBoard();
+        player.comMove(board);
+        assertEquals(0, allocatedBytes(() -> player.comMove(board)));
+    }
+}
@@ -10,9 +10,71 @@
 package test;
 
 
+import core.BatchWinChecker;
+import core.BitBoard;
+import core.Connect4BatchPlayer;
 import core.Connect4ComputerPlayer;
+import core.Connect4Events;
 import core.Connect4Logic;
+import core.Connect4Search;
+import core.Difficulty;
+import core.EndgameBitbase;
+import core.ConnectKBoard;
+import core.ConnectKPlayer;
+import core.GameRecord;
+import core.GameRecordReader;
+import core.GameClock;
+import core.GameRecordWriter;
+import core.LatencyHistogram;
+import core.PositionIndex;
+import core.ProofNumberSolver;
+import core.SearchStats;
+import core.SharedTranspositionTable;
+import core.SmallBoardDatabase;
+import core.TimeControl;
+import core.TimeManager;
+import core.TranspositionTable;
 import org.junit.Test;
+import server.BotLoadController;
+import server.Connect4Server;
+import server.MoveEvalServer;
+import server.SelfPlayCoordinator;
+import server.SelfPlayWorker;
+import tools.ArchiveStats;
+import tools.ArchiveValidator;
+import tools.BenchmarkBaseline;
+import tools.BitbaseGenerator;
+import tools.EvalTuner;
+import tools.Perft;
+import tools.PositionLabeler;
+import tools.RegressionGate;
+import tools.TrainingDataExporter;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.*;
 
@@ -1048,9 +1110,1677 @@ public class connectTester {
         assertEquals(1, player.findBlockingMove(board)); // Expected blocking move at column 3
     }
 
+    /**
+     * Test case for the batch form of comMove.
+     * Plays out a game and checks that the batch player picks the same
+     * columns as a single searching computer player for every position.
+     * Boards are given both as char boards and as packed bitboards.
+     */
+    @Test
+    public void testComMovesBatch() throws InterruptedException {
+        Connect4Logic gameLogic = new Connect4Logic();
+        int[] columns = {4, 4, 3, 5, 2, 6, 1, 1, 7, 7};
+        char[][][] boards = new char[columns.length][][];
+        long[] packed = new long[columns.length * 2];
+        for (int i = 0; i < columns.length; i++) {
+            gameLogic.playerMove(columns[i]);
+            gameLogic.playerSwitcher();
+            boards[i] = new char[gameLogic.ROWS][];
+            for (int row = 0; row < gameLogic.ROWS; row++) {
+                boards[i][row] = gameLogic.getBoard()[row].clone();
+            }
+            packed[2 * i] = BitBoard.fromBoard(boards[i], 'X');
+            packed[2 * i + 1] = BitBoard.fromBoard(boards[i], 'O');
+        }
+        // A single worker sees the boards in order, just like one reused computer player
+        Connect4ComputerPlayer player = new Connect4ComputerPlayer('O', 4);
+        int[] expected = new int[columns.length];
+        try (Connect4BatchPlayer batch = new Connect4BatchPlayer('O', 4, 1)) {
+            for (int i = 0; i < columns.length; i++) {
+                expected[i] = player.comMove(boards[i]);
+            }
+            assertArrayEquals(expected, batch.comMoves(boards));
+            for (int i = 0; i < columns.length; i++) {
+                expected[i] = player.comMove(boards[i]);
+            }
+            assertArrayEquals(expected, batch.comMoves(packed));
+        }
+        // With several workers every move must still be playable
+        try (Connect4BatchPlayer batch = new Connect4BatchPlayer('O', 4, 3)) {
+            int[] moves = batch.comMoves(packed);
+            for (int i = 0; i < columns.length; i++) {
+                assertTrue(player.isValidMove(boards[i], moves[i] - 1));
+            }
+        }
+        // An interrupted batch returns only once its workers have stopped. The caller is
+        // interrupted before the call, so the batch sees it however fast the workers are,
+        // and the boards are all different so the workers cannot finish from their tables.
+        long[] many = new long[2401 * 2];
+        for (int i = 0; i < many.length / 2; i++) {
+            long mask = 0;
+            long current = 0;
+            for (int move = 0, col = i; move < 5; move++, col /= 7) {
+                long bit = BitBoard.moveBit(mask, col % 7);
+                mask |= bit;
+                current = (current | bit) ^ mask;
+            }
+            many[2 * i] = current ^ mask; // After five moves O, the batch player, is to move
+            many[2 * i + 1] = current;
+        }
+        int[] moves = new int[many.length / 2];
+        try (Connect4BatchPlayer batch = new Connect4BatchPlayer('O', 8, 2)) {
+            Thread.currentThread().interrupt();
+            try {
+                batch.comMoves(many, moves);
+                fail("The batch was not interrupted");
+            } catch (IllegalStateException interrupted) {
+                assertTrue(Thread.interrupted());
+            } finally {
+                Thread.interrupted(); // Never leak the flag into later tests
+            }
+            int[] after = moves.clone();
+            Thread.sleep(100);
+            assertArrayEquals(after, moves);
+            assertTrue(Arrays.stream(moves).anyMatch(move -> move == 0)); // Stopped early
+            int[] again = batch.comMoves(packed);
+            for (int i = 0; i < columns.length; i++) {
+                assertTrue(player.isValidMove(boards[i], again[i] - 1));
+            }
+        }
+    }
 
-}
+    /**
+     * Test case for the game archive writer and reader.
+     * Writes a few games, appends one more with a second writer,
+     * and reads all of them back.
+     */
+    @Test
+    public void testGameRecordRoundTrip() throws IOException {
+        Path archive = Files.createTempFile("connect4", ".c4gr");
+        try {
+            byte[] xWins = {0, 1, 0, 1, 0, 1, 0};
+            byte[] full = new byte[GameRecord.MAX_MOVES];
+            for (int i = 0; i < full.length; i++) {
+                full[i] = (byte) (i % 7);
+            }
+            try (GameRecordWriter writer = new GameRecordWriter(archive)) {
+                writer.append(xWins, xWins.length, GameRecord.resultOf(xWins, xWins.length), 1500);
+                writer.append(full, full.length, GameRecord.UNFINISHED, 42);
+            }
+            try (GameRecordWriter writer = new GameRecordWriter(archive)) {
+                writer.append(new byte[0], 0, GameRecord.UNFINISHED, 0);
+            }
+            assertEquals(GameRecord.X_WINS, GameRecord.resultOf(xWins, xWins.length));
+
+            byte[] moves = new byte[GameRecord.MAX_MOVES];
+            try (GameRecordReader reader = new GameRecordReader(archive)) {
+                assertTrue(reader.next());
+                assertEquals(xWins.length, reader.getMoves(moves));
+                for (int i = 0; i < xWins.length; i++) {
+                    assertEquals(xWins[i], moves[i]);
+                    assertEquals(xWins[i], reader.getMove(i));
+                }
+                assertEquals(GameRecord.X_WINS, reader.getResult());
+                assertEquals(1500, reader.getDurationMillis());
+
+                assertTrue(reader.next());
+                assertEquals(full.length, reader.getMoves(moves));
+                for (int i = 0; i < full.length; i++) {
+                    assertEquals(full[i], moves[i]);
+                    assertEquals(full[i], reader.getMove(i));
+                }
+                assertEquals(42, reader.getDurationMillis());
+
+                assertTrue(reader.next());
+                assertEquals(0, reader.getMoveCount());
+                assertFalse(reader.next());
+            }
+
+            long result = GameRecord.FILE_HEADER_SIZE + 1 + GameRecord.packedSize(xWins.length);
+            patchByte(archive, result, 4); // No such result
+            assertCorrupt(archive);
+            patchByte(archive, result, GameRecord.X_WINS);
+            patchByte(archive, GameRecord.FILE_HEADER_SIZE + 1, 0x07); // Column 8, then column 1
+            assertCorrupt(archive);
+        } finally {
+            Files.deleteIfExists(archive);
+        }
+    }
+
+    /**
+     * Test case for the ArchiveStats class, counting a small archive with one damaged record.
+     */
+    @Test
+    public void testArchiveStats() throws IOException {
+        Path archive = Files.createTempFile("connect4", ".c4gr");
+        try {
+            byte[] xWins = {3, 2, 3, 2, 3, 2, 3};
+            byte[] oWins = {0, 3, 0, 3, 1, 3, 6, 3};
+            byte[] open = {3, 3, 4};
+            try (GameRecordWriter writer = new GameRecordWriter(archive)) {
+                writer.append(xWins, xWins.length, GameRecord.resultOf(xWins, xWins.length), 0);
+                writer.append(xWins, xWins.length, GameRecord.resultOf(xWins, xWins.length), 0);
+                writer.append(oWins, oWins.length, GameRecord.resultOf(oWins, oWins.length), 0);
+                writer.append(open, open.length, GameRecord.UNFINISHED, 0);
+                writer.append(open, open.length, GameRecord.UNFINISHED, 0);
+            }
+            ArchiveStats.Counters counters = new ArchiveStats(2, 2).run(archive, 3);
+            assertEquals(5, counters.getGames());
+            assertEquals(0, counters.getDamaged());
+            assertEquals(2, counters.getResults(GameRecord.X_WINS));
+            assertEquals(1, counters.getResults(GameRecord.O_WINS));
+            assertEquals(2, counters.getResults(GameRecord.UNFINISHED));
+            assertEquals(2, counters.getLength(7));
+            assertEquals(1, counters.getLength(8));
+            assertEquals(2, counters.getLength(3));
+            assertEquals(3, counters.getDistinctPositions()); // 43, 04 and 33
+
+            long last = Files.size(archive) - GameRecord.recordSize(open.length);
+            patchByte(archive, last + 1 + GameRecord.packedSize(open.length), 9); // No such result
+            counters = new ArchiveStats(2, 2).run(archive, 1);
+            assertEquals(4, counters.getGames());
+            assertEquals(1, counters.getDamaged());
+            assertEquals(1, counters.getResults(GameRecord.UNFINISHED));
+        } finally {
+            Files.deleteIfExists(archive);
+        }
+    }
+
+    /**
+     * Test case for the ArchiveValidator class, on an archive with a damaged record and a wrong result.
+     */
+    @Test
+    public void testArchiveValidator() throws IOException {
+        Path archive = Files.createTempFile("connect4", ".c4gr");
+        try {
+            byte[] xWins = {0, 1, 0, 1, 0, 1, 0};
+            byte[] short3 = {3, 3, 3};
+            try (GameRecordWriter writer = new GameRecordWriter(archive)) {
+                writer.append(short3, short3.length, GameRecord.UNFINISHED, 0);
+                writer.append(xWins, xWins.length, GameRecord.X_WINS, 0);
+                writer.append(xWins, xWins.length, GameRecord.O_WINS, 0); // Wrong result
+                writer.append(xWins, xWins.length, GameRecord.X_WINS, 0);
+            }
+            ArchiveValidator.Result result = new ArchiveValidator().run(archive, 2);
+            assertEquals(4, result.getGames());
+            assertEquals(1, result.getInvalidGames());
+
+            long second = GameRecord.FILE_HEADER_SIZE + GameRecord.recordSize(short3.length);
+            patchByte(archive, second + 1, 0x0F); // Column 8 first
+            result = new ArchiveValidator().run(archive, 1);
+            assertEquals(4, result.getGames());
+            assertEquals(2, result.getInvalidGames());
+            assertEquals(second + GameRecord.recordSize(xWins.length), result.getReportedOffsets()[0]);
+        } finally {
+            Files.deleteIfExists(archive);
+        }
+    }
+
+    /**
+     * Test case for the MoveEvalServer class over loopback: parsing of moves and grid,
+     * the result cache and its eviction, joined searches and the busy answer.
+     */
+    @Test
+    public void testMoveEvalServer() throws Exception {
+        try (MoveEvalServer server = new MoveEvalServer(0, 12, 2, 8, 2)) {
+            server.start();
+            int port = server.getPort();
+            assertEquals(400, status(get(port, "moves=48")));
+            assertEquals(400, status(get(port, "grid=XO")));
+            assertEquals(400, status(get(port, "depth=3")));
+
+            String first = get(port, "moves=44");
+            assertEquals(200, status(first));
+            assertTrue(first.contains("\"cached\":false"));
+            char[] grid = new char[BitBoard.CELLS]; // Top row first
+            Arrays.fill(grid, '.');
+            grid[4 * BitBoard.WIDTH + 3] = 'O';
+            grid[5 * BitBoard.WIDTH + 3] = 'X';
+            String again = get(port, "grid=" + new String(grid));
+            assertEquals(first.replace("false", "true"), again);
+            assertEquals(1, server.getSearches());
+
+            get(port, "moves=4");
+            get(port, "moves=444"); // Evicts 44, the cache holds two results
+            assertTrue(get(port, "moves=44").contains("\"cached\":false"));
+            assertEquals(4, server.getSearches());
+
+            List<Future<String>> answers = new ArrayList<>();
+            ExecutorService clients = Executors.newFixedThreadPool(6);
+            try {
+                for (int i = 0; i < 6; i++) {
+                    answers.add(clients.submit(() -> get(port, "moves=1234")));
+                }
+                for (Future<String> answer : answers) {
+                    assertEquals(200, status(answer.get()));
+                }
+            } finally {
+                clients.shutdownNow(); // Its threads are not daemons, a failure must not hang the run
+            }
+            assertEquals(5, server.getSearches()); // Six requests, one search
+        }
+
+        try (MoveEvalServer server = new MoveEvalServer(0, 16, 1, 1, 10)) {
+            server.start();
+            int port = server.getPort();
+            List<Future<String>> answers = new ArrayList<>();
+            int busy = 0;
+            ExecutorService clients = Executors.newFixedThreadPool(3);
+            try {
+                for (String moves : new String[] {"1", "2", "3"}) { // One runs, one waits, one is refused
+                    answers.add(clients.submit(() -> get(port, "moves=" + moves)));
+                }
+                for (Future<String> answer : answers) {
+                    busy += status(answer.get()) == 503 ? 1 : 0;
+                }
+            } finally {
+                clients.shutdownNow();
+            }
+            assertTrue(busy >= 1);
+        }
+    }
+
+    /**
+     * Sends a GET /move request to a local MoveEvalServer.
+     *
+     * @return The status code, a space, then the body.
+     */
+    private static String get(int port, String query) throws IOException {
+        java.net.HttpURLConnection connection = (java.net.HttpURLConnection)
+                new java.net.URL("http://localhost:" + port + "/move?" + query).openConnection();
+        int status = connection.getResponseCode();
+        try (java.io.InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            return status + " " + new String(in.readAllBytes(), java.nio.charset.StandardCharsets.UTF_8);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static int status(String answer) {
+        return Integer.parseInt(answer.substring(0, 3));
+    }
+
+    /**
+     * Test case for the Flight Recorder events: timed events carry their duration,
+     * so a threshold filters them.
+     */
+    @Test
+    public void testFlightRecorderEvents() throws IOException {
+        Path dump = Files.createTempFile("connect4", ".jfr");
+        try (jdk.jfr.Recording recording = new jdk.jfr.Recording()) {
+            recording.enable("connect4.SearchIteration");
+            recording.enable("connect4.ComputerMove").withThreshold(java.time.Duration.ofHours(1));
+            recording.enable("connect4.GameEnd");
+            recording.start();
+            assertTrue(Connect4Events.recording());
+            new Connect4Search().search(0, 0, 10);
+            Connect4Logic logic = new Connect4Logic();
+            Connect4ComputerPlayer player = new Connect4ComputerPlayer('X', 8);
+            logic.playerMove(player.comMove(logic.getBoard()));
+            logic.endGame(' ');
+            recording.stop();
+            assertFalse(Connect4Events.recording());
+            recording.dump(dump);
+
+            int iterations = 0;
+            int games = 0;
+            for (jdk.jfr.consumer.RecordedEvent event : jdk.jfr.consumer.RecordingFile.readAllEvents(dump)) {
+                String name = event.getEventType().getName();
+                assertFalse(name.equals("connect4.ComputerMove")); // Below the threshold
+                if (name.equals("connect4.SearchIteration")) {
+                    iterations++;
+                    assertTrue(event.getDuration().toNanos() > 0);
+                    assertTrue(event.getInt("depth") >= 1);
+                } else if (name.equals("connect4.GameEnd")) {
+                    games++;
+                    assertEquals(1, event.getInt("moves"));
+                    assertTrue(event.getDuration().toNanos() > 0);
+                }
+            }
+            assertTrue(iterations >= 10);
+            assertEquals(1, games);
+        } finally {
+            Files.deleteIfExists(dump);
+        }
+    }
+
+    /**
+     * Overwrites one byte of a file, to damage an archive on purpose.
+     */
+    private static void patchByte(Path path, long offset, int value) throws IOException {
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[(int) offset] = (byte) value;
+        Files.write(path, bytes);
+    }
+
+    /**
+     * Checks that reading the first record of an archive fails as corrupt.
+     */
+    private static void assertCorrupt(Path archive) {
+        try (GameRecordReader reader = new GameRecordReader(archive)) {
+            reader.next();
+            fail("Read a damaged record");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().startsWith("Corrupt record at offset " + GameRecord.FILE_HEADER_SIZE));
+        }
+    }
+
+    /**
+     * Test case for the game server over loopback TCP: a game against the bot, a client
+     * that disconnects while waiting in the lobby, and a game between two clients.
+     */
+    @Test
+    public void testConnect4Server() throws Exception {
+        Connect4ComputerPlayer bot = new Connect4ComputerPlayer('O', 4);
+        bot.setTableBits(10); // Server bots get a small table each
+        assertTrue(bot.comMove(new Connect4Logic().getBoard()) >= 1);
+        assertThrows(IllegalStateException.class, () -> bot.setTableBits(12));
+
+        try (Connect4Server server = new Connect4Server(0, 1, 4)) {
+            Thread acceptor = new Thread(server::serve);
+            acceptor.setDaemon(true);
+            acceptor.start();
+
+            try (Socket socket = clientSocket(server.getPort())) {
+                BufferedReader in = clientReader(socket);
+                PrintWriter out = clientWriter(socket);
+                startGame(in, out, "bot");
+                int botMoves = 0;
+                int next = 0;
+                String line;
+                while (!(line = expect(in, "")).endsWith("wins!") && !line.equals("It's a draw!")) {
+                    if (line.startsWith("Player X, enter column")) {
+                        out.println(next++ % 7 + 1);
+                    } else if (line.startsWith("Computer chose column")) {
+                        botMoves++;
+                    }
+                }
+                assertTrue(botMoves > 0);
+            }
+
+            try (Socket socket = clientSocket(server.getPort())) {
+                BufferedReader in = clientReader(socket);
+                startGame(in, clientWriter(socket), "player");
+                expect(in, "Waiting for another player");
+            }
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (server.getActiveSessions() > 0) { // The waiting session notices the disconnect
+                assertTrue(System.nanoTime() < deadline);
+                Thread.sleep(10);
+            }
+
+            try (Socket first = clientSocket(server.getPort()); Socket second = clientSocket(server.getPort())) {
+                BufferedReader inX = clientReader(first);
+                PrintWriter outX = clientWriter(first);
+                BufferedReader inO = clientReader(second);
+                PrintWriter outO = clientWriter(second);
+                startGame(inX, outX, "player");
+                expect(inX, "Waiting for another player");
+                startGame(inO, outO, "player");
+                expect(inX, "Okay starting game, Have fun! You are player X");
+                expect(inO, "Okay starting game, Have fun! You are player O");
+                for (int i = 0; i < 3; i++) {
+                    expect(inX, "Player X, enter column");
+                    outX.println(1);
+                    expect(inO, "Player O, enter column");
+                    outO.println(2);
+                }
+                expect(inX, "Player X, enter column");
+                outX.println(1);
+                expect(inX, "Player X wins!");
+                expect(inO, "Player X wins!");
+            }
+        }
+    }
+
+    private static Socket clientSocket(int port) throws IOException {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        socket.setSoTimeout(10_000);
+        return socket;
+    }
+
+    private static BufferedReader clientReader(Socket socket) throws IOException {
+        return new BufferedReader(new InputStreamReader(socket.getInputStream(), java.nio.charset.StandardCharsets.UTF_8));
+    }
+
+    private static PrintWriter clientWriter(Socket socket) throws IOException {
+        return new PrintWriter(new java.io.OutputStreamWriter(socket.getOutputStream(),
+                java.nio.charset.StandardCharsets.UTF_8), true);
+    }
+
+    /**
+     * Answers the start menu of the game server.
+     */
+    private static void startGame(BufferedReader in, PrintWriter out, String opponent) throws IOException {
+        expect(in, "Start the game?");
+        out.println("yes");
+        expect(in, "Type 'player'");
+        out.println(opponent);
+    }
+
+    /**
+     * Reads lines from the server until one starts with the given text.
+     */
+    private static String expect(BufferedReader in, String prefix) throws IOException {
+        while (true) {
+            String line = in.readLine();
+            if (line == null) {
+                fail("Connection closed while waiting for: " + prefix);
+            }
+            if (line.startsWith(prefix)) {
+                return line;
+            }
+        }
+    }
+
+    /**
+     * Test case for the position index.
+     * Adds games, checks the counts of a shared position and of its mirror image,
+     * then saves, reopens and merges the index.
+     */
+    @Test
+    public void testPositionIndex() throws IOException {
+        byte[] gameOne = {3, 3, 2, 2, 1, 1, 0};
+        byte[] gameTwo = {3, 3, 4, 2, 6};
+        long start = BitBoard.canonicalKey(BitBoard.bottomMask(3), BitBoard.bottomMask(3) * 3);
+        long afterThree = BitBoard.canonicalKey(BitBoard.bottomMask(3) << 1,
+                BitBoard.bottomMask(3) * 3 | BitBoard.bottomMask(2));
+        long afterFive = BitBoard.canonicalKey(BitBoard.bottomMask(3) << 1,
+                BitBoard.bottomMask(3) * 3 | BitBoard.bottomMask(4));
+
+        Path file = Files.createTempFile("connect4", ".c4pi");
+        try (PositionIndex index = PositionIndex.allocate(10)) {
+            index.addGame(gameOne, gameOne.length, GameRecord.X_WINS);
+            index.addGame(gameTwo, gameTwo.length, GameRecord.O_WINS);
+            assertEquals(2, index.getOccurrences(start));
+            assertEquals(1, index.getResults(start, GameRecord.X_WINS));
+            assertEquals(1, index.getResults(start, GameRecord.O_WINS));
+            // Columns 3 and 5 mirror each other, so both games share this entry
+            assertEquals(afterThree, afterFive);
+            assertEquals(2, index.getOccurrences(afterThree));
+            assertEquals(9, index.size());
+            index.save(file);
+
+            try (PositionIndex loaded = PositionIndex.open(file)) {
+                assertEquals(9, loaded.size());
+                loaded.merge(index);
+                assertEquals(4, loaded.getOccurrences(start));
+                assertEquals(2, loaded.getResults(start, GameRecord.X_WINS));
+                assertEquals(0, loaded.getOccurrences(BitBoard.canonicalKey(0, BitBoard.FULL)));
+            }
+
+            // Tallies past the signed range stay exact, then saturate instead of wrapping
+            index.add(start, 3_000_000_000L, 3_000_000_000L, 0, 0, 0);
+            assertEquals(3_000_000_001L, index.getResults(start, GameRecord.X_WINS));
+            index.add(start, 3_000_000_000L, 3_000_000_000L, 0, 0, 0);
+            assertEquals(0xFFFFFFFFL, index.getResults(start, GameRecord.X_WINS));
+            assertEquals(6_000_000_002L, index.getOccurrences(start));
+            assertThrows(IllegalArgumentException.class, () -> index.add(start, 1, -1, 0, 0, 0));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Test case for the undoMove method of the Connect4Logic class.
+     * Takes back moves and checks the board is restored.
+     */
+    @Test
+    public void testUndoMove() {
+        Connect4Logic gameLogic = new Connect4Logic();
+        assertFalse(gameLogic.undoMove(4)); // Nothing to take back yet
+        assertFalse(gameLogic.undoMove(0));
+        assertFalse(gameLogic.undoMove(8));
+
+        gameLogic.playerMove(4);
+        gameLogic.playerSwitcher();
+        gameLogic.playerMove(4);
+        assertEquals('O', gameLogic.getBoard()[4][3]);
+        assertTrue(gameLogic.undoMove(4));
+        assertEquals(' ', gameLogic.getBoard()[4][3]);
+        assertEquals('X', gameLogic.getBoard()[5][3]);
+        assertTrue(gameLogic.undoMove(4));
+        assertEquals(' ', gameLogic.getBoard()[5][3]);
+    }
+
+    /**
+     * Test case for perft.
+     * The reference rules and the bitboards must count the same number of lines,
+     * on one thread and split at the root.
+     */
+    @Test
+    public void testPerft() {
+        long[] expected = {1, 7, 49, 343, 2401, 16807, 117649};
+        Connect4Logic gameLogic = new Connect4Logic();
+        for (int depth = 0; depth < expected.length; depth++) {
+            assertEquals(expected[depth], Perft.reference(gameLogic, depth, null));
+            assertEquals(expected[depth], Perft.bitboard(0, 0, depth, null));
+        }
+        assertEquals(823536, Perft.referenceParallel(gameLogic, 7, null));
+        assertEquals(5673234, Perft.bitboardParallel(0, 0, 8, null));
+        // The reference count puts the board back the way it found it
+        assertEquals(' ', gameLogic.getBoard()[5][0]);
+    }
+
+    /**
+     * Test case for the LatencyHistogram class.
+     * Percentiles must land within one bucket of the true value.
+     */
+    @Test
+    public void testLatencyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.percentile(50));
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value * 1000);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000000, histogram.getMax());
+        long median = histogram.percentile(50);
+        assertTrue(median >= 500000 && median <= 500000 * 1.125);
+        long p99 = histogram.percentile(99);
+        assertTrue(p99 >= 990000 && p99 <= 1000000);
+        assertEquals(1000000, histogram.percentile(100));
+        assertThrows(IllegalArgumentException.class, () -> histogram.percentile(101));
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+    }
 
+    /**
+     * Test case for the SearchStats class, recorded from several threads at once
+     * and read back directly and as MBean attributes.
+     */
+    @Test
+    public void testSearchStats() throws Exception {
+        SearchStats stats = new SearchStats();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    stats.recordMove(2000, 50, 6, 40, 10, 3);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(4000, stats.getMoves());
+        assertEquals(200000, stats.getNodes());
+        assertEquals(6.0, stats.getAverageDepth(), 1e-9);
+        assertEquals(0.25, stats.getTableHitRate(), 1e-9);
+        assertEquals(3, stats.getLastMove());
+        assertEquals(2.0, stats.getLastMicros(), 1e-9);
+        assertEquals(4000, stats.getLatency().getCount());
+        stats.reset();
+        assertEquals(0, stats.getMoves());
+        assertEquals(0, stats.getTableHitRate(), 0);
+        assertEquals(-1, stats.getLastMove());
+
+        javax.management.MBeanServer server = java.lang.management.ManagementFactory.getPlatformMBeanServer();
+        javax.management.ObjectName name = new javax.management.ObjectName(SearchStats.OBJECT_NAME);
+        SearchStats global = SearchStats.global();
+        long before = (Long) server.getAttribute(name, "Moves");
+        global.recordMove(5000, 70, 8, 20, 5, 4);
+        global.recordMove(5000, 30, 8, 20, 5, 2);
+        assertEquals(before + 2, server.getAttribute(name, "Moves"));
+        assertEquals(2, server.getAttribute(name, "LastMove"));
+        assertEquals(30L, server.getAttribute(name, "LastNodes"));
+        assertEquals(8, server.getAttribute(name, "LastDepth"));
+        assertEquals(0.25, (Double) server.getAttribute(name, "LastTableHitRate"), 1e-9);
+    }
 
+    /**
+     * Test case for the ConnectKBoard class.
+     * On the standard board it must agree with Connect4Logic move for move,
+     * and on a 10x10 board lines that cross a word boundary must still win.
+     */
+    @Test
+    public void testConnectKBoard() {
+        java.util.Random random = new java.util.Random(37);
+        for (int game = 0; game < 200; game++) {
+            Connect4Logic gameLogic = new Connect4Logic();
+            ConnectKBoard board = new ConnectKBoard(7, 6, 4);
+            while (true) {
+                int column = 1 + random.nextInt(7);
+                assertEquals(gameLogic.playerMove(column), board.playerMove(column));
+                assertEquals(gameLogic.winChecker(), board.winChecker());
+                assertEquals(gameLogic.boardChecker(), board.boardChecker());
+                if (gameLogic.winChecker() || gameLogic.boardChecker()) {
+                    break;
+                }
+                gameLogic.playerSwitcher();
+                board.playerSwitcher();
+            }
+            assertArrayEquals(gameLogic.getBoard(), board.getBoard());
+        }
 
+        // Columns hold 11 bits on a 10x10 board, so the bottom row from column 4 to 8 spans two words
+        ConnectKBoard big = new ConnectKBoard(10, 10, 5);
+        int[] moves = {4, 1, 5, 1, 6, 2, 7, 2};
+        for (int column : moves) {
+            big.playerMove(column);
+            big.playerSwitcher();
+        }
+        assertEquals(3, big.findWinningMove('X'));
+        assertTrue(big.isWinningMove(8, 'X'));
+        assertFalse(big.isWinningMove(9, 'X'));
+        assertFalse(big.winChecker());
+        assertTrue(big.playerMove(8));
+        assertTrue(big.winChecker());
+        assertEquals('X', big.getCell(8, 1));
+        assertTrue(big.undoMove(8));
+        assertFalse(big.winChecker());
+        assertEquals(0, big.getColumnHeight(8));
+
+        assertThrows(IllegalArgumentException.class, () -> new ConnectKBoard(3, 3, 4));
+        assertThrows(IllegalArgumentException.class, () -> new ConnectKBoard(65, 6, 4));
+    }
 
+    /**
+     * Test case for the ConnectKPlayer class.
+     * The bot takes a win when it has one and blocks the opponent's.
+     */
+    @Test
+    public void testConnectKPlayer() {
+        ConnectKBoard board = new ConnectKBoard(9, 7, 4);
+        ConnectKPlayer computerPlayer = new ConnectKPlayer('O');
+        int[] moves = {5, 5, 6, 6, 7};
+        for (int column : moves) {
+            board.playerMove(column);
+            board.playerSwitcher();
+        }
+        int block = computerPlayer.comMove(board);
+        assertTrue(block == 4 || block == 8);
+
+        board = new ConnectKBoard(9, 7, 4);
+        int[] winning = {1, 5, 1, 6, 2, 7, 9};
+        for (int column : winning) {
+            board.playerMove(column);
+            board.playerSwitcher();
+        }
+        int win = computerPlayer.comMove(board);
+        assertTrue(win == 4 || win == 8);
+        assertEquals(7, board.getMoveCount()); // The bot leaves the board as it was
+        assertThrows(IllegalArgumentException.class, () -> new ConnectKPlayer('Z'));
+    }
+
+    /**
+     * Test case for the BatchWinChecker class.
+     * Every position of many random games is checked in one batch,
+     * and must agree with Connect4Logic.winChecker on the same board.
+     */
+    @Test
+    public void testBatchWinChecker() {
+        java.util.Random random = new java.util.Random(38);
+        int size = 1003; // Not a multiple of any vector length, so the scalar tail runs too
+        long[] xStones = new long[size];
+        long[] oStones = new long[size];
+        int filled = 0;
+        while (filled < size) {
+            long x = 0;
+            long o = 0;
+            for (int ply = 0; ply < BitBoard.CELLS && filled < size; ply++) {
+                int col = random.nextInt(BitBoard.WIDTH);
+                long bit = BitBoard.moveBit(x | o, col);
+                if (bit == 0) {
+                    continue;
+                }
+                if ((ply & 1) == 0) {
+                    x |= bit;
+                } else {
+                    o |= bit;
+                }
+                xStones[filled] = x;
+                oStones[filled] = o;
+                filled++;
+                if (random.nextInt(8) == 0) {
+                    break; // Keep plenty of positions past a first win as well as before it
+                }
+            }
+        }
+        boolean[] wins = new boolean[size];
+        int found = BatchWinChecker.winChecker(xStones, oStones, size, wins);
+        int expected = 0;
+        for (int i = 0; i < size; i++) {
+            Connect4Logic gameLogic = new Connect4Logic();
+            BitBoard.toBoard(xStones[i], oStones[i], gameLogic.getBoard());
+            assertEquals(gameLogic.winChecker(), wins[i]);
+            if (wins[i]) {
+                expected++;
+            }
+        }
+        assertEquals(expected, found);
+        assertTrue(found > 0 && found < size);
+
+        boolean[] xWins = new boolean[size];
+        BatchWinChecker.isWin(xStones, size, xWins);
+        for (int i = 0; i < size; i++) {
+            assertEquals(BitBoard.isWin(xStones[i]), xWins[i]);
+        }
+        assertThrows(IllegalArgumentException.class, () -> BatchWinChecker.winChecker(xStones, oStones, size + 1, wins));
+    }
+
+    /**
+     * Test case for multi-process self-play.
+     * One fake worker takes a batch and hangs up, another answers its batch with a
+     * game in column 7, so both batches must be re-queued; two worker JVMs then play
+     * every batch exactly once.
+     */
+    @Test
+    public void testSelfPlayCoordinator() throws Exception {
+        int batches = 4;
+        int gamesPerBatch = 3;
+        int depth = 3;
+        long seed = 77;
+        Path archive = Files.createTempFile("connect4", ".c4gr");
+        try {
+            try (GameRecordWriter writer = new GameRecordWriter(archive);
+                 SelfPlayCoordinator coordinator = new SelfPlayCoordinator(InetAddress.getLoopbackAddress(), 0,
+                         writer, depth, 60_000)) {
+                Thread fake = new Thread(() -> {
+                    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), coordinator.getPort())) {
+                        DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                        out.writeInt(5);
+                        out.writeByte(1); // HELLO
+                        out.writeInt(-1);
+                        out.flush();
+                        DataInputStream in = new DataInputStream(socket.getInputStream());
+                        in.readFully(new byte[in.readInt()]); // The BATCH, then hang up without playing it
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+                Thread corrupt = new Thread(() -> {
+                    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), coordinator.getPort())) {
+                        DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                        out.writeInt(5);
+                        out.writeByte(1); // HELLO
+                        out.writeInt(-1);
+                        out.flush();
+                        DataInputStream in = new DataInputStream(socket.getInputStream());
+                        byte[] batch = new byte[in.readInt()];
+                        in.readFully(batch);
+                        long batchId = java.nio.ByteBuffer.wrap(batch, 1, 8).getLong();
+                        out.writeInt(16);
+                        out.writeByte(3); // GAME of one move in column 7
+                        out.writeLong(batchId);
+                        out.write(new byte[]{1, 7, GameRecord.DRAW});
+                        out.writeInt(0);
+                        out.writeInt(9);
+                        out.writeByte(4); // DONE
+                        out.writeLong(batchId);
+                        out.flush();
+                        assertEquals(-1, in.read()); // The coordinator hangs up
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+                fake.start();
+                corrupt.start();
+                Thread.sleep(200); // Let the fake workers connect before there is any work
+                coordinator.startWorkers(2, "-Xmx64m");
+                coordinator.run(batches, gamesPerBatch, seed);
+                fake.join();
+                corrupt.join();
+                assertEquals(batches * gamesPerBatch, coordinator.getGames());
+                assertEquals(2, coordinator.getRequeued());
+            }
+
+            List<String> expected = new ArrayList<>();
+            Connect4Search search = new Connect4Search();
+            byte[] moves = new byte[GameRecord.MAX_MOVES];
+            for (int g = batches * gamesPerBatch - 1; g >= 0; g--) { // Backwards, games do not depend on their order
+                int count = SelfPlayWorker.playGame(search, seed + g, depth, moves);
+                expected.add(Arrays.toString(Arrays.copyOf(moves, count)));
+            }
+            List<String> archived = new ArrayList<>();
+            try (GameRecordReader reader = new GameRecordReader(archive)) {
+                while (reader.next()) {
+                    int count = reader.getMoves(moves);
+                    archived.add(Arrays.toString(Arrays.copyOf(moves, count)));
+                    assertEquals(GameRecord.resultOf(moves, count), reader.getResult());
+                }
+            }
+            expected.sort(null);
+            archived.sort(null);
+            assertEquals(expected, archived);
+        } finally {
+            Files.delete(archive);
+        }
+    }
+
+    /**
+     * Test case for the columnar training data export.
+     * Exports two games plus an unfinished one into small shards, then maps
+     * the column files listed in the manifest and checks every row.
+     */
+    @Test
+    public void testTrainingDataExport() throws IOException {
+        Path archive = Files.createTempFile("connect4", ".c4gr");
+        Path output = Files.createTempDirectory("connect4-columns");
+        try {
+            byte[] xWins = {3, 3, 4, 4, 5, 5, 6};
+            byte[] oWins = {0, 3, 0, 3, 1, 3, 6, 3};
+            try (GameRecordWriter writer = new GameRecordWriter(archive)) {
+                writer.append(xWins, xWins.length, GameRecord.X_WINS, 0);
+                writer.append(new byte[] {3, 3}, 2, GameRecord.UNFINISHED, 0);
+                writer.append(oWins, oWins.length, GameRecord.O_WINS, 0);
+                writer.append(xWins, xWins.length, GameRecord.X_WINS, 0);
+            }
+            patchByte(archive, Files.size(archive) - GameRecord.recordSize(xWins.length) + 1, 0x1F); // Column 8 first
+            TrainingDataExporter.Result result = new TrainingDataExporter(4, 2).run(archive, output, 2);
+            assertEquals(2, result.getGames());
+            assertEquals(2, result.getSkippedGames());
+            assertEquals(xWins.length + oWins.length, result.getRows());
+
+            String manifest = Files.readString(output.resolve(TrainingDataExporter.MANIFEST));
+            assertTrue(manifest.contains("\"name\": \"score\", \"type\": \"int32\""));
+            Matcher shard = Pattern.compile("\\{\"name\": \"(shard-[0-9-]+)\", \"rows\": ([0-9]+)}").matcher(manifest);
+            byte[][] games = {xWins, oWins};
+            int game = 0;
+            int ply = 0;
+            long xStones = 0;
+            long oStones = 0;
+            int shards = 0;
+            int wins = 0;
+            while (shard.find()) {
+                shards++;
+                int rows = Integer.parseInt(shard.group(2));
+                assertTrue(rows <= 4);
+                LongBuffer x = map(output, shard.group(1), "x").asLongBuffer();
+                LongBuffer o = map(output, shard.group(1), "o").asLongBuffer();
+                MappedByteBuffer side = map(output, shard.group(1), "side");
+                MappedByteBuffer plies = map(output, shard.group(1), "ply");
+                MappedByteBuffer move = map(output, shard.group(1), "move");
+                MappedByteBuffer outcome = map(output, shard.group(1), "outcome");
+                IntBuffer score = map(output, shard.group(1), "score").asIntBuffer();
+                assertEquals(rows, x.limit());
+                assertEquals(rows * 4L, Files.size(TrainingDataExporter.columnFile(output, shard.group(1), "score")));
+                for (int r = 0; r < rows; r++) {
+                    assertEquals(xStones, x.get(r));
+                    assertEquals(oStones, o.get(r));
+                    assertEquals(ply & 1, side.get(r));
+                    assertEquals(ply, plies.get(r));
+                    assertEquals(games[game][ply], move.get(r));
+                    assertEquals(game == (ply & 1) ? 1 : -1, outcome.get(r));
+                    if (ply == games[game].length - 1) { // The side to move wins at once
+                        assertEquals(Connect4Search.WIN_SCORE - 1, score.get(r));
+                        wins++;
+                    } else {
+                        assertTrue(Math.abs(score.get(r)) < Connect4Search.WIN_SCORE);
+                    }
+                    long bit = BitBoard.moveBit(xStones | oStones, games[game][ply]);
+                    if ((ply & 1) == 0) {
+                        xStones |= bit;
+                    } else {
+                        oStones |= bit;
+                    }
+                    if (++ply == games[game].length) {
+                        game++;
+                        ply = 0;
+                        xStones = 0;
+                        oStones = 0;
+                    }
+                }
+            }
+            assertEquals(2, game);
+            assertEquals(2, wins);
+            assertEquals(result.getShards(), shards);
+        } finally {
+            try (Stream<Path> files = Files.list(output)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(output);
+            Files.delete(archive);
+        }
+    }
+
+    /**
+     * Maps one column file of an exported shard.
+     */
+    private static MappedByteBuffer map(Path output, String shard, String column) throws IOException {
+        try (FileChannel channel = FileChannel.open(TrainingDataExporter.columnFile(output, shard, column))) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        }
+    }
+
+    /**
+     * Test case for the benchmark regression gate.
+     * Stores a baseline from a JMH result file, then checks that a run with the same
+     * noise passes and a run whose winChecker is 10% slower fails.
+     */
+    @Test
+    public void testRegressionGate() throws IOException {
+        Path results = Files.createTempFile("jmh", ".json");
+        Path baselineFile = Files.createTempFile("baseline", ".json");
+        try {
+            double[] noise = {0.3, -0.2, 0.1, -0.4, 0.0, 0.2, -0.1, 0.4, -0.3, 0.1};
+            Files.writeString(results, jmhResults(noise, 100, 50));
+            BenchmarkBaseline.fromJmhResults(results, "1.0").save(baselineFile);
+            BenchmarkBaseline baseline = BenchmarkBaseline.load(baselineFile);
+            assertEquals("1.0", baseline.getLabel());
+            assertEquals(2, baseline.getEntries().size());
+            BenchmarkBaseline.Entry winChecker = baseline.find("bench.LogicBenchmark.winChecker", "phase=mid");
+            assertTrue(winChecker.higherIsBetter());
+            assertEquals(noise.length, winChecker.getSamples().length);
+
+            RegressionGate gate = new RegressionGate(RegressionGate.DEFAULT_ALPHA, RegressionGate.DEFAULT_MIN_CHANGE);
+            double[] shuffled = {0.1, 0.4, -0.3, 0.0, -0.1, 0.3, -0.4, 0.2, 0.1, -0.2};
+            Files.writeString(results, jmhResults(shuffled, 100, 50));
+            RegressionGate.Report same = gate.compare(baseline, BenchmarkBaseline.fromJmhResults(results, "next"));
+            assertEquals(0, same.getRegressions());
+
+            // Throughput down 10% and time per move up 10%: both are slower
+            Files.writeString(results, jmhResults(noise, 90, 55));
+            RegressionGate.Report slower = gate.compare(baseline, BenchmarkBaseline.fromJmhResults(results, "next"));
+            assertEquals(2, slower.getRegressions());
+            for (RegressionGate.Comparison comparison : slower.getComparisons()) {
+                assertEquals(RegressionGate.Verdict.SLOWER, comparison.getVerdict());
+                assertTrue(comparison.getPValue() < 0.001);
+                assertEquals(0.1, comparison.getChange(), 0.02);
+            }
+            assertTrue(slower.toString().contains("bench.LogicBenchmark.winChecker [phase=mid]"));
+
+            Files.writeString(results, jmhResults(noise, 110, 45));
+            RegressionGate.Report faster = gate.compare(baseline, BenchmarkBaseline.fromJmhResults(results, "next"));
+            assertEquals(0, faster.getRegressions());
+            assertEquals(RegressionGate.Verdict.FASTER, faster.getComparisons().get(0).getVerdict());
+
+            for (String damaged : new String[]{"[1]", "[{\"benchmark\": \"b\", \"mode\": \"thrpt\"}]",
+                    "[{\"benchmark\": \"b\", \"mode\": \"thrpt\", \"primaryMetric\": {\"rawData\": 3}}]"}) {
+                Files.writeString(results, damaged);
+                assertThrows(IOException.class, () -> BenchmarkBaseline.fromJmhResults(results, "bad"));
+            }
+            Files.writeString(baselineFile, "{\"format\": \"" + BenchmarkBaseline.FORMAT + "\", \"version\": " + BenchmarkBaseline.VERSION + "}");
+            assertThrows(IOException.class, () -> BenchmarkBaseline.load(baselineFile));
+        } finally {
+            Files.delete(results);
+            Files.delete(baselineFile);
+        }
+    }
+
+    /**
+     * Builds a JMH result file with a throughput and an average time benchmark of two forks each.
+     */
+    private static String jmhResults(double[] noise, double throughput, double time) {
+        StringBuilder thrpt = new StringBuilder();
+        StringBuilder avgt = new StringBuilder();
+        for (int i = 0; i < noise.length; i++) {
+            String separator = i == 0 ? "[" : i == noise.length / 2 ? "], [" : ", ";
+            thrpt.append(separator).append(throughput + noise[i]);
+            avgt.append(separator).append(time + noise[i] / 2);
+        }
+        return "[{\"jmhVersion\": \"1.37\", \"benchmark\": \"bench.LogicBenchmark.winChecker\", \"mode\": \"thrpt\","
+                + " \"jdkVersion\": \"17.0.9\", \"params\": {\"phase\": \"mid\"},"
+                + " \"primaryMetric\": {\"score\": " + throughput + ", \"scoreUnit\": \"ops/us\","
+                + " \"rawData\": [" + thrpt + "]]}, \"secondaryMetrics\": {}},"
+                + " {\"benchmark\": \"bench.ComputerPlayerBenchmark.comMove\", \"mode\": \"avgt\","
+                + " \"primaryMetric\": {\"score\": " + time + ", \"scoreUnit\": \"us/op\","
+                + " \"rawData\": [" + avgt + "]]}}]";
+    }
+
+    /**
+     * Test case for game clocks under the three time controls, on a hand moved time source.
+     */
+    @Test
+    public void testGameClock() {
+        long[] now = {0};
+        GameClock clock = new GameClock(TimeControl.parse("3+2"), () -> now[0]);
+        assertEquals(TimeControl.Kind.INCREMENT, clock.getTimeControl().getKind());
+        assertEquals("3+2", clock.getTimeControl().toString());
+        clock.start('X');
+        now[0] += 10_000_000_000L;
+        assertEquals(170_000, clock.getRemainingMillis('X'));
+        assertTrue(clock.stop());
+        assertEquals(172_000, clock.getRemainingMillis('X'));
+        assertEquals(180_000, clock.getRemainingMillis('O'));
+        assertThrows(IllegalStateException.class, clock::stop);
+
+        clock = new GameClock(TimeControl.parse("1"), () -> now[0]);
+        clock.start('O');
+        assertThrows(IllegalStateException.class, () -> new GameClock(TimeControl.suddenDeath(1)).stop());
+        now[0] += 61_000_000_000L;
+        assertTrue(clock.isFlagged('O'));
+        assertFalse(clock.stop());
+        assertEquals(0, clock.getRemainingMillis('O'));
+        assertFalse(clock.isFlagged('X'));
+
+        clock = new GameClock(TimeControl.parse("10s"), () -> now[0]);
+        for (int move = 0; move < 5; move++) {
+            clock.start('X');
+            now[0] += 9_000_000_000L;
+            assertTrue(clock.stop()); // Unused time per move is not saved, but never runs out either
+        }
+        clock.start('X');
+        now[0] += 10_500_000_000L;
+        assertFalse(clock.stop());
+        assertThrows(IllegalArgumentException.class, () -> TimeControl.parse("fast"));
+        assertThrows(IllegalArgumentException.class, () -> TimeControl.parse("0+1"));
+    }
+
+    /**
+     * Test case for the time manager and the time limited search.
+     * The budget must leave time in hand, and a bot on a short sudden death
+     * clock must play a whole game of searched moves without flagging.
+     */
+    @Test
+    public void testTimeManager() {
+        long[] now = {0};
+        GameClock clock = new GameClock(TimeControl.suddenDeath(60_000), () -> now[0]);
+        TimeManager manager = new TimeManager();
+        manager.allocate(clock, 'X', 0);
+        long available = (60_000 - TimeManager.MOVE_OVERHEAD_MILLIS) * 1_000_000L;
+        assertEquals(available / 21, manager.getSoftNanos());
+        assertTrue(manager.getHardNanos() > manager.getSoftNanos());
+        assertTrue(manager.getHardNanos() <= available / 2);
+        manager.allocate(clock, 'X', 40);
+        assertTrue(manager.getHardNanos() <= available / 2);
+        clock = new GameClock(TimeControl.perMove(500), () -> now[0]);
+        manager.allocate(clock, 'O', 11);
+        assertEquals(480_000_000L, manager.getHardNanos());
+
+        // A real clock: one second for the whole game
+        Connect4Logic game = new Connect4Logic();
+        Connect4ComputerPlayer xBot = new Connect4ComputerPlayer('X', BitBoard.CELLS);
+        Connect4ComputerPlayer oBot = new Connect4ComputerPlayer('O', BitBoard.CELLS);
+        GameClock real = new GameClock(TimeControl.suddenDeath(1000));
+        for (int ply = 0; ply < BitBoard.CELLS; ply++) {
+            char player = game.getSelectedPlayer();
+            real.start(player);
+            int column = (player == 'X' ? xBot : oBot).comMove(game.getBoard(), real);
+            assertTrue(game.playerMove(column));
+            assertTrue("Player " + player + " flagged at ply " + ply, real.stop());
+            if (game.winChecker() || game.boardChecker()) {
+                break;
+            }
+            game.playerSwitcher();
+        }
+        assertTrue(real.getRemainingMillis('X') > 0 && real.getRemainingMillis('O') > 0);
+    }
+
+    /**
+     * Test case for the load adaptive bot pool.
+     * Under a simulated CPU overload the move budget shrinks, it grows back once
+     * the load is gone, and moves past the concurrency limit are rejected.
+     */
+    @Test
+    public void testBotLoadController() throws Exception {
+        double[] cpu = {0.99};
+        char[][] board = new Connect4Logic().getBoard();
+        Connect4ComputerPlayer bot = new Connect4ComputerPlayer('X', BitBoard.CELLS);
+        try (BotLoadController controller = new BotLoadController(1, 2, 200, 5, 1000, () -> cpu[0])) {
+            long full = controller.getBudgetNanos();
+            assertEquals(1.0, controller.getLevel(), 0);
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (controller.getBudgetNanos() > full / 4 && System.nanoTime() < deadline) {
+                long start = System.nanoTime();
+                long budget = controller.getBudgetNanos();
+                int column = controller.submit(bot, board).get();
+                assertTrue(column >= 1 && column <= 7);
+                assertTrue(System.nanoTime() - start < budget + 100_000_000L); // Moves keep to their budget
+            }
+            assertTrue(controller.getBudgetNanos() <= full / 4);
+
+            cpu[0] = 0.1;
+            long low = controller.getBudgetNanos();
+            deadline = System.nanoTime() + 5_000_000_000L;
+            while (controller.getBudgetNanos() < full / 2 && System.nanoTime() < deadline) {
+                controller.submit(bot, board).get();
+            }
+            assertTrue(controller.getBudgetNanos() > low);
+
+            // One running and two waiting; the thread of the last move may still be finishing up
+            List<Future<Integer>> admitted = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                try {
+                    admitted.add(controller.submit(bot, board));
+                } catch (RejectedExecutionException e) {
+                    // Over the concurrency limit
+                }
+            }
+            assertTrue(admitted.size() >= 2 && admitted.size() <= 3);
+            assertEquals(4 - admitted.size(), controller.getRejected());
+            for (Future<Integer> move : admitted) {
+                assertTrue(move.get() >= 1);
+            }
+        }
+    }
+
+    /**
+     * Test case for node budget difficulty levels.
+     * Every search keeps to its level's budget, a quiet position uses all of it,
+     * the noise is repeatable for a seed, and a hard bot beats a beginner.
+     */
+    @Test
+    public void testDifficultyLevels() {
+        Connect4Search search = new Connect4Search();
+        long current = 0;
+        long mask = 0;
+        for (int col : new int[] {3, 3, 2, 4}) {
+            long bit = BitBoard.moveBit(mask, col);
+            mask |= bit;
+            current = (current | bit) ^ mask;
+        }
+        for (Difficulty level : Difficulty.values()) {
+            search.searchNodes(current, mask, BitBoard.CELLS, level.getNodeBudget());
+            assertEquals(level.getNodeBudget(), search.getNodes()); // Nothing forced yet, so the whole budget is used
+            assertTrue(search.getBestMove() >= 0);
+        }
+        assertThrows(IllegalArgumentException.class, () -> search.searchNodes(0, 0, 10, 3));
+
+        Connect4Search noisy = new Connect4Search();
+        noisy.setNoise(Difficulty.BEGINNER.getNoise(), 42);
+        int move = noisy.searchNodes(current, mask, BitBoard.CELLS, 5000);
+        int score = noisy.getBestScore();
+        Connect4Search again = new Connect4Search();
+        again.setNoise(Difficulty.BEGINNER.getNoise(), 42);
+        assertEquals(move, again.searchNodes(current, mask, BitBoard.CELLS, 5000));
+        assertEquals(score, again.getBestScore());
+        assertThrows(IllegalArgumentException.class, () -> again.setNoise(Connect4Search.MAX_NOISE + 1, 42));
+        for (Difficulty level : Difficulty.values()) {
+            assertTrue(level.getNoise() <= Connect4Search.MAX_NOISE);
+        }
+        assertEquals(Difficulty.MEDIUM, Difficulty.parse(" Medium"));
+        assertThrows(IllegalArgumentException.class, () -> Difficulty.parse("impossible"));
+
+        int hardWins = 0;
+        for (int game = 0; game < 4; game++) {
+            char hardSymbol = game % 2 == 0 ? 'X' : 'O';
+            Connect4ComputerPlayer hard = new Connect4ComputerPlayer(hardSymbol, Difficulty.HARD);
+            Connect4ComputerPlayer beginner = new Connect4ComputerPlayer(hardSymbol == 'X' ? 'O' : 'X', Difficulty.BEGINNER);
+            assertEquals(Difficulty.HARD, hard.getDifficulty());
+            Connect4Logic logic = new Connect4Logic();
+            while (true) {
+                Connect4ComputerPlayer bot = logic.getSelectedPlayer() == hardSymbol ? hard : beginner;
+                assertTrue(logic.playerMove(bot.comMove(logic.getBoard())));
+                if (logic.winChecker()) {
+                    if (logic.getSelectedPlayer() == hardSymbol) {
+                        hardWins++;
+                    }
+                    break;
+                }
+                if (logic.boardChecker()) {
+                    break;
+                }
+                logic.playerSwitcher();
+            }
+        }
+        assertTrue("Hard won " + hardWins + " of 4", hardWins >= 3);
+    }
+
+    /**
+     * Test case for the ProofNumberSolver class and the PositionLabeler job.
+     */
+    @Test
+    public void testProofNumberSolver() throws IOException {
+        ProofNumberSolver solver = new ProofNumberSolver(1);
+        Connect4Logic logic = new Connect4Logic();
+        for (int col : new int[] {3, 3, 4, 4, 5, 5}) {
+            logic.playerMove(col + 1);
+            logic.playerSwitcher();
+        }
+        ProofNumberSolver.Result win = solver.solve(logic.getBoard(), 'X', 1000);
+        assertEquals(ProofNumberSolver.PROVEN, win.getOutcome());
+        assertTrue(win.getMove() == 2 || win.getMove() == 6);
+        assertEquals(1, win.getProofSize());
+        assertEquals(ProofNumberSolver.DISPROVEN, solver.solve(logic.getBoard(), 'O', 1000).getOutcome());
+
+        ProofNumberSolver.Result open = solver.solve(0, 0, true, 1000);
+        assertEquals(ProofNumberSolver.UNKNOWN, open.getOutcome());
+        assertEquals(1000, open.getNodes());
+        assertEquals(-1, open.getProofSize());
+
+        java.util.Random random = new java.util.Random(7);
+        Connect4Search search = new Connect4Search();
+        int solved = 0;
+        while (solved < 8) {
+            long current = 0;
+            long mask = 0;
+            boolean over = false;
+            for (int i = 0; i < 14 && !over; i++) {
+                int col = random.nextInt(BitBoard.WIDTH);
+                if (BitBoard.canPlay(mask, col)) {
+                    long bit = BitBoard.moveBit(mask, col);
+                    over = BitBoard.isWin(current | bit);
+                    mask |= bit;
+                    current = (current | bit) ^ mask;
+                }
+            }
+            if (over) {
+                continue;
+            }
+            search.search(current, mask, BitBoard.CELLS);
+            int score = search.getBestScore();
+            ProofNumberSolver.Result mover = solver.solve(current, mask, true, 20_000_000);
+            ProofNumberSolver.Result other = solver.solve(current, mask, false, 20_000_000);
+            assertEquals(score > Connect4Search.WIN_SCORE - 64 ? ProofNumberSolver.PROVEN : ProofNumberSolver.DISPROVEN,
+                    mover.getOutcome());
+            assertEquals(score < 64 - Connect4Search.WIN_SCORE ? ProofNumberSolver.PROVEN : ProofNumberSolver.DISPROVEN,
+                    other.getOutcome());
+            assertTrue(mover.getProofSize() > 0 && other.getProofSize() > 0);
+            assertTrue(solver.getUsed() <= solver.getCapacity());
+            solved++;
+        }
+        assertTrue(solver.getCollections() > 0); // The 1 MB table filled up and was collected
+
+        Path archive = Files.createTempFile("connect4", ".c4gr");
+        Path labels = Files.createTempFile("connect4", ".csv");
+        try {
+            byte[] game = {3, 3, 3, 3, 2, 4, 2, 2, 4, 1, 5, 6, 1, 0};
+            try (GameRecordWriter writer = new GameRecordWriter(archive)) {
+                writer.append(game, game.length, GameRecord.UNFINISHED, 0);
+                writer.append(game, game.length, GameRecord.UNFINISHED, 0);
+                writer.append(game, 4, GameRecord.UNFINISHED, 0);
+            }
+            PositionLabeler.Result result = new PositionLabeler(10, 7, 2, 20_000_000).run(archive, labels, 1);
+            assertEquals(1, result.getPositions()); // The same position twice, and a game too short
+            assertEquals(1, result.getHard());
+            List<String> lines = Files.readAllLines(labels);
+            assertEquals("moves,label,nodes,proof size", lines.get(0));
+            String[] fields = lines.get(1).split(",");
+            assertEquals("4444353352", fields[0]);
+            long current = 0;
+            long mask = 0;
+            for (int i = 0; i < 10; i++) {
+                long bit = BitBoard.moveBit(mask, game[i]);
+                mask |= bit;
+                current = (current | bit) ^ mask;
+            }
+            search.search(current, mask, BitBoard.CELLS);
+            int score = search.getBestScore();
+            assertEquals(score > Connect4Search.WIN_SCORE - 64 ? "win" : score < 64 - Connect4Search.WIN_SCORE ? "loss" : "draw",
+                    fields[1]);
+        } finally {
+            Files.deleteIfExists(archive);
+            Files.deleteIfExists(labels);
+        }
+    }
+
+    /**
+     * Test case for the SmallBoardDatabase class, against a plain search of the 4 by 4 board.
+     */
+    @Test
+    public void testSmallBoardDatabase() throws IOException {
+        Path path = Files.createTempFile("connect4", ".c4sb");
+        try {
+            SmallBoardDatabase built = SmallBoardDatabase.build(4, 4, path);
+            SmallBoardDatabase database = SmallBoardDatabase.open(path);
+            assertEquals(built.getEntries(), database.getEntries());
+            assertEquals(SmallBoardDatabase.DRAW, database.getValue(new ConnectKBoard(4, 4, 4)));
+
+            java.util.Random random = new java.util.Random(11);
+            for (int game = 0; game < 40; game++) {
+                ConnectKBoard board = new ConnectKBoard(4, 4, 4);
+                int moves = 4 + random.nextInt(6);
+                while (board.getMoveCount() < moves && !board.winChecker()) {
+                    int column = 1 + random.nextInt(4);
+                    if (board.playerMove(column) && !board.winChecker()) {
+                        board.playerSwitcher();
+                    }
+                }
+                if (board.winChecker()) {
+                    continue;
+                }
+                int value = negamax(board);
+                assertEquals(value, database.getValue(board));
+                int column = database.bestMove(board);
+                board.playerMove(column);
+                if (!board.winChecker()) {
+                    board.playerSwitcher();
+                    assertEquals(value, -negamax(board)); // The move keeps the value
+                } else {
+                    assertEquals(SmallBoardDatabase.WIN, value);
+                }
+            }
+
+            ConnectKBoard board = new ConnectKBoard(4, 4, 4);
+            ConnectKPlayer perfect = new ConnectKPlayer('X', database);
+            ConnectKPlayer other = new ConnectKPlayer('O', database);
+            while (!board.winChecker() && !board.boardChecker()) {
+                ConnectKPlayer player = board.getSelectedPlayer() == 'X' ? perfect : other;
+                assertTrue(board.playerMove(player.comMove(board)));
+                if (!board.winChecker()) {
+                    board.playerSwitcher();
+                }
+            }
+            assertFalse(board.winChecker()); // Perfect play on 4 by 4 is a draw
+            assertFalse(database.covers(new ConnectKBoard(5, 4, 4)));
+            Files.write(path, new byte[64]);
+            assertThrows(IOException.class, () -> SmallBoardDatabase.open(path));
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    /**
+     * Solves a Connect K board by plain negamax, for the side to move.
+     */
+    private static int negamax(ConnectKBoard board) {
+        char player = board.getSelectedPlayer();
+        int best = board.boardChecker() ? 0 : -1;
+        for (int column = 1; column <= board.getWidth(); column++) {
+            if (board.isWinningMove(column, player)) {
+                return 1;
+            }
+        }
+        for (int column = 1; column <= board.getWidth() && best < 1; column++) {
+            if (board.playerMove(column)) {
+                board.playerSwitcher();
+                best = Math.max(best, -negamax(board));
+                board.playerSwitcher();
+                board.undoMove(column);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Test case for the EndgameBitbase class, generated from random games and probed by the search.
+     */
+    @Test
+    public void testEndgameBitbase() throws IOException {
+        Path archive = Files.createTempFile("connect4", ".c4gr");
+        Path path = Files.createTempFile("connect4", ".c4eb");
+        try {
+            java.util.Random random = new java.util.Random(5);
+            List<byte[]> games = new ArrayList<>();
+            try (GameRecordWriter writer = new GameRecordWriter(archive)) {
+                while (games.size() < 10) {
+                    byte[] moves = new byte[BitBoard.CELLS];
+                    long current = 0;
+                    long mask = 0;
+                    int count = 0;
+                    while (count < BitBoard.CELLS) {
+                        int col = random.nextInt(BitBoard.WIDTH);
+                        if (BitBoard.canPlay(mask, col)) {
+                            long bit = BitBoard.moveBit(mask, col);
+                            moves[count++] = (byte) col;
+                            if (BitBoard.isWin(current | bit)) {
+                                break;
+                            }
+                            mask |= bit;
+                            current = (current | bit) ^ mask;
+                        }
+                    }
+                    if (count > 32) {
+                        writer.append(moves, count, GameRecord.UNFINISHED, 0);
+                        games.add(moves);
+                    }
+                }
+            }
+            BitbaseGenerator.Result result = new BitbaseGenerator(10).run(archive, path, 2);
+            assertEquals(10, result.getGames());
+            EndgameBitbase bitbase = EndgameBitbase.open(path);
+            assertEquals(result.getPositions(), bitbase.getPositions());
+            assertEquals(10, bitbase.getMaxEmpty());
+            assertEquals(EndgameBitbase.UNKNOWN, bitbase.probe(0, 0));
+
+            long hits = 0;
+            for (byte[] moves : games) {
+                long current = 0;
+                long mask = 0;
+                for (int i = 0; i < BitBoard.CELLS - 10; i++) {
+                    long bit = BitBoard.moveBit(mask, moves[i]);
+                    mask |= bit;
+                    current = (current | bit) ^ mask;
+                }
+                Connect4Search plain = new Connect4Search();
+                plain.search(current, mask, BitBoard.CELLS);
+                Connect4Search probing = new Connect4Search();
+                probing.setBitbase(bitbase);
+                probing.search(current, mask, BitBoard.CELLS);
+                assertEquals(outcome(plain.getBestScore()), outcome(probing.getBestScore()));
+                assertTrue(probing.getNodes() <= plain.getNodes());
+                hits += probing.getBitbaseHits();
+                int value = bitbase.probe(current, mask);
+                if (value != EndgameBitbase.UNKNOWN) { // Unless the side to move wins at once
+                    assertEquals(outcome(plain.getBestScore()), value);
+                    assertEquals(value, bitbase.probe(BitBoard.mirror(current), BitBoard.mirror(mask)));
+                    assertStoredBelow(bitbase, current, mask, new java.util.HashSet<>());
+                }
+            }
+            assertTrue(hits > 0);
+        } finally {
+            Files.deleteIfExists(archive);
+            Files.deleteIfExists(path);
+        }
+    }
+
+    /**
+     * Checks that a position and every position reachable from it are in the bitbase,
+     * leaving out full boards and positions where the side to move wins at once.
+     */
+    private static void assertStoredBelow(EndgameBitbase bitbase, long current, long mask, java.util.Set<Long> seen) {
+        if (mask == BitBoard.FULL || winsAtOnce(current, mask) || !seen.add(BitBoard.key(current, mask))) {
+            return;
+        }
+        assertTrue(bitbase.probe(current, mask) != EndgameBitbase.UNKNOWN);
+        for (int col = 0; col < BitBoard.WIDTH; col++) {
+            if (BitBoard.canPlay(mask, col)) {
+                long next = mask | BitBoard.moveBit(mask, col);
+                assertStoredBelow(bitbase, (current | BitBoard.moveBit(mask, col)) ^ next, next, seen);
+            }
+        }
+    }
+
+    /**
+     * Checks if the side to move can win with its next stone.
+     */
+    private static boolean winsAtOnce(long current, long mask) {
+        long possible = (mask + BitBoard.BOTTOM) & BitBoard.FULL;
+        for (int col = 0; col < BitBoard.WIDTH; col++) {
+            long bit = possible & BitBoard.columnMask(col);
+            if (bit != 0 && BitBoard.isWin(current | bit)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Test case for TranspositionTable snapshots, checked against the engine tag, size and checksum.
+     */
+    @Test
+    public void testTranspositionTableSnapshot() throws IOException {
+        Path path = Files.createTempFile("connect4", ".c4tt");
+        try {
+            TranspositionTable table = new TranspositionTable(16);
+            new Connect4Search(table).search(0, 0, 12);
+            long[] keys = new long[200];
+            java.util.Random random = new java.util.Random(9);
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = random.nextLong() >>> 15;
+                table.store(keys[i], i - 100, i % 40, i % 3, i % 7);
+            }
+            long tag = new Connect4Search(table).engineTag();
+            assertEquals(tag, Connect4Search.engineTag(Connect4Search.defaultWeights()));
+            Connect4Search tuned = new Connect4Search(table);
+            int[] weights = Connect4Search.defaultWeights();
+            weights[2]++;
+            tuned.setWeights(weights);
+            assertTrue(tuned.engineTag() != tag);
+            Connect4Search noisy = new Connect4Search(table);
+            noisy.setNoise(10, 5);
+            assertTrue(noisy.engineTag() != tag);
+            table.save(path, tag);
+
+            TranspositionTable loaded = new TranspositionTable(16);
+            assertTrue(loaded.load(path, tag));
+            for (long key : keys) {
+                assertEquals(table.probe(key), loaded.probe(key));
+            }
+            assertEquals(table.probe(BitBoard.key(0, 0)), loaded.probe(BitBoard.key(0, 0)));
+
+            TranspositionTable larger = new TranspositionTable(18);
+            assertTrue(larger.load(path, tag));
+            long found = 0;
+            for (long key : keys) {
+                if (larger.probe(key) != 0) {
+                    assertEquals(table.probe(key), larger.probe(key));
+                    found++;
+                }
+            }
+            assertTrue(found > keys.length / 2);
+
+            TranspositionTable stale = new TranspositionTable(16);
+            assertFalse(stale.load(path, tag + 1));
+            assertFalse(stale.load(path.resolveSibling(path.getFileName() + ".missing"), tag));
+            byte[] bytes = Files.readAllBytes(path);
+            bytes[bytes.length / 2] ^= 1;
+            Files.write(path, bytes);
+            assertFalse(stale.load(path, tag));
+            for (long key : keys) {
+                assertEquals(0, stale.probe(key));
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    /**
+     * Test case for the SharedTranspositionTable class, opened twice on one file as two processes would.
+     */
+    @Test
+    public void testSharedTranspositionTable() throws IOException {
+        Path path = Files.createTempFile("connect4", ".c4st");
+        Files.delete(path);
+        try {
+            long tag = Connect4Search.engineTag(Connect4Search.defaultWeights());
+            SharedTranspositionTable table = SharedTranspositionTable.open(path, 16, tag);
+            assertEquals(1 << 16, table.capacity());
+            assertEquals(0, table.probe(12345));
+            table.store(12345, -Connect4Search.WIN_SCORE + 7, 21, TranspositionTable.LOWER, 6);
+            long entry = table.probe(12345);
+            assertEquals(-Connect4Search.WIN_SCORE + 7, TranspositionTable.score(entry));
+            assertEquals(21, TranspositionTable.depth(entry));
+            assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(entry));
+            assertEquals(6, TranspositionTable.move(entry));
+            table.store(777, 0, 0, TranspositionTable.EXACT, -1);
+            assertEquals(-1, TranspositionTable.move(table.probe(777)));
+            assertEquals(0, table.probe(778));
+
+            // Keys that differ only in the right-hand columns, same slot and same low hash bits
+            Path large = path.resolveSibling(path.getFileName() + ".large");
+            try {
+                SharedTranspositionTable wide = SharedTranspositionTable.open(large, 20, tag);
+                wide.store(0x194b000000083L, 17, 9, TranspositionTable.EXACT, 2);
+                assertEquals(0, wide.probe(0x160000083L));
+                assertEquals(17, TranspositionTable.score(wide.probe(0x194b000000083L)));
+            } finally {
+                Files.deleteIfExists(large);
+            }
+
+            SharedTranspositionTable other = SharedTranspositionTable.open(path, 16, tag);
+            assertEquals(entry, other.probe(12345));
+            other.clear();
+            assertEquals(0, table.probe(12345));
+
+            Connect4Search first = new Connect4Search(table);
+            int move = first.search(0, 0, 12);
+            Connect4Search second = new Connect4Search(other);
+            assertEquals(move, second.search(0, 0, 12));
+            assertEquals(first.getBestScore(), second.getBestScore());
+            assertTrue(second.getNodes() < first.getNodes());
+
+            try {
+                SharedTranspositionTable.open(path, 17, tag);
+                fail("Opened a table of another size");
+            } catch (IOException expected) {
+                // The size is fixed by the first process
+            }
+            try {
+                SharedTranspositionTable.open(path, 16, tag + 1);
+                fail("Opened a table of another engine");
+            } catch (IOException expected) {
+                // Stale entries must not reach the search
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    /**
+     * Test case for the evaluation features and the EvalTuner class, in both modes and resumed from checkpoints.
+     */
+    @Test
+    public void testEvalTuner() throws IOException {
+        java.util.Random random = new java.util.Random(11);
+        int[] weights = Connect4Search.defaultWeights();
+        int[] features = new int[Connect4Search.FEATURES];
+        Path archive = Files.createTempFile("connect4", ".c4gr");
+        Path texel = Files.createTempFile("connect4", ".tune");
+        Path spsa = Files.createTempFile("connect4", ".tune");
+        Files.delete(texel);
+        Files.delete(spsa);
+        try {
+            try (GameRecordWriter writer = new GameRecordWriter(archive)) {
+                for (int game = 0; game < 300; game++) {
+                    byte[] moves = new byte[BitBoard.CELLS];
+                    long current = 0;
+                    long mask = 0;
+                    int count = 0;
+                    while (count < BitBoard.CELLS) {
+                        int col = random.nextInt(BitBoard.WIDTH);
+                        if (BitBoard.canPlay(mask, col)) {
+                            Connect4Search.features(current, mask, features);
+                            int sum = 0;
+                            for (int i = 0; i < features.length; i++) {
+                                sum += weights[i] * features[i];
+                            }
+                            assertEquals(Connect4Search.evaluate(current, mask), sum);
+                            long bit = BitBoard.moveBit(mask, col);
+                            moves[count++] = (byte) col;
+                            if (BitBoard.isWin(current | bit)) {
+                                break;
+                            }
+                            mask |= bit;
+                            current = (current | bit) ^ mask;
+                        }
+                    }
+                    writer.append(moves, count, GameRecord.resultOf(moves, count), 0);
+                }
+            }
+            try {
+                new Connect4Search().setWeights(new int[Connect4Search.FEATURES - 1]);
+                fail("Accepted too few weights");
+            } catch (IllegalArgumentException expected) {
+                // One weight per feature
+            }
+
+            EvalTuner.Result start = new EvalTuner(texel).texel(archive, 4, 100_000, 0, 2);
+            assertEquals(0, start.getIterations());
+            assertArrayEquals(weights, start.getWeights());
+            EvalTuner.Result fitted = new EvalTuner(texel).texel(archive, 4, 100_000, 5, 2);
+            assertEquals(5, fitted.getIterations());
+            assertTrue(fitted.getPositions() > 1000);
+            assertTrue(fitted.getMetric() < start.getMetric());
+            assertEquals(8, new EvalTuner(texel).texel(archive, 4, 100_000, 8, 2).getIterations());
+
+            EvalTuner.Result played = new EvalTuner(spsa).spsa(1, 4, 200, 3);
+            assertEquals(1, played.getIterations());
+            assertTrue(Math.abs(played.getMetric()) <= 1);
+            assertEquals(2, new EvalTuner(spsa).spsa(2, 4, 200, 3).getIterations());
+            try {
+                new EvalTuner(texel).spsa(1, 4, 200, 3);
+                fail("Resumed SPSA from a Texel checkpoint");
+            } catch (IOException expected) {
+                // The modes keep separate checkpoints
+            }
+        } finally {
+            Files.deleteIfExists(archive);
+            Files.deleteIfExists(texel);
+            Files.deleteIfExists(spsa);
+        }
+    }
+
+    /**
+     * Turns a search score into WIN, DRAW or LOSS, for a search that reached the end of the game.
+     */
+    private static int outcome(int score) {
+        return Math.abs(score) <= Connect4Search.WIN_SCORE - 64 ? 0 : Integer.signum(score);
+    }
+}
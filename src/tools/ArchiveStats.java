@@ -0,0 +1,310 @@
+/**
+ * ArchiveStats class is a batch job that computes statistics over a game archive.
+ * It reports win rates per opening, the spread of game lengths, the first
+ * player advantage and the most common positions at a chosen ply.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package tools;
+
+import core.BitBoard;
+import core.GameRecord;
+import core.GameRecordReader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+
+/**
+ * The ArchiveStats class splits an archive into record aligned ranges, replays each range
+ * on its own core with bitboards, and merges the per range counters.
+ * All counters are primitive arrays so merging never boxes. Damaged records
+ * are counted and left out of every other counter.
+ */
+public class ArchiveStats {
+    private static final int MAX_OPENING = 6; // 7^6 openings still fit in a small array
+
+    private final int openingLength;
+    private final int ply;
+
+    /**
+     * Constructs the job.
+     *
+     * @param openingLength The number of moves that make an opening.
+     * @param ply           The ply whose positions are counted.
+     */
+    public ArchiveStats(int openingLength, int ply) {
+        if (openingLength < 1 || openingLength > MAX_OPENING) {
+            throw new IllegalArgumentException("Opening length must be between 1 and " + MAX_OPENING);
+        }
+        if (ply < 0 || ply > BitBoard.CELLS) {
+            throw new IllegalArgumentException("Ply must be between 0 and " + BitBoard.CELLS);
+        }
+        this.openingLength = openingLength;
+        this.ply = ply;
+    }
+
+    /**
+     * Scans an archive in parallel.
+     *
+     * @param archive The archive file.
+     * @param parts   The number of ranges to split the archive into.
+     * @return The merged counters.
+     * @throws IOException If the archive cannot be read.
+     */
+    public Counters run(Path archive, int parts) throws IOException {
+        long[] points = GameRecordReader.splitPoints(archive, parts);
+        try {
+            return IntStream.range(0, parts).parallel()
+                    .mapToObj(i -> scan(archive, points[i], points[i + 1]))
+                    .reduce(Counters::merge)
+                    .orElseGet(() -> new Counters(openingLength));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Replays one range of the archive.
+     */
+    private Counters scan(Path archive, long start, long end) {
+        Counters counters = new Counters(openingLength);
+        if (start >= end) {
+            return counters;
+        }
+        byte[] moves = new byte[GameRecord.MAX_MOVES];
+        try (GameRecordReader reader = new GameRecordReader(archive, start, end)) {
+            while (true) {
+                long before = reader.getOffset();
+                try {
+                    if (!reader.next()) {
+                        break;
+                    }
+                } catch (IOException e) {
+                    if (reader.getOffset() == before) {
+                        throw e; // Cut short, the records after it cannot be found
+                    }
+                    counters.damaged++;
+                    continue;
+                }
+                int count = reader.getMoves(moves);
+                int result = reader.getResult();
+                counters.games++;
+                counters.results[result]++;
+                counters.lengths[count]++;
+                if (count >= openingLength) {
+                    int opening = 0;
+                    for (int i = 0; i < openingLength; i++) {
+                        opening = opening * BitBoard.WIDTH + moves[i];
+                    }
+                    counters.openingGames[opening]++;
+                    counters.openingResults[opening * 4 + result]++;
+                }
+                if (count >= ply) {
+                    long current = 0;
+                    long mask = 0;
+                    for (int i = 0; i < ply; i++) {
+                        long bit = BitBoard.moveBit(mask, moves[i]);
+                        mask |= bit;
+                        current = (current | bit) ^ mask; // Hand the turn to the other player
+                    }
+                    counters.positions.add(BitBoard.key(current, mask), 1);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return counters;
+    }
+
+    /**
+     * Prints a readable report of the counters.
+     *
+     * @param counters The merged counters.
+     * @param top      The number of openings and positions to list.
+     */
+    public void print(Counters counters, int top) {
+        System.out.println("Games: " + counters.games + (counters.damaged > 0 ? ", damaged records skipped: "
+                + counters.damaged : ""));
+        if (counters.games == 0) {
+            return;
+        }
+        long decided = counters.results[GameRecord.X_WINS] + counters.results[GameRecord.O_WINS];
+        System.out.printf("X wins %d, O wins %d, draws %d, unfinished %d%n", counters.results[GameRecord.X_WINS],
+                counters.results[GameRecord.O_WINS], counters.results[GameRecord.DRAW],
+                counters.results[GameRecord.UNFINISHED]);
+        if (decided > 0) {
+            System.out.printf("First player advantage: X wins %.2f%% of decided games%n",
+                    100.0 * counters.results[GameRecord.X_WINS] / decided);
+        }
+
+        System.out.println("Game lengths:");
+        long lengthSum = 0;
+        for (int i = 0; i < counters.lengths.length; i++) {
+            lengthSum += i * counters.lengths[i];
+            if (counters.lengths[i] > 0) {
+                System.out.printf("  %2d moves: %d%n", i, counters.lengths[i]);
+            }
+        }
+        System.out.printf("  average: %.2f moves%n", (double) lengthSum / counters.games);
+
+        System.out.println("Most played openings of " + openingLength + " moves:");
+        for (int opening : topIndices(counters.openingGames, top)) {
+            long games = counters.openingGames[opening];
+            System.out.printf("  %s: %d games, X %.1f%%, O %.1f%%, draw %.1f%%%n", openingName(opening), games,
+                    100.0 * counters.openingResults[opening * 4 + GameRecord.X_WINS] / games,
+                    100.0 * counters.openingResults[opening * 4 + GameRecord.O_WINS] / games,
+                    100.0 * counters.openingResults[opening * 4 + GameRecord.DRAW] / games);
+        }
+
+        System.out.println("Distinct positions at ply " + ply + ": " + counters.positions.size());
+        long[] keys = counters.positions.topKeys(top);
+        for (long key : keys) {
+            System.out.printf("  position %016x: %d games%n", key, counters.positions.get(key));
+        }
+    }
+
+    private String openingName(int opening) {
+        char[] name = new char[openingLength];
+        for (int i = openingLength - 1; i >= 0; i--) {
+            name[i] = (char) ('1' + opening % BitBoard.WIDTH);
+            opening /= BitBoard.WIDTH;
+        }
+        return new String(name);
+    }
+
+    private static int[] topIndices(long[] values, int top) {
+        if (top <= 0) {
+            return new int[0];
+        }
+        int[] best = new int[top]; // Sorted by value, largest first
+        int found = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == 0 || (found == top && values[i] <= values[best[top - 1]])) {
+                continue;
+            }
+            int pos = found < top ? found++ : top - 1;
+            while (pos > 0 && values[best[pos - 1]] < values[i]) {
+                best[pos] = best[pos - 1];
+                pos--;
+            }
+            best[pos] = i;
+        }
+        return Arrays.copyOf(best, found);
+    }
+
+    /**
+     * Counters of one range, or of several ranges after merging.
+     */
+    public static final class Counters {
+        long games;
+        long damaged; // Records the reader rejected, in no other counter
+        final long[] results = new long[4]; // Indexed by GameRecord result
+        final long[] lengths = new long[GameRecord.MAX_MOVES + 1];
+        final long[] openingGames;
+        final long[] openingResults; // Four result counters per opening
+        final LongCountMap positions = new LongCountMap(1 << 10);
+
+        Counters(int openingLength) {
+            int openings = (int) Math.pow(BitBoard.WIDTH, openingLength);
+            openingGames = new long[openings];
+            openingResults = new long[openings * 4];
+        }
+
+        /**
+         * Adds the counters of another range into this one.
+         *
+         * @param other The counters to add.
+         * @return This object.
+         */
+        Counters merge(Counters other) {
+            games += other.games;
+            damaged += other.damaged;
+            add(results, other.results);
+            add(lengths, other.lengths);
+            add(openingGames, other.openingGames);
+            add(openingResults, other.openingResults);
+            positions.addAll(other.positions);
+            return this;
+        }
+
+        private static void add(long[] into, long[] from) {
+            for (int i = 0; i < into.length; i++) {
+                into[i] += from[i];
+            }
+        }
+
+        /**
+         * Gets the number of games scanned.
+         *
+         * @return The game count.
+         */
+        public long getGames() {
+            return games;
+        }
+
+        /**
+         * Gets the number of damaged records skipped.
+         *
+         * @return The damaged record count.
+         */
+        public long getDamaged() {
+            return damaged;
+        }
+
+        /**
+         * Gets the number of games with a result.
+         *
+         * @param result X_WINS, O_WINS, DRAW or UNFINISHED.
+         * @return The game count.
+         */
+        public long getResults(int result) {
+            return results[result];
+        }
+
+        /**
+         * Gets the number of games of a length.
+         *
+         * @param moves The number of moves.
+         * @return The game count.
+         */
+        public long getLength(int moves) {
+            return lengths[moves];
+        }
+
+        /**
+         * Gets the number of distinct positions seen at the counted ply.
+         *
+         * @return The position count.
+         */
+        public int getDistinctPositions() {
+            return positions.size();
+        }
+    }
+
+    /**
+     * Main method to run the job.
+     * @param args The archive, then optional opening length, ply and list length.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: ArchiveStats <archive> [opening length] [ply] [top]");
+            return;
+        }
+        int openingLength = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int ply = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        int top = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        ArchiveStats stats = new ArchiveStats(openingLength, ply);
+        long start = System.nanoTime();
+        Counters counters = stats.run(Paths.get(args[0]), Runtime.getRuntime().availableProcessors() * 4);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        stats.print(counters, top);
+        System.out.println("Scanned in " + millis + " ms");
+    }
+}
@@ -0,0 +1,267 @@
+/**
+ * ArchiveValidator class is a batch job that checks every game in an archive
+ * against the rules: no move into a full column, no move after a win,
+ * and a recorded result that matches the final position.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package tools;
+
+import core.BatchWinChecker;
+import core.BitBoard;
+import core.GameRecord;
+import core.GameRecordReader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+
+/**
+ * The ArchiveValidator class replays each range of an archive on its own core,
+ * collecting the position after every move into a block, and checks the whole
+ * block for lines of four with BatchWinChecker. Only the last move of a game
+ * recorded as won may make a line.
+ */
+public class ArchiveValidator {
+    private static final int BLOCK = 4096; // Positions checked per batch
+    private static final int MAX_REPORTED = 10; // Invalid games listed by offset
+
+    /**
+     * Validates an archive in parallel.
+     *
+     * @param archive The archive file.
+     * @param parts   The number of ranges to split the archive into.
+     * @return The merged result.
+     * @throws IOException If the archive cannot be read.
+     */
+    public Result run(Path archive, int parts) throws IOException {
+        long[] points = GameRecordReader.splitPoints(archive, parts);
+        try {
+            return IntStream.range(0, parts).parallel()
+                    .mapToObj(i -> scan(archive, points[i], points[i + 1]))
+                    .reduce(Result::merge)
+                    .orElseGet(Result::new);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Replays one range of the archive.
+     */
+    private Result scan(Path archive, long start, long end) {
+        Result result = new Result();
+        if (start >= end) {
+            return result;
+        }
+        Block block = new Block(result);
+        byte[] moves = new byte[GameRecord.MAX_MOVES];
+        try (GameRecordReader reader = new GameRecordReader(archive, start, end)) {
+            while (true) {
+                long before = reader.getOffset();
+                try {
+                    if (!reader.next()) {
+                        break;
+                    }
+                } catch (IOException e) {
+                    if (reader.getOffset() == before) {
+                        throw e; // Cut short, the records after it cannot be found
+                    }
+                    result.games++;
+                    result.invalid(reader.getOffset()); // Damaged moves or result
+                    continue;
+                }
+                result.games++;
+                int count = reader.getMoves(moves);
+                int recorded = reader.getResult();
+                long offset = reader.getOffset();
+                boolean won = recorded == GameRecord.X_WINS || recorded == GameRecord.O_WINS;
+                // The side of the last move and the length must fit the result before the lines are checked
+                boolean valid = won ? count > 0 && ((count - 1) & 1) == (recorded == GameRecord.X_WINS ? 0 : 1)
+                        : recorded == GameRecord.DRAW ? count == BitBoard.CELLS : count < BitBoard.CELLS;
+                int mark = block.reserve(count);
+                long xStones = 0;
+                long oStones = 0;
+                for (int i = 0; i < count && valid; i++) {
+                    if (moves[i] < 0 || moves[i] >= BitBoard.WIDTH) {
+                        valid = false; // moveBit would place it past the last column
+                        break;
+                    }
+                    long bit = BitBoard.moveBit(xStones | oStones, moves[i]);
+                    if (bit == 0) {
+                        valid = false;
+                        break;
+                    }
+                    if ((i & 1) == 0) {
+                        xStones |= bit;
+                    } else {
+                        oStones |= bit;
+                    }
+                    block.add(xStones, oStones, won && i == count - 1, offset);
+                }
+                if (!valid) {
+                    block.rollback(mark); // Already invalid, its positions need no check
+                    result.invalid(offset);
+                }
+            }
+            block.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    /**
+     * Positions waiting to be checked, with the answer each one should give.
+     */
+    private static final class Block {
+        private final long[] xStones = new long[BLOCK];
+        private final long[] oStones = new long[BLOCK];
+        private final boolean[] expected = new boolean[BLOCK];
+        private final long[] offsets = new long[BLOCK]; // Record each position came from
+        private final boolean[] wins = new boolean[BLOCK];
+        private final Result result;
+        private int size;
+        private long lastInvalid = -1; // Reports a game once even if several of its positions are wrong
+
+        Block(Result result) {
+            this.result = result;
+        }
+
+        /**
+         * Makes room for the positions of one game, so a game never spans two blocks.
+         *
+         * @return The mark to roll back to if the game turns out invalid.
+         */
+        int reserve(int count) {
+            if (size + count > BLOCK) {
+                flush();
+            }
+            return size;
+        }
+
+        void rollback(int mark) {
+            size = mark;
+        }
+
+        void add(long x, long o, boolean win, long offset) {
+            xStones[size] = x;
+            oStones[size] = o;
+            expected[size] = win;
+            offsets[size] = offset;
+            size++;
+        }
+
+        void flush() {
+            BatchWinChecker.winChecker(xStones, oStones, size, wins);
+            for (int i = 0; i < size; i++) {
+                if (wins[i] != expected[i] && offsets[i] != lastInvalid) {
+                    lastInvalid = offsets[i];
+                    result.invalid(offsets[i]);
+                }
+            }
+            result.positions += size;
+            size = 0;
+        }
+    }
+
+    /**
+     * Counts of one range, or of several ranges after merging.
+     */
+    public static final class Result {
+        long games;
+        long positions;
+        long invalidGames;
+        private long[] reported = new long[0];
+
+        void invalid(long offset) {
+            invalidGames++;
+            if (reported.length < MAX_REPORTED) {
+                reported = Arrays.copyOf(reported, reported.length + 1);
+                reported[reported.length - 1] = offset;
+            }
+        }
+
+        /**
+         * Adds the counts of another range into this one.
+         *
+         * @param other The counts to add.
+         * @return This object.
+         */
+        Result merge(Result other) {
+            games += other.games;
+            positions += other.positions;
+            invalidGames += other.invalidGames;
+            for (long offset : other.reported) {
+                if (reported.length < MAX_REPORTED) {
+                    reported = Arrays.copyOf(reported, reported.length + 1);
+                    reported[reported.length - 1] = offset;
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Gets the number of games checked.
+         *
+         * @return The game count.
+         */
+        public long getGames() {
+            return games;
+        }
+
+        /**
+         * Gets the number of positions checked for a line of four.
+         *
+         * @return The position count.
+         */
+        public long getPositions() {
+            return positions;
+        }
+
+        /**
+         * Gets the number of games that break the rules.
+         *
+         * @return The invalid game count.
+         */
+        public long getInvalidGames() {
+            return invalidGames;
+        }
+
+        /**
+         * Gets the file offsets of the first invalid games found.
+         *
+         * @return Up to ten record offsets.
+         */
+        public long[] getReportedOffsets() {
+            return reported.clone();
+        }
+    }
+
+    /**
+     * Main method to run the job.
+     * @param args The archive.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: ArchiveValidator <archive>");
+            return;
+        }
+        long start = System.nanoTime();
+        Result result = new ArchiveValidator().run(Paths.get(args[0]), Runtime.getRuntime().availableProcessors() * 4);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Games: " + result.getGames() + ", positions: " + result.getPositions()
+                + ", invalid games: " + result.getInvalidGames());
+        for (long offset : result.getReportedOffsets()) {
+            System.out.println("  invalid record at offset " + offset);
+        }
+        System.out.println("Checked in " + millis + " ms"
+                + (BatchWinChecker.isVectorized() ? " with the Vector API" : " with the scalar checker"));
+    }
+}
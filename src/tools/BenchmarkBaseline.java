@@ -0,0 +1,321 @@
+/**
+ * BenchmarkBaseline class holds the raw measurements of one benchmark run,
+ * read from a JMH result file or from a baseline kept in the repository.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package tools;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+
+/**
+ * The BenchmarkBaseline class keeps every measurement iteration of every benchmark,
+ * not just the mean, so a later run can be compared with a statistical test.
+ * A baseline file is JSON:
+ * <pre>
+ * {
+ *   "format": "connect4-baseline",
+ *   "version": 1,
+ *   "label": "1.0",
+ *   "java": "17.0.9",
+ *   "benchmarks": [
+ *     {"name": "bench.LogicBenchmark.winChecker", "params": "phase=mid", "mode": "thrpt",
+ *      "unit": "ops/us", "samples": [12.1, 12.3, ...]}
+ *   ]
+ * }
+ * </pre>
+ */
+public class BenchmarkBaseline {
+    public static final String FORMAT = "connect4-baseline";
+    public static final int VERSION = 1;
+
+    private final String label;
+    private final String java;
+    private final List<Entry> entries;
+
+    /**
+     * Constructs a baseline.
+     *
+     * @param label   The name of the code version measured, such as the project version.
+     * @param java    The Java version the run used.
+     * @param entries The benchmarks.
+     */
+    public BenchmarkBaseline(String label, String java, List<Entry> entries) {
+        if (label == null || java == null || entries == null) {
+            throw new IllegalArgumentException("Label, Java version and entries cannot be null");
+        }
+        this.label = label;
+        this.java = java;
+        this.entries = List.copyOf(entries);
+    }
+
+    /**
+     * Reads the primary metric of every benchmark in a JMH result file written with -rf json.
+     * Secondary metrics such as the gc profiler's are left out.
+     *
+     * @param path  The JMH result file.
+     * @param label The name of the code version measured.
+     * @return The run as a baseline.
+     * @throws IOException If the file cannot be read or is not a JMH result file.
+     */
+    public static BenchmarkBaseline fromJmhResults(Path path, String label) throws IOException {
+        Object root = parse(path);
+        if (!(root instanceof List)) {
+            throw new IOException(path + " is not a JMH result file");
+        }
+        List<Entry> entries = new ArrayList<>();
+        String java = "unknown";
+        try {
+            for (Object item : (List<?>) root) {
+                Map<?, ?> run = (Map<?, ?>) item;
+                if (run.get("jdkVersion") != null) {
+                    java = run.get("jdkVersion").toString();
+                }
+                StringBuilder params = new StringBuilder();
+                if (run.get("params") instanceof Map) {
+                    for (Map.Entry<?, ?> param : new TreeMap<>((Map<?, ?>) run.get("params")).entrySet()) {
+                        params.append(params.length() == 0 ? "" : ",").append(param.getKey()).append('=').append(param.getValue());
+                    }
+                }
+                Map<?, ?> metric = (Map<?, ?>) run.get("primaryMetric");
+                List<Double> samples = new ArrayList<>();
+                for (Object fork : (List<?>) metric.get("rawData")) {
+                    for (Object sample : (List<?>) fork) {
+                        if (sample instanceof Double) {
+                            samples.add((Double) sample);
+                        }
+                    }
+                }
+                entries.add(new Entry(run.get("benchmark").toString(), params.toString(), run.get("mode").toString(),
+                        metric.get("scoreUnit").toString(), toArray(samples)));
+            }
+        } catch (ClassCastException | NullPointerException e) { // A field is missing or of the wrong kind
+            throw new IOException(path + " is not a JMH result file: " + e.getMessage(), e);
+        }
+        return new BenchmarkBaseline(label, java, entries);
+    }
+
+    /**
+     * Reads a baseline file.
+     *
+     * @param path The baseline file.
+     * @return The baseline.
+     * @throws IOException If the file cannot be read, is not a baseline or has another version.
+     */
+    public static BenchmarkBaseline load(Path path) throws IOException {
+        Object root = parse(path);
+        if (!(root instanceof Map) || !FORMAT.equals(((Map<?, ?>) root).get("format"))) {
+            throw new IOException(path + " is not a benchmark baseline");
+        }
+        Map<?, ?> map = (Map<?, ?>) root;
+        Object version = map.get("version");
+        if (!(version instanceof Double) || ((Double) version).intValue() != VERSION) {
+            throw new IOException(path + " is a baseline of version " + version + ", expected " + VERSION);
+        }
+        List<Entry> entries = new ArrayList<>();
+        try {
+            for (Object item : (List<?>) map.get("benchmarks")) {
+                Map<?, ?> entry = (Map<?, ?>) item;
+                List<Double> samples = new ArrayList<>();
+                for (Object sample : (List<?>) entry.get("samples")) {
+                    samples.add((Double) sample);
+                }
+                entries.add(new Entry(entry.get("name").toString(), entry.get("params").toString(),
+                        entry.get("mode").toString(), entry.get("unit").toString(), toArray(samples)));
+            }
+            return new BenchmarkBaseline(map.get("label").toString(), map.get("java").toString(), entries);
+        } catch (ClassCastException | NullPointerException e) { // A field is missing or of the wrong kind
+            throw new IOException(path + " is not a benchmark baseline: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes this baseline, one benchmark per line so a new baseline diffs cleanly.
+     *
+     * @param path The baseline file.
+     * @throws IOException If the file cannot be written.
+     */
+    public void save(Path path) throws IOException {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"format\": ").append(Json.quote(FORMAT)).append(",\n");
+        json.append("  \"version\": ").append(VERSION).append(",\n");
+        json.append("  \"label\": ").append(Json.quote(label)).append(",\n");
+        json.append("  \"java\": ").append(Json.quote(java)).append(",\n");
+        json.append("  \"benchmarks\": [\n");
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            json.append("    {\"name\": ").append(Json.quote(entry.name))
+                    .append(", \"params\": ").append(Json.quote(entry.params))
+                    .append(", \"mode\": ").append(Json.quote(entry.mode))
+                    .append(", \"unit\": ").append(Json.quote(entry.unit))
+                    .append(", \"samples\": [");
+            for (int s = 0; s < entry.samples.length; s++) {
+                json.append(s == 0 ? "" : ", ").append(entry.samples[s]);
+            }
+            json.append("]}").append(i < entries.size() - 1 ? ",\n" : "\n");
+        }
+        json.append("  ]\n");
+        json.append("}\n");
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.write(path, json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Finds a benchmark by name and parameters.
+     *
+     * @param name   The full benchmark method name.
+     * @param params The parameters as written in the baseline, empty if none.
+     * @return The benchmark, or null if this run does not have it.
+     */
+    public Entry find(String name, String params) {
+        for (Entry entry : entries) {
+            if (entry.name.equals(name) && entry.params.equals(params)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the name of the code version measured.
+     *
+     * @return The label.
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Gets the Java version of the run.
+     *
+     * @return The Java version.
+     */
+    public String getJava() {
+        return java;
+    }
+
+    /**
+     * Gets the benchmarks of the run.
+     *
+     * @return An unmodifiable list of benchmarks.
+     */
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    private static Object parse(Path path) throws IOException {
+        try {
+            return Json.parse(new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException | ClassCastException | NullPointerException e) {
+            throw new IOException(path + " cannot be read: " + e.getMessage(), e);
+        }
+    }
+
+    private static double[] toArray(List<Double> samples) {
+        double[] array = new double[samples.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = samples.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * The measurement iterations of one benchmark with one set of parameters.
+     */
+    public static final class Entry {
+        private final String name;
+        private final String params;
+        private final String mode;
+        private final String unit;
+        private final double[] samples;
+
+        /**
+         * Constructs an entry.
+         *
+         * @param name    The full benchmark method name.
+         * @param params  The parameters, such as phase=mid, empty if none.
+         * @param mode    The JMH mode: thrpt, avgt, sample or ss.
+         * @param unit    The unit of the samples.
+         * @param samples The score of each measurement iteration of every fork.
+         */
+        public Entry(String name, String params, String mode, String unit, double[] samples) {
+            if (name == null || params == null || mode == null || unit == null || samples == null) {
+                throw new IllegalArgumentException("Benchmark fields cannot be null");
+            }
+            this.name = name;
+            this.params = params;
+            this.mode = mode;
+            this.unit = unit;
+            this.samples = samples.clone();
+        }
+
+        /**
+         * Gets the full benchmark method name.
+         *
+         * @return The name.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Gets the parameters of the benchmark.
+         *
+         * @return The parameters, empty if none.
+         */
+        public String getParams() {
+            return params;
+        }
+
+        /**
+         * Gets the JMH mode.
+         *
+         * @return thrpt, avgt, sample or ss.
+         */
+        public String getMode() {
+            return mode;
+        }
+
+        /**
+         * Gets the unit of the samples.
+         *
+         * @return The unit, such as ops/us.
+         */
+        public String getUnit() {
+            return unit;
+        }
+
+        /**
+         * Gets the score of each measurement iteration.
+         *
+         * @return A copy of the samples.
+         */
+        public double[] getSamples() {
+            return samples.clone();
+        }
+
+        /**
+         * Tells whether a bigger score is better, which is only true in throughput mode.
+         *
+         * @return True for throughput, false for time per operation.
+         */
+        public boolean higherIsBetter() {
+            return "thrpt".equals(mode);
+        }
+    }
+}
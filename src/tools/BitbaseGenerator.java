@@ -0,0 +1,209 @@
+/**
+ * BitbaseGenerator class is a batch job that solves the late game positions of an
+ * archive and writes them to an EndgameBitbase file.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package tools;
+
+import core.BitBoard;
+import core.EndgameBitbase;
+import core.GameRecord;
+import core.GameRecordReader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+
+/**
+ * The BitbaseGenerator class takes the position of every archive game once it has
+ * maxEmpty empty cells left, and solves it with every position reachable from it.
+ * Every position of the 7 by 6 board with a few empty cells would not fit on a disk,
+ * there are about 10^10 with two empty cells already, so the bitbase holds the endgames
+ * that real games reach, each completely: every move of every position is solved, even
+ * after a winning one is found, so a search that enters one never leaves the bitbase.
+ * Positions with an immediate win are not stored, the search settles those itself.
+ * Each archive range is solved on its own core with its own table of solved positions,
+ * and the ranges are merged into one file.
+ */
+public class BitbaseGenerator {
+    private static final int[] ORDER = {3, 2, 4, 1, 5, 0, 6}; // Center columns first, for early wins
+
+    private final int maxEmpty;
+
+    /**
+     * Constructs the job.
+     *
+     * @param maxEmpty The empty cells of the positions taken from the games.
+     */
+    public BitbaseGenerator(int maxEmpty) {
+        if (maxEmpty < 1 || maxEmpty >= BitBoard.CELLS) {
+            throw new IllegalArgumentException("Empty cells must be between 1 and " + (BitBoard.CELLS - 1));
+        }
+        this.maxEmpty = maxEmpty;
+    }
+
+    /**
+     * Solves the endgames of an archive in parallel and writes the bitbase.
+     *
+     * @param archive The archive file.
+     * @param output  The bitbase file.
+     * @param parts   The number of ranges to split the archive into.
+     * @return The counts of the run.
+     * @throws IOException If the archive cannot be read or the bitbase cannot be written.
+     */
+    public Result run(Path archive, Path output, int parts) throws IOException {
+        long[] points = GameRecordReader.splitPoints(archive, parts);
+        Result result;
+        try {
+            result = IntStream.range(0, parts).parallel()
+                    .mapToObj(i -> scan(archive, points[i], points[i + 1]))
+                    .reduce(Result::merge)
+                    .orElseGet(Result::new);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        result.positions = EndgameBitbase.write(output, maxEmpty, result.keys, result.values, result.count)
+                .getPositions();
+        return result;
+    }
+
+    /**
+     * Solves the endgames of one range of the archive.
+     */
+    private Result scan(Path archive, long start, long end) {
+        Result result = new Result();
+        if (start >= end) {
+            return result;
+        }
+        int ply = BitBoard.CELLS - maxEmpty;
+        LongCountMap solved = new LongCountMap(1 << 16); // Canonical key to value + 2
+        byte[] moves = new byte[GameRecord.MAX_MOVES];
+        try (GameRecordReader reader = new GameRecordReader(archive, start, end)) {
+            while (reader.next()) {
+                int count = reader.getMoves(moves);
+                if (count <= ply) {
+                    continue; // Over before it reached the endgame
+                }
+                long current = 0;
+                long mask = 0;
+                for (int i = 0; i < ply; i++) {
+                    long bit = BitBoard.moveBit(mask, moves[i]);
+                    mask |= bit;
+                    current = (current | bit) ^ mask; // Hand the turn to the other player
+                }
+                result.games++;
+                solve(current, mask, solved, result);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    /**
+     * Solves a position exactly, recording it and every position below it that has no immediate win.
+     * Every move is searched, there is no cutoff at the first win, so no position below is left out.
+     *
+     * @return WIN, DRAW or LOSS for the side to move.
+     */
+    private static int solve(long current, long mask, LongCountMap solved, Result result) {
+        long possible = (mask + BitBoard.BOTTOM) & BitBoard.FULL;
+        if (possible == 0) {
+            return EndgameBitbase.DRAW;
+        }
+        for (int col = 0; col < BitBoard.WIDTH; col++) {
+            long bit = possible & BitBoard.columnMask(col);
+            if (bit != 0 && BitBoard.isWin(current | bit)) {
+                return EndgameBitbase.WIN;
+            }
+        }
+        long key = BitBoard.canonicalKey(current, mask);
+        long known = solved.get(key);
+        if (known != 0) {
+            return (int) known - 2;
+        }
+        int best = EndgameBitbase.LOSS;
+        for (int col : ORDER) {
+            long bit = possible & BitBoard.columnMask(col);
+            if (bit != 0) {
+                long next = mask | bit;
+                best = Math.max(best, -solve((current | bit) ^ next, next, solved, result)); // No cutoff, every child is stored
+            }
+        }
+        solved.add(key, best + 2);
+        result.add(key, best);
+        return best;
+    }
+
+    /**
+     * Solved positions of one range, or of several ranges after merging.
+     */
+    public static final class Result {
+        long games;
+        long positions;
+        long[] keys = new long[1024];
+        byte[] values = new byte[1024];
+        int count;
+
+        void add(long key, int value) {
+            if (count == keys.length) {
+                keys = Arrays.copyOf(keys, count * 2);
+                values = Arrays.copyOf(values, count * 2);
+            }
+            keys[count] = key;
+            values[count++] = (byte) value;
+        }
+
+        Result merge(Result other) {
+            games += other.games;
+            for (int i = 0; i < other.count; i++) {
+                add(other.keys[i], other.values[i]);
+            }
+            return this;
+        }
+
+        /**
+         * Gets the number of games that reached the endgame.
+         *
+         * @return The game count.
+         */
+        public long getGames() {
+            return games;
+        }
+
+        /**
+         * Gets the number of distinct positions written to the bitbase.
+         *
+         * @return The position count.
+         */
+        public long getPositions() {
+            return positions;
+        }
+    }
+
+    /**
+     * Main method to run the job.
+     * @param args The archive, then optional empty cells and bitbase file.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: BitbaseGenerator <archive> [empty cells] [bitbase]");
+            return;
+        }
+        int maxEmpty = args.length > 1 ? Integer.parseInt(args[1]) : 12;
+        Path output = Paths.get(args.length > 2 ? args[2] : EndgameBitbase.FILE_NAME);
+        BitbaseGenerator generator = new BitbaseGenerator(maxEmpty);
+        long start = System.nanoTime();
+        Result result = generator.run(Paths.get(args[0]), output, Runtime.getRuntime().availableProcessors() * 4);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("Solved %d endgames, %d positions into %s in %d ms%n", result.getGames(),
+                result.getPositions(), output, millis);
+    }
+}
@@ -0,0 +1,500 @@
+/**
+ * EvalTuner class is a batch job that tunes the evaluation weights of the search,
+ * either by fitting them to the results of archive games (Texel) or by self-play (SPSA).
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package tools;
+
+import core.BitBoard;
+import core.Connect4Search;
+import core.GameRecord;
+import core.GameRecordReader;
+import core.TranspositionTable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+
+/**
+ * The EvalTuner class works on the weights as real numbers and rounds them for the search.
+ * <p>
+ * Texel mode takes every quiet position of every finished archive game, from a chosen ply
+ * on, and labels it with the result of the game for the side to move. The features of each
+ * position are computed once into a byte array, after which an iteration is one pass over
+ * plain arrays: the predicted result is the logistic function of the evaluation, and the
+ * weights follow the gradient of the log loss. The scale of the logistic function is fitted
+ * to the starting weights first, so the weights keep the units the search is used to.
+ * <p>
+ * SPSA mode moves every weight at once by a random plus or minus step, plays the plus
+ * weights against the minus weights from random openings, each opening with both colours,
+ * and moves the weights towards the side that scored better. All games of an iteration are
+ * played at once at a fixed node budget per move.
+ * <p>
+ * Both modes split the work into batches run on the fork join pool of parallel streams, and
+ * write a checkpoint after every iteration, one line that a later run picks up from:
+ * <pre>
+ * mode,iteration,loss or score,scale,weights...
+ * texel,40,0.651203,0.0125,1.21,5.02,30.44,3.87,2.10
+ * </pre>
+ */
+public class EvalTuner {
+    private static final int BATCH = 1 << 15; // Positions per gradient task
+    private static final int OPENING_PLIES = 4; // Random moves before the engines take over
+    private static final int GAME_TABLE_BITS = 16; // Each game builds its own small tables
+    private static final double LEARNING_RATE = 0.5; // Largest Texel step of a weight per iteration
+    private static final double SPSA_A = 8; // Step of the SPSA update for a full score difference
+    private static final double SPSA_C = 2; // Perturbation of every weight in the first iteration
+
+    private final Path checkpoint;
+
+    /**
+     * Constructs the job.
+     *
+     * @param checkpoint The file the weights are saved to after every iteration and resumed from.
+     */
+    public EvalTuner(Path checkpoint) {
+        if (checkpoint == null) {
+            throw new IllegalArgumentException("Checkpoint file cannot be null");
+        }
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Fits the weights to the game results of an archive.
+     *
+     * @param archive      The archive file.
+     * @param minPly       The first ply whose positions are used.
+     * @param maxPositions The most positions kept, spread over the archive.
+     * @param iterations   The iterations to run, counting those of the checkpoint.
+     * @param parts        The number of ranges the archive is read in.
+     * @return The tuned weights and the final loss.
+     * @throws IOException If the archive or the checkpoint cannot be read or written.
+     */
+    public Result texel(Path archive, int minPly, int maxPositions, int iterations, int parts) throws IOException {
+        if (minPly < 0 || minPly >= BitBoard.CELLS || maxPositions < parts || iterations < 0 || parts < 1) {
+            throw new IllegalArgumentException("Ply must be on the board and the counts positive");
+        }
+        long[] points = GameRecordReader.splitPoints(archive, parts);
+        Positions positions;
+        try {
+            positions = IntStream.range(0, parts).parallel()
+                    .mapToObj(i -> load(archive, points[i], points[i + 1], minPly, maxPositions / parts))
+                    .reduce(Positions::merge)
+                    .orElseGet(() -> new Positions(0));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (positions.count == 0) {
+            throw new IllegalArgumentException("The archive has no finished game that reaches ply " + minPly);
+        }
+        Result result = resume("texel");
+        if (result.scale == 0) {
+            result.scale = fitScale(positions, result.weights);
+        }
+        double[] first = new double[Connect4Search.FEATURES]; // Adam moment estimates
+        double[] second = new double[Connect4Search.FEATURES];
+        long start = System.nanoTime();
+        int done = result.iterations;
+        result.metric = gradient(positions, result.weights, result.scale, null);
+        while (result.iterations < iterations) {
+            double[] gradient = new double[Connect4Search.FEATURES];
+            gradient(positions, result.weights, result.scale, gradient);
+            int t = result.iterations - done + 1;
+            for (int i = 0; i < gradient.length; i++) {
+                first[i] = 0.9 * first[i] + 0.1 * gradient[i];
+                second[i] = 0.999 * second[i] + 0.001 * gradient[i] * gradient[i];
+                double step = first[i] / (1 - Math.pow(0.9, t)) / (Math.sqrt(second[i] / (1 - Math.pow(0.999, t))) + 1e-12);
+                result.weights[i] = clamp(result.weights[i] - LEARNING_RATE * step);
+            }
+            result.iterations++;
+            result.metric = gradient(positions, result.weights, result.scale, null);
+            save("texel", result);
+        }
+        result.positions = positions.count;
+        result.nanosPerIteration = result.iterations == done ? 0 : (System.nanoTime() - start) / (result.iterations - done);
+        return result;
+    }
+
+    /**
+     * Tunes the weights by self-play.
+     *
+     * @param iterations The iterations to run, counting those of the checkpoint.
+     * @param games      The games played per iteration, rounded up to an even number.
+     * @param nodeBudget The nodes each engine may search per move, at least BitBoard.WIDTH.
+     * @param seed       Picks the perturbations and openings, so a run can be repeated.
+     * @return The tuned weights and the score of the last iteration.
+     * @throws IOException If the checkpoint cannot be read or written.
+     */
+    public Result spsa(int iterations, int games, long nodeBudget, long seed) throws IOException {
+        if (iterations < 0 || games < 1 || nodeBudget < BitBoard.WIDTH) {
+            throw new IllegalArgumentException("Iterations cannot be negative, games must be positive and nodes at least "
+                    + BitBoard.WIDTH);
+        }
+        Result result = resume("spsa");
+        int pairs = (games + 1) / 2;
+        long start = System.nanoTime();
+        int done = result.iterations;
+        while (result.iterations < iterations) {
+            int k = result.iterations + 1;
+            Random random = new Random(seed * 31 + k);
+            double c = SPSA_C / Math.pow(k, 0.101);
+            double a = SPSA_A / Math.pow(k + 10, 0.602);
+            double[] delta = new double[Connect4Search.FEATURES];
+            int[] plus = new int[delta.length];
+            int[] minus = new int[delta.length];
+            for (int i = 0; i < delta.length; i++) {
+                delta[i] = random.nextBoolean() ? 1 : -1;
+                plus[i] = (int) Math.round(clamp(result.weights[i] + c * delta[i]));
+                minus[i] = (int) Math.round(clamp(result.weights[i] - c * delta[i]));
+            }
+            long openingSeed = random.nextLong();
+            int points = IntStream.range(0, pairs).parallel()
+                    .map(pair -> playPair(plus, minus, openingSeed + pair, nodeBudget))
+                    .sum();
+            double score = points / (2.0 * pairs); // Between -1 and 1, positive when plus did better
+            for (int i = 0; i < delta.length; i++) {
+                result.weights[i] = clamp(result.weights[i] + a * score / (2 * c * delta[i]));
+            }
+            result.iterations++;
+            result.metric = score;
+            save("spsa", result);
+        }
+        result.nanosPerIteration = result.iterations == done ? 0 : (System.nanoTime() - start) / (result.iterations - done);
+        return result;
+    }
+
+    /**
+     * Computes the features and labels of the quiet positions of one range of the archive.
+     */
+    private static Positions load(Path archive, long start, long end, int minPly, int limit) {
+        Positions positions = new Positions(1024);
+        if (start >= end) {
+            return positions;
+        }
+        int[] features = new int[Connect4Search.FEATURES];
+        byte[] moves = new byte[GameRecord.MAX_MOVES];
+        try (GameRecordReader reader = new GameRecordReader(archive, start, end)) {
+            while (positions.count < limit && reader.next()) {
+                int result = reader.getResult();
+                if (result == GameRecord.UNFINISHED) {
+                    continue;
+                }
+                int count = reader.getMoves(moves);
+                long current = 0;
+                long mask = 0;
+                for (int ply = 0; ply < count && positions.count < limit; ply++) {
+                    long possible = (mask + BitBoard.BOTTOM) & BitBoard.FULL;
+                    if (ply >= minPly && !canWin(current, mask, possible)) { // Quiet: no win to take at once
+                        Connect4Search.features(current, mask, features);
+                        int label = result == GameRecord.DRAW ? 1 : (result == GameRecord.X_WINS) == (ply % 2 == 0) ? 2 : 0;
+                        positions.add(features, label);
+                    }
+                    long bit = BitBoard.moveBit(mask, moves[ply]);
+                    mask |= bit;
+                    current = (current | bit) ^ mask; // Hand the turn to the other player
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return positions;
+    }
+
+    private static boolean canWin(long current, long mask, long possible) {
+        for (int col = 0; col < BitBoard.WIDTH; col++) {
+            long bit = possible & BitBoard.columnMask(col);
+            if (bit != 0 && BitBoard.isWin(current | bit)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Computes the mean log loss of the weights, and adds its gradient to the given array
+     * unless it is null. Each batch of positions is summed by its own task.
+     */
+    private static double gradient(Positions positions, double[] weights, double scale, double[] gradient) {
+        int n = Connect4Search.FEATURES;
+        int batches = (positions.count + BATCH - 1) / BATCH;
+        double[] sums = IntStream.range(0, batches).parallel().mapToObj(b -> {
+            double[] sum = new double[n + 1]; // Loss, then the gradient of each weight
+            byte[] features = positions.features;
+            int end = Math.min(positions.count, (b + 1) * BATCH);
+            for (int p = b * BATCH; p < end; p++) {
+                double eval = 0;
+                for (int i = 0; i < n; i++) {
+                    eval += weights[i] * features[p * n + i];
+                }
+                double predicted = 1 / (1 + Math.exp(-scale * eval));
+                double target = positions.labels[p] / 2.0;
+                sum[0] -= target * Math.log(predicted + 1e-15) + (1 - target) * Math.log(1 - predicted + 1e-15);
+                double error = (predicted - target) * scale;
+                for (int i = 0; i < n; i++) {
+                    sum[i + 1] += error * features[p * n + i];
+                }
+            }
+            return sum;
+        }).reduce(new double[n + 1], (x, y) -> {
+            double[] z = x.clone();
+            for (int i = 0; i < z.length; i++) {
+                z[i] += y[i];
+            }
+            return z;
+        });
+        if (gradient != null) {
+            for (int i = 0; i < n; i++) {
+                gradient[i] += sums[i + 1] / positions.count;
+            }
+        }
+        return sums[0] / positions.count;
+    }
+
+    /**
+     * Finds the logistic scale with the lowest loss for the given weights, by golden section search
+     * over its logarithm.
+     */
+    private static double fitScale(Positions positions, double[] weights) {
+        double ratio = (Math.sqrt(5) - 1) / 2;
+        double lo = Math.log(1e-5);
+        double hi = Math.log(10);
+        for (int i = 0; i < 40; i++) {
+            double x1 = hi - ratio * (hi - lo);
+            double x2 = lo + ratio * (hi - lo);
+            if (gradient(positions, weights, Math.exp(x1), null) <= gradient(positions, weights, Math.exp(x2), null)) {
+                hi = x2;
+            } else {
+                lo = x1;
+            }
+        }
+        return Math.exp((lo + hi) / 2);
+    }
+
+    /**
+     * Plays an opening twice, the plus weights taking X then O.
+     *
+     * @return The points of the plus weights, +1 a win and -1 a loss per game.
+     */
+    private static int playPair(int[] plus, int[] minus, long seed, long nodeBudget) {
+        Random random = new Random(seed);
+        long current = 0;
+        long mask = 0;
+        for (int ply = 0; ply < OPENING_PLIES; ) {
+            int col = random.nextInt(BitBoard.WIDTH);
+            long bit = BitBoard.moveBit(mask, col);
+            if (bit != 0 && !BitBoard.isWin(current | bit)) {
+                mask |= bit;
+                current = (current | bit) ^ mask;
+                ply++;
+            }
+        }
+        return play(plus, minus, current, mask, nodeBudget) - play(minus, plus, current, mask, nodeBudget);
+    }
+
+    /**
+     * Plays a game out from a position.
+     *
+     * @return 1 if the first engine won, -1 if the second did, 0 for a draw.
+     */
+    private static int play(int[] first, int[] second, long current, long mask, long nodeBudget) {
+        Connect4Search[] engines = {new Connect4Search(new TranspositionTable(GAME_TABLE_BITS)),
+                new Connect4Search(new TranspositionTable(GAME_TABLE_BITS))};
+        engines[0].setWeights(first);
+        engines[1].setWeights(second);
+        for (int turn = 0; mask != BitBoard.FULL; turn ^= 1) {
+            int col = engines[turn].searchNodes(current, mask, BitBoard.CELLS, nodeBudget);
+            long bit = BitBoard.moveBit(mask, col);
+            if (BitBoard.isWin(current | bit)) {
+                return turn == 0 ? 1 : -1;
+            }
+            mask |= bit;
+            current = (current | bit) ^ mask;
+        }
+        return 0;
+    }
+
+    private static double clamp(double weight) {
+        return Math.max(-Connect4Search.MAX_WEIGHT, Math.min(Connect4Search.MAX_WEIGHT, weight));
+    }
+
+    /**
+     * Reads the checkpoint of a mode, or starts from the default weights if there is none.
+     */
+    private Result resume(String mode) throws IOException {
+        Result result = new Result();
+        if (!Files.exists(checkpoint)) {
+            int[] weights = Connect4Search.defaultWeights();
+            for (int i = 0; i < weights.length; i++) {
+                result.weights[i] = weights[i];
+            }
+            return result;
+        }
+        String[] fields = Files.readAllLines(checkpoint, StandardCharsets.US_ASCII).get(0).split(",");
+        if (!fields[0].equals(mode) || fields.length != 4 + Connect4Search.FEATURES) {
+            throw new IOException(checkpoint + " is not a " + mode + " checkpoint of " + Connect4Search.FEATURES + " weights");
+        }
+        result.iterations = Integer.parseInt(fields[1]);
+        result.metric = Double.parseDouble(fields[2]);
+        result.scale = Double.parseDouble(fields[3]);
+        for (int i = 0; i < Connect4Search.FEATURES; i++) {
+            result.weights[i] = Double.parseDouble(fields[4 + i]);
+        }
+        return result;
+    }
+
+    /**
+     * Writes the checkpoint, replacing the old one only once the new one is complete.
+     */
+    private void save(String mode, Result result) throws IOException {
+        StringBuilder line = new StringBuilder(mode).append(',').append(result.iterations).append(',')
+                .append(result.metric).append(',').append(result.scale);
+        for (double weight : result.weights) {
+            line.append(',').append(weight);
+        }
+        Path tmp = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+        Files.write(tmp, (line + System.lineSeparator()).getBytes(StandardCharsets.US_ASCII));
+        Files.move(tmp, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Features and labels of labeled positions, FEATURES bytes per position. Every
+     * feature of a position fits a byte: there are 69 lines and 42 cells.
+     */
+    private static final class Positions {
+        byte[] features;
+        byte[] labels; // 0 a loss, 1 a draw, 2 a win for the side to move
+        int count;
+
+        Positions(int capacity) {
+            features = new byte[capacity * Connect4Search.FEATURES];
+            labels = new byte[capacity];
+        }
+
+        void add(int[] values, int label) {
+            if (count == labels.length) {
+                labels = Arrays.copyOf(labels, count * 2);
+                features = Arrays.copyOf(features, count * 2 * Connect4Search.FEATURES);
+            }
+            for (int i = 0; i < Connect4Search.FEATURES; i++) {
+                features[count * Connect4Search.FEATURES + i] = (byte) values[i];
+            }
+            labels[count++] = (byte) label;
+        }
+
+        Positions merge(Positions other) {
+            if (count + other.count > labels.length) {
+                labels = Arrays.copyOf(labels, count + other.count);
+                features = Arrays.copyOf(features, (count + other.count) * Connect4Search.FEATURES);
+            }
+            System.arraycopy(other.labels, 0, labels, count, other.count);
+            System.arraycopy(other.features, 0, features, count * Connect4Search.FEATURES,
+                    other.count * Connect4Search.FEATURES);
+            count += other.count;
+            return this;
+        }
+    }
+
+    /**
+     * Weights and progress of a tuning run.
+     */
+    public static final class Result {
+        final double[] weights = new double[Connect4Search.FEATURES];
+        int iterations;
+        double metric;
+        double scale; // Texel's logistic scale, 0 for SPSA
+        long positions;
+        long nanosPerIteration;
+
+        /**
+         * Gets the tuned weights, rounded for Connect4Search.setWeights.
+         *
+         * @return One weight per feature.
+         */
+        public int[] getWeights() {
+            int[] rounded = new int[weights.length];
+            for (int i = 0; i < weights.length; i++) {
+                rounded[i] = (int) Math.round(weights[i]);
+            }
+            return rounded;
+        }
+
+        /**
+         * Gets the number of iterations run so far, counting those of earlier runs.
+         *
+         * @return The iteration count.
+         */
+        public int getIterations() {
+            return iterations;
+        }
+
+        /**
+         * Gets the log loss after the last Texel iteration, or the score of the plus
+         * weights in the last SPSA iteration, between -1 and 1.
+         *
+         * @return The loss or score.
+         */
+        public double getMetric() {
+            return metric;
+        }
+
+        /**
+         * Gets the number of positions Texel fitted the weights to.
+         *
+         * @return The position count, 0 for SPSA.
+         */
+        public long getPositions() {
+            return positions;
+        }
+
+        /**
+         * Gets the average time of an iteration of this run.
+         *
+         * @return Milliseconds per iteration, 0 if no iteration ran.
+         */
+        public double getMillisPerIteration() {
+            return nanosPerIteration / 1e6;
+        }
+    }
+
+    /**
+     * Main method to run the job.
+     * @param args texel with the archive, checkpoint, then optional iterations, first ply and positions,
+     *             or spsa with the checkpoint, then optional iterations, games per iteration and nodes.
+     */
+    public static void main(String[] args) throws IOException {
+        boolean texel = args.length >= 3 && args[0].equals("texel");
+        if (!texel && !(args.length >= 2 && args[0].equals("spsa"))) {
+            System.out.println("Usage: EvalTuner texel <archive> <checkpoint> [iterations] [first ply] [positions]");
+            System.out.println("       EvalTuner spsa <checkpoint> [iterations] [games] [nodes]");
+            return;
+        }
+        Result result;
+        if (texel) {
+            int iterations = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+            int minPly = args.length > 4 ? Integer.parseInt(args[4]) : 8;
+            int positions = args.length > 5 ? Integer.parseInt(args[5]) : 20_000_000;
+            result = new EvalTuner(Paths.get(args[2])).texel(Paths.get(args[1]), minPly, positions, iterations,
+                    Runtime.getRuntime().availableProcessors() * 4);
+            System.out.printf("Fitted %d positions, loss %.6f%n", result.getPositions(), result.getMetric());
+        } else {
+            int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+            int games = args.length > 3 ? Integer.parseInt(args[3]) : 256;
+            long nodes = args.length > 4 ? Long.parseLong(args[4]) : 20_000;
+            result = new EvalTuner(Paths.get(args[1])).spsa(iterations, games, nodes, System.nanoTime());
+            System.out.printf("Last score of the plus weights %.3f%n", result.getMetric());
+        }
+        System.out.printf("Iterations %d, %.0f ms each, weights %s%n", result.getIterations(),
+                result.getMillisPerIteration(), Arrays.toString(result.getWeights()));
+    }
+}
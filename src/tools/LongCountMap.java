@@ -0,0 +1,162 @@
+/**
+ * LongCountMap class counts occurrences of long keys.
+ * It is an open addressing hash table over two primitive arrays,
+ * so counting millions of positions never boxes a key or a count.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package tools;
+
+import java.util.Arrays;
+
+
+/**
+ * The LongCountMap class maps long keys to long counts with linear probing.
+ * Key 0 is kept in its own field since 0 marks an empty slot.
+ */
+class LongCountMap {
+    private long[] keys;
+    private long[] counts;
+    private int size;
+    private boolean hasZero;
+    private long zeroCount;
+
+    /**
+     * Constructs a map with room for about the given number of keys before it grows.
+     *
+     * @param expected The expected number of keys.
+     */
+    LongCountMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+        keys = new long[capacity];
+        counts = new long[capacity];
+    }
+
+    /**
+     * Adds to the count of a key.
+     *
+     * @param key   The key.
+     * @param delta The amount to add.
+     */
+    void add(long key, long delta) {
+        if (key == 0) {
+            hasZero = true;
+            zeroCount += delta;
+            return;
+        }
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (keys[i] != 0) {
+            if (keys[i] == key) {
+                counts[i] += delta;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        counts[i] = delta;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+    }
+
+    /**
+     * Gets the count of a key.
+     *
+     * @param key The key.
+     * @return The count, 0 if the key was never added.
+     */
+    long get(long key) {
+        if (key == 0) {
+            return zeroCount;
+        }
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return counts[i];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Adds every count of another map to this one.
+     *
+     * @param other The map to add.
+     */
+    void addAll(LongCountMap other) {
+        if (other.hasZero) {
+            add(0, other.zeroCount);
+        }
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.keys[i] != 0) {
+                add(other.keys[i], other.counts[i]);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of distinct keys.
+     *
+     * @return The key count.
+     */
+    int size() {
+        return size + (hasZero ? 1 : 0);
+    }
+
+    /**
+     * Gets the keys with the highest counts.
+     *
+     * @param top The number of keys wanted.
+     * @return Up to top keys, highest count first.
+     */
+    long[] topKeys(int top) {
+        if (top <= 0) {
+            return new long[0];
+        }
+        long[] best = new long[top];
+        long[] bestCounts = new long[top];
+        int found = 0;
+        for (int i = -1; i < keys.length; i++) {
+            long key = i < 0 ? 0 : keys[i];
+            long count = i < 0 ? zeroCount : counts[i];
+            if ((i < 0 && !hasZero) || (i >= 0 && key == 0)
+                    || (found == top && count <= bestCounts[top - 1])) {
+                continue;
+            }
+            int pos = found < top ? found++ : top - 1;
+            while (pos > 0 && bestCounts[pos - 1] < count) {
+                best[pos] = best[pos - 1];
+                bestCounts[pos] = bestCounts[pos - 1];
+                pos--;
+            }
+            best[pos] = key;
+            bestCounts[pos] = count;
+        }
+        return Arrays.copyOf(best, found);
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldCounts = counts;
+        keys = new long[oldKeys.length * 2];
+        counts = new long[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != 0) {
+                int i = slot(oldKeys[j], mask);
+                while (keys[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                counts[i] = oldCounts[j];
+            }
+        }
+    }
+
+    private static int slot(long key, int mask) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+}
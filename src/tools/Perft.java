@@ -0,0 +1,287 @@
+/**
+ * Perft class counts every line of play to a fixed depth.
+ * It walks the game tree with the reference Connect4Logic rules and with
+ * the BitBoard representation, so the two can be checked against each other
+ * and their raw move generation speed compared.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package tools;
+
+import core.BitBoard;
+import core.Connect4Logic;
+
+import java.util.stream.IntStream;
+
+
+/**
+ * The Perft class counts the move sequences of exactly depth plies from a position.
+ * A line stops when a move wins: the winning move is still counted at its own depth,
+ * but the line is not extended past it.
+ * Every count can be run on one thread or in parallel, split at the root moves.
+ */
+public final class Perft {
+
+    private Perft() {
+    }
+
+    /**
+     * Counts lines with the reference rules of Connect4Logic.
+     *
+     * @param logic    The position to start from, restored when the count is done.
+     * @param depth    The number of plies to play.
+     * @param distinct Receives the key of every position at the last ply, may be null.
+     * @return The number of lines.
+     */
+    public static long reference(Connect4Logic logic, int depth, LongCountMap distinct) {
+        if (depth == 0) {
+            if (distinct != null) {
+                distinct.add(referenceKey(logic, logic.getSelectedPlayer()), 1);
+            }
+            return 1;
+        }
+        long nodes = 0;
+        for (int col = 1; col <= logic.COL; col++) {
+            if (!logic.playerMove(col)) {
+                continue;
+            }
+            if (logic.winChecker()) {
+                if (depth == 1) {
+                    nodes++;
+                    if (distinct != null) {
+                        char next = logic.getSelectedPlayer() == 'X' ? 'O' : 'X';
+                        distinct.add(referenceKey(logic, next), 1);
+                    }
+                }
+            } else {
+                logic.playerSwitcher();
+                nodes += reference(logic, depth - 1, distinct);
+                logic.playerSwitcher();
+            }
+            logic.undoMove(col);
+        }
+        return nodes;
+    }
+
+    /**
+     * Counts lines with bitboards.
+     *
+     * @param current  The stones of the side to move.
+     * @param mask     All stones on the board.
+     * @param depth    The number of plies to play.
+     * @param distinct Receives the key of every position at the last ply, may be null.
+     * @return The number of lines.
+     */
+    public static long bitboard(long current, long mask, int depth, LongCountMap distinct) {
+        if (depth == 0) {
+            if (distinct != null) {
+                distinct.add(BitBoard.key(current, mask), 1);
+            }
+            return 1;
+        }
+        long nodes = 0;
+        for (int col = 0; col < BitBoard.WIDTH; col++) {
+            long bit = BitBoard.moveBit(mask, col);
+            if (bit == 0) {
+                continue;
+            }
+            long next = mask | bit;
+            if (BitBoard.isWin(current | bit)) {
+                if (depth == 1) {
+                    nodes++;
+                    if (distinct != null) {
+                        distinct.add(BitBoard.key((current | bit) ^ next, next), 1);
+                    }
+                }
+            } else if (depth == 1 && distinct == null) {
+                nodes++; // Bulk count the last ply
+            } else {
+                nodes += bitboard((current | bit) ^ next, next, depth - 1, distinct);
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * Counts lines with the reference rules, one task per root move.
+     *
+     * @param logic    The position to start from, left unchanged.
+     * @param depth    The number of plies to play, at least 1.
+     * @param distinct Receives the key of every position at the last ply, may be null.
+     * @return The number of lines.
+     */
+    public static long referenceParallel(Connect4Logic logic, int depth, LongCountMap distinct) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Parallel perft needs a depth of at least 1");
+        }
+        return IntStream.rangeClosed(1, logic.COL).parallel().mapToObj(col -> {
+            Connect4Logic copy = copyOf(logic);
+            LongCountMap seen = distinct == null ? null : new LongCountMap(1 << 10);
+            long nodes = 0;
+            if (copy.playerMove(col)) {
+                if (copy.winChecker()) {
+                    nodes = depth == 1 ? 1 : 0;
+                    if (seen != null && depth == 1) {
+                        seen.add(referenceKey(copy, copy.getSelectedPlayer() == 'X' ? 'O' : 'X'), 1);
+                    }
+                } else {
+                    copy.playerSwitcher();
+                    nodes = reference(copy, depth - 1, seen);
+                }
+            }
+            return new Partial(nodes, seen);
+        }).reduce(Partial::merge).map(p -> p.finish(distinct)).orElse(0L);
+    }
+
+    /**
+     * Counts lines with bitboards, one task per root move.
+     *
+     * @param current  The stones of the side to move.
+     * @param mask     All stones on the board.
+     * @param depth    The number of plies to play, at least 1.
+     * @param distinct Receives the key of every position at the last ply, may be null.
+     * @return The number of lines.
+     */
+    public static long bitboardParallel(long current, long mask, int depth, LongCountMap distinct) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Parallel perft needs a depth of at least 1");
+        }
+        return IntStream.range(0, BitBoard.WIDTH).parallel().mapToObj(col -> {
+            LongCountMap seen = distinct == null ? null : new LongCountMap(1 << 10);
+            long nodes = 0;
+            long bit = BitBoard.moveBit(mask, col);
+            if (bit != 0) {
+                long next = mask | bit;
+                if (BitBoard.isWin(current | bit)) {
+                    nodes = depth == 1 ? 1 : 0;
+                    if (seen != null && depth == 1) {
+                        seen.add(BitBoard.key((current | bit) ^ next, next), 1);
+                    }
+                } else {
+                    nodes = bitboard((current | bit) ^ next, next, depth - 1, seen);
+                }
+            }
+            return new Partial(nodes, seen);
+        }).reduce(Partial::merge).map(p -> p.finish(distinct)).orElse(0L);
+    }
+
+    private static Connect4Logic copyOf(Connect4Logic logic) {
+        Connect4Logic copy = new Connect4Logic();
+        char[][] board = logic.getBoard();
+        char[][] cells = new char[board.length][];
+        for (int i = 0; i < board.length; i++) {
+            cells[i] = board[i].clone();
+        }
+        copy.setBoard(cells);
+        if (copy.getSelectedPlayer() != logic.getSelectedPlayer()) {
+            copy.playerSwitcher();
+        }
+        return copy;
+    }
+
+    private static long referenceKey(Connect4Logic logic, char toMove) {
+        char[][] board = logic.getBoard();
+        long current = BitBoard.fromBoard(board, toMove);
+        return BitBoard.key(current, current | BitBoard.fromBoard(board, toMove == 'X' ? 'O' : 'X'));
+    }
+
+    /**
+     * Result of one root move, merged up the parallel stream.
+     */
+    private static final class Partial {
+        private long nodes;
+        private final LongCountMap seen;
+
+        Partial(long nodes, LongCountMap seen) {
+            this.nodes = nodes;
+            this.seen = seen;
+        }
+
+        Partial merge(Partial other) {
+            nodes += other.nodes;
+            if (seen != null) {
+                seen.addAll(other.seen);
+            }
+            return this;
+        }
+
+        long finish(LongCountMap distinct) {
+            if (distinct != null) {
+                distinct.addAll(seen);
+            }
+            return nodes;
+        }
+    }
+
+    /**
+     * Main method to run perft from a position.
+     * @param args The depth, then optional start moves (columns 1-7) and -distinct.
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: Perft <depth> [start moves] [-distinct]");
+            return;
+        }
+        int maxDepth = Integer.parseInt(args[0]);
+        String moves = "";
+        boolean countDistinct = false;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("-distinct")) {
+                countDistinct = true;
+            } else {
+                moves = args[i];
+            }
+        }
+
+        Connect4Logic logic = new Connect4Logic();
+        long current = 0;
+        long mask = 0;
+        for (int i = 0; i < moves.length(); i++) {
+            int col = moves.charAt(i) - '0';
+            if (!logic.playerMove(col)) {
+                System.out.println("Illegal move " + (i + 1) + " in " + moves);
+                return;
+            }
+            if (logic.winChecker()) {
+                System.out.println(moves + " is already won at move " + (i + 1));
+                return;
+            }
+            logic.playerSwitcher();
+            long bit = BitBoard.moveBit(mask, col - 1);
+            mask |= bit;
+            current = (current | bit) ^ mask;
+        }
+
+        System.out.printf("%5s %14s %12s %14s %12s %14s %12s%n", "depth", "reference", "ref n/s",
+                "bitboard", "bits n/s", "parallel", "par n/s");
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            LongCountMap distinct = countDistinct ? new LongCountMap(1 << 10) : null;
+            long start = System.nanoTime();
+            long ref = reference(logic, depth, distinct);
+            long refNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            long bits = bitboard(current, mask, depth, null);
+            long bitsNanos = System.nanoTime() - start;
+
+            LongCountMap parallelDistinct = countDistinct ? new LongCountMap(1 << 10) : null;
+            start = System.nanoTime();
+            long par = bitboardParallel(current, mask, depth, parallelDistinct);
+            long parNanos = System.nanoTime() - start;
+
+            System.out.printf("%5d %14d %12.0f %14d %12.0f %14d %12.0f%s%n", depth, ref, perSecond(ref, refNanos),
+                    bits, perSecond(bits, bitsNanos), par, perSecond(par, parNanos),
+                    ref == bits && bits == par ? "" : "  MISMATCH");
+            if (countDistinct) {
+                System.out.printf("      distinct positions: reference %d, bitboard %d%s%n", distinct.size(),
+                        parallelDistinct.size(), distinct.size() == parallelDistinct.size() ? "" : "  MISMATCH");
+            }
+        }
+    }
+
+    private static double perSecond(long nodes, long nanos) {
+        return nanos == 0 ? 0 : nodes * 1e9 / nanos;
+    }
+}
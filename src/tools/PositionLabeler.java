@@ -0,0 +1,250 @@
+/**
+ * PositionLabeler class is a batch job that labels the positions of a game archive
+ * the regular bot cannot settle with their solved result.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package tools;
+
+import core.BitBoard;
+import core.Connect4Search;
+import core.GameRecord;
+import core.GameRecordReader;
+import core.ProofNumberSolver;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+
+/**
+ * The PositionLabeler class takes the position at a chosen ply of every game, once per
+ * distinct position in each range. A position is hard when the alpha-beta search finds
+ * no forced result within its node budget. Hard positions go to the proof number solver,
+ * first for a win of the side to move and, if that is disproven, for a win of the other
+ * side, which tells a win, a loss and a draw apart. Each range runs on its own core with
+ * its own solver, sharing the memory limit, and the labels are written one per line:
+ * <pre>
+ * moves,label,nodes,proof size
+ * 4453,win,182340,2211
+ * </pre>
+ * where the moves are columns starting at 1 and the label is for the side to move:
+ * win, loss, draw, or unknown when the solver's node limit ran out.
+ */
+public class PositionLabeler {
+    private static final int SETTLED = Connect4Search.WIN_SCORE - 64; // Scores beyond this are forced results
+
+    private final int ply;
+    private final long botNodes;
+    private final int megabytes;
+    private final long solverNodes;
+
+    /**
+     * Constructs the job.
+     *
+     * @param ply         The ply whose positions are labeled.
+     * @param botNodes    The node budget within which the bot must settle a position for it to be easy.
+     * @param megabytes   The memory of all solver tables together.
+     * @param solverNodes The node limit of each solve.
+     */
+    public PositionLabeler(int ply, long botNodes, int megabytes, long solverNodes) {
+        if (ply < 0 || ply >= BitBoard.CELLS) {
+            throw new IllegalArgumentException("Ply must be between 0 and " + (BitBoard.CELLS - 1));
+        }
+        if (botNodes < 7 || megabytes < 1 || solverNodes < 1) {
+            throw new IllegalArgumentException("Budgets must be positive, the bot's at least 7 nodes");
+        }
+        this.ply = ply;
+        this.botNodes = botNodes;
+        this.megabytes = megabytes;
+        this.solverNodes = solverNodes;
+    }
+
+    /**
+     * Labels the hard positions of an archive in parallel.
+     *
+     * @param archive The archive file.
+     * @param output  The file the labels are written to.
+     * @param parts   The number of ranges to split the archive into, each with its own solver.
+     * @return The counts of the run.
+     * @throws IOException If the archive cannot be read or the labels cannot be written.
+     */
+    public Result run(Path archive, Path output, int parts) throws IOException {
+        if (parts < 1 || megabytes / parts < 1) {
+            throw new IllegalArgumentException("Each part needs at least 1 MB of solver memory");
+        }
+        long[] points = GameRecordReader.splitPoints(archive, parts);
+        Result result;
+        try {
+            result = IntStream.range(0, parts).parallel()
+                    .mapToObj(i -> scan(archive, points[i], points[i + 1], megabytes / parts))
+                    .reduce(Result::merge)
+                    .orElseGet(Result::new);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        try (BufferedWriter out = Files.newBufferedWriter(output, StandardCharsets.US_ASCII)) {
+            out.write("moves,label,nodes,proof size");
+            out.newLine();
+            for (String line : result.lines) {
+                out.write(line);
+                out.newLine();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Labels the hard positions of one range of the archive.
+     */
+    private Result scan(Path archive, long start, long end, int solverMegabytes) {
+        Result result = new Result();
+        if (start >= end) {
+            return result;
+        }
+        Connect4Search search = new Connect4Search();
+        ProofNumberSolver solver = new ProofNumberSolver(solverMegabytes);
+        LongCountMap seen = new LongCountMap(1 << 10);
+        byte[] moves = new byte[GameRecord.MAX_MOVES];
+        try (GameRecordReader reader = new GameRecordReader(archive, start, end)) {
+            while (reader.next()) {
+                int count = reader.getMoves(moves);
+                if (count <= ply) {
+                    continue;
+                }
+                long current = 0;
+                long mask = 0;
+                for (int i = 0; i < ply; i++) {
+                    long bit = BitBoard.moveBit(mask, moves[i]);
+                    mask |= bit;
+                    current = (current | bit) ^ mask; // Hand the turn to the other player
+                }
+                long key = BitBoard.key(current, mask);
+                if (seen.get(key) > 0) {
+                    continue;
+                }
+                seen.add(key, 1);
+                result.positions++;
+                search.searchNodes(current, mask, BitBoard.CELLS, botNodes);
+                if (Math.abs(search.getBestScore()) > SETTLED) {
+                    continue;
+                }
+                result.hard++;
+                ProofNumberSolver.Result win = solver.solve(current, mask, true, solverNodes);
+                ProofNumberSolver.Result other = win;
+                String label = "win";
+                if (win.getOutcome() == ProofNumberSolver.DISPROVEN) {
+                    other = solver.solve(current, mask, false, solverNodes);
+                    label = other.getOutcome() == ProofNumberSolver.PROVEN ? "loss"
+                            : other.getOutcome() == ProofNumberSolver.DISPROVEN ? "draw" : "unknown";
+                } else if (win.getOutcome() == ProofNumberSolver.UNKNOWN) {
+                    label = "unknown";
+                }
+                if (label.equals("unknown")) {
+                    result.unknown++;
+                }
+                long nodes = win.getNodes() + (other == win ? 0 : other.getNodes());
+                result.nodes += nodes;
+                result.nanos += win.getNanos() + (other == win ? 0 : other.getNanos());
+                StringBuilder line = new StringBuilder(ply + 32);
+                for (int i = 0; i < ply; i++) {
+                    line.append((char) ('1' + moves[i]));
+                }
+                line.append(',').append(label).append(',').append(nodes).append(',').append(other.getProofSize());
+                result.lines.add(line.toString());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    /**
+     * Counts of one range, or of several ranges after merging.
+     */
+    public static final class Result {
+        long positions;
+        long hard;
+        long unknown;
+        long nodes;
+        long nanos;
+        final List<String> lines = new ArrayList<>();
+
+        Result merge(Result other) {
+            positions += other.positions;
+            hard += other.hard;
+            unknown += other.unknown;
+            nodes += other.nodes;
+            nanos += other.nanos;
+            lines.addAll(other.lines);
+            return this;
+        }
+
+        /**
+         * Gets the number of distinct positions looked at, counted once per range.
+         *
+         * @return The position count.
+         */
+        public long getPositions() {
+            return positions;
+        }
+
+        /**
+         * Gets the number of positions the bot could not settle, each written with a label.
+         *
+         * @return The hard position count.
+         */
+        public long getHard() {
+            return hard;
+        }
+
+        /**
+         * Gets the number of hard positions the solver could not settle either.
+         *
+         * @return The unknown count.
+         */
+        public long getUnknown() {
+            return unknown;
+        }
+
+        /**
+         * Gets the speed of the solver over all ranges.
+         *
+         * @return Nodes expanded per second of solver time.
+         */
+        public double getNodesPerSecond() {
+            return nanos == 0 ? 0 : nodes * 1e9 / nanos;
+        }
+    }
+
+    /**
+     * Main method to run the job.
+     * @param args The archive, the output file, then optional ply, bot nodes, megabytes and solver nodes.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: PositionLabeler <archive> <output> [ply] [bot nodes] [megabytes] [solver nodes]");
+            return;
+        }
+        int ply = args.length > 2 ? Integer.parseInt(args[2]) : 12;
+        long botNodes = args.length > 3 ? Long.parseLong(args[3]) : 1_000_000;
+        int megabytes = args.length > 4 ? Integer.parseInt(args[4]) : 1024;
+        long solverNodes = args.length > 5 ? Long.parseLong(args[5]) : 100_000_000;
+        int parts = Runtime.getRuntime().availableProcessors();
+        PositionLabeler labeler = new PositionLabeler(ply, botNodes, megabytes, solverNodes);
+        long start = System.nanoTime();
+        Result result = labeler.run(Paths.get(args[0]), Paths.get(args[1]), parts);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("Positions %d, hard %d, unknown %d, solver %.0f nodes/s, %d ms%n", result.getPositions(),
+                result.getHard(), result.getUnknown(), result.getNodesPerSecond(), millis);
+    }
+}
@@ -0,0 +1,366 @@
+/**
+ * RegressionGate class compares a benchmark run with the stored baseline
+ * and fails when a hot path got slower by more than the noise between runs.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package tools;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * The RegressionGate class runs a one sided Mann-Whitney U test per benchmark on the
+ * measurement iterations of the baseline and the new run. The test makes no assumption
+ * about the shape of the timing distribution, so one slow iteration from a GC pause or
+ * a noisy neighbour does not decide the result the way it would move a mean.
+ * A benchmark is a regression when the test finds it slower at the chosen significance
+ * and its median moved by more than the minimum change, so a real but tiny shift on a
+ * very quiet machine does not fail the build either.
+ */
+public class RegressionGate {
+    public static final double DEFAULT_ALPHA = 0.01;
+    public static final double DEFAULT_MIN_CHANGE = 0.02; // Median slowdown that matters, as a fraction
+    private static final int MIN_SAMPLES = 4; // Per side; with fewer the test can never reach 1%
+
+    private final double alpha;
+    private final double minChange;
+
+    /**
+     * Constructs a gate.
+     *
+     * @param alpha     The significance level of the test, such as 0.01.
+     * @param minChange The smallest median slowdown reported, as a fraction such as 0.02.
+     */
+    public RegressionGate(double alpha, double minChange) {
+        if (!(alpha > 0 && alpha < 1) || !(minChange >= 0)) {
+            throw new IllegalArgumentException("Alpha must be between 0 and 1 and the minimum change not negative");
+        }
+        this.alpha = alpha;
+        this.minChange = minChange;
+    }
+
+    /**
+     * Compares every benchmark of a run with the baseline.
+     *
+     * @param baseline The stored baseline.
+     * @param current  The new run.
+     * @return The report.
+     */
+    public Report compare(BenchmarkBaseline baseline, BenchmarkBaseline current) {
+        List<Comparison> comparisons = new ArrayList<>();
+        for (BenchmarkBaseline.Entry entry : current.getEntries()) {
+            BenchmarkBaseline.Entry before = baseline.find(entry.getName(), entry.getParams());
+            comparisons.add(compare(entry.getName(), entry.getParams(), before, entry));
+        }
+        for (BenchmarkBaseline.Entry before : baseline.getEntries()) {
+            if (current.find(before.getName(), before.getParams()) == null) {
+                comparisons.add(compare(before.getName(), before.getParams(), before, null));
+            }
+        }
+        return new Report(baseline.getLabel(), current.getLabel(), comparisons);
+    }
+
+    private Comparison compare(String name, String params, BenchmarkBaseline.Entry before,
+                               BenchmarkBaseline.Entry after) {
+        if (after == null) {
+            return new Comparison(name, params, Verdict.MISSING, median(before.getSamples()), Double.NaN, Double.NaN,
+                    Double.NaN, before.getUnit());
+        }
+        double afterMedian = median(after.getSamples());
+        if (before == null) {
+            return new Comparison(name, params, Verdict.NEW, Double.NaN, afterMedian, Double.NaN, Double.NaN,
+                    after.getUnit());
+        }
+        double beforeMedian = median(before.getSamples());
+        boolean higherIsBetter = after.higherIsBetter();
+        // Positive when the new run is slower, whichever way the unit points
+        double change = higherIsBetter ? beforeMedian / afterMedian - 1 : afterMedian / beforeMedian - 1;
+        if (!before.getMode().equals(after.getMode()) || !before.getUnit().equals(after.getUnit())) {
+            return new Comparison(name, params, Verdict.CHANGED_UNIT, beforeMedian, afterMedian, Double.NaN,
+                    Double.NaN, after.getUnit());
+        }
+        if (before.getSamples().length < MIN_SAMPLES || after.getSamples().length < MIN_SAMPLES) {
+            return new Comparison(name, params, Verdict.TOO_FEW_SAMPLES, beforeMedian, afterMedian, change,
+                    Double.NaN, after.getUnit());
+        }
+        double slower = pValueSlower(before.getSamples(), after.getSamples(), higherIsBetter);
+        double faster = pValueSlower(after.getSamples(), before.getSamples(), higherIsBetter);
+        Verdict verdict = Verdict.SAME;
+        double p = Math.min(slower, faster);
+        if (slower < alpha && change > minChange) {
+            verdict = Verdict.SLOWER;
+        } else if (faster < alpha && -change > minChange) {
+            verdict = Verdict.FASTER;
+        }
+        return new Comparison(name, params, verdict, beforeMedian, afterMedian, change, p, after.getUnit());
+    }
+
+    /**
+     * Tests whether the new samples are slower than the baseline samples.
+     * Uses the normal approximation of the U statistic with a tie and continuity correction.
+     *
+     * @param baseline       The baseline samples.
+     * @param current        The new samples.
+     * @param higherIsBetter True if the samples are throughput, false if they are time per operation.
+     * @return The one sided p-value; small means the new run is slower.
+     */
+    public static double pValueSlower(double[] baseline, double[] current, boolean higherIsBetter) {
+        int n1 = baseline.length;
+        int n2 = current.length;
+        int n = n1 + n2;
+        if (n1 == 0 || n2 == 0) {
+            throw new IllegalArgumentException("Both runs need samples");
+        }
+        // Costs grow when the code gets slower
+        double[] costs = new double[n];
+        for (int i = 0; i < n1; i++) {
+            costs[i] = higherIsBetter ? -baseline[i] : baseline[i];
+        }
+        for (int i = 0; i < n2; i++) {
+            costs[n1 + i] = higherIsBetter ? -current[i] : current[i];
+        }
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(costs[a], costs[b]));
+        double currentRanks = 0;
+        double ties = 0;
+        for (int i = 0; i < n; ) {
+            int j = i;
+            while (j + 1 < n && costs[order[j + 1]] == costs[order[i]]) {
+                j++;
+            }
+            double rank = (i + j) / 2.0 + 1; // Tied samples share the mean of their ranks
+            for (int k = i; k <= j; k++) {
+                if (order[k] >= n1) {
+                    currentRanks += rank;
+                }
+            }
+            double t = j - i + 1;
+            ties += t * t * t - t;
+            i = j + 1;
+        }
+        double u = currentRanks - n2 * (n2 + 1) / 2.0; // Pairs where the new sample costs more
+        double mean = n1 * (double) n2 / 2;
+        double variance = n1 * (double) n2 / 12 * ((n + 1) - ties / (n * (double) (n - 1)));
+        if (variance <= 0) {
+            return 1; // Every sample is the same
+        }
+        double z = (u - mean - 0.5) / Math.sqrt(variance);
+        return 0.5 * erfc(z / Math.sqrt(2));
+    }
+
+    /**
+     * Gets the complementary error function, accurate to about 1e-7.
+     */
+    private static double erfc(double x) {
+        double t = 1 / (1 + 0.5 * Math.abs(x));
+        double y = t * Math.exp(-x * x - 1.26551223 + t * (1.00002368 + t * (0.37409196 + t * (0.09678418
+                + t * (-0.18628806 + t * (0.27886807 + t * (-1.13520398 + t * (1.48851587
+                + t * (-0.82215223 + t * 0.17087277)))))))));
+        return x >= 0 ? y : 2 - y;
+    }
+
+    private static double median(double[] samples) {
+        if (samples.length == 0) {
+            return Double.NaN;
+        }
+        double[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        int mid = sorted.length / 2;
+        return (sorted.length & 1) == 1 ? sorted[mid] : (sorted[mid - 1] + sorted[mid]) / 2;
+    }
+
+    /**
+     * The outcome of comparing one benchmark.
+     */
+    public enum Verdict {
+        SAME, SLOWER, FASTER, NEW, MISSING, CHANGED_UNIT, TOO_FEW_SAMPLES
+    }
+
+    /**
+     * The comparison of one benchmark with one set of parameters.
+     */
+    public static final class Comparison {
+        private final String name;
+        private final String params;
+        private final Verdict verdict;
+        private final double baselineMedian;
+        private final double currentMedian;
+        private final double change;
+        private final double pValue;
+        private final String unit;
+
+        Comparison(String name, String params, Verdict verdict, double baselineMedian, double currentMedian,
+                   double change, double pValue, String unit) {
+            this.name = name;
+            this.params = params;
+            this.verdict = verdict;
+            this.baselineMedian = baselineMedian;
+            this.currentMedian = currentMedian;
+            this.change = change;
+            this.pValue = pValue;
+            this.unit = unit;
+        }
+
+        /**
+         * Gets the benchmark name and parameters.
+         *
+         * @return The name, followed by the parameters in brackets if there are any.
+         */
+        public String getBenchmark() {
+            return params.isEmpty() ? name : name + " [" + params + "]";
+        }
+
+        /**
+         * Gets the outcome.
+         *
+         * @return The verdict.
+         */
+        public Verdict getVerdict() {
+            return verdict;
+        }
+
+        /**
+         * Gets how much slower the new median is.
+         *
+         * @return The slowdown as a fraction, negative if faster, NaN if there is nothing to compare.
+         */
+        public double getChange() {
+            return change;
+        }
+
+        /**
+         * Gets the smaller of the two one sided p-values.
+         *
+         * @return The p-value, NaN if no test was run.
+         */
+        public double getPValue() {
+            return pValue;
+        }
+    }
+
+    /**
+     * The comparisons of a whole run, in the order of the new run.
+     */
+    public static final class Report {
+        private final String baselineLabel;
+        private final String currentLabel;
+        private final List<Comparison> comparisons;
+
+        Report(String baselineLabel, String currentLabel, List<Comparison> comparisons) {
+            this.baselineLabel = baselineLabel;
+            this.currentLabel = currentLabel;
+            this.comparisons = comparisons;
+        }
+
+        /**
+         * Gets every comparison.
+         *
+         * @return An unmodifiable list of comparisons.
+         */
+        public List<Comparison> getComparisons() {
+            return Collections.unmodifiableList(comparisons);
+        }
+
+        /**
+         * Gets the number of benchmarks that got slower.
+         *
+         * @return The regression count.
+         */
+        public int getRegressions() {
+            int regressions = 0;
+            for (Comparison comparison : comparisons) {
+                if (comparison.verdict == Verdict.SLOWER) {
+                    regressions++;
+                }
+            }
+            return regressions;
+        }
+
+        /**
+         * Formats the report as a table, slowest changes first.
+         *
+         * @return The report text.
+         */
+        @Override
+        public String toString() {
+            List<Comparison> sorted = new ArrayList<>(comparisons);
+            sorted.sort((a, b) -> Double.compare(Double.isNaN(b.change) ? -1 : b.change,
+                    Double.isNaN(a.change) ? -1 : a.change));
+            int width = "Benchmark".length();
+            for (Comparison comparison : sorted) {
+                width = Math.max(width, comparison.getBenchmark().length());
+            }
+            StringBuilder out = new StringBuilder();
+            out.append("Baseline ").append(baselineLabel).append(" against ").append(currentLabel).append('\n');
+            out.append(String.format("%-" + width + "s %12s %12s %-8s %8s %8s  %s%n",
+                    "Benchmark", "Baseline", "Current", "Unit", "Slower", "p", "Verdict"));
+            for (Comparison c : sorted) {
+                out.append(String.format("%-" + width + "s %12s %12s %-8s %8s %8s  %s%n", c.getBenchmark(),
+                        number(c.baselineMedian, "%.3f"), number(c.currentMedian, "%.3f"), c.unit,
+                        number(c.change * 100, "%+.1f%%"), number(c.pValue, "%.4f"), c.verdict));
+            }
+            int regressions = getRegressions();
+            out.append(regressions == 0 ? "No regressions" : regressions + " benchmark(s) slower than the baseline");
+            return out.toString();
+        }
+
+        private static String number(double value, String format) {
+            return Double.isNaN(value) ? "-" : String.format(format, value);
+        }
+    }
+
+    /**
+     * Main method to record a baseline or check a run against one.
+     * Exits with 1 when a benchmark got slower and 2 when the files or arguments cannot be used.
+     * @param args save, the JMH result file, the baseline file and an optional label;
+     *             or compare, the JMH result file, the baseline file, then optional alpha and minimum change.
+     */
+    public static void main(String[] args) {
+        if (args.length < 3 || !args[0].equals("save") && !args[0].equals("compare")) {
+            System.out.println("Usage: RegressionGate save <jmh results.json> <baseline.json> [label]");
+            System.out.println("       RegressionGate compare <jmh results.json> <baseline.json> [alpha] [min change]");
+            return;
+        }
+        Path results = Paths.get(args[1]);
+        Path baselinePath = Paths.get(args[2]);
+        try {
+            if (args[0].equals("save")) {
+                BenchmarkBaseline run = BenchmarkBaseline.fromJmhResults(results, args.length > 3 ? args[3] : "unlabelled");
+                run.save(baselinePath);
+                System.out.println("Saved " + run.getEntries().size() + " benchmarks to " + baselinePath);
+                return;
+            }
+            if (!Files.exists(baselinePath)) {
+                System.err.println("No baseline at " + baselinePath + ", record one with: RegressionGate save");
+                System.exit(2);
+            }
+            double alpha = args.length > 3 ? Double.parseDouble(args[3]) : DEFAULT_ALPHA;
+            double minChange = args.length > 4 ? Double.parseDouble(args[4]) : DEFAULT_MIN_CHANGE;
+            Report report = new RegressionGate(alpha, minChange)
+                    .compare(BenchmarkBaseline.load(baselinePath), BenchmarkBaseline.fromJmhResults(results, "current"));
+            System.out.println(report);
+            if (report.getRegressions() > 0) {
+                System.exit(1);
+            }
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        } catch (IllegalArgumentException e) { // Includes NumberFormatException from alpha or min change
+            System.err.println("Bad alpha or minimum change: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+}
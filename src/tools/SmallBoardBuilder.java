@@ -0,0 +1,45 @@
+/**
+ * SmallBoardBuilder class is a batch job that solves every position of a small
+ * Connect 4 board and writes them to a SmallBoardDatabase file.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package tools;
+
+import core.ConnectKBoard;
+import core.SmallBoardDatabase;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+
+/**
+ * The SmallBoardBuilder class runs the retrograde build on all cores and reports the
+ * size of the database, the time taken and the value of the empty board.
+ * Put the file in the working directory of the text console for its bot to use it.
+ */
+public class SmallBoardBuilder {
+
+    /**
+     * Main method to run the job.
+     * @param args The number of columns and rows, then an optional file name.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: SmallBoardBuilder <columns> <rows> [file]");
+            return;
+        }
+        int width = Integer.parseInt(args[0]);
+        int height = Integer.parseInt(args[1]);
+        Path path = Paths.get(args.length > 2 ? args[2] : SmallBoardDatabase.fileName(width, height));
+        long start = System.nanoTime();
+        SmallBoardDatabase database = SmallBoardDatabase.build(width, height, path);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        int value = database.getValue(new ConnectKBoard(width, height, 4));
+        System.out.printf("Solved %d entries into %s in %d ms; the first player %s%n", database.getEntries(), path,
+                millis, value == SmallBoardDatabase.WIN ? "wins" : value == SmallBoardDatabase.LOSS ? "loses" : "draws");
+    }
+}
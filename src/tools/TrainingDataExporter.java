@@ -0,0 +1,407 @@
+/**
+ * TrainingDataExporter class is a batch job that turns a game archive into
+ * training data: one row per position, stored column by column in fixed width
+ * binary files that can be memory mapped without parsing.
+ *
+ * @author
+ * @version 10.19.2026
+ */
+
+package tools;
+
+import core.BitBoard;
+import core.Connect4Search;
+import core.GameRecord;
+import core.GameRecordReader;
+import core.TranspositionTable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+
+/**
+ * The TrainingDataExporter class replays each range of an archive on its own core.
+ * A row is the position before a move, so every row has a side to move and a move played:
+ * <pre>
+ * column   type   value
+ * x        int64  X stones, bit column * 7 + row as in BitBoard
+ * o        int64  O stones
+ * side     uint8  0 if X is to move, 1 if O is
+ * ply      uint8  moves played before this position
+ * move     uint8  column played from this position, starting at 0
+ * outcome  int8   final result for the side to move: 1 win, 0 draw, -1 loss
+ * score    int32  search score for the side to move, only written when a score depth is set
+ * </pre>
+ * Columns are little endian with no header, so column c of a shard is the file
+ * {@code <shard>.<c>.bin} and row i starts at byte i times the column width.
+ * Each range writes its own shards of at most rowsPerShard rows. The manifest.json
+ * file lists the columns and shards in row order and is written last, so a
+ * directory with a manifest is always complete.
+ * Unfinished games and games with an illegal move are skipped.
+ */
+public class TrainingDataExporter {
+    public static final String MANIFEST = "manifest.json";
+    public static final int FORMAT_VERSION = 1;
+    private static final int BUFFER_ROWS = 1 << 16; // Rows buffered per column before a write
+    private static final int TABLE_BITS = 18; // Transposition table of each scoring search
+
+    private static final String[] NAMES = {"x", "o", "side", "ply", "move", "outcome", "score"};
+    private static final String[] TYPES = {"int64", "int64", "uint8", "uint8", "uint8", "int8", "int32"};
+    private static final int[] WIDTHS = {8, 8, 1, 1, 1, 1, 4};
+    private static final int X = 0;
+    private static final int O = 1;
+    private static final int SIDE = 2;
+    private static final int PLY = 3;
+    private static final int MOVE = 4;
+    private static final int OUTCOME = 5;
+    private static final int SCORE = 6;
+
+    private final int rowsPerShard;
+    private final int scoreDepth;
+
+    /**
+     * Constructs an exporter.
+     *
+     * @param rowsPerShard The most rows in one shard.
+     * @param scoreDepth   The search depth of the score column, or 0 to leave the column out.
+     */
+    public TrainingDataExporter(int rowsPerShard, int scoreDepth) {
+        if (rowsPerShard < 1) {
+            throw new IllegalArgumentException("Rows per shard must be positive");
+        }
+        if (scoreDepth < 0) {
+            throw new IllegalArgumentException("Score depth cannot be negative");
+        }
+        this.rowsPerShard = rowsPerShard;
+        this.scoreDepth = scoreDepth;
+    }
+
+    /**
+     * Exports an archive in parallel.
+     *
+     * @param archive The archive file.
+     * @param output  The directory the shards and manifest are written to, created if needed.
+     * @param parts   The number of ranges to split the archive into.
+     * @return The counts of the export.
+     * @throws IOException If the archive cannot be read or the output written.
+     */
+    public Result run(Path archive, Path output, int parts) throws IOException {
+        Files.createDirectories(output);
+        Files.deleteIfExists(output.resolve(MANIFEST));
+        long[] points = GameRecordReader.splitPoints(archive, parts);
+        Result result;
+        try {
+            result = IntStream.range(0, parts).parallel()
+                    .mapToObj(i -> export(archive, output, i, points[i], points[i + 1]))
+                    .reduce(Result::merge)
+                    .orElseGet(Result::new);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writeManifest(output, result);
+        return result;
+    }
+
+    /**
+     * Replays one range of the archive into its own shards.
+     */
+    private Result export(Path archive, Path output, int part, long start, long end) {
+        Result result = new Result();
+        if (start >= end) {
+            return result;
+        }
+        Connect4Search search = scoreDepth > 0 ? new Connect4Search(new TranspositionTable(TABLE_BITS)) : null;
+        byte[] moves = new byte[GameRecord.MAX_MOVES];
+        Shard shard = null;
+        try (GameRecordReader reader = new GameRecordReader(archive, start, end)) {
+            while (true) {
+                long before = reader.getOffset();
+                try {
+                    if (!reader.next()) {
+                        break;
+                    }
+                } catch (IOException e) {
+                    if (reader.getOffset() == before) {
+                        throw e; // Cut short, the records after it cannot be found
+                    }
+                    result.skippedGames++; // Damaged moves or result
+                    continue;
+                }
+                int count = reader.getMoves(moves);
+                int recorded = reader.getResult();
+                if (recorded == GameRecord.UNFINISHED || !legal(moves, count)
+                        || GameRecord.resultOf(moves, count) != recorded) {
+                    result.skippedGames++;
+                    continue;
+                }
+                result.games++;
+                long xStones = 0;
+                long oStones = 0;
+                for (int i = 0; i < count; i++) {
+                    if (shard == null || shard.rows == rowsPerShard) {
+                        if (shard != null) {
+                            shard.close();
+                            result.shard(shard.name, shard.rows);
+                        }
+                        shard = new Shard(output, String.format("shard-%03d-%05d", part, result.shardNames.size()));
+                    }
+                    int side = i & 1;
+                    long current = side == 0 ? xStones : oStones;
+                    long mask = xStones | oStones;
+                    int score = 0;
+                    if (search != null) {
+                        search.search(current, mask, scoreDepth);
+                        score = search.getBestScore();
+                    }
+                    shard.add(xStones, oStones, side, i, moves[i], outcome(recorded, side), score);
+                    long bit = BitBoard.moveBit(mask, moves[i]);
+                    if (side == 0) {
+                        xStones |= bit;
+                    } else {
+                        oStones |= bit;
+                    }
+                }
+                result.rows += count;
+            }
+            if (shard != null) {
+                shard.close();
+                result.shard(shard.name, shard.rows);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    /**
+     * Checks that every move is a column of the board, none goes into a full column
+     * and none follows a win.
+     */
+    private static boolean legal(byte[] moves, int count) {
+        long current = 0;
+        long mask = 0;
+        for (int i = 0; i < count; i++) {
+            if (moves[i] < 0 || moves[i] >= BitBoard.WIDTH) {
+                return false; // moveBit would place it past the last column
+            }
+            long bit = BitBoard.moveBit(mask, moves[i]);
+            if (bit == 0 || i < count - 1 && BitBoard.isWin(current | bit)) {
+                return false;
+            }
+            mask |= bit;
+            current = (current | bit) ^ mask;
+        }
+        return true;
+    }
+
+    private static int outcome(int result, int side) {
+        if (result == GameRecord.DRAW) {
+            return 0;
+        }
+        return (result == GameRecord.X_WINS) == (side == 0) ? 1 : -1;
+    }
+
+    /**
+     * Writes the manifest under a temporary name and moves it into place.
+     */
+    private void writeManifest(Path output, Result result) throws IOException {
+        int columns = scoreDepth > 0 ? NAMES.length : SCORE;
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"format\": \"connect4-columns\",\n");
+        json.append("  \"version\": ").append(FORMAT_VERSION).append(",\n");
+        json.append("  \"byteOrder\": \"little\",\n");
+        json.append("  \"rows\": ").append(result.rows).append(",\n");
+        json.append("  \"games\": ").append(result.games).append(",\n");
+        json.append("  \"scoreDepth\": ").append(scoreDepth).append(",\n");
+        json.append("  \"columns\": [\n");
+        for (int c = 0; c < columns; c++) {
+            json.append("    {\"name\": \"").append(NAMES[c]).append("\", \"type\": \"").append(TYPES[c])
+                    .append("\", \"width\": ").append(WIDTHS[c]).append('}')
+                    .append(c < columns - 1 ? ",\n" : "\n");
+        }
+        json.append("  ],\n");
+        json.append("  \"shards\": [\n");
+        for (int s = 0; s < result.shardNames.size(); s++) {
+            json.append("    {\"name\": \"").append(result.shardNames.get(s)).append("\", \"rows\": ")
+                    .append(result.shardRows.get(s)).append('}')
+                    .append(s < result.shardNames.size() - 1 ? ",\n" : "\n");
+        }
+        json.append("  ]\n");
+        json.append("}\n");
+        Path temporary = output.resolve(MANIFEST + ".tmp");
+        Files.write(temporary, json.toString().getBytes(StandardCharsets.UTF_8));
+        Files.move(temporary, output.resolve(MANIFEST), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Gets the file of one column of a shard.
+     *
+     * @param output The export directory.
+     * @param shard  The shard name from the manifest.
+     * @param column The column name.
+     * @return The column file.
+     */
+    public static Path columnFile(Path output, String shard, String column) {
+        return output.resolve(shard + "." + column + ".bin");
+    }
+
+    /**
+     * The open column files of one shard, each filled through its own direct buffer.
+     */
+    private final class Shard implements Closeable {
+        private final String name;
+        private final FileChannel[] channels;
+        private final ByteBuffer[] buffers;
+        private int rows;
+
+        Shard(Path output, String name) throws IOException {
+            this.name = name;
+            int columns = scoreDepth > 0 ? NAMES.length : SCORE;
+            channels = new FileChannel[columns];
+            buffers = new ByteBuffer[columns];
+            for (int c = 0; c < columns; c++) {
+                channels[c] = FileChannel.open(columnFile(output, name, NAMES[c]), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                buffers[c] = ByteBuffer.allocateDirect(BUFFER_ROWS * WIDTHS[c]).order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+
+        void add(long x, long o, int side, int ply, int move, int outcome, int score) throws IOException {
+            if (!buffers[X].hasRemaining()) {
+                flush();
+            }
+            buffers[X].putLong(x);
+            buffers[O].putLong(o);
+            buffers[SIDE].put((byte) side);
+            buffers[PLY].put((byte) ply);
+            buffers[MOVE].put((byte) move);
+            buffers[OUTCOME].put((byte) outcome);
+            if (buffers.length > SCORE) {
+                buffers[SCORE].putInt(score);
+            }
+            rows++;
+        }
+
+        private void flush() throws IOException {
+            for (int c = 0; c < channels.length; c++) {
+                buffers[c].flip();
+                while (buffers[c].hasRemaining()) {
+                    channels[c].write(buffers[c]);
+                }
+                buffers[c].clear();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                for (FileChannel channel : channels) {
+                    channel.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts and shards of one range, or of several ranges after merging.
+     */
+    public static final class Result {
+        long games;
+        long skippedGames;
+        long rows;
+        private final List<String> shardNames = new ArrayList<>();
+        private final List<Integer> shardRows = new ArrayList<>();
+
+        void shard(String name, int rows) {
+            shardNames.add(name);
+            shardRows.add(rows);
+        }
+
+        /**
+         * Adds the counts and shards of a later range after this one.
+         *
+         * @param other The range to add.
+         * @return This object.
+         */
+        Result merge(Result other) {
+            games += other.games;
+            skippedGames += other.skippedGames;
+            rows += other.rows;
+            shardNames.addAll(other.shardNames);
+            shardRows.addAll(other.shardRows);
+            return this;
+        }
+
+        /**
+         * Gets the number of games exported.
+         *
+         * @return The game count.
+         */
+        public long getGames() {
+            return games;
+        }
+
+        /**
+         * Gets the number of unfinished or invalid games left out.
+         *
+         * @return The skipped game count.
+         */
+        public long getSkippedGames() {
+            return skippedGames;
+        }
+
+        /**
+         * Gets the number of rows written.
+         *
+         * @return The row count.
+         */
+        public long getRows() {
+            return rows;
+        }
+
+        /**
+         * Gets the number of shards written.
+         *
+         * @return The shard count.
+         */
+        public int getShards() {
+            return shardNames.size();
+        }
+    }
+
+    /**
+     * Main method to run the job.
+     * @param args The archive and output directory, then optional rows per shard and score depth.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: TrainingDataExporter <archive> <output dir> [rows per shard] [score depth]");
+            return;
+        }
+        int rowsPerShard = args.length > 2 ? Integer.parseInt(args[2]) : 1 << 22;
+        int scoreDepth = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+        long start = System.nanoTime();
+        Result result = new TrainingDataExporter(rowsPerShard, scoreDepth)
+                .run(Paths.get(args[0]), Paths.get(args[1]), Runtime.getRuntime().availableProcessors());
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Games: " + result.getGames() + ", skipped: " + result.getSkippedGames()
+                + ", rows: " + result.getRows() + " in " + result.getShards() + " shards, " + millis + " ms");
+    }
+}
@@ -11,7 +11,19 @@ package ui;
 
 import core.Connect4ComputerPlayer;
 import core.Connect4Logic;
-
+import core.ConnectKBoard;
+import core.ConnectKPlayer;
+import core.Difficulty;
+import core.EndgameBitbase;
+import core.GameClock;
+import core.SearchStats;
+import core.SmallBoardDatabase;
+import core.TimeControl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Scanner;
 
 
@@ -20,8 +32,11 @@ import java.util.Scanner;
  * It manages game initialization, user inputs, and game display.
  */
 public class Connect4TextConsole {
+    private static final int CLOCK_SEARCH_DEPTH = 42; // On a clock the bot searches until its time manager stops it
     private final Connect4Logic myLogic;  //Instance of Connect4Logic to manage game logic
     public Scanner scanner; //// Scanner object to read user input
+    private GameClock clock; // Null when the game is not timed
+    private Difficulty difficulty; // Level of the bot, null for the classic bot
 
 
     /**
@@ -48,16 +63,27 @@ public class Connect4TextConsole {
 
             if (input.equals("yes") || input.equals("no")) {
                 if (input.equals("yes")) {
+                    ConnectKBoard variant = chooseBoard();
+                    clock = chooseClock();
                     System.out.println("Do you want to play against a bot or another player?");
                     System.out.println("Type 'player' for a human opponent and 'bot' for a computer.");
                     String inputTwo = scanner.nextLine().trim().toLowerCase();
 
                     if (inputTwo.equals("player")) {
                         System.out.println("Okay starting game, Have fun!");
-                        playAgainstHuman();
+                        if (variant != null) {
+                            playVariant(variant, false);
+                        } else {
+                            playAgainstHuman();
+                        }
                     } else if (inputTwo.equals("bot")) {
                         System.out.println("Start the game against a bot");
-                        playAgainstComputer();
+                        if (variant != null) {
+                            playVariant(variant, true);
+                        } else {
+                            difficulty = chooseDifficulty();
+                            playAgainstComputer();
+                        }
                     } else {
                         System.out.println("This is not a valid input. You are supposed to type 'player' or 'bot'");
                         startGame();
@@ -78,6 +104,196 @@ public class Connect4TextConsole {
     }
 
 
+    /**
+     * Asks for the board to play on.
+     *
+     * @return A variant board, or null for standard Connect 4.
+     */
+    private ConnectKBoard chooseBoard() {
+        while (true) {
+            System.out.println("Press enter for standard Connect 4, or type columns x rows x K for a variant (e.g. 9x7x4, 10x10x5):");
+            String input = scanner.nextLine().trim().toLowerCase();
+            if (input.isEmpty()) {
+                return null;
+            }
+            String[] parts = input.split("\\s*x\\s*");
+            try {
+                if (parts.length != 3) {
+                    throw new IllegalArgumentException("Type three numbers separated by x");
+                }
+                return new ConnectKBoard(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]),
+                        Integer.parseInt(parts[2]));
+            } catch (NumberFormatException e) {
+                System.out.println(input + " is not a valid board. Type three numbers separated by x");
+            } catch (IllegalArgumentException e) {
+                System.out.println(input + " is not a valid board. " + e.getMessage());
+            }
+        }
+    }
+
+
+    /**
+     * Asks for the time control of the game.
+     *
+     * @return The game clock, or null for an untimed game.
+     */
+    private GameClock chooseClock() {
+        while (true) {
+            System.out.println("Press enter for no clock, or type a time control (e.g. 5 for 5 minutes each,"
+                    + " 3+2 for 3 minutes plus 2 seconds per move, 10s for 10 seconds per move):");
+            String input = scanner.nextLine().trim();
+            if (input.isEmpty()) {
+                return null;
+            }
+            try {
+                return new GameClock(TimeControl.parse(input));
+            } catch (IllegalArgumentException e) {
+                System.out.println(e.getMessage() + ". Try again");
+            }
+        }
+    }
+
+
+    /**
+     * Asks for the level of the bot.
+     *
+     * @return The level, or null for the classic bot.
+     */
+    private Difficulty chooseDifficulty() {
+        while (true) {
+            System.out.println("Press enter for the classic bot, or choose a level:"
+                    + " beginner, easy, medium, hard or expert");
+            String input = scanner.nextLine().trim();
+            if (input.isEmpty()) {
+                return null;
+            }
+            try {
+                return Difficulty.parse(input);
+            } catch (IllegalArgumentException e) {
+                System.out.println(e.getMessage() + ". Try again");
+            }
+        }
+    }
+
+
+    /**
+     * Starts the clock of the player to move, unless it is already running
+     * because their last try was a full column.
+     *
+     * @param player The player to move.
+     */
+    private void startClock(char player) {
+        if (clock != null && !clock.isRunning()) {
+            System.out.println(clock);
+            clock.start(player);
+        }
+    }
+
+
+    /**
+     * Stops the clock once a move is made.
+     *
+     * @return True if the move was made in time or the game is untimed, false if the player flagged.
+     */
+    private boolean stopClock() {
+        return clock == null || clock.stop();
+    }
+
+
+    /**
+     * Opens the endgame bitbase if one lies in the working directory.
+     *
+     * @return The bitbase, or null if there is none.
+     */
+    private EndgameBitbase endgameBitbase() {
+        Path path = Paths.get(EndgameBitbase.FILE_NAME);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            return EndgameBitbase.open(path);
+        } catch (IOException e) {
+            System.out.println("Cannot read " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Opens the solved database of a small board if one lies in the working directory.
+     *
+     * @param board The variant board.
+     * @return The database, or null if there is none.
+     */
+    private SmallBoardDatabase smallBoardDatabase(ConnectKBoard board) {
+        Path path = Paths.get(SmallBoardDatabase.fileName(board.getWidth(), board.getHeight()));
+        if (board.getK() != 4 || !Files.exists(path)) {
+            return null;
+        }
+        try {
+            SmallBoardDatabase database = SmallBoardDatabase.open(path);
+            System.out.println("The computer plays this board perfectly");
+            return database;
+        } catch (IOException e) {
+            System.out.println("Cannot read " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Plays a Connect K variant until a win or draw, against another player or the bot.
+     *
+     * @param board The empty variant board.
+     * @param vsBot True to play against the computer, which plays O.
+     */
+    private void playVariant(ConnectKBoard board, boolean vsBot) {
+        try {
+            ConnectKPlayer computerPlayer = new ConnectKPlayer('O', vsBot ? smallBoardDatabase(board) : null);
+            System.out.println("Connect " + board.getK() + " on " + board.getWidth() + " by " + board.getHeight());
+            while (true) {
+                display(board.getBoard());
+                startClock(board.getSelectedPlayer());
+                if (vsBot && board.getSelectedPlayer() == 'O') {
+                    int column = computerPlayer.comMove(board);
+                    board.playerMove(column);
+                    System.out.println("Computer chose column " + column);
+                } else {
+                    int column = getPlayerMove(board.getSelectedPlayer(), board.getWidth());
+                    if (!board.playerMove(column)) {
+                        System.out.println("Column is full, please choose another column.");
+                        continue;
+                    }
+                }
+                if (!stopClock()) {
+                    display(board.getBoard());
+                    System.out.println("Player " + board.getSelectedPlayer() + " ran out of time. Player "
+                            + (board.getSelectedPlayer() == 'X' ? 'O' : 'X') + " wins!");
+                    break;
+                }
+                if (board.winChecker()) {
+                    display(board.getBoard());
+                    if (vsBot && board.getSelectedPlayer() == 'O') {
+                        System.out.println("Computer wins!");
+                    } else {
+                        System.out.println("Player " + board.getSelectedPlayer() + " wins!");
+                    }
+                    break;
+                }
+                if (board.boardChecker()) {
+                    display(board.getBoard());
+                    System.out.println("It's a draw!");
+                    break;
+                }
+                board.playerSwitcher();
+            }
+        } catch (Exception e) {
+            System.err.println("An error occurred: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            scanner.close();
+        }
+    }
+
+
     /**
      * Initiates the game play loop, allowing players to take turns until a
      * win or draw occurs.
@@ -85,20 +301,27 @@ public class Connect4TextConsole {
     private void playAgainstHuman() {
         try {
             while (true) {
-                display();
-                int column = getPlayerMove();
+                display(myLogic.getBoard());
+                startClock(myLogic.getSelectedPlayer());
+                int column = getPlayerMove(myLogic.getSelectedPlayer(), myLogic.COL);
 
                 if (!myLogic.playerMove(column)) {
                     System.out.println("Column is full, please choose another column.");
                     continue;
                 }
+                if (!stopClock()) {
+                    flagged();
+                    break;
+                }
                 if (myLogic.winChecker()) {
-                    display();
+                    myLogic.endGame(myLogic.getSelectedPlayer());
+                    display(myLogic.getBoard());
                     System.out.println("Player " + myLogic.getSelectedPlayer() + " wins!");
                     break;
                 }
                 if (myLogic.boardChecker()) {
-                    display();
+                    myLogic.endGame(' ');
+                    display(myLogic.getBoard());
                     System.out.println("It's a draw!");
                     break;
                 }
@@ -115,25 +338,33 @@ public class Connect4TextConsole {
 
     private void playAgainstComputer() {
         try {
-            Connect4ComputerPlayer computerPlayer = new Connect4ComputerPlayer('O');
+            Connect4ComputerPlayer computerPlayer = difficulty != null ? new Connect4ComputerPlayer('O', difficulty)
+                    : new Connect4ComputerPlayer('O', clock == null ? 0 : CLOCK_SEARCH_DEPTH);
+            computerPlayer.setBitbase(endgameBitbase());
 
             while (true) {
-                display();
+                display(myLogic.getBoard());
+                startClock(myLogic.getSelectedPlayer());
 
                 if (myLogic.getSelectedPlayer() == 'X') {
-                    int column = getPlayerMove();
+                    int column = getPlayerMove(myLogic.getSelectedPlayer(), myLogic.COL);
                     if (!myLogic.playerMove(column)) {
                         System.out.println("Column is full, please choose another column.");
                         continue;
                     }
                 } else {
-                    int column = computerPlayer.comMove(myLogic.getBoard());
+                    int column = computerPlayer.comMove(myLogic.getBoard(), clock);
                     myLogic.playerMove(column);
                     System.out.println("Computer chose column " + column);
                 }
+                if (!stopClock()) {
+                    flagged();
+                    break;
+                }
 
                 if (myLogic.winChecker()) {
-                    display();
+                    myLogic.endGame(myLogic.getSelectedPlayer());
+                    display(myLogic.getBoard());
                     if (myLogic.getSelectedPlayer() == 'X') {
                         System.out.println("Player X wins!");
                     } else {
@@ -143,7 +374,8 @@ public class Connect4TextConsole {
                 }
 
                 if (myLogic.boardChecker()) {
-                    display();
+                    myLogic.endGame(' ');
+                    display(myLogic.getBoard());
                     System.out.println("It's a draw!");
                     break;
                 }
@@ -159,13 +391,30 @@ public class Connect4TextConsole {
     }
 
 
+    /**
+     * Ends a standard game lost on time by the player to move.
+     */
+    private void flagged() {
+        char loser = myLogic.getSelectedPlayer();
+        char winner = loser == 'X' ? 'O' : 'X';
+        myLogic.endGame(winner);
+        display(myLogic.getBoard());
+        System.out.println("Player " + loser + " ran out of time. Player " + winner + " wins!");
+    }
+
+
     /**
      * Displays the current state of the game board.
+     *
+     * @param board The board to show, top row first.
      */
-    private void display() {
+    private void display(char[][] board) {
         try {
-            char[][] board = myLogic.getBoard();
-            System.out.println("  1   2   3   4   5   6   7");
+            StringBuilder header = new StringBuilder();
+            for (int col = 1; col <= board[0].length; col++) {
+                header.append(String.format("%3d ", col));
+            }
+            System.out.println(header.toString().stripTrailing());
 
             for (char[] chars : board) {
                 for (int j = 0; j < chars.length; j++) {
@@ -184,22 +433,38 @@ public class Connect4TextConsole {
     }
 
 
+    /**
+     * Displays what the computer player has done so far: move times,
+     * positions searched and the last move. Typed as 'stats' instead of a column.
+     */
+    private void displayStats() {
+        System.out.println(SearchStats.global());
+    }
+
+
     /**
      * Gets the column number from the player for their move.
+     * @param player  The symbol of the player to move.
+     * @param columns The number of columns on the board.
      * @return The column number chosen by the player.
      */
-    private int getPlayerMove() {
+    private int getPlayerMove(char player, int columns) {
         int column;
         while (true) {
-            System.out.println("Player " + myLogic.getSelectedPlayer() + ", enter column number (1-7):");
+            System.out.println("Player " + player + ", enter column number (1-" + columns + "):");
             try {
-                column = Integer.parseInt(scanner.nextLine());
-                if (column < 1 || column > 7) {
+                String input = scanner.nextLine();
+                if (input.trim().equalsIgnoreCase("stats")) {
+                    displayStats();
+                    continue;
+                }
+                column = Integer.parseInt(input);
+                if (column < 1 || column > columns) {
                     throw new NumberFormatException();
                 }
                 break;
             } catch (NumberFormatException e) {
-                System.out.println("Invalid input. Please enter a number between 1 and 7.");
+                System.out.println("Invalid input. Please enter a number between 1 and " + columns + ".");
             }
         }
         return column;